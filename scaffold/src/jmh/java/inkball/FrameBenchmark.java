@@ -0,0 +1,86 @@
+package inkball;
+
+import org.openjdk.jmh.annotations.*;
+import processing.core.PImage;
+
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures one frame of App::drawAll, which runs one simulation tick and draws every ball,
+ * for different numbers of balls and static line segments.<br>
+ *
+ * Note: The board only has borders and extra segments, with no walls or holes, so nothing breaks and nothing
+ * is captured, and every frame does the same amount of work. Drawing goes to a no-op image(), like AllocationTest,
+ * so only the game's own work is measured. The clock is replaced with one that asks for exactly one tick per frame.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class FrameBenchmark {
+    @Param({"10", "100", "1000"})
+    public int ballCount;
+
+    @Param({"0", "100", "1000"})
+    public int segmentCount;
+
+    private App app;
+    private int oldTimeLimit;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        this.app = new App() {
+            @Override
+            public void image(PImage img, float a, float b, float c, float d) {
+                // No renderer in benchmarks
+            }
+        };
+        for (int i = 0; i <= 4; i++) {
+            this.app.atlas.set(Sprite.ball(i), new PImage(1, 1));
+        }
+        this.app.clock = new SimulationClock(App.FPS) {
+            @Override
+            public int advance(long now) {
+                return 1;
+            }
+        };
+
+        GameWorld world = this.app.getWorld();
+        world.configure(null, 1);
+        world.createBoard((App.HEIGHT - App.TOPBAR) / App.CELLHEIGHT, App.WIDTH / App.CELLSIZE);
+        world.setLayout(new ArrayList<>()); // Borders only
+
+        Random random = new Random(42); // Same segments and balls every run
+        for (int i = 0; i < this.segmentCount; i++) {
+            float x = App.CELLSIZE + random.nextFloat() * (App.WIDTH - 3 * App.CELLSIZE);
+            float y = App.TOPBAR + App.CELLSIZE + random.nextFloat() * (App.HEIGHT - App.TOPBAR - 3 * App.CELLSIZE);
+            double angle = random.nextDouble() * Math.PI;
+            Line line = new Line(new float[] {x, y}, new float[] {x + 16 * (float) Math.cos(angle), y + 16 * (float) Math.sin(angle)}, random.nextInt(5), false);
+            world.addSegment(line);
+        }
+        for (int i = 0; i < this.ballCount; i++) {
+            Ball ball = new Ball(App.CELLSIZE + random.nextFloat() * (App.WIDTH - 3 * App.CELLSIZE),
+                    App.TOPBAR + App.CELLSIZE + random.nextFloat() * (App.HEIGHT - App.TOPBAR - 3 * App.CELLSIZE), i % 5, random);
+            ball.setVector(new float[] {random.nextFloat() * 4 - 2, random.nextFloat() * 4 - 2});
+            world.addBall(ball);
+        }
+
+        this.oldTimeLimit = App.timeLimit;
+        App.timeLimit = Integer.MAX_VALUE / App.FPS; // Never runs out
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        App.timeLimit = this.oldTimeLimit;
+    }
+
+    @Benchmark
+    public int drawAll() {
+        this.app.drawAll();
+        return this.app.getWorld().getBalls().size();
+    }
+}
@@ -0,0 +1,60 @@
+package inkball;
+
+import org.openjdk.jmh.annotations.*;
+import processing.core.PApplet;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures loading a level: reading the layout file with App::getFileContents,
+ * and building the board, walls, holes and segments with App::setLayout.
+ * parseLarge reads a generated 500 by 500 layout, to show the parser on stress levels.<br>
+ *
+ * Note: Reads config.json and level1.txt from the working directory, which the jmh task sets to the project directory.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class LayoutBenchmark {
+    private App app;
+    private byte[] large;
+
+    @Setup
+    public void setUp() {
+        this.app = new App();
+        this.app.json = PApplet.loadJSONObject(new File(this.app.configPath));
+        App.gameLevel = 1;
+        if (this.app.getFileContents() == null) {
+            throw new IllegalStateException("Layout of level 1 not found, run from the project directory!");
+        }
+
+        LevelGenerator generator = new LevelGenerator(1);
+        generator.setSize(500, 500);
+        this.large = (String.join("\n", generator.generateLayout()) + "\n").getBytes(StandardCharsets.US_ASCII);
+    }
+
+    @Benchmark
+    public LayoutGrid getFileContents() {
+        return this.app.getFileContents();
+    }
+
+    @Benchmark
+    public LayoutGrid parseLarge() throws IOException {
+        return LayoutParser.parse(ByteBuffer.wrap(this.large), "generated");
+    }
+
+    @Benchmark
+    public GameWorld setLayout() {
+        this.app.world = new GameWorld();
+        this.app.world.createBoard((App.HEIGHT - App.TOPBAR) / App.CELLHEIGHT, App.WIDTH / App.CELLSIZE);
+        this.app.setLayout();
+        return this.app.world;
+    }
+}
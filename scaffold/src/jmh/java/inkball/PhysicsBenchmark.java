@@ -0,0 +1,94 @@
+package inkball;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the per-ball collision and attraction maths that runs for every ball, every tick.<br>
+ *
+ * Note: Results are returned so that the JIT cannot remove the work. Methods which allocate
+ * (setNewDirection, getAttractionVector(Hole), getDistance(float[], float[])) are measured next to their
+ * allocation-free variants, so the GC profiler shows the difference.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PhysicsBenchmark {
+    private Ball ball;
+    private final float[] startVector = new float[] {2, 2};
+
+    /**
+     * Represents a line the ball's look-ahead point hits.
+     */
+    private Line hitLine;
+
+    /**
+     * Represents a line far from the ball, the common case when testing candidate segments.
+     */
+    private Line missLine;
+
+    private Hole hole;
+    private final float[] collisionPoint = new float[2];
+    private final float[] attraction = new float[2];
+    private final float[] p1 = new float[] {112, 112};
+    private final float[] p2 = new float[] {240, 176};
+
+    @Setup
+    public void setUp() {
+        this.ball = new Ball(100, 100, 0, new Random(1)); // Centre at (112, 112), look-ahead at (114, 114)
+        this.ball.setVector(this.startVector);
+        this.hitLine = new Line(new float[] {100, 118}, new float[] {130, 118}, 2, true);
+        this.missLine = new Line(new float[] {300, 400}, new float[] {340, 400}, 2, true);
+        this.hole = new Hole(5, 5, 0, Hole.GridPosition.TL);
+
+        if (!this.ball.willCollide(this.hitLine, this.collisionPoint) || this.ball.willCollide(this.missLine, this.collisionPoint)) {
+            throw new IllegalStateException("Benchmark lines do not hit and miss as expected!");
+        }
+    }
+
+    @Benchmark
+    public boolean willCollideHit() {
+        return this.ball.willCollide(this.hitLine, this.collisionPoint);
+    }
+
+    @Benchmark
+    public boolean willCollideMiss() {
+        return this.ball.willCollide(this.missLine, this.collisionPoint);
+    }
+
+    @Benchmark
+    public boolean willCollideStatic() {
+        return Ball.willCollide(114, 114, this.hitLine, this.collisionPoint);
+    }
+
+    @Benchmark
+    public float[] setNewDirection() {
+        this.ball.setVector(this.startVector); // setNewDirection replaces the vector, it never changes this array
+        return this.ball.setNewDirection(this.hitLine);
+    }
+
+    @Benchmark
+    public float[] getAttractionVector() {
+        return this.ball.getAttractionVector(this.hole);
+    }
+
+    @Benchmark
+    public boolean getAttractionVectorStatic() {
+        return Ball.getAttractionVector(112, 112, this.hole.getHoleCenterX(), this.hole.getHoleCenterY(), this.attraction);
+    }
+
+    @Benchmark
+    public double getDistancePoints() {
+        return App.getDistance(this.p1, this.p2);
+    }
+
+    @Benchmark
+    public double getDistanceCoordinates() {
+        return App.getDistance(this.p1[0], this.p1[1], this.p2[0], this.p2[1]);
+    }
+}
@@ -3,10 +3,8 @@ package inkball;
 import processing.core.PApplet;
 import processing.core.PImage;
 import processing.data.JSONObject;
-import processing.data.JSONArray;
 import processing.event.KeyEvent;
 import processing.event.MouseEvent;
-import com.google.gson.Gson;
 
 import java.util.*;
 import java.lang.*;
@@ -39,6 +37,28 @@ public class App extends PApplet {
 
     public static final int FPS = 30;
 
+    /**
+     * Represents the file saved to with 's', see saveGame.
+     */
+    public static final String SAVE_FILE = "save.iks";
+
+    /**
+     * Represents the file saved to periodically, see autosave.
+     */
+    public static final String AUTOSAVE_FILE = "autosave.iks";
+
+    /**
+     * Represents the default time between autosaves, used if the configuration has no top-level "autosave_interval".
+     * Unit in seconds.
+     */
+    public static final int DEFAULT_AUTOSAVE_INTERVAL = 30;
+
+    /**
+     * Represents the default stroke simplification tolerance, used if the configuration has no top-level
+     * "stroke_tolerance". Unit in pixels, see StrokeSimplifier.
+     */
+    public static final float DEFAULT_STROKE_TOLERANCE = 1.5f;
+
     public String configPath;
     public JSONObject json;
 
@@ -61,12 +81,6 @@ public class App extends PApplet {
     protected static int timeLimit = 0;
     protected static int lastSecond = 0;
 
-    /**
-     * Represents the working score of the current game session.
-     * This gets reset to 0 when the game is restarted.
-     */
-    static double scoreTemp = 0.0d;
-
     /**
      * Represents the score accumulated from finished levels.
      * This does not get reset to 0 whem the game is restarted.
@@ -74,81 +88,114 @@ public class App extends PApplet {
     private static double scoreFinal = 0.0d;
 
     /**
-     * Represents a HashMap which contains the score to be added for one correct ball capture, according to colour.
+     * Represents the current timer, relative to the spawn interval.
      */
-    HashMap<String, Integer> scoreIncrease = new HashMap<>();
+    protected static float ballTimer = 1.0f;
 
+    protected static boolean ctrlPressed = false;
+    protected static boolean isDrawing = false;
 
     /**
-     * Represents a HashMap which contains the score to be added for one incorrect ball capture, according to colour.
+     * Contains the starting coordinates of a mouse press/drag.
+     * For line-drawing and line-grouping logic.
      */
-    HashMap<String, Integer> scoreDecrease = new HashMap<>();
-
+    protected float[] start = new float[2];
 
     /**
-     * Represents multiplier for every correct ball capture.
+     * Contains the ending coordinates of a mouse press/drag.
+     * For line-drawing and line-grouping logic.
      */
-    float modScoreIncrease = 1; // package-private for testing
+    protected float[] end = new float[2];
 
     /**
-     * Represents multiplier for every incorrect ball capture.
+     * Marks the frame at which the last line was drawn at.
      */
-    float modScoreDecrease = 1;
+    protected int lastLine = 0;
 
     /**
-     * Represents the interval at which balls in the queue are spawned at. Unit in seconds.
-     * Does not change throughout the game
+     * Represents the simulation of the current level. Holds the board, balls, lines, ball queue and score.
      */
-    protected int spawnInterval = 0;
+    protected GameWorld world = new GameWorld();
 
     /**
-     * Represents balls that are yet to be released into the game board.
+     * Decides how many world ticks to run each frame, so the simulation runs at the world's
+     * tick rate independent of the frame rate.
      */
-    Ball[] ballQueue; // package-private for testing and because it is meant to be changed
-    protected int maxBallQueue;
+    protected SimulationClock clock = new SimulationClock(FPS);
 
     /**
-     * Represents the current timer, relative to the spawn interval.
+     * Holds the board tiles drawn into an offscreen layer, so each frame draws one image instead of every tile.
+     * Only tiles the world marks as changed are redrawn into it.
      */
-    protected static float ballTimer = 1.0f;
+    protected BoardLayer boardLayer = new BoardLayer();
 
-    protected static boolean ctrlPressed = false;
-    protected static boolean isDrawing = false;
+    /**
+     * Holds a retained shape for each finished stroke, so each stroke is drawn with one call instead of one per segment.
+     */
+    protected StrokeLayer strokeLayer = new StrokeLayer();
 
     /**
-     * Contains the starting coordinates of a mouse press/drag.
-     * For line-drawing and line-grouping logic.
+     * Times each phase of draw(). Its overlay is toggled with 'f' and its histograms are exported with 'e'.
      */
-    protected float[] start = new float[2];
+    protected FrameProfiler profiler = new FrameProfiler();
 
     /**
-     * Contains the ending coordinates of a mouse press/drag.
-     * For line-drawing and line-grouping logic.
+     * Publishes the world's counts over JMX, and over HTTP if the configuration sets the top-level "metrics_port".
+     * Sampled once every frame by draw().
      */
-    protected float[] end = new float[2];
+    protected GameMetrics metrics = new GameMetrics();
 
-    private final static int mouseRadius = 5;
+    /**
+     * Records the inputs of the session to a replay if the configuration sets the top-level "replay_dir",
+     * see ReplayRecorder. Null when no replay is recorded.
+     */
+    protected ReplayRecorder recorder;
 
     /**
-     * Marks the frame at which the last line was drawn at.
+     * Represents the random source of the session, giving every level's world its seed.
+     * Created by the first setup from {@code --seed} or the configuration's top-level "seed", see SeedSource::create.
      */
-    protected int lastLine = 0;
+    protected SeedSource seeds;
 
-    protected Tile[][] board;
-    protected ArrayList<Ball> balls = new ArrayList<>();
-    protected ArrayList<Wall> walls = new ArrayList<>();
-    protected ArrayList<Line> allLines = new ArrayList<>();
-    protected ArrayList<ArrayList<Line>> drawnLines = new ArrayList<>();
+    /**
+     * Represents the number of world ticks run in the current frame, recorded with the frame.
+     */
+    protected int frameTicks = 0;
 
     /**
      * Represents the line that is currently being drawn.
-     * Elements are added to other line collections, then cleared when the mouse is released.
+     * Elements are moved to the world's drawn lines when the mouse is released.
      */
     protected ArrayList<ArrayList<Line>> tempLines = new ArrayList<>();
-    protected ArrayList<Spawner> spawners = new ArrayList<>();
-    protected ArrayList<Hole> holes = new ArrayList<>();
     protected HashMap<String, PImage> sprites = new HashMap<>();
 
+    /**
+     * Represents the sprites cut out of the sprite sheet, see Sprite. Loaded by setup().
+     */
+    protected SpriteAtlas atlas = new SpriteAtlas();
+
+    /**
+     * Represents the layout of the current level, as read by setLayout. Saved with the game, see SaveState.
+     */
+    protected LayoutGrid layout;
+
+    /**
+     * Writes saved games off the animation thread.
+     */
+    protected SaveWriter saveWriter = new SaveWriter();
+
+    /**
+     * Represents the number of frames between autosaves, 0 to not autosave.
+     * Set from the configuration's top-level "autosave_interval" (in seconds) when not testing.
+     */
+    protected int autosaveFrames = 0;
+
+    /**
+     * Represents how far, in pixels, a finished stroke may be moved when it is simplified, 0 to not simplify.
+     * Set from the configuration's top-level "stroke_tolerance".
+     */
+    protected float strokeTolerance = DEFAULT_STROKE_TOLERANCE;
+
     /**
      * Coordinates of the first tile that makes up the game win spiral animation.
      */
@@ -175,35 +222,37 @@ public class App extends PApplet {
         return result;
     }
 
-    public Tile[][] getBoard() {
-        return this.board;
-    }
-
     /**
-     * @return ArrayList corresponding to one continuous line
+     * Gets a sprite from the sprite atlas, cutting the sprite sheet into the atlas first if it has not been.
+     * @param sprite The sprite to get.
+     * @return PImage object of the sprite
      */
-    public ArrayList<Line> getLineSegments() {
-        return this.allLines;
-    }
-
-    public ArrayList<Ball> getBalls() {
-        return this.balls;
+    public PImage getSprite(Sprite sprite) {
+        PImage result = this.atlas.get(sprite);
+        if (result == null) {
+            this.atlas.load(this.getSprite("inkball_spritesheet"));
+            result = this.atlas.get(sprite);
+        }
+        return result;
     }
 
-    public HashMap<String, Integer> getScoreIncrease() {
-        return this.scoreIncrease;
+    public GameWorld getWorld() {
+        return this.world;
     }
 
-    public HashMap<String, Integer> getScoreDecrease() {
-        return this.scoreDecrease;
+    public Tile[][] getBoard() {
+        return this.world.getBoard();
     }
 
-    public float getModScoreIncrease() {
-        return this.modScoreIncrease;
+    /**
+     * @return ArrayList of every wall and border line segment
+     */
+    public ArrayList<Line> getLineSegments() {
+        return this.world.getLineSegments();
     }
 
-    public float getModScoreDecrease() {
-        return this.modScoreDecrease;
+    public ArrayList<Ball> getBalls() {
+        return this.world.getBalls();
     }
 
     /**
@@ -225,6 +274,9 @@ public class App extends PApplet {
      *   <li>Loads necessary sprite resources.</li>
      *   <li>Creates the game board.</li>
      *   <li>Sets up the initial ball queue based on configuration.</li>
+     *   <li>Publishes the game metrics the first time, see startMetrics.</li>
+     *   <li>Starts recording a replay the first time, see startRecording.</li>
+     *   <li>Seeds the world from the session's SeedSource, created the first time. The seed is recorded with the level.</li>
      * </ol>
      */
 	@Override
@@ -232,9 +284,27 @@ public class App extends PApplet {
         if (!isTesting) {
             frameRate(FPS);
             this.json = loadJSONObject(configPath);
+            this.startMetrics();
+            this.startRecording();
+            try {
+                this.autosaveFrames = this.json.getInt("autosave_interval", DEFAULT_AUTOSAVE_INTERVAL) * FPS;
+            }
+            catch (Exception e) {
+                this.autosaveFrames = DEFAULT_AUTOSAVE_INTERVAL * FPS;
+            }
         }
+        this.strokeTolerance = readStrokeTolerance(this.json);
         this.gameState = GameState.PLAYING;
 
+        if (this.seeds == null) {
+            this.seeds = SeedSource.create(this.json, this.args);
+            if (!isTesting) {
+                System.out.println("Seed: " + this.seeds.getSeed());
+            }
+        }
+        long seed = this.seeds.nextSeed();
+        this.world.setSeed(seed);
+
         try {
             maxLevel = this.json.getJSONArray("levels").size();
         }
@@ -242,133 +312,129 @@ public class App extends PApplet {
             maxLevel = 1;
         }
 
-        try {
-            timeLimit = this.json.getJSONArray("levels").getJSONObject(gameLevel - 1).getInt("time");
-        }
-        catch (Exception e) {
-            timeLimit = 0;
-        }
+        this.world.configure(this.json, gameLevel);
 
-        if (timeLimit <= 0) {
-            timeLimit = 0;
-        }
+        this.clock = new SimulationClock(this.world.getTickRate());
 
+        timeLimit = this.world.getTimeLimit();
         timeLimit += lastSecond; // add any remaining time
         lastSecond = timeLimit; //in seconds
 
-        try {
-            this.spawnInterval = this.json.getJSONArray("levels").getJSONObject(gameLevel - 1).getInt("spawn_interval");
-        }
-        catch (Exception e) {
-            this.spawnInterval = 1;
-        }
+        // Get all sprites: cuts the sprite sheet into the atlas once
+        this.getSprite(Sprite.TILE);
 
-        try {
-            this.modScoreIncrease = this.json.getJSONArray("levels").getJSONObject(gameLevel - 1).getFloat("score_increase_from_hole_capture_modifier");
+        // Create board
+        this.world.createBoard((HEIGHT - TOPBAR)/CELLHEIGHT, WIDTH/CELLSIZE);
+
+        // Get layout
+        this.setLayout();
+
+        // ADD BALL QUEUE
+        this.world.loadBallQueue(this.json, gameLevel);
+
+        if (this.recorder != null) {
+            this.recorder.recordLevel(gameLevel, seed, timeLimit, lastSecond, ballTimer, this.world.getScore(),
+                    this.layout);
         }
-        catch (Exception e) {
-            this.modScoreIncrease = 1; // Default value is no multiplier
+    }
+
+    /**
+     * Registers the game metrics over JMX, and serves them on localhost at the top-level "metrics_port" of the
+     * configuration if it is set. Does nothing if the metrics are already published, e.g. on restart.
+     * A port that cannot be bound is reported and the game runs without the HTTP endpoint.
+     */
+    public void startMetrics() {
+        if (this.metrics.isRegistered()) {
+            return;
         }
+        this.metrics.register();
 
+        int port;
         try {
-            this.modScoreDecrease = this.json.getJSONArray("levels").getJSONObject(gameLevel - 1).getFloat("score_decrease_from_wrong_hole_modifier");
+            port = this.json.getInt("metrics_port", 0);
         }
         catch (Exception e) {
-            this.modScoreDecrease = 1; // Default value is no multiplier
+            port = 0;
+        }
+        if (port <= 0) {
+            return;
         }
-
-        JSONObject scoreIncJSON = new JSONObject();
         try {
-            scoreIncJSON = this.json.getJSONObject("score_increase_from_hole_capture");
+            this.metrics.startServer(port);
+            System.out.println("Metrics at http://localhost:" + port + "/metrics");
         }
-        catch (Exception e) {
-            scoreIncJSON.put("grey", 50); // Set defaults
-            scoreIncJSON.put("orange", 50);
-            scoreIncJSON.put("blue", 50);
-            scoreIncJSON.put("green", 50);
-            scoreIncJSON.put("yellow", 50);
+        catch (IOException | IllegalArgumentException e) {
+            System.err.println("Could not serve metrics on port " + port + ": " + e.getMessage());
         }
+    }
 
-        for (Object key : scoreIncJSON.keys()) {
-            String keyStr = (String) key;
-            Integer scoreInc = scoreIncJSON.getInt(keyStr);
-            scoreIncrease.put(keyStr, scoreInc);
+    /**
+     * Starts recording a replay into the top-level "replay_dir" of the configuration if it is set.
+     * Does nothing if a replay is already being recorded, e.g. on restart.
+     * A replay that cannot be created is reported and the game runs without recording.
+     */
+    public void startRecording() {
+        if (this.recorder != null) {
+            return;
         }
 
-        JSONObject scoreDecJSON = new JSONObject();
+        String directory;
         try {
-            scoreDecJSON = this.json.getJSONObject("score_decrease_from_wrong_hole");
+            directory = this.json.getString("replay_dir", null);
         }
-        catch (Exception e){
-            scoreDecJSON.put("grey", 25); // Set defaults
-            scoreDecJSON.put("orange", 25);
-            scoreDecJSON.put("blue", 25);
-            scoreDecJSON.put("green", 25);
-            scoreDecJSON.put("yellow", 25);
+        catch (Exception e) {
+            directory = null;
         }
-
-        for (Object key : scoreIncJSON.keys()) {
-            String keyStr = (String) key;
-            Integer scoreInc = scoreDecJSON.getInt(keyStr);
-            scoreDecrease.put(keyStr, scoreInc);
+        if (directory == null || directory.isEmpty()) {
+            return;
         }
-
-        
-        // Get all sprites
-        String[] sprites = new String[] {
-                "entrypoint",
-                "inkball_spritesheet",
-                "tile"
-        };
-
-        for (String sprite : sprites) {
-            this.getSprite(sprite);
+        File file = new File(directory, "replay-" + System.currentTimeMillis() + ".ikr");
+        try {
+            file.getAbsoluteFile().getParentFile().mkdirs();
+            this.recorder = new ReplayRecorder(file, this.json.format(-1));
+            System.out.println("Recording replay to " + file.getAbsolutePath());
         }
-
-        for (int i = 0; i <= 4; i++) {
-            this.getSprite("ball"+i);
-            this.getSprite("hole"+i);
-            this.getSprite("wall"+i);
-            this.getSprite("wall"+i+"-damaged");
+        catch (IOException e) {
+            System.err.println("Could not record replay to " + file.getPath() + ": " + e.getMessage());
         }
-        //
-
-        // Create board
-        this.board = new Tile[(HEIGHT - TOPBAR)/CELLHEIGHT][WIDTH/CELLSIZE];
-
-        // Get layout
-        this.setLayout();
+    }
 
-        // ADD BALL QUEUE
-        JSONArray ballsJSON = new JSONArray();
+    /**
+     * Finishes the replay being recorded, if any, see ReplayRecorder::close.
+     */
+    public void stopRecording() {
+        if (this.recorder == null) {
+            return;
+        }
         try {
-            ballsJSON = this.json.getJSONArray("levels").getJSONObject(gameLevel - 1).getJSONArray("balls");
+            this.recorder.close();
         }
-        catch (Exception e) {
-            List<String> balls = Arrays.asList("grey", "grey", "grey", "grey", "grey");
-            Gson gson = new Gson();
-            ballsJSON = JSONArray.parse(gson.toJson(balls));
+        catch (IOException e) {
+            System.err.println("Could not write replay: " + e.getMessage());
         }
+        this.recorder = null;
+    }
 
-        this.maxBallQueue = ballsJSON.size() + this.balls.size();
-
-        this.ballQueue = new Ball[this.maxBallQueue];
-
-        for (int i = 0; i < ballsJSON.size(); i++) {
-            int colour = this.colourToInt(ballsJSON.getString(i));
-            this.ballQueue[i] = new Ball(19 + 28 * i, 21, colour);
-        }
+    /**
+     * Finishes the replay being recorded and the save being written when the sketch is closed.
+     */
+    @Override
+    public void dispose() {
+        this.stopRecording();
+        this.saveWriter.close();
+        super.dispose();
     }
 
     /**
      * Gets the layout file from the JSONObject json.
      *
-     * @return the contents of the file in nested ArrayList of strings (if layout file exists), null otherwise.<br>
+     * @return the layout read by LayoutParser (if layout file exists and is a valid layout), null otherwise.
+     * Errors in the layout are printed with their line and column.<br>
      *
      * Note: When testing, a dummy file is created instead with the name "for-texting.txt".
      * This file is deleted at the end of the method call.
      */
-    public ArrayList<ArrayList<String>> getFileContents() {
+    public LayoutGrid getFileContents() {
         File JSONfile = null;
         try {
             JSONfile = new File(this.json.getJSONArray("levels").getJSONObject(gameLevel - 1).getString("layout"));
@@ -378,16 +444,7 @@ public class App extends PApplet {
             if (!this.isTesting) return null;
         }
 
-        Scanner scan = null;
-        if (!this.isTesting) {
-            try {
-                scan = new Scanner(JSONfile);
-            } catch (FileNotFoundException e) {
-                if (!this.isTesting) return null;
-            }
-        }
-
-        else {
+        if (this.isTesting) {
             JSONfile = new File("for-testing.txt");
             try {
                 JSONfile.createNewFile();
@@ -410,63 +467,31 @@ public class App extends PApplet {
                 return null;
             }
             JSONfile = new File("for-testing.txt");
-            try {
-                scan = new Scanner(JSONfile);
-            }
-            catch (FileNotFoundException e) {
-                return null;
-            }
         }
 
-        ArrayList<ArrayList<String>> lines = new ArrayList<>();
-        while (scan.hasNextLine()) {
-            String line = scan.nextLine();
-            ArrayList<String> lineChars = new ArrayList<>();
-            for (int i = 0; i < line.length(); i++) {
-                String c = Character.toString(line.charAt(i));
-                lineChars.add(c);
-            }
-            lines.add(lineChars);
+        LayoutGrid layout;
+        try {
+            layout = LayoutParser.parse(JSONfile);
+        }
+        catch (LayoutParser.ParseException e) {
+            System.err.println(e.getMessage());
+            layout = null;
+        }
+        catch (IOException e) {
+            layout = null;
         }
-
-        scan.close();
 
         if (this.isTesting) JSONfile.delete();
 
-        return lines;
+        return layout;
     }
 
     /**
-     * Sets up the game board layout based on file contents and initializes game objects.<br>
-     *
-     * <p>This method performs the following major tasks:</p>
-     * <ol>
-     *   <li>Reads the layout file contents.</li>
-     *   <li>Iterates through the board grid, creating game objects based on file symbols.</li>
-     *   <li>Handles cases of insufficient file data by filling with blank tiles.</li>
-     *   <li>Initializes walls, holes, spawners, and balls according to the layout.</li>
-     *   <li>Adds border lines to the game board.</li>
-     * </ol>
-     *
-     * Note: <p>Layout symbols and their meanings:</p>
-     * <ul>
-     *   <li>" " (space): Blank tile</li>
-     *   <li>"X": Wall (color 0)</li>
-     *   <li>"1"-"4": Colored walls</li>
-     *   <li>"H": Hole (followed by color code)</li>
-     *   <li>"S": Spawner</li>
-     *   <li>"B": Ball (followed by color code)</li>
-     * </ul>
-     *
-     * <p>Special considerations:</p>
-     * <ul>
-     *   <li>Handles cases where file data is shorter than expected board dimensions.</li>
-     *   <li>Skips already populated board positions.</li>
-     *   <li>Positions balls slightly offset from grid for centered appearance.</li>
-     * </ul>
+     * Reads the layout file and passes its contents to the world, which creates the board tiles,
+     * walls, holes, spawners, balls and wall line segments. Exits if the layout cannot be read.
      */
     public void setLayout() {
-        ArrayList<ArrayList<String>> lines = null;
+        LayoutGrid lines = null;
         try {
             lines = this.getFileContents();
         }
@@ -474,110 +499,133 @@ public class App extends PApplet {
             System.exit(1);
         }
 
-        //CREATE OBJECTS BASED ON FILE
-        for (int i = 0; i < this.board.length; i++) {
-
-            // Handle insufficient number of lines in file
-            if (i + 1 > lines.size()) {
-                for (int k = i; k < this.board.length; k++) {
-                    for (int l = 0; l < this.board[0].length; l++) {
-                        if (this.board[k][l] != null) {
-                            continue;
-                        }
-                        this.board[k][l] = new Blank(l, k);
-                    }
-                }
-                continue;
-            }
-
-            for (int j = 0; j < this.board[0].length; j++) {
-
-                // HANDLE insufficient number of characters in a line
-                if (j + 1 > lines.get(i).size()) {
-                    for (int k = j; k < this.board[i].length; k++) {
-                        if (this.board[i][k] != null) {
-                            continue;
-                        }
-                        this.board[i][k] = new Blank(k, i); //skips the first box
-                    }
-                    break;
-                }
-
-                if (this.board[i][j] != null) { //if board has something in it, skip
-                    continue;
-                }
-
-                //BLANK
+        this.layout = lines;
+        this.world.setLayout(lines);
+    }
 
-                else if (lines.get(i).get(j).equals(" ")) {
-                    this.board[i][j] = new Blank(j, i);
-                }
+    /**
+     * Sets a level up from a given layout instead of the level's layout file, clearing the lines being drawn
+     * like restart() does, and the world like setup() does. Used to load saved games and replays,
+     * which then set the timers and restore the world themselves.<br>
+     *
+     * @param level The level, starting from 1.
+     * @param seed The seed of the world's random generator, see GameWorld::setSeed.
+     * @param score The score carried over from the previous level.
+     * @param layout The layout of the level, see LayoutParser.
+     */
+    public void loadLevel(int level, long seed, double score, LayoutGrid layout) {
+        this.loadLevel(level, this.createWorld(level, seed, score, layout), layout);
+    }
 
-                //WALL 0
-                else if (lines.get(i).get(j).equals("X")) {
-                    this.board[i][j] = new Wall(j, i, 0);
-                    this.walls.add(new Wall(j, i, 0));
-                }
+    /**
+     * Overloaded method: Sets a level up with a world that is already set up for it, e.g. by createWorld()
+     * and then restored from a save.<br>
+     *
+     * @param level The level, starting from 1.
+     * @param world The world of the level.
+     * @param layout The layout the world was set up from.
+     */
+    public void loadLevel(int level, GameWorld world, LayoutGrid layout) {
+        frameCount = 0;
+        this.tempLines = new ArrayList<>();
+        this.lastLine = 0;
+        isDrawing = false;
+        this.gameState = GameState.PLAYING;
+        gameLevel = level;
 
-                //WALL 1-4
-                else if (lines.get(i).get(j).equals("1") || lines.get(i).get(j).equals("2") || lines.get(i).get(j).equals("3") || lines.get(i).get(j).equals("4")) {
-                    //make above more succinct
-                    int colour = Integer.parseInt(lines.get(i).get(j));
-                    this.board[i][j] = new Wall(j, i, colour);
-                    this.walls.add(new Wall(j, i, colour));
-                }
+        this.world = world;
+        this.clock = new SimulationClock(this.world.getTickRate());
+        this.layout = layout;
+    }
 
-                //HOLE
-                else if (lines.get(i).get(j).equals("H")) {
-                    if (this.getColourCode(lines, i, j) == -1) {
-                        this.board[i][j] = new Blank(j, i);
-                        this.board[i][j+1] = new Blank(j+1, i); //handle out of bounds
-                    }
-                    else {
-                        int colour = this.getColourCode(lines, i, j);
-                        for (int k = 0; k <= 1; k++) {
-                            for (int l = 0; l <= 1; l++) {
-                                Hole.GridPosition gp = this.getPosition(l, k);
-                                /*if (gp == null) {
-                                    this.board[i][j] = new Blank(j, i);
-                                    break;
-                                }*/
-                                if (k == 1 && l == 1) {
-                                    this.holes.add(new Hole (j+l, i+k, colour, gp)); // add the one w center coords
-                                    //System.out.println("Added hole with center coords at " + gp + " " + Integer.toString(j+l) + ", " + (i+k));
-                                    //System.out.println(Hole.toString(new Hole (j+l, i+k, colour, gp)));
-                                }
-                                this.board[i+k][j+l] = new Hole(j+l, i+k, colour, gp);
-                            }
-                        }
-                    }
-                }
+    /**
+     * Creates a world set up for a level from a given layout, without changing the game being played.<br>
+     *
+     * @param level The level, starting from 1.
+     * @param seed The seed of the world's random generator, see GameWorld::setSeed.
+     * @param score The score carried over from the previous level.
+     * @param layout The layout of the level, see LayoutParser.
+     * @return The new world.
+     */
+    public GameWorld createWorld(int level, long seed, double score, LayoutGrid layout) {
+        GameWorld world = new GameWorld();
+        world.setSeed(seed);
+        world.setScore(score);
+        world.configure(this.json, level);
+        world.createBoard((HEIGHT - TOPBAR)/CELLHEIGHT, WIDTH/CELLSIZE);
+        world.setLayout(layout);
+        world.loadBallQueue(this.json, level);
+        return world;
+    }
 
-                //SPAWNER
-                else if (lines.get(i).get(j).equals("S")) {
-                    this.board[i][j] = new Spawner(j, i);
-                    //this.balls.add(new Ball(j*CELLSIZE, i*CELLSIZE+TOPBAR, 0));
-                    this.spawners.add(new Spawner(j, i));
-                }
+    /**
+     * Reads the stroke simplification tolerance from the configuration's top-level "stroke_tolerance".
+     * @param json The configuration.
+     * @return The tolerance in pixels, DEFAULT_STROKE_TOLERANCE if the configuration does not set one.
+     */
+    public static float readStrokeTolerance(JSONObject json) {
+        try {
+            return json.getFloat("stroke_tolerance", DEFAULT_STROKE_TOLERANCE);
+        }
+        catch (Exception e) {
+            return DEFAULT_STROKE_TOLERANCE;
+        }
+    }
 
-                //BALL
-                else if (lines.get(i).get(j).equals("B")) {
-                    this.board[i][j] = new Blank(j, i);
-                    if (this.getColourCode(lines, i, j) != -1) {
-                        int colour = this.getColourCode(lines, i, j);
-                        this.balls.add(new Ball(j*CELLSIZE + 4, i*CELLSIZE+TOPBAR + 4, colour)); //add 4 so spawns in the middle
-                    }
-                }
+    /**
+     * Saves the game in progress to a file. The world is copied straight away, and written by the save writer
+     * in the background. Does nothing if the game is not being played or paused.<br>
+     *
+     * @param file The file to save to.
+     * @return true if the save will be written, false if there is nothing to save or a save is still being written.
+     */
+    public boolean saveGame(File file) {
+        if (gameState != GameState.PLAYING && gameState != GameState.PAUSED) {
+            return false;
+        }
+        return this.saveWriter.submit(file, SaveState.capture(this));
+    }
 
-                else {
-                    this.board[i][j] = new Blank(j, i);
-                }
-            }
+    /**
+     * Loads the newer of the save file and the autosave file, see SaveState::apply.
+     * The saved world is restored before anything else changes, so a save that cannot be loaded leaves the game
+     * being played and any replay being recorded as they were. Otherwise the replay is finished first,
+     * as it cannot follow a loaded game.<br>
+     *
+     * @return true if a save was loaded, false if there is none or it could not be read.
+     */
+    public boolean loadGame() {
+        File save = new File(SAVE_FILE);
+        File autosave = new File(AUTOSAVE_FILE);
+        File file = autosave.isFile() && (!save.isFile() || autosave.lastModified() > save.lastModified()) ? autosave : save;
+        if (!file.isFile()) {
+            return false;
         }
 
-        // ADD LINES FROM WALLS
-        this.addBorders();
+        try {
+            SaveState state = SaveState.read(file);
+            GameWorld world = state.restoreWorld(this);
+            this.stopRecording();
+            state.apply(this, world);
+        }
+        catch (IOException | IllegalArgumentException e) {
+            System.err.println("Could not load " + file.getPath() + ": " + e.getMessage());
+            return false;
+        }
+        return true;
+    }
 
+    /**
+     * Saves to AUTOSAVE_FILE every autosaveFrames frames, while playing and not drawing a line.
+     * Skipped if the previous autosave is still being written.
+     */
+    protected void autosave() {
+        if (this.autosaveFrames <= 0 || frameCount % this.autosaveFrames != 0) {
+            return;
+        }
+        if (gameState == GameState.PLAYING && !isDrawing && this.tempLines.isEmpty()) {
+            this.saveWriter.submit(new File(AUTOSAVE_FILE), SaveState.capture(this));
+        }
     }
 
     /**
@@ -588,15 +636,12 @@ public class App extends PApplet {
         frameCount = 0;
         lastSecond = 0;
         ballTimer = 1;
-        this.balls = new ArrayList<>();
-        this.allLines = new ArrayList<>();
-        this.drawnLines = new ArrayList<>();
+        double score = this.world.getScore();
+        this.world = new GameWorld(); // carry the score over to the new level
+        this.world.setScore(score);
         this.tempLines = new ArrayList<>();
-        this.spawners = new ArrayList<>();
-        this.holes = new ArrayList<>();
         this.lastLine = 0;
         isDrawing = false;
-        this.ballQueue = new Ball[0];
 
         if (gameLevel > this.json.getJSONArray("levels").size()) {
             gameLevel = 1;
@@ -612,16 +657,17 @@ public class App extends PApplet {
      * @return integer array of coordinates after being moved in the spiral direction.
      */
     public int[] moveSpiral(int[] spiral) {
-        if (spiral[1] == 0 && spiral[0] < this.board[0].length - 1) {
+        Tile[][] board = this.world.getBoard();
+        if (spiral[1] == 0 && spiral[0] < board[0].length - 1) {
             spiral[0]++;
         }
-        else if (spiral[0] == this.board[0].length - 1 && spiral[1] < this.board.length - 1) {
+        else if (spiral[0] == board[0].length - 1 && spiral[1] < board.length - 1) {
             spiral[1]++;
         }
-        else if (spiral[1] == this.board.length - 1 && spiral[0] <= this.board[0].length - 1 && spiral[0] > 0) {
+        else if (spiral[1] == board.length - 1 && spiral[0] <= board[0].length - 1 && spiral[0] > 0) {
             spiral[0]--;
         }
-        else if (spiral[0] == 0 && spiral[1] <= this.board.length - 1 && spiral[1] > 0) {
+        else if (spiral[0] == 0 && spiral[1] <= board.length - 1 && spiral[1] > 0) {
             spiral[1]--;
         }
         return spiral;
@@ -636,219 +682,14 @@ public class App extends PApplet {
      *  <li>Spawning a new ball at regular intervals from a random spawner.</li>
      *  <li>Managing the ball queue after spawning.</li>
      * </ol>
-     * The method uses frameCount and spawnInterval to determine when to spawn a new ball.
+     * The world decides when a ball is due from its tick count and spawnInterval, see GameWorld::spawnIfDue.
      * Balls are spawned from random spawner locations.
      * After spawning, the queue is reorganized, removing the spawned ball and shifting others.
-     * Returns early if ballQueue has not been properly initialised or is empty (ballQueue[0] is null).
+     * The queue timer restarts whenever a ball was due.
      */
     public void spawnBalls() {
-        if (this.ballQueue.length == 0) {
-            return;
-        }
-
-        if (this.ballQueue[0] == null) {
-            return;
-        }
-
-        if (frameCount % (this.spawnInterval * FPS) == 0) {
+        if (this.world.spawnIfDue()) {
             ballTimer = 1.1f;
-
-            int colour = this.ballQueue[0].getColour();
-            Random rand = new Random();
-            int i = rand.nextInt(this.spawners.size());
-            Spawner spawner = this.spawners.get(i);
-            this.balls.add(new Ball(spawner.getX() * CELLSIZE + 4, spawner.getY() * CELLSIZE + TOPBAR + 4, colour));
-            this.ballQueue[0] = null;
-
-            if (this.ballQueue.length > 1) {
-                ArrayList<Ball> tempQueue = new ArrayList<>();
-                for (Ball ball : this.ballQueue) {
-                    if (ball != null) {
-                        tempQueue.add(ball);
-                    }
-                }
-
-                this.ballQueue = new Ball[this.maxBallQueue]; // make queue null
-                for (int j = 0; j < tempQueue.size(); j++) {
-                    this.ballQueue[j] = tempQueue.get(j);
-                }
-
-                for (int j = 0; j < this.ballQueue.length - 1; j++) {
-                    if (this.ballQueue[j] == null) {
-                        return;
-                    }
-                    int c = this.ballQueue[j].getColour();
-                    this.ballQueue[j] = new Ball(19 + 28 * j, 21, c); // move ball coordinates
-                }
-            }
-        }
-    }
-
-    /**
-     * Returns the integer representation of the input using the colour scale of Inkball:
-     * grey = 0, orange = 1, blue = 2, green = 3, yellow = 4, others = 0.
-     * @param colourStr string representation of a colour
-     * @return integer representation of colourStr
-     */
-    public int colourToInt(String colourStr) {
-        if (colourStr.equals("grey")) {
-            return 0;
-        }
-        if (colourStr.equals("orange")) {
-            return 1;
-        }
-        if (colourStr.equals("blue")) {
-            return 2;
-        }
-        if (colourStr.equals("green")) {
-            return 3;
-        }
-        if (colourStr.equals("yellow")) {
-            return 4;
-        }
-        return 0;
-    }
-
-    /**
-     *Adds border lines to the game area and wall segments for all Wall tiles. <br>
-     * This method performs two main tasks:
-     * <ol><li>Creates four invisible border lines around the entire game area.</li>
-     * <li>Adds line segments for each Wall tile in the game board.</li></ol>
-     * Border lines are created slightly outside the visible game area (32 pixels)
-     * to ensure complete coverage. These lines are invisible (isDrawn = false)
-     * and have a color code of 0.
-     * For each Wall tile in the board, addWallLineSegment() is called to add
-     * its individual line segments.
-     */
-    public void addBorders() {
-
-        float[] topLeftCorner = new float[] {-32, TOPBAR-32}; // H0, V0
-        float[] topRightCorner = new float[] {WIDTH+32, TOPBAR-32}; // H1, V0
-        float[] bottomLeftCorner = new float[] {-32, HEIGHT+32}; // H0, V1
-        float[] bottomRightCorner = new float[] {WIDTH+32, HEIGHT+32}; // H1, V1
-
-        boolean isDrawn = false;
-        this.allLines.add(new Line(topLeftCorner, topRightCorner, 0, isDrawn)); //TOP
-        this.allLines.add(new Line(topLeftCorner, bottomLeftCorner, 0, isDrawn)); //LEFT
-        this.allLines.add(new Line(bottomLeftCorner, bottomRightCorner, 0, isDrawn)); // BOTTOM
-        this.allLines.add(new Line(bottomRightCorner, topRightCorner, 0, isDrawn)); //RIGHT
-
-        // line for non-border tiles
-        for (int i = 0; i < this.board.length; i++) {
-            for (int j = 0; j < this.board[0].length; j++) {
-                if (this.getBoard()[i][j].getClass() == Wall.class) { //null pointer?
-                    Wall wall = (Wall) this.getBoard()[i][j];
-                    this.addWallLineSegment(wall);
-                }
-            }
-        }
-
-    }
-
-    /**
-     * Gets the line segments representing the top, left, bottom, and right sides of the wall
-     * and adds the segments to app.allLines
-     * @param wall The Wall object for which to generate line segments.
-     */
-    public void addWallLineSegment(Wall wall) {
-        this.allLines.addAll(Arrays.asList(this.getWallLineSegments(wall)));
-    }
-
-    /**
-     * Generates an array of Line objects representing the four sides of a Wall.
-     *
-     * @param wall The Wall object for which to generate line segments.
-     * @return An array of four Line objects representing the top, left, bottom, and right sides of the wall.
-     *         Each Line object contains:<br>
-     *         - Start and end coordinates adjusted for cell size and top bar offset<br>
-     *         - The color of the wall<br>
-     *         - A boolean indicating if the line is drawn (set to false by default)
-     **/
-    public Line[] getWallLineSegments(Wall wall) {
-        Line[] lines = new Line[4];
-
-        float[] topLeftCorner = new float[] {wall.getX()*CELLSIZE, wall.getY() * CELLSIZE + TOPBAR}; // H0, V0
-        float[] topRightCorner = new float[] {(wall.getX()+1)*CELLSIZE, wall.getY() * CELLSIZE + TOPBAR}; // H1, V0
-        float[] bottomLeftCorner = new float[] {wall.getX()*CELLSIZE, (wall.getY()+1) * CELLSIZE + TOPBAR}; // H0, V1
-        float[] bottomRightCorner = new float[] {(wall.getX()+1)*CELLSIZE, (wall.getY()+1)*CELLSIZE + TOPBAR};
-
-        int colour = wall.getColour();
-        boolean isDrawn = false;
-        lines[0] = new Line(topLeftCorner, topRightCorner, colour, isDrawn); //TOP
-        lines[1] = new Line(topLeftCorner, bottomLeftCorner, colour, isDrawn); //LEFT
-        lines[2] = new Line(bottomLeftCorner, bottomRightCorner, colour, isDrawn); // BOTTOM
-        lines[3] = new Line(bottomRightCorner, topRightCorner, colour, isDrawn);
-
-        return lines;
-    }
-
-    /**
-     * Retrieves the color code from a 2D ArrayList of Strings at the specified position.
-     *
-     * @param lines The 2D ArrayList containing color information.
-     * @param i The row index in the ArrayList.
-     * @param j The column index in the ArrayList. The color code is expected to be at j+1.
-     * @return The color code as an integer. Returns -1 if:
-     *         - The specified position is out of bounds
-     *         - The color string is empty
-     *         - The color string cannot be parsed as an integer
-     *         - The parsed integer is not in the range 0-4
-     * @throws IndexOutOfBoundsException if the specified indices are out of range (caught internally)
-     * @throws NumberFormatException if the color string cannot be parsed as an integer (caught internally)
-     */
-    public int getColourCode (ArrayList<ArrayList<String>> lines, int i, int j) {
-        String colour = " ";
-        try {
-            colour = lines.get(i).get(j+1);
-        }
-        catch (IndexOutOfBoundsException e) {
-            return -1;
-        }
-
-        if (colour.equals(" ")) {
-            return -1;
-        }
-
-        int colourCode = -1;
-        try {
-            colourCode = Integer.parseInt(colour);
-        }
-        catch (NumberFormatException e) {
-            return -1;
-        }
-        if (colourCode < 0 || colourCode > 4) {
-            return -1;
-        }
-        return colourCode;
-    }
-
-    /**
-     * Determines the grid position of a hole based on given coordinates.
-     *
-     * @param k The x-coordinate in a 2x2 grid (0 or 1)
-     * @param l The y-coordinate in a 2x2 grid (0 or 1)
-     * @return A Hole.GridPosition enum value representing the position:
-     *         - TL (TopLeft) for (0,0)
-     *         - TR (TopRight) for (1,0)
-     *         - BL (BottomLeft) for (0,1)
-     *         - BR (BottomRight) for (1,1)
-     *         Returns null if the coordinates are out of the 2x2 range.
-     */
-    public Hole.GridPosition getPosition(int k, int l) {
-        if (k == 0 && l == 0) {
-            return Hole.GridPosition.TL;
-        }
-        else if (k == 0 && l == 1) {
-            return Hole.GridPosition.BL;
-        }
-        else if (k == 1 && l == 0) {
-            return Hole.GridPosition.TR;
-        }
-        else if (k == 1 && l == 1) {
-            return Hole.GridPosition.BR;
-        }
-        else {
-            return null;
         }
     }
 
@@ -871,7 +712,26 @@ public class App extends PApplet {
         if (P1 == null || P2 == null || P1.length != 2 || P2.length != 2) {
             throw new IllegalArgumentException("Wrong points!");
         }
-        return Math.sqrt(Math.pow((P2[1] - P1[1]), 2) + Math.pow((P2[0] - P1[0]), 2));
+        float dx = P2[0] - P1[0];
+        float dy = P2[1] - P1[1];
+        return Math.sqrt((double) dy * dy + (double) dx * dx);
+    }
+
+    /**
+     * Overloaded method: Determines the distance between two points given as separate coordinates.
+     * Used where the points are not stored in arrays, e.g. every tick and for balls in a BallStore,
+     * since it neither allocates nor validates its arguments.
+     *
+     * @param x1 The x-coordinate of the first point.
+     * @param y1 The y-coordinate of the first point.
+     * @param x2 The x-coordinate of the second point.
+     * @param y2 The y-coordinate of the second point.
+     * @return The distance between the two points.
+     */
+    public static double getDistance(float x1, float y1, float x2, float y2) {
+        float dx = x2 - x1;
+        float dy = y2 - y1;
+        return Math.sqrt((double) dy * dy + (double) dx * dx);
     }
 
     /**
@@ -892,7 +752,9 @@ public class App extends PApplet {
         if (P1 == null || P2 == null || P1.length != 2 || P2.length != 2) {
             throw new IllegalArgumentException("Wrong points!");
         }
-        return Math.sqrt(Math.pow((P2[1] - P1[1]), 2) + Math.pow((P2[0] - P1[0]), 2));
+        double dx = P2[0] - P1[0];
+        double dy = P2[1] - P1[1];
+        return Math.sqrt(dy * dy + dx * dx);
     }
 
     /**
@@ -916,165 +778,19 @@ public class App extends PApplet {
     }
 
     /**
-     * Overloaded method: Removes a line from the game based on the given coordinates.
+     * Removes the player-drawn line under the given coordinates from the game.
      *
      * @param toRemove An array of floats representing the coordinates of the point to remove.
      *                 Expected to be in the format [x, y].<br>
      *
-     * Note: The method searches for a line that contains the given point, starting from the most
-     * recently drawn lines (end of the list) and moving backwards. Once found, it removes
-     * the entire list containing that line from both drawnLines and tempLines.
-     *
+     * Note: The search is done by GameWorld::removeLine, starting from the most recently drawn lines.
      * If no line is found containing the given point, the method returns without making any changes.
      */
     public void removeLine(float[] toRemove) {
-        ArrayList<Line> removedLine = new ArrayList<>();
-
-        outerLoop:
-        for (int i = (this.drawnLines.size() - 1); i >= 0; i--) {
-            for (int j = (this.drawnLines.get(i).size() - 1); j >= 0; j--) {
-                if (this.mouseOnLine(toRemove, this.drawnLines.get(i).get(j).getP1(), this.drawnLines.get(i).get(j).getP2())) {
-                    removedLine = this.drawnLines.get(i);
-                    break outerLoop;
-                }
-            }
-        }
-
-        if (removedLine.isEmpty()) {
-            return;
-        }
-
-        this.tempLines.remove(removedLine);
-        this.drawnLines.remove(removedLine);
-    }
-
-    /**
-     * Removes a specific line and its associated group from the game.
-     *
-     * @param toRemove The Line object to be removed.<br>
-     *
-     * Note: The method searches for the specified line in drawnLines, starting from the most
-     * recently drawn lines (end of the list) and moving backwards. Once found, it removes
-     * the entire group (List) containing that line from both drawnLines and tempLines.
-     *
-     * If the specified line is not found, the method returns without making any changes.
-     */
-    public void removeLine(Line toRemove) {
-        ArrayList<Line> removedLine = new ArrayList<>();
-
-        outerLoop:
-        for (int i = this.drawnLines.size() - 1; i >= 0; i--) {
-            for (int j = (this.drawnLines.get(i).size() - 1); j >= 0; j--) {
-                if (this.drawnLines.get(i).get(j).equals(toRemove)) {
-                    removedLine = this.drawnLines.get(i);
-                    break outerLoop;
-                }
-            }
-        }
-
-        if (removedLine.isEmpty()) {
-            return;
-        }
-
-        this.tempLines.remove(removedLine);
-        this.drawnLines.remove(removedLine);
-    }
-
-    /**
-     * Determines if the mouse is on or near a line segment.
-     *
-     * @param mouseXY An array of two floats representing the mouse coordinates [x, y].
-     * @param lineP1 An array of two floats representing the coordinates of one endpoint of the line segment [x1, y1].
-     * @param lineP2 An array of two floats representing the coordinates of the other endpoint of the line segment [x2, y2].
-     * @return true if the mouse is considered to be on the line segment, false otherwise.
-     *
-     */
-    public boolean mouseOnLine(float[] mouseXY, float[] lineP1, float[] lineP2) {
-        double distP1 = App.getDistance(mouseXY, lineP1);
-        double distP2 = App.getDistance(mouseXY, lineP2);
-        double distP1P2 = App.getDistance(lineP1, lineP2);
-
-        return distP1 + distP2 < mouseRadius + distP1P2; //mouse radius is 5
-    }
-
-    /**
-     * Determines the walls associated with a potential collision between a ball and a line.
-     *
-     * @param ball The Ball object involved in the potential collision.
-     * @param line The Line object involved in the potential collision.
-     * @return An array of Wall objects. The first element is the closest wall to the collision point from app.walls,
-     *         and the second element is the wall at the same board position as the closest wall.
-     *         Returns null if no collision is detected or if no associated walls are found.
-     *
-     * The method first checks for a collision using the ball's willCollide method.
-     * If a collision is detected, it finds the closest wall to the collision point.
-     * It then attempts to find a second wall at the same board position as the closest wall.
-     */
-    public Wall[] getWallAssociated(Ball ball, Line line) {
-        float[] collisionPoint = ball.willCollide(line);
-        if (collisionPoint == null) {
-            return null;
-        }
-
-        //System.out.println("collision point found"); //here now
-        Wall[] wallsAssociated = new Wall[2];
-        Wall closestWall = null;
-        float minDistance = Float.MAX_VALUE;
-
-        for (Wall wall : this.walls) {
-            float wallCenterX = wall.getX() * CELLSIZE + CELLSIZE / 2;
-            float wallCenterY = wall.getY() * CELLSIZE + TOPBAR + CELLSIZE / 2;
-            float distance = (float) App.getDistance(collisionPoint, new float[]{wallCenterX, wallCenterY});
-
-            if (distance < minDistance) {
-                minDistance = distance; //find wall that is closest
-                closestWall = wall;
-            }
-        }
-
-        if (closestWall == null) {
-            return null;
-        }
-
-        wallsAssociated[0] = closestWall;
-
-        try {
-            wallsAssociated[1] = (Wall) (this.board[wallsAssociated[0].getY()][wallsAssociated[0].getX()]);
-            return wallsAssociated;
-        }
-        catch (Exception e) {
-            return null;
-        }
-    }
-
-    /**
-     * Removes a specified wall from the game, including its line segments and board representation.
-     *
-     * @param wall The Wall object to be removed from the game.
-     *
-     * The method performs the following steps:
-     * 1. Retrieves the line segments associated with the wall.
-     * 2. Searches for these line segments in the allLines list.
-     * 3. If found, removes the line segments from allLines.
-     * 4. Removes the wall from the walls collection.
-     * 5. Replaces the wall in the board array with a new Blank object.
-     */
-    public void removeWall (Wall wall) {
-        List<Line> linesToRemove = Arrays.asList(this.getWallLineSegments(wall));
-        int removeInd = -1;
-        //System.out.println(linesToRemove);
-        boolean removed = false;
-        for (int i = 0; i < this.allLines.size() - 4; i++) {
-            if (this.allLines.subList(i, i + 4).equals(linesToRemove)) { // +4 because upper bound exclusive
-                removeInd = i;
-                removed = true;
-                break;
-            }
-        }
-        if (removed) {
-            this.allLines.subList(removeInd, removeInd + 4).clear();
-            this.walls.remove(wall);
-            this.board[wall.getY()][wall.getX()] = new Blank(wall.getX(), wall.getY());
+        ArrayList<Line> removedLine = this.world.removeLine(toRemove);
+        if (removedLine != null) {
+            this.tempLines.remove(removedLine);
+            this.strokeLayer.remove(removedLine);
         }
     }
 
@@ -1086,14 +802,23 @@ public class App extends PApplet {
      * <p>The method performs the following actions based on key presses:
      * - 'r' key (code 82): Restarts the game, resets timer, and sets game state to PLAYING.
      * - Spacebar (code 32): Toggles between PAUSED and PLAYING states.
-     * - Ctrl key (code 17): Sets ctrlPressed flag to true.</p>
+     * - Ctrl key (code 17): Sets ctrlPressed flag to true.
+     * - 'f' key (code 70): Shows or hides the frame timing overlay.
+     * - 'e' key (code 69): Exports the frame timing histograms to a new frame-timing directory, see FrameProfiler::export.
+     * - 's' key (code 83): Saves the game to SAVE_FILE, see saveGame.
+     * - 'l' key (code 76): Loads the newest save, see loadGame.</p>
+     * The 'r', spacebar and Ctrl key presses are recorded to the replay, if one is being recorded.
      */
 	@Override
     public void keyPressed(KeyEvent event){
+        if (this.recorder != null && (event.getKeyCode() == 82 || event.getKeyCode() == 32 || event.getKeyCode() == 17)) {
+            this.recorder.recordKey(event.getKeyCode());
+        }
+
         if (event.getKeyCode() == 82) { //is "r"
             lastSecond = 0;
             gameState = GameState.PLAYING;
-            scoreTemp = scoreFinal;
+            this.world.setScore(scoreFinal);
             restart();
         }
         if (event.getKeyCode() == 32) {
@@ -1103,11 +828,32 @@ public class App extends PApplet {
             else if (gameState == GameState.PLAYING) {
                 gameState = GameState.PAUSED;
             }
+            this.clock.reset(); // do not simulate the time spent paused
         }
 
         if (event.getKeyCode() == 17) { // if control
             ctrlPressed = true;
         }
+
+        if (event.getKeyCode() == 70) { // is "f"
+            this.profiler.setOverlayVisible(!this.profiler.isOverlayVisible());
+        }
+        if (event.getKeyCode() == 69) { // is "e"
+            File directory = new File("frame-timing-" + System.currentTimeMillis());
+            try {
+                this.profiler.export(directory);
+                System.out.println("Frame timing written to " + directory.getAbsolutePath());
+            }
+            catch (IOException e) {
+                System.err.println("Could not write frame timing: " + e.getMessage());
+            }
+        }
+        if (event.getKeyCode() == 83) { // is "s"
+            this.saveGame(new File(SAVE_FILE));
+        }
+        if (event.getKeyCode() == 76) { // is "l"
+            this.loadGame();
+        }
     }
 
     /**
@@ -1144,6 +890,7 @@ public class App extends PApplet {
         if (gameState != GameState.PLAYING) {
             return;
         }
+        this.recordMouse(ReplayRecorder.MOUSE_PRESS, e);
 
         int mouseX = e.getX();
         int mouseY = e.getY();
@@ -1198,6 +945,7 @@ public class App extends PApplet {
         if (gameState != GameState.PLAYING) {
             return;
         }
+        this.recordMouse(ReplayRecorder.MOUSE_DRAG, e);
 
 		// remove player-drawn line object if right mouse button is held
 		// and mouse position collides with the line
@@ -1238,7 +986,7 @@ public class App extends PApplet {
      * - Only processes events if the game state is PLAYING.<br>
      * For left mouse button releases:<br>
      *   - Finalizes the current line being drawn if isDrawing is true.<br>
-     *   - Adds the completed line to drawnLines.<br>
+     *   - Moves the completed line from tempLines to the world's drawnLines, simplified, see StrokeSimplifier.<br>
      *   - Updates lastLine with the current frameCount.<br>
      *   - Sets isDrawing to false, ending the drawing process.</p>
      *
@@ -1249,6 +997,7 @@ public class App extends PApplet {
         if (gameState != GameState.PLAYING) {
             return;
         }
+        this.recordMouse(ReplayRecorder.MOUSE_RELEASE, e);
 
         int mouseX = e.getX();
         int mouseY = e.getY();
@@ -1260,7 +1009,12 @@ public class App extends PApplet {
                 //System.out.println("just drew a line! current number of lines: " + this.drawnLines.size());
                 //this.allLines.addAll(this.drawnLines.get(this.drawnLines.size() - 1)); //other way
                 if (!this.tempLines.isEmpty()) {
-                    this.drawnLines.add(this.tempLines.get(this.tempLines.size() - 1));
+                    ArrayList<Line> stroke = this.tempLines.remove(this.tempLines.size() - 1);
+                    stroke = StrokeSimplifier.simplify(stroke, this.strokeTolerance);
+                    this.world.addStroke(stroke);
+                    if (this.g != null) { // No renderer to create shapes with in tests
+                        this.strokeLayer.add(this, stroke);
+                    }
                 }
                 this.lastLine = frameCount;
                 isDrawing = false;
@@ -1269,75 +1023,144 @@ public class App extends PApplet {
     }
 
     /**
-     * Executes main game logic and facilitates interaction between game components.<br><br>
-     * Methods used: Wall::damage, Ball::willCollide, Ball::interact, Ball::meetHole, Ball:: moveOne,
-     * removeLine, removeWall, getWallAssociated
+     * Records a mouse event handled while playing to the replay, if one is being recorded.
+     * @param action ReplayRecorder.MOUSE_PRESS, MOUSE_DRAG or MOUSE_RELEASE.
+     * @param e The mouse event.
+     */
+    protected void recordMouse(int action, MouseEvent e) {
+        if (this.recorder != null) {
+            this.recorder.recordMouse(action, e.getButton(), e.getModifiers(), e.getX(), e.getY());
+        }
+    }
+
+    /**
+     * Advances the world by as many ticks as are due, then draws every ball on the board.<br><br>
+     * Balls are drawn between their previous and current positions according to the clock's alpha,
+     * so movement stays smooth when the tick rate and frame rate differ.
+     * Collision, wall damage and hole capture are handled by GameWorld::step.
      */
     public void drawAll() {
-        for (int i = this.balls.size() - 1; i >= 0; i--) {
-            Ball ball = this.balls.get(i);
-            ball.draw(this);
-
-            boolean hasCollided = false;
-            for (int j = this.allLines.size() - 1; j >= 0; j--) {
-                Line line = this.allLines.get(j);
-                if (ball.willCollide(line) != null) {
-                    hasCollided = true;
-                    if (this.getWallAssociated(ball, line) != null) {
-                        Wall[] wallsAssociated = this.getWallAssociated(ball, line);
-                        (wallsAssociated[0]).damage(ball);
-                        (wallsAssociated[1]).damage(ball);
-                        if (wallsAssociated[0].getHP() == 0) {
-                            //System.out.println("removed wall");
-                            this.removeWall(wallsAssociated[0]); // not REMOVING LINES, removing wrong walls
-                        }
-                        //ball.interact(line, this);
-                    }
-                    ball.interact(line);
-                    break;
-                }
+        int ticks = this.clock.advance(System.nanoTime());
+        for (int i = 0; i < ticks && gameState == GameState.PLAYING; i++) {
+            this.tick();
+            this.frameTicks++;
+        }
+        this.profiler.mark(FrameProfiler.Phase.SIMULATION);
 
-            }
+        float alpha = this.clock.getAlpha();
+        ArrayList<Ball> balls = this.world.getBalls();
+        for (int i = balls.size() - 1; i >= 0; i--) {
+            balls.get(i).draw(this, alpha);
+        }
+        this.drawBallStore(alpha);
+        this.profiler.mark(FrameProfiler.Phase.BALLS);
+    }
 
-            outerLoop:
-            for (int j = this.drawnLines.size() - 1; j >= 0; j--) {
-                for (int k = this.drawnLines.get(j).size() - 1; k >= 0; k--) {
-                    if (ball.willCollide(this.drawnLines.get(j).get(k)) != null) {
-                        ball.interact(this.drawnLines.get(j).get(k));
-                        hasCollided = true;
-                        this.removeLine(this.drawnLines.get(j).get(k));
-                        break outerLoop;
-                    }
-                }
-            }
+    /**
+     * Draws the balls kept in the world's ball store, see Ball::draw.
+     * @param alpha How far the simulation is between the last tick and the next, from 0 to 1.
+     */
+    public void drawBallStore(float alpha) {
+        BallStore store = this.world.getBallStore();
+        for (int i = store.size() - 1; i >= 0; i--) {
+            float drawX = store.prevX[i] + (store.x[i] - store.prevX[i]) * alpha;
+            float drawY = store.prevY[i] + (store.y[i] - store.prevY[i]) * alpha;
+            image(this.getSprite(Sprite.ball(store.colour[i])), drawX, drawY, store.radius[i] * 2, store.radius[i] * 2);
+        }
+    }
 
-            if (!hasCollided) {
-                ball.moveOne();
+    /**
+     * Runs one simulation tick: spawns queued balls when due, steps the world,
+     * and counts down the level timer once every second of simulated time.
+     * Winning and running out of time follow GameWorld::getOutcome, the same rules as BatchRunner::run.
+     */
+    public void tick() {
+        this.spawnBalls();
+        this.world.step();
+
+        if (timeLimit != 0 && this.world.getTicks() % this.world.getTickRate() == 0) {
+            lastSecond--;
+            if (this.world.getBallQueue().length > 0 && this.world.getBallQueue()[0] != null) {
+                ballTimer -= 0.1f;
             }
-
-            //Interact with line first
-            for (Hole hole : this.holes) {
-                if (getDistance(ball.getBallCenter(), hole.getHoleCenter()) < 32) {
-                    ball.meetHole(hole, this);
-                    break;
-                }
-                else {
-                    ball.setBallRadius(12);
-                }
+            else {
+                ballTimer = 1.1f;
             }
         }
+
+        GameWorld.Outcome outcome = this.world.getOutcome(timeLimit);
+        if (outcome == GameWorld.Outcome.WON && gameState != GameState.WIN) {
+            gameState = GameState.WIN;
+            gameLevel++;
+            this.world.setScore(this.world.getScore() + this.world.getTimeBonus(timeLimit));
+            scoreFinal += this.world.getScore();
+        }
+
+        else if (outcome == GameWorld.Outcome.TIME_UP) {
+            gameState = GameState.OVER;
+        }
     }
 
 
     /**
-     * Draw all elements in the game by current frame. Draws timer and score components. Calls the drawAll method.
-     * Calls spawnBalls and handles different gameState scenarios, including the win spiral animation.
+     * Draw all elements in the game by current frame, timing each phase with the profiler,
+     * and draws the frame timing overlay if it is shown. See drawFrame. Samples the game metrics,
+     * records the frame to the replay and autosaves afterwards.
      */
 	@Override
     public void draw() {
+        this.frameTicks = 0;
+        this.profiler.beginFrame();
+        this.drawFrame();
+        this.profiler.endFrame();
+        this.recordFrame();
+        this.autosave();
+        this.metrics.sample(this.world);
+
+        if (this.profiler.isOverlayVisible()) {
+            this.drawProfilerOverlay();
+        }
+    }
+
+    /**
+     * Records the end of the frame with the ticks it ran to the replay, if one is being recorded,
+     * and a keyframe of the world when one is due. Keyframes are only taken while playing and not drawing a line,
+     * as they do not save the line being drawn.
+     */
+    protected void recordFrame() {
+        if (this.recorder == null) {
+            return;
+        }
+        this.recorder.endFrame(frameCount, this.frameTicks);
+        if (this.recorder.isKeyframeDue() && gameState == GameState.PLAYING && !isDrawing && this.tempLines.isEmpty()) {
+            this.recorder.recordKeyframe(frameCount, lastSecond, ballTimer, this.start, this.world);
+        }
+    }
+
+    /**
+     * Draws the p50, p95, p99 and maximum time of every frame phase in the top left of the board, in milliseconds.
+     */
+    public void drawProfilerOverlay() {
+        String[] lines = this.profiler.getSummary();
+        strokeWeight(0);
+        fill(0, 0, 0, 180);
+        rect(4, App.TOPBAR + 4, 290, lines.length * 14 + 8);
+        fill(255);
+        textSize(12);
+        textAlign(LEFT, TOP);
+        for (int i = 0; i < lines.length; i++) {
+            text(lines[i], 10, App.TOPBAR + 8 + i * 14);
+        }
+    }
+
+    /**
+     * Draws timer and score components. Calls the drawAll method,
+     * which runs the simulation ticks that are due. Handles different gameState scenarios, including the win spiral animation.
+     * Marks the end of each FrameProfiler phase it reaches.
+     */
+    protected void drawFrame() {
         if (!isTesting) {
             background(206);
-            this.spawnBalls();
         }
 
         //----------------------------------
@@ -1345,9 +1168,15 @@ public class App extends PApplet {
         //----------------------------------
         //TODO
 
-        for (int i = 0; i < this.board.length; i++) {
-            for (int j = 0; j < this.board[i].length; j++) {
-                this.board[i][j].draw(this);
+        Tile[][] board = this.world.getBoard();
+        if (!isTesting) {
+            this.boardLayer.draw(this, this.world);
+        }
+        else {
+            for (int i = 0; i < board.length; i++) {
+                for (int j = 0; j < board[i].length; j++) {
+                    board[i][j].draw(this);
+                }
             }
         }
 
@@ -1366,24 +1195,13 @@ public class App extends PApplet {
                 this.moveSpiral(this.secondSpiral);
             }
         }
+        this.profiler.mark(FrameProfiler.Phase.BOARD);
 
         //----------------------------------
         // display top bar
         //----------------------------------
         // 1) Timer
         if (timeLimit != 0) {
-            if (frameCount - (timeLimit - lastSecond) * 30 == FPS && gameState == GameState.PLAYING) {
-                lastSecond--;
-                if (this.ballQueue[0] != null) {
-                    ballTimer -= 0.1f;
-                }
-                else {
-                    ballTimer = 1.1f;
-                }
-            }
-            if (gameState == GameState.PAUSED) {
-                frameCount = (timeLimit - lastSecond) * 30;
-            }
             if (gameState == GameState.PLAYING || gameState == GameState.PAUSED) {
                 textSize(22);
                 fill(0);
@@ -1397,8 +1215,9 @@ public class App extends PApplet {
             textSize(22);
             fill(0);
             textAlign(CENTER, CENTER);
-            text("Score: " + (int) scoreTemp, WIDTH - 80, App.TOPBAR - 44);
+            text("Score: " + (int) this.world.getScore(), WIDTH - 80, App.TOPBAR - 44);
         }
+        this.profiler.mark(FrameProfiler.Phase.TOP_BAR);
 
         // if PAUSED
         if (gameState != GameState.PLAYING) {
@@ -1415,26 +1234,20 @@ public class App extends PApplet {
                 text("=== TIME'S UP ===", WIDTH / 2, TOPBAR / 2);
             }
 
-            for (Ball ball : this.balls) {
+            for (Ball ball : this.world.getBalls()) {
                 ball.draw(this);
             }
+            this.drawBallStore(1);
 
-            for (ArrayList<Line> line : this.drawnLines) {
-                for (Line l : line) {
-                    l.draw(this);
-                }
-            }
-
-            for (Line line : this.allLines) {
-                line.draw(this);
-            }
+            this.drawStrokes();
 
             if (gameState == GameState.WIN && gameLevel <= maxLevel) {
-                if (Arrays.equals(this.firstSpiral, new int[]{this.board[0].length - 1, this.board.length - 1}) && Arrays.equals(this.secondSpiral, new int[]{0, 0})) {
+                if (Arrays.equals(this.firstSpiral, new int[]{board[0].length - 1, board.length - 1}) && Arrays.equals(this.secondSpiral, new int[]{0, 0})) {
                     restart();
                 }
             }
         }
+        this.profiler.mark(FrameProfiler.Phase.END_GAME);
 
         if (gameState == GameState.WIN || gameState == GameState.OVER) {
             return;
@@ -1444,18 +1257,18 @@ public class App extends PApplet {
         strokeWeight(0);
         rect(14, 16, 5 * 28 + 4, 34); // max 5 balls in queue
         fill(0);
-          for (int i = 0; i < this.ballQueue.length; i++) {
+          for (int i = 0; i < this.world.getBallQueue().length; i++) {
             if (i > 4) {
                 break;
             }
-            if (this.ballQueue[i] == null) {
+            if (this.world.getBallQueue()[i] == null) {
                 continue;
             }
-            this.ballQueue[i].draw(this);
+            this.world.getBallQueue()[i].draw(this);
         }
 
         // 3b) Ball timer
-        if (this.ballQueue[0] != null) {
+        if (this.world.getBallQueue()[0] != null) {
             textSize(18);
             fill(0);
             textAlign(LEFT, TOP);
@@ -1464,18 +1277,11 @@ public class App extends PApplet {
                 text(s, 164, 22);
             }
         }
+        this.profiler.mark(FrameProfiler.Phase.BALL_QUEUE);
 
         if (gameState == GameState.PAUSED) {// looks ugly
-
-            for (ArrayList<Line> line : this.drawnLines) {
-                for (Line l : line) {
-                    l.draw(this);
-                }
-            }
-
-            for (Line line : this.allLines) {
-                line.draw(this);
-            }
+            this.drawStrokes();
+            this.profiler.mark(FrameProfiler.Phase.LINES);
 
             return;
         }
@@ -1484,31 +1290,40 @@ public class App extends PApplet {
         // draw lines in real time
         //----------------------------------
         strokeWeight(10);
+        this.drawStrokes();
+
         for (ArrayList<Line> lineList : this.tempLines) {
             for (Line line : lineList) {
                 line.draw(this);
             }
         }
+        this.profiler.mark(FrameProfiler.Phase.LINES);
 
         this.drawAll();
-        
-		//----------------------------------
-        // game end
-        //----------------------------------
-        if (this.ballQueue[0] == null && this.balls.isEmpty() && gameState != GameState.WIN) {
-            gameState = GameState.WIN;
-            gameLevel++;
-            scoreTemp += (int) (lastSecond / 0.067);
-            scoreFinal += scoreTemp;
-        }
+    }
 
-        else if (frameCount >= timeLimit * FPS) {
-            gameState = GameState.OVER;
+    /**
+     * Draws the world's finished strokes, each as one retained shape, see StrokeLayer.
+     * Tests have no renderer to create shapes with, so they draw every segment instead.
+     */
+    protected void drawStrokes() {
+        if (!isTesting) {
+            this.strokeLayer.draw(this, this.world.getDrawnLines());
+            return;
+        }
+        for (ArrayList<Line> lineList : this.world.getDrawnLines()) {
+            for (Line line : lineList) {
+                line.draw(this);
+            }
         }
     }
 
 
+    /**
+     * Starts the game.
+     * @param args The command-line arguments, e.g. {@code --seed 42} to replay the same session, see SeedSource.
+     */
     public static void main(String[] args) {
-        PApplet.main("inkball.App");
+        PApplet.main("inkball.App", args);
     }
 }
@@ -2,6 +2,7 @@ package inkball;
 
 import processing.core.PImage;
 import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  *  Represents the balls seen in the game.
@@ -12,6 +13,11 @@ import java.util.*;
 public class Ball {
     private float x;
     private float y;
+    /**
+     * Represents the position of the Ball before the latest simulation tick. Used to interpolate drawing.
+     */
+    private float prevX;
+    private float prevY;
     int colour;
     /**
      * Represents the direction vector of the Ball object.
@@ -29,6 +35,17 @@ public class Ball {
      */
     public static final int MAX_SPEED = 12;
 
+    /**
+     * Represents the radius used by timeOfImpact. Any point closer than ARTIFICIAL_RADIUS / 2 to a line
+     * is inside the ellipse tested by willCollide, so a look-ahead that crosses this radius would have collided.
+     */
+    public static final float SWEEP_RADIUS = ARTIFICIAL_RADIUS / 2f;
+
+    /**
+     * Represents reusable space for collision points and attraction vectors, so that a tick does not allocate.
+     */
+    private final float[] scratch = new float[2];
+
     /**
      * True when the Ball object has been absorbed by a Hole.
      */
@@ -45,19 +62,34 @@ public class Ball {
      *               0 = grey, 1 = orange, 2 = blue, 3 = green, 4 = yellow.
      *               Defaults to grey if the argument is given outside of this range.<br>
      *
-     * Note: The starting Ball vector attribute is randomised to either be [-2, 2] or [2, -2].
+     * Note: The starting Ball vector attribute is randomised to either be [-2, 2] or [2, -2],
+     * by the thread's ThreadLocalRandom. Use the overloaded constructor for repeatable vectors.
      * Absorbed attribute starts as false.
      */
     public Ball(float x, float y, int colour) {
+        this(x, y, colour, ThreadLocalRandom.current());
+    }
+
+    /**
+     * Overloaded constructor: Creates a Ball object whose starting vector is chosen by the given random generator,
+     * so that seeded games place and launch balls the same way every run.<br>
+     *
+     * @param x The x-coordinate of the Ball, in 1px units and relative to the app window.
+     * @param y The y-coordinate of the Ball, in 1px units and relative to the app window.
+     * @param colour The colour integer code of the Ball, see Ball(float, float, int).
+     * @param rand The random generator choosing the starting vector.
+     */
+    public Ball(float x, float y, int colour, Random rand) {
         this.x = x; // so it spawns in the middle of the tile/spawner
         this.y = y;
+        this.prevX = x;
+        this.prevY = y;
         if (colour < 0 || colour > 4) {
             this.colour = 0;
         }
         else {
             this.colour = colour;
         }
-        Random rand = new Random();
         if (rand.nextBoolean()) {
             this.vector = new float[] {2, -2};
         }
@@ -68,11 +100,24 @@ public class Ball {
     }
 
     public void draw(App app) {
+        this.draw(app, 1);
+    }
+
+    /**
+     * Draws the Ball between its previous and current position.
+     *
+     * @param app The App object which the ball will be drawn on.
+     * @param alpha How far the simulation is between the last tick and the next, from 0 to 1.
+     *              0 draws the Ball at its previous position and 1 at its current position.
+     */
+    public void draw(App app, float alpha) {
         if (this.isAbsorbed) {
             return;
         }
-        PImage ball = app.getSprite("ball"+colour);
-        app.image(ball, this.x, this.y, this.ballRadius * 2, this.ballRadius * 2);
+        PImage ball = app.getSprite(Sprite.ball(this.colour));
+        float drawX = this.prevX + (this.x - this.prevX) * alpha;
+        float drawY = this.prevY + (this.y - this.prevY) * alpha;
+        app.image(ball, drawX, drawY, this.ballRadius * 2, this.ballRadius * 2);
     }
 
     public float getX() {
@@ -115,8 +160,25 @@ public class Ball {
     }
 
     public void moveOne() {
-        this.x += vector[0];
-        this.y += vector[1];
+        this.move(1);
+    }
+
+    /**
+     * Moves the ball by a fraction of its direction vector.
+     * @param scale The fraction of the vector to move by. The vector is in pixels per frame at App.FPS,
+     *              so a simulation running at a higher tick rate moves by FPS / tick rate per tick.
+     */
+    public void move(float scale) {
+        this.x += vector[0] * scale;
+        this.y += vector[1] * scale;
+    }
+
+    /**
+     * Remembers the current position as the previous position. Called at the start of every simulation tick.
+     */
+    public void savePosition() {
+        this.prevX = this.x;
+        this.prevY = this.y;
     }
 
     /**
@@ -139,12 +201,44 @@ public class Ball {
      *
      */
     public void interact(Line line) {
-        if (this.willCollide(line) != null) {
-            //System.out.println("Collided!");
-            this.setNewColour(line);
-            this.setNewDirection(line);
-            this.moveOne();
+        this.interact(line, 1);
+    }
+
+    /**
+     * Overloaded method: Handles the interaction between the ball and a given line,
+     * moving by only a fraction of the new direction after a collision.
+     *
+     * @param line The Line object that the ball potentially interacts with.
+     * @param scale The fraction of the vector to move by, see move().
+     */
+    public void interact(Line line, float scale) {
+        if (!this.willCollide(line, this.scratch)) {
+            return;
+        }
+        this.bounce(line, this.scratch, scale);
+    }
+
+    /**
+     * Bounces the ball off a line it is known to hit, without testing for the collision again.
+     * Used by interact, and for hits found by timeOfImpact.<br>
+     *
+     * @param line The Line object that the ball hits.
+     * @param collisionPoint The point [x, y] on the line where the ball hits it.
+     *                       A collision point equal to P1 of the line reverses the ball.
+     * @param scale The fraction of the new vector to move by, see move().
+     */
+    public void bounce(Line line, float[] collisionPoint, float scale) {
+        this.setNewColour(line);
+
+        // Same as setNewDirection, but updates the vector in place
+        if (collisionPoint[0] == line.getP1()[0] && collisionPoint[1] == line.getP1()[1]) {
+            this.vector[0] = -1*this.vector[0];
+            this.vector[1] = -1*this.vector[1];
         }
+        else {
+            reflect(this.getCenterX(), this.getCenterY(), this.vector, line);
+        }
+        this.move(scale);
     }
 
     /**
@@ -158,32 +252,111 @@ public class Ball {
      * 1. Calculates the ball's next position based on its current position and movement vector.<br>
      * 2. Computes distances between the ball's next position and the line's endpoints.<br>
      * 3. Checks if these distances indicate a collision using the artificial radius.<br>
+     *    Lines with a contact distance, made by StrokeSimplifier from several drawn segments, are instead tested
+     *    by the distance to the segment, as the ellipse widens with the length of the line.<br>
      * 4. If a collision is detected, calculates the exact collision point on the line.<br>
      * Special case: If the line segment is extremely short,
      * it returns the first endpoint as the collision point. This is done to prevent ArithmeticExceptions due to
      * zero-division errors.
      */
     public float[] willCollide(Line line) {
+        float[] collisionPoint = new float[2];
+        if (!this.willCollide(line, collisionPoint)) {
+            return null;
+        }
+        if (collisionPoint[0] == line.getP1()[0] && collisionPoint[1] == line.getP1()[1]) {
+            return line.getP1();
+        }
+        return collisionPoint;
+    }
+
+    /**
+     * Allocation-free variant of willCollide, for use every tick.<br>
+     *
+     * @param line The Line object representing the line segment to check for collision.
+     * @param collisionPoint An array of length 2 which receives the collision point [x, y], may be null.
+     * @return true if a collision will occur.
+     */
+    public boolean willCollide(Line line, float[] collisionPoint) {
+        return willCollide(this.getCenterX() + this.vector[0], this.getCenterY() + this.vector[1], line, collisionPoint);
+    }
+
+    /**
+     * Static variant of willCollide for balls kept as primitives, e.g. in a BallStore.<br>
+     *
+     * @param nextX The x-coordinate of the ball's centre after its next move (centre + vector).
+     * @param nextY The y-coordinate of the ball's centre after its next move.
+     * @param line The Line object representing the line segment to check for collision.
+     * @param collisionPoint An array of length 2 which receives the collision point [x, y], may be null.
+     * @return true if a collision will occur.
+     */
+    public static boolean willCollide(float nextX, float nextY, Line line, float[] collisionPoint) {
+        float contactDistance = line.getContactDistance();
+        if (contactDistance > 0) {
+            if (closestDistanceSquared(nextX, nextY, line) >= contactDistance * contactDistance) {
+                return false;
+            }
+            if (collisionPoint != null) {
+                getCollisionPoint(nextX, nextY, line, collisionPoint);
+            }
+            return true;
+        }
+
         float[] P1 = line.getP1();
         float[] P2 = line.getP2();
-        float[] ballXY = new float[] {this.getBallCenter()[0] + this.vector[0], this.getBallCenter()[1] + this.vector[1]};
 
-        double distP1 = App.getDistance(ballXY, P1);
-        double distP2 = App.getDistance(ballXY, P2);
-        double distP1P2 = App.getDistance(P1, P2);
+        double distP1 = App.getDistance(nextX, nextY, P1[0], P1[1]);
+        double distP2 = App.getDistance(nextX, nextY, P2[0], P2[1]);
+        double distP1P2 = App.getDistance(P1[0], P1[1], P2[0], P2[1]);
 
-        if (distP1 + distP2 < ARTIFICIAL_RADIUS + distP1P2) {
-            if (distP1P2 < 0.001f) {
-                return P1;
-            }
-            // Calculate the collision point
-            float t = (float) ((distP1 - ARTIFICIAL_RADIUS) / distP1P2);
-            float collisionX = P1[0] + t * (P2[0] - P1[0]);
-            float collisionY = P1[1] + t * (P2[1] - P1[1]);
-            return new float[] {collisionX, collisionY};
+        if (distP1 + distP2 >= ARTIFICIAL_RADIUS + distP1P2) {
+            return false;
         }
-        return null;
+        if (collisionPoint != null) {
+            getCollisionPoint(distP1, distP1P2, line, collisionPoint);
+        }
+        return true;
+    }
 
+    /**
+     * Calculates how far from the middle of a line its look-ahead point can be when willCollide first sees a ball
+     * coming straight at it: the semi-minor axis of the ellipse |p - P1| + |p - P2| &lt; ARTIFICIAL_RADIUS + |P1 - P2|.
+     *
+     * @param length The length of the line.
+     * @return The contact distance in pixels.
+     */
+    public static float getContactDistance(double length) {
+        int r = ARTIFICIAL_RADIUS;
+        return (float) (Math.sqrt(r * r + 2 * r * length) / 2);
+    }
+
+    /**
+     * Calculates where a ball centred on a point hits a line, the same way willCollide does.
+     * Used for hits found by timeOfImpact, where the point is the ball centre at the time of impact.<br>
+     *
+     * @param x The x-coordinate of the ball centre.
+     * @param y The y-coordinate of the ball centre.
+     * @param line The Line object that the ball hits.
+     * @param collisionPoint An array of length 2 which receives the collision point [x, y].
+     */
+    public static void getCollisionPoint(float x, float y, Line line, float[] collisionPoint) {
+        float[] P1 = line.getP1();
+        float[] P2 = line.getP2();
+        getCollisionPoint(App.getDistance(x, y, P1[0], P1[1]), App.getDistance(P1[0], P1[1], P2[0], P2[1]), line, collisionPoint);
+    }
+
+    private static void getCollisionPoint(double distP1, double distP1P2, Line line, float[] collisionPoint) {
+        float[] P1 = line.getP1();
+        float[] P2 = line.getP2();
+        if (distP1P2 < 0.001f) {
+            collisionPoint[0] = P1[0];
+            collisionPoint[1] = P1[1];
+            return;
+        }
+        // Calculate the collision point
+        float t = (float) ((distP1 - ARTIFICIAL_RADIUS) / distP1P2);
+        collisionPoint[0] = P1[0] + t * (P2[0] - P1[0]);
+        collisionPoint[1] = P1[1] + t * (P2[1] - P1[1]);
     }
 
 
@@ -224,41 +397,143 @@ public class Ball {
             return new float[] {-1*this.getVector()[0], -1*this.getVector()[1]};
         }
 
+        float[] newDirection = new float[] {this.vector[0], this.vector[1]};
+        reflect(this.getBallCenter()[0], this.getBallCenter()[1], newDirection, line);
+
+        this.vector = newDirection;
+        return new float[] {newDirection[0], newDirection[1]};
+    }
+
+    /**
+     * Calculates when a circle moving in a straight line first touches a line segment (a swept circle test).
+     * This catches look-ahead points that jump over a line when a ball moves faster than willCollide can see.<br>
+     *
+     * @param x The x-coordinate of the circle centre at the start of the move.
+     * @param y The y-coordinate of the circle centre at the start of the move.
+     * @param dx The x-component of the move.
+     * @param dy The y-component of the move.
+     * @param radius The radius of the circle, usually SWEEP_RADIUS.
+     * @param line The Line object to test against.
+     * @return The fraction of the move, from 0 to 1, at which the circle first touches the line.
+     *         Returns -1 if it does not touch the line during the move, or already touches it at the start.
+     */
+    public static float timeOfImpact(float x, float y, float dx, float dy, float radius, Line line) {
+        float ax = line.getP1()[0];
+        float ay = line.getP1()[1];
+        float ex = line.getP2()[0] - ax;
+        float ey = line.getP2()[1] - ay;
+        float lengthSquared = ex * ex + ey * ey;
+
+        if (closestDistanceSquared(x, y, line) <= radius * radius) {
+            return -1;
+        }
+
+        float first = Float.MAX_VALUE;
+        if (lengthSquared > 0.000001f) {
+            // Against the side of the segment facing the circle
+            float length = (float) Math.sqrt(lengthSquared);
+            float nx = -ey / length;
+            float ny = ex / length;
+            float side = (x - ax) * nx + (y - ay) * ny;
+            float approach = dx * nx + dy * ny;
+            if (side * approach < 0) {
+                float t = (Math.abs(side) - radius) / Math.abs(approach);
+                float u = ((x + t * dx - ax) * ex + (y + t * dy - ay) * ey) / lengthSquared;
+                if (t >= 0 && t <= 1 && u >= 0 && u <= 1) {
+                    first = t;
+                }
+            }
+        }
+
+        // Against the rounded ends of the segment
+        first = Math.min(first, timeOfImpact(x, y, dx, dy, radius, ax, ay));
+        first = Math.min(first, timeOfImpact(x, y, dx, dy, radius, ax + ex, ay + ey));
+        return first <= 1 ? first : -1;
+    }
+
+    /**
+     * Calculates when a moving circle first touches a point.
+     * @return The fraction of the move, or Float.MAX_VALUE if the circle does not touch the point during the move.
+     */
+    private static float timeOfImpact(float x, float y, float dx, float dy, float radius, float px, float py) {
+        float fx = x - px;
+        float fy = y - py;
+        float a = dx * dx + dy * dy;
+        float b = 2 * (fx * dx + fy * dy);
+        float c = fx * fx + fy * fy - radius * radius;
+        float discriminant = b * b - 4 * a * c;
+        if (a == 0 || discriminant < 0) {
+            return Float.MAX_VALUE;
+        }
+        float t = (float) ((-b - Math.sqrt(discriminant)) / (2 * a));
+        return (t >= 0 && t <= 1) ? t : Float.MAX_VALUE;
+    }
+
+    /**
+     * Finds the squared distance from a point to a line segment.
+     */
+    private static float closestDistanceSquared(float x, float y, Line line) {
+        float ax = line.getP1()[0];
+        float ay = line.getP1()[1];
+        float ex = line.getP2()[0] - ax;
+        float ey = line.getP2()[1] - ay;
+        float lengthSquared = ex * ex + ey * ey;
+        float u = 0;
+        if (lengthSquared >= 0.000001f) {
+            u = Math.max(0, Math.min(1, ((x - ax) * ex + (y - ay) * ey) / lengthSquared));
+        }
+        float cx = ax + u * ex;
+        float cy = ay + u * ey;
+        return (x - cx) * (x - cx) + (y - cy) * (y - cy);
+    }
+
+    /**
+     * Reflects a direction vector off a line, using the normal of the line on the side of the ball centre.
+     * Used by setNewDirection, and directly for balls kept as primitives, e.g. in a BallStore.<br>
+     *
+     * @param centerX The x-coordinate of the ball centre.
+     * @param centerY The y-coordinate of the ball centre.
+     * @param vector The direction vector [x, y], which is replaced by the reflected vector.
+     * @param line The Line object that the ball is colliding with. Must not be a single point.
+     */
+    public static void reflect(float centerX, float centerY, float[] vector, Line line) {
         float[] P1 = line.getP1();
         float[] P2 = line.getP2();
         float dy = P2[1] - P1[1];
         float dx = P2[0] - P1[0];
 
         //CALCULATE NORMALS OF LINE
-        float[] norm1 = new float[] {-1*dy, dx};
-        float[] norm2 = new float[] {dy, -1*dx};
+        float norm1X = -1*dy;
+        float norm1Y = dx;
         ////normalise
-        double mag1 = Math.sqrt(Math.pow(norm1[0], 2) + Math.pow(norm1[1], 2));
-        double mag2 = Math.sqrt(Math.pow(norm2[0], 2) + Math.pow(norm2[1], 2));
-        double[] normalised1 = new double[] {norm1[0] / mag1, norm1[1] / mag1}; // zeroDivisionError not handled
-        double[] normalised2 = new double[] {norm2[0] / mag2, norm2[1] / mag2};
-
-        //GET CLOSEST NORMAL
-        double[] normUsed;
-        float[] ballXY = new float[] {this.getBallCenter()[0], this.getBallCenter()[1]};
-        float[] midpoint = line.getMidPoint();
-        double[] n1Line = new double[] {midpoint[0] + normalised1[0], midpoint[1] + normalised1[1]};
-        double[] n2Line = new double[] {midpoint[0] + normalised2[0], midpoint[1] + normalised2[1]};
-
-        if (App.getDistance(n1Line, ballXY) < App.getDistance(n2Line, ballXY)) {
-            normUsed = normalised1;
-        }
-        else {
-            normUsed = normalised2;
+        double mag = Math.sqrt((double) norm1X * norm1X + (double) norm1Y * norm1Y); // zeroDivisionError not handled
+        double normalised1X = norm1X / mag;
+        double normalised1Y = norm1Y / mag;
+
+        //GET CLOSEST NORMAL (the second normal is the negation of the first)
+        float midpointX = (P2[0] + P1[0]) / 2;
+        float midpointY = (P2[1] + P1[1]) / 2;
+        double d1X = centerX - (midpointX + normalised1X);
+        double d1Y = centerY - (midpointY + normalised1Y);
+        double d2X = centerX - (midpointX - normalised1X);
+        double d2Y = centerY - (midpointY - normalised1Y);
+        double dist1 = Math.sqrt(d1Y * d1Y + d1X * d1X);
+        double dist2 = Math.sqrt(d2Y * d2Y + d2X * d2X);
+
+        double normUsedX = normalised1X;
+        double normUsedY = normalised1Y;
+        if (!(dist1 < dist2)) {
+            normUsedX = -normalised1X;
+            normUsedY = -normalised1Y;
         }
 
         //CALCULATE NEW DIRECTION VECTOR
-        double vDotn = this.vector[0] * normUsed[0] + this.vector[1] * normUsed[1];
-        double newDirectionX = this.vector[0] - 2 * vDotn * normUsed[0];
-        double newDirectionY = this.vector[1] - 2 * vDotn * normUsed[1];
+        double vDotn = vector[0] * normUsedX + vector[1] * normUsedY;
+        double newDirectionX = vector[0] - 2 * vDotn * normUsedX;
+        double newDirectionY = vector[1] - 2 * vDotn * normUsedY;
 
-        this.vector = new float[] {(float)newDirectionX, (float)newDirectionY};
-        return new float[] {(float)newDirectionX, (float)newDirectionY};
+        vector[0] = (float) newDirectionX;
+        vector[1] = (float) newDirectionY;
     }
 
     /**
@@ -274,19 +549,26 @@ public class Ball {
      *           (0 = grey, 1 = orange, 2 = blue, 3 = green, 4 = yellow).
      */
     public void setNewColour(Line line) {
-        if (line.getColourTo() == 0) {
-            return;
-        }
+        this.colour = getNewColour(this.colour, line);
+    }
+
+    /**
+     * @param colour The current colour code of a ball.
+     * @param line The Line object that the ball is interacting with.
+     * @return The colour code of the ball after hitting the line, see setNewColour.
+     */
+    public static int getNewColour(int colour, Line line) {
         if (1 <= line.getColourTo() && line.getColourTo() <= 4) {
-            this.colour = line.getColourTo();
+            return line.getColourTo();
         }
+        return colour;
     }
 
     /**
      * Handles the interaction between a ball and a hole in the game.<br>
      *
      * @param hole The Hole object that the ball is potentially interacting with.<br>
-     * @param app The main App object, used for accessing game state and methods.<br>
+     * @param world The GameWorld the ball belongs to, which applies the score and queue changes on capture.<br>
      * @return boolean True if the ball interacts with the hole, false otherwise.<br>
      *
      * <p>This method performs the following actions:</p>
@@ -294,62 +576,37 @@ public class Ball {
      *   <li>Checks if the ball is already absorbed or if the hole is invalid.</li>
      *   <li>Calculates and applies an attraction vector from the hole to the ball.</li>
      *   <li>Shrinks the ball as it approaches the hole.</li>
-     *   <li>When the ball is sufficiently close to the hole center:
-     *     <ul>
-     *       <li>If colors match: Increases score and removes the ball.</li>
-     *       <li>If either color is grey (0): Increases score (less than color match) and removes the ball.</li>
-     *       <li>If colors mismatch: Decreases score, removes the ball, and adds it back to the queue.</li>
-     *     </ul>
-     *    </li>
+     *   <li>When the ball is sufficiently close to the hole center, the ball is captured
+     *   (see GameWorld::capture).</li>
      * </ol>
      */
-    public boolean meetHole(Hole hole, App app) {
+    public boolean meetHole(Hole hole, GameWorld world) {
         if (this.getIsAbsorbed()) {
             return false;
         }
 
-        if (hole.getHoleCenter() == null) {
+        float holeCenterX = hole.getHoleCenterX();
+        float holeCenterY = hole.getHoleCenterY();
+        if (Float.isNaN(holeCenterX)) {
             return false;
         }
 
-        float[] ballCenter = this.getBallCenter();
-        float[] holeCenter = hole.getHoleCenter();
+        float ballCenterX = this.getCenterX();
+        float ballCenterY = this.getCenterY();
 
-        float[] attractionVector = this.getAttractionVector(hole);
-        this.vector[0] += attractionVector[0];
-        this.vector[1] += attractionVector[1];
+        if (!getAttractionVector(ballCenterX, ballCenterY, holeCenterX, holeCenterY, this.scratch)) {
+            this.isAbsorbed = true;
+            this.ballRadius = 0;
+        }
+        this.vector[0] += this.scratch[0] * world.getTickScale();
+        this.vector[1] += this.scratch[1] * world.getTickScale();
 
-        float shrinkFactor = (float) (App.getDistance(holeCenter, ballCenter) / 32);
+        float shrinkFactor = (float) (App.getDistance(holeCenterX, holeCenterY, ballCenterX, ballCenterY) / 32);
         this.ballRadius = 12 * shrinkFactor; //make ball increase/decrease proportionally to its original radius
 
         if (this.ballRadius < 6) {
             this.ballRadius = 0;
-            //this.isAbsorbed = true;
-
-            if (this.getColour() == hole.getColour()) {
-                App.scoreTemp += app.getScoreIncrease().get(hole.colourToString()) * app.modScoreIncrease;
-                app.getBalls().remove(this);
-                this.absorb();
-            }
-
-            else if (this.colour == 0 || hole.getColour() == 0) {
-                App.scoreTemp += app.getScoreIncrease().get("grey") * app.getModScoreIncrease();
-                app.getBalls().remove(this);
-                this.absorb();
-            }
-
-            else {
-                App.scoreTemp -= app.getScoreDecrease().get(hole.colourToString()) * app.getModScoreDecrease();
-                app.getBalls().remove(this); // avoid concurrent modification
-                for (int i = 0; i < app.ballQueue.length; i++) {
-                    if (app.ballQueue[i] == null) {
-                        int c = this.getColour();
-                        app.ballQueue[i] = new Ball(19 + 28 * i, 21, c); // add back to queue
-                        break;
-                    }
-                }
-            }
-
+            world.capture(this, hole);
         }
         return true;
     }
@@ -361,6 +618,22 @@ public class Ball {
         return new float[] {this.x + this.ballRadius, this.y + this.ballRadius};
     }
 
+    /**
+     * Allocation-free variant of getBallCenter.
+     * @return The x-coordinate of the centre of the Ball object.
+     */
+    public float getCenterX() {
+        return this.x + this.ballRadius;
+    }
+
+    /**
+     * Allocation-free variant of getBallCenter.
+     * @return The y-coordinate of the centre of the Ball object.
+     */
+    public float getCenterY() {
+        return this.y + this.ballRadius;
+    }
+
     /**
      * Calculates the attraction vector between the ball and a given hole.<br>
      *
@@ -391,22 +664,42 @@ public class Ball {
      */
     public float[] getAttractionVector(Hole hole) {
         float[] ballCenter = this.getBallCenter();
-        float[] holeCenter = hole.getHoleCenter();
-        float[] attractionVec = new float[] {holeCenter[0] - ballCenter[0], holeCenter[1] - ballCenter[1]};
-
-        float mag = (float) (Math.sqrt(Math.pow(attractionVec[0], 2) + Math.pow(attractionVec[1], 2)));
+        float[] attraction = new float[2];
 
-        if (mag < 3) { //prevent zero division error
+        float[] holeCenter = hole.getHoleCenter();
+        if (!getAttractionVector(ballCenter[0], ballCenter[1], holeCenter[0], holeCenter[1], attraction)) {
             this.isAbsorbed = true;
             this.ballRadius = 0;
-            return new float[] {0, 0};
         }
+        return attraction;
+    }
 
-        float speed = (float) (Math.min(MAX_SPEED, (App.getDistance(ballCenter, holeCenter) * 0.005f)));
-        float attractionX = attractionVec[0] / mag * speed;
-        float attractionY = attractionVec[1] / mag * speed;
+    /**
+     * Static variant of getAttractionVector for balls kept as primitives, e.g. in a BallStore.<br>
+     *
+     * @param centerX The x-coordinate of the ball centre.
+     * @param centerY The y-coordinate of the ball centre.
+     * @param holeCenterX The x-coordinate of the hole centre.
+     * @param holeCenterY The y-coordinate of the hole centre.
+     * @param attraction An array of length 2 which receives the attraction vector [x, y].
+     * @return false if the ball is close enough to the hole centre to be absorbed, in which case the vector is [0, 0].
+     */
+    public static boolean getAttractionVector(float centerX, float centerY, float holeCenterX, float holeCenterY, float[] attraction) {
+        float attractionVecX = holeCenterX - centerX;
+        float attractionVecY = holeCenterY - centerY;
 
-        return new float[] {attractionX, attractionY};
+        float mag = (float) (Math.sqrt((double) attractionVecX * attractionVecX + (double) attractionVecY * attractionVecY));
+
+        if (mag < 3) { //prevent zero division error
+            attraction[0] = 0;
+            attraction[1] = 0;
+            return false;
+        }
+
+        float speed = (float) (Math.min(MAX_SPEED, (App.getDistance(centerX, centerY, holeCenterX, holeCenterY) * 0.005f)));
+        attraction[0] = attractionVecX / mag * speed;
+        attraction[1] = attractionVecY / mag * speed;
+        return true;
     }
 
     /**
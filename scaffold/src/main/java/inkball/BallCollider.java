@@ -0,0 +1,237 @@
+package inkball;
+
+import java.util.Arrays;
+
+/**
+ * Represents the ball-to-ball collision pass of a level, using a sweep-and-prune broadphase along the x-axis.
+ * Balls are kept sorted by the left edge of their bounding box, so only balls whose x-intervals overlap are
+ * tested against each other. The sort order is kept between ticks, so insertion sort on the nearly sorted
+ * order costs close to O(n) per tick instead of the O(n²) of testing every pair.<br>
+ *
+ * Collisions are elastic between balls of equal mass: the parts of both velocities along the line between
+ * the centres are exchanged. Only balls moving towards each other are bounced, so overlapping balls which are
+ * already separating are left to drift apart.<br>
+ *
+ * Note: Balls are identified by the order they are added in. Adding the same balls in the same order every tick
+ * keeps the previous sort order useful; if the number of balls changes, the order is rebuilt with an O(n log n) sort.
+ */
+public class BallCollider {
+    private static final int DEFAULT_CAPACITY = 16;
+
+    // Ball centres, in 1px units and relative to the app window
+    public float[] x;
+    public float[] y;
+    /**
+     * Represents the direction vectors. resolve() writes the new vectors back into these arrays.
+     */
+    public float[] vx;
+    public float[] vy;
+    public float[] radius;
+
+    private int size;
+
+    /**
+     * Represents the indices of the balls, sorted by the left edge of their bounding box.
+     */
+    private int[] order;
+    private int sortedSize = -1;
+
+    /**
+     * Represents the scratch keys of a rebuild: the left edge of each ball in the high 32 bits, its index in the low.
+     */
+    private long[] keys;
+
+    /**
+     * Represents the pairs of touching balls found by the latest resolve(), in the order they were bounced.
+     */
+    private int[] pairs = new int[DEFAULT_CAPACITY * 2];
+    private int pairCount;
+
+    public BallCollider() {
+        this.x = new float[DEFAULT_CAPACITY];
+        this.y = new float[DEFAULT_CAPACITY];
+        this.vx = new float[DEFAULT_CAPACITY];
+        this.vy = new float[DEFAULT_CAPACITY];
+        this.radius = new float[DEFAULT_CAPACITY];
+        this.order = new int[DEFAULT_CAPACITY];
+        this.keys = new long[DEFAULT_CAPACITY];
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Removes every ball. The sort order is kept, so the same balls can be added again for the next tick.
+     */
+    public void clear() {
+        this.size = 0;
+    }
+
+    /**
+     * Adds a ball to be tested in the next resolve().
+     *
+     * @param x The x-coordinate of the ball centre.
+     * @param y The y-coordinate of the ball centre.
+     * @param vx The x-component of the direction vector.
+     * @param vy The y-component of the direction vector.
+     * @param radius The radius of the ball.
+     * @return The index of the ball, used to read back its vector after resolve().
+     */
+    public int add(float x, float y, float vx, float vy, float radius) {
+        if (this.size == this.x.length) {
+            this.grow();
+        }
+        int i = this.size++;
+        this.x[i] = x;
+        this.y[i] = y;
+        this.vx[i] = vx;
+        this.vy[i] = vy;
+        this.radius[i] = radius;
+        return i;
+    }
+
+    /**
+     * Finds every pair of touching balls and bounces the ones moving towards each other.
+     * @return The number of touching pairs found, see getPairCount().
+     */
+    public int resolve() {
+        this.sort();
+        this.pairCount = 0;
+
+        for (int a = 0; a < this.size; a++) {
+            int i = this.order[a];
+            float maxX = this.x[i] + this.radius[i];
+            for (int b = a + 1; b < this.size; b++) {
+                int j = this.order[b];
+                if (this.x[j] - this.radius[j] > maxX) {
+                    break; // Every later ball starts further right
+                }
+                if (this.isTouching(i, j)) {
+                    this.addPair(i, j);
+                    this.bounce(i, j);
+                }
+            }
+        }
+        return this.pairCount;
+    }
+
+    /**
+     * @return The number of touching pairs found by the latest resolve().
+     */
+    public int getPairCount() {
+        return this.pairCount;
+    }
+
+    /**
+     * @param k The pair number, from 0 to getPairCount() - 1.
+     * @return The indices of both balls of the pair.
+     * @throws IndexOutOfBoundsException if k is not a pair found by the latest resolve().
+     */
+    public int[] getPair(int k) {
+        if (k < 0 || k >= this.pairCount) {
+            throw new IndexOutOfBoundsException("Pair " + k + " out of bounds for " + this.pairCount + " pairs");
+        }
+        return new int[] {this.pairs[2 * k], this.pairs[2 * k + 1]};
+    }
+
+    /**
+     * Checks whether two balls overlap or touch.
+     *
+     * @param i The index of the first ball.
+     * @param j The index of the second ball.
+     * @return true if the distance between the centres is at most the sum of the radii.
+     */
+    public boolean isTouching(int i, int j) {
+        float dx = this.x[j] - this.x[i];
+        float dy = this.y[j] - this.y[i];
+        float reach = this.radius[i] + this.radius[j];
+        return dx * dx + dy * dy <= reach * reach;
+    }
+
+    /**
+     * Exchanges the velocity components of two balls along the line between their centres,
+     * if they are moving towards each other.
+     */
+    private void bounce(int i, int j) {
+        float dx = this.x[j] - this.x[i];
+        float dy = this.y[j] - this.y[i];
+        float distance = (float) Math.sqrt(dx * dx + dy * dy);
+        float nx = 1;
+        float ny = 0;
+        if (distance > 0) {
+            nx = dx / distance;
+            ny = dy / distance;
+        }
+
+        float approach = (this.vx[i] - this.vx[j]) * nx + (this.vy[i] - this.vy[j]) * ny;
+        if (approach <= 0) {
+            return; // Already separating
+        }
+        this.vx[i] -= approach * nx;
+        this.vy[i] -= approach * ny;
+        this.vx[j] += approach * nx;
+        this.vy[j] += approach * ny;
+    }
+
+    /**
+     * Insertion sorts the order by the left edge of each ball. Balls move a few pixels per tick,
+     * so the previous order is almost sorted and this runs in close to linear time.
+     * If the number of balls changed, the previous order means nothing, so the order is rebuilt by rebuild() instead.
+     */
+    private void sort() {
+        if (this.sortedSize != this.size) {
+            this.rebuild();
+            this.sortedSize = this.size;
+            return;
+        }
+
+        for (int a = 1; a < this.size; a++) {
+            int i = this.order[a];
+            float minX = this.x[i] - this.radius[i];
+            int b = a - 1;
+            while (b >= 0 && this.x[this.order[b]] - this.radius[this.order[b]] > minX) {
+                this.order[b + 1] = this.order[b];
+                b--;
+            }
+            this.order[b + 1] = i;
+        }
+    }
+
+    /**
+     * Sorts the order from scratch in O(n log n). Each left edge is mapped to an int with the same order as the float,
+     * then packed with the ball's index into a long, so one primitive sort orders the balls.
+     */
+    private void rebuild() {
+        for (int i = 0; i < this.size; i++) {
+            int bits = Float.floatToIntBits(this.x[i] - this.radius[i]);
+            bits ^= (bits >> 31) & 0x7fffffff; // Negative floats sort in reverse as ints
+            this.keys[i] = ((long) bits << 32) | i;
+        }
+        Arrays.sort(this.keys, 0, this.size);
+        for (int a = 0; a < this.size; a++) {
+            this.order[a] = (int) this.keys[a];
+        }
+    }
+
+    private void addPair(int i, int j) {
+        if (2 * this.pairCount == this.pairs.length) {
+            this.pairs = Arrays.copyOf(this.pairs, this.pairs.length * 2);
+        }
+        this.pairs[2 * this.pairCount] = i;
+        this.pairs[2 * this.pairCount + 1] = j;
+        this.pairCount++;
+    }
+
+    private void grow() {
+        int capacity = this.x.length * 2;
+        this.x = Arrays.copyOf(this.x, capacity);
+        this.y = Arrays.copyOf(this.y, capacity);
+        this.vx = Arrays.copyOf(this.vx, capacity);
+        this.vy = Arrays.copyOf(this.vy, capacity);
+        this.radius = Arrays.copyOf(this.radius, capacity);
+        this.order = Arrays.copyOf(this.order, capacity);
+        this.keys = new long[capacity];
+        this.sortedSize = -1;
+    }
+}
@@ -0,0 +1,186 @@
+package inkball;
+
+import java.util.Arrays;
+
+/**
+ * Represents a struct-of-arrays store of balls for stress levels with thousands of balls.
+ * Positions, velocities, radii and colours are kept in parallel primitive arrays indexed by slot,
+ * so updates walk contiguous memory and never allocate. Balls are removed by swap-remove,
+ * which moves the last ball into the freed slot in O(1).<br>
+ *
+ * Note: Slots are not stable. A ball's slot changes when another ball is removed,
+ * so slots must not be kept between ticks.
+ */
+public class BallStore {
+    private static final int DEFAULT_CAPACITY = 16;
+
+    /**
+     * Represents a function applied to one ball of the store. Reads and writes the store's arrays directly.
+     */
+    public interface Kernel {
+        /**
+         * @param store The store being iterated.
+         * @param i The slot of the current ball. The kernel may swapRemove(i).
+         */
+        void apply(BallStore store, int i);
+    }
+
+    // Top left corner of the ball sprite, like Ball::getX and Ball::getY
+    public float[] x;
+    public float[] y;
+    /**
+     * Represents the positions before the latest simulation tick. Used to interpolate drawing.
+     */
+    public float[] prevX;
+    public float[] prevY;
+    /**
+     * Represents the direction vectors, in pixels per frame at App.FPS.
+     */
+    public float[] vx;
+    public float[] vy;
+    public float[] radius;
+    /**
+     * Represents the colour codes, where 0 = grey, 1 = orange, 2 = blue, 3 = green, 4 = yellow.
+     */
+    public int[] colour;
+
+    private int size;
+
+    public BallStore() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructor for a BallStore object.
+     * @param capacity The number of balls to allocate room for. The store grows when it is full.
+     * @throws IllegalArgumentException if capacity is negative.
+     */
+    public BallStore(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Capacity must not be negative!");
+        }
+        this.x = new float[capacity];
+        this.y = new float[capacity];
+        this.prevX = new float[capacity];
+        this.prevY = new float[capacity];
+        this.vx = new float[capacity];
+        this.vy = new float[capacity];
+        this.radius = new float[capacity];
+        this.colour = new int[capacity];
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    public int getCapacity() {
+        return this.x.length;
+    }
+
+    /**
+     * Adds a ball with the default radius of 12.
+     *
+     * @param x The x-coordinate of the ball, in 1px units and relative to the app window.
+     * @param y The y-coordinate of the ball.
+     * @param vx The x-component of the direction vector.
+     * @param vy The y-component of the direction vector.
+     * @param colour The colour integer code of the ball. Defaults to grey if outside of 0-4.
+     * @return The slot of the new ball.
+     */
+    public int add(float x, float y, float vx, float vy, int colour) {
+        if (this.size == this.x.length) {
+            this.grow();
+        }
+        int i = this.size++;
+        this.x[i] = x;
+        this.y[i] = y;
+        this.prevX[i] = x;
+        this.prevY[i] = y;
+        this.vx[i] = vx;
+        this.vy[i] = vy;
+        this.radius[i] = 12;
+        this.colour[i] = (colour < 0 || colour > 4) ? 0 : colour;
+        return i;
+    }
+
+    /**
+     * Copies a Ball object into the store.
+     * @param ball The Ball object to copy. It is not changed or kept.
+     * @return The slot of the new ball.
+     */
+    public int add(Ball ball) {
+        int i = this.add(ball.getX(), ball.getY(), ball.getVector()[0], ball.getVector()[1], ball.getColour());
+        this.radius[i] = ball.getBallRadius();
+        return i;
+    }
+
+    /**
+     * Removes a ball by moving the last ball into its slot.
+     * @param i The slot to remove.
+     * @throws IndexOutOfBoundsException if i is not a used slot.
+     */
+    public void swapRemove(int i) {
+        if (i < 0 || i >= this.size) {
+            throw new IndexOutOfBoundsException("Slot " + i + " out of bounds for size " + this.size);
+        }
+        int last = --this.size;
+        if (i != last) {
+            this.x[i] = this.x[last];
+            this.y[i] = this.y[last];
+            this.prevX[i] = this.prevX[last];
+            this.prevY[i] = this.prevY[last];
+            this.vx[i] = this.vx[last];
+            this.vy[i] = this.vy[last];
+            this.radius[i] = this.radius[last];
+            this.colour[i] = this.colour[last];
+        }
+    }
+
+    public void clear() {
+        this.size = 0;
+    }
+
+    /**
+     * Applies a kernel to every ball, from the last slot to the first.
+     * Iterating backwards lets the kernel swapRemove() the current slot:
+     * the ball moved into it has already been visited.
+     * @param kernel The function to apply.
+     */
+    public void forEach(Kernel kernel) {
+        for (int i = this.size - 1; i >= 0; i--) {
+            kernel.apply(this, i);
+        }
+    }
+
+    /**
+     * Remembers the current positions as the previous positions. Called at the start of every simulation tick.
+     */
+    public void savePositions() {
+        System.arraycopy(this.x, 0, this.prevX, 0, this.size);
+        System.arraycopy(this.y, 0, this.prevY, 0, this.size);
+    }
+
+    public float getCenterX(int i) {
+        return this.x[i] + this.radius[i];
+    }
+
+    public float getCenterY(int i) {
+        return this.y[i] + this.radius[i];
+    }
+
+    private void grow() {
+        int capacity = Math.max(DEFAULT_CAPACITY, this.x.length * 2);
+        this.x = Arrays.copyOf(this.x, capacity);
+        this.y = Arrays.copyOf(this.y, capacity);
+        this.prevX = Arrays.copyOf(this.prevX, capacity);
+        this.prevY = Arrays.copyOf(this.prevY, capacity);
+        this.vx = Arrays.copyOf(this.vx, capacity);
+        this.vy = Arrays.copyOf(this.vy, capacity);
+        this.radius = Arrays.copyOf(this.radius, capacity);
+        this.colour = Arrays.copyOf(this.colour, capacity);
+    }
+}
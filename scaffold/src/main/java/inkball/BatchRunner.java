@@ -0,0 +1,356 @@
+package inkball;
+
+import processing.core.PApplet;
+import processing.data.JSONObject;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * <p>Represents the command-line batch runner, which plays every level of a configuration headless
+ * for a number of random seeds and reports how each run ended.</p>
+ * Levels are set up the same way as App::setup does, from the level's "layout", "time", "spawn_interval",
+ * score modifiers and "balls". No lines are drawn, so the results show how a level plays out on its own.
+ * Layouts larger than the window (see LevelGenerator) get a board large enough to hold them.
+ * Runs are independent GameWorld instances and are spread over a thread pool, one run per task.<br>
+ *
+ * Usage: {@code BatchRunner [--config config.json] [--seeds 8] [--seed 0] [--threads N] [--max-time 600] [--out results.csv]}<br>
+ * The first seed defaults to the top-level "seed" of the configuration, or 0.
+ */
+public class BatchRunner {
+
+    /**
+     * Represents the column names of the CSV output, in the order of Result::toCsv.
+     */
+    public static final String HEADER = "level,seed,score,won,time_used,wall_breaks,wrong_captures,"
+            + "captures_grey,captures_orange,captures_blue,captures_green,captures_yellow";
+
+    /**
+     * Represents the outcome of one level played with one seed.
+     */
+    public static class Result {
+        private final int level;
+        private final long seed;
+        private final double score;
+        private final boolean won;
+        private final float timeUsed;
+        private final int wallBreaks;
+        private final int wrongCaptures;
+        private final int[] captures;
+
+        private Result(int level, long seed, GameWorld world, double score, boolean won) {
+            this.level = level;
+            this.seed = seed;
+            this.score = score;
+            this.won = won;
+            this.timeUsed = (float) world.getTicks() / world.getTickRate();
+            this.wallBreaks = world.getWallBreaks();
+            this.wrongCaptures = world.getWrongCaptures();
+            this.captures = new int[5];
+            for (int i = 0; i < this.captures.length; i++) {
+                this.captures[i] = world.getCaptures(i);
+            }
+        }
+
+        public int getLevel() {
+            return this.level;
+        }
+
+        public long getSeed() {
+            return this.seed;
+        }
+
+        /**
+         * @return The final score of the level, including the bonus for the time left if the level was won.
+         */
+        public double getScore() {
+            return this.score;
+        }
+
+        public boolean getWon() {
+            return this.won;
+        }
+
+        /**
+         * @return The simulated time the run took, in seconds.
+         */
+        public float getTimeUsed() {
+            return this.timeUsed;
+        }
+
+        public int getWallBreaks() {
+            return this.wallBreaks;
+        }
+
+        public int getWrongCaptures() {
+            return this.wrongCaptures;
+        }
+
+        /**
+         * @param colour The colour code of the balls, from 0 to 4.
+         * @return The number of balls of this colour absorbed by a hole.
+         */
+        public int getCaptures(int colour) {
+            return this.captures[colour];
+        }
+
+        /**
+         * @return The result as one CSV row, with the columns of HEADER.
+         */
+        public String toCsv() {
+            StringBuilder row = new StringBuilder();
+            row.append(this.level).append(',').append(this.seed).append(',').append(this.score).append(',')
+                    .append(this.won).append(',').append(this.timeUsed).append(',')
+                    .append(this.wallBreaks).append(',').append(this.wrongCaptures);
+            for (int capture : this.captures) {
+                row.append(',').append(capture);
+            }
+            return row.toString();
+        }
+    }
+
+    private final JSONObject json;
+
+    /**
+     * Represents the directory that relative layout paths are read from, usually the one containing the configuration.
+     */
+    private final File directory;
+
+    /**
+     * Represents how long a level without a time limit is played before the run is stopped. Unit in seconds.
+     */
+    private int maxTime = 600;
+
+    /**
+     * Constructor for a BatchRunner object.
+     *
+     * @param json The parsed configuration file.
+     * @param directory The directory relative layout paths are read from, or null for the working directory.
+     * @throws IllegalArgumentException if json is null.
+     */
+    public BatchRunner(JSONObject json, File directory) {
+        if (json == null) {
+            throw new IllegalArgumentException("Configuration must not be null!");
+        }
+        this.json = json;
+        this.directory = directory;
+    }
+
+    public int getMaxTime() {
+        return this.maxTime;
+    }
+
+    /**
+     * @param maxTime How long a level without a time limit is played, in seconds.
+     * @throws IllegalArgumentException if maxTime is not positive.
+     */
+    public void setMaxTime(int maxTime) {
+        if (maxTime <= 0) {
+            throw new IllegalArgumentException("Maximum time must be positive!");
+        }
+        this.maxTime = maxTime;
+    }
+
+    /**
+     * @return The number of levels in the configuration, 1 if it lists none (like App::setup).
+     */
+    public int getLevelCount() {
+        try {
+            return Math.max(1, this.json.getJSONArray("levels").size());
+        }
+        catch (Exception e) {
+            return 1;
+        }
+    }
+
+    /**
+     * Plays one level headless until it is cleared or the time is up.<br>
+     *
+     * @param level The level to play, starting from 1.
+     * @param seed The seed choosing spawners and starting vectors.
+     * @return The outcome of the run.
+     * @throws IOException if the level's layout file cannot be read or is not a layout.<br>
+     *
+     * Note: Plays by the rules App::tick uses, see GameWorld::tick. Queued balls are spawned every "spawn_interval"
+     * seconds, the level is won once every ball is captured, and a won level scores a bonus for the time left.
+     */
+    public Result run(int level, long seed) throws IOException {
+        GameWorld world = new GameWorld();
+        world.setSeed(seed);
+        world.configure(this.json, level);
+        LayoutGrid layout = this.readLayout(level);
+        int rows = Math.max((App.HEIGHT - App.TOPBAR) / App.CELLHEIGHT, layout.getRows());
+        int cols = Math.max(App.WIDTH / App.CELLSIZE, layout.getCols());
+        world.createBoard(rows, cols);
+        world.setLayout(layout);
+        world.loadBallQueue(this.json, level);
+
+        int timeLimit = world.getTimeLimit() > 0 ? world.getTimeLimit() : this.maxTime;
+        GameWorld.Outcome outcome;
+        do {
+            outcome = world.tick(timeLimit);
+        }
+        while (outcome == GameWorld.Outcome.PLAYING);
+
+        boolean won = outcome == GameWorld.Outcome.WON;
+        double score = world.getScore();
+        if (won) {
+            score += world.getTimeBonus(world.getTimeLimit());
+        }
+        return new Result(level, seed, world, score, won);
+    }
+
+    /**
+     * Plays every level with every seed, running the seeds in parallel.<br>
+     *
+     * @param seeds The number of seeds per level.
+     * @param firstSeed The first seed. Seeds firstSeed to firstSeed + seeds - 1 are played.
+     * @param threads The number of runs played at once.
+     * @return The results, ordered by level and then by seed.
+     * @throws IllegalArgumentException if seeds or threads is not positive.
+     * @throws IllegalStateException if a run fails, e.g. because a layout file is missing.
+     */
+    public List<Result> runAll(int seeds, long firstSeed, int threads) {
+        if (seeds <= 0 || threads <= 0) {
+            throw new IllegalArgumentException("Seeds and threads must be positive!");
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Result>> futures = new ArrayList<>();
+            for (int level = 1; level <= this.getLevelCount(); level++) {
+                for (int k = 0; k < seeds; k++) {
+                    int runLevel = level;
+                    long seed = firstSeed + k;
+                    futures.add(executor.submit(() -> this.run(runLevel, seed)));
+                }
+            }
+
+            List<Result> results = new ArrayList<>();
+            for (Future<Result> future : futures) {
+                try {
+                    results.add(future.get());
+                }
+                catch (ExecutionException e) {
+                    throw new IllegalStateException("Run failed: " + e.getCause().getMessage(), e.getCause());
+                }
+                catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while waiting for runs!", e);
+                }
+            }
+            return results;
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Writes results as CSV, starting with HEADER.
+     * @param results The results to write, one row each.
+     * @param out The writer to write to. It is flushed, but not closed.
+     */
+    public static void writeCsv(List<Result> results, PrintWriter out) {
+        out.println(HEADER);
+        for (Result result : results) {
+            out.println(result.toCsv());
+        }
+        out.flush();
+    }
+
+    /**
+     * Reads the layout file of a level, see App::getFileContents.
+     * @param level The level, starting from 1.
+     * @return the layout read by LayoutParser.
+     * @throws FileNotFoundException if the level has no layout or the file cannot be read.
+     * @throws LayoutParser.ParseException if the file is not a layout.
+     */
+    private LayoutGrid readLayout(int level) throws IOException {
+        String path;
+        try {
+            path = this.json.getJSONArray("levels").getJSONObject(level - 1).getString("layout");
+        }
+        catch (Exception e) {
+            throw new FileNotFoundException("No layout for level " + level);
+        }
+
+        File file = new File(path);
+        if (!file.isAbsolute() && this.directory != null) {
+            file = new File(this.directory, path);
+        }
+        return LayoutParser.parse(file);
+    }
+
+    /**
+     * Parses the command-line options, plays every level and writes the results.
+     * Prints the usage and exits with status 1 if the options or the configuration are invalid.
+     * @param args The command-line options, see the class description.
+     */
+    public static void main(String[] args) {
+        String configPath = "config.json";
+        String outPath = null;
+        int seeds = 8;
+        Long firstSeed = null;
+        int threads = Runtime.getRuntime().availableProcessors();
+        int maxTime = 600;
+
+        try {
+            for (int i = 0; i < args.length; i++) {
+                if (i + 1 >= args.length) {
+                    throw new IllegalArgumentException("Missing value for " + args[i] + "!");
+                }
+                String value = args[++i];
+                switch (args[i - 1]) {
+                    case "--config":
+                        configPath = value;
+                        break;
+                    case "--out":
+                        outPath = value;
+                        break;
+                    case "--seeds":
+                        seeds = Integer.parseInt(value);
+                        break;
+                    case "--seed":
+                        firstSeed = Long.parseLong(value);
+                        break;
+                    case "--threads":
+                        threads = Integer.parseInt(value);
+                        break;
+                    case "--max-time":
+                        maxTime = Integer.parseInt(value);
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unknown option " + args[i - 1] + "!");
+                }
+            }
+
+            File configFile = new File(configPath);
+            if (!configFile.isFile()) {
+                throw new IllegalArgumentException("Configuration " + configPath + " not found!");
+            }
+            JSONObject json = PApplet.loadJSONObject(configFile);
+            if (firstSeed == null) {
+                firstSeed = json.hasKey("seed") ? json.getLong("seed") : 0;
+            }
+            BatchRunner runner = new BatchRunner(json, configFile.getAbsoluteFile().getParentFile());
+            runner.setMaxTime(maxTime);
+            List<Result> results = runner.runAll(seeds, firstSeed, threads);
+
+            if (outPath == null) {
+                writeCsv(results, new PrintWriter(new OutputStreamWriter(System.out)));
+            }
+            else {
+                try (PrintWriter out = new PrintWriter(new FileWriter(outPath))) {
+                    writeCsv(results, out);
+                }
+            }
+        }
+        catch (IllegalArgumentException | IllegalStateException | IOException e) {
+            System.err.println(e.getMessage());
+            System.err.println("Usage: BatchRunner [--config config.json] [--seeds 8] [--seed 0] [--threads N] [--max-time 600] [--out results.csv]");
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package inkball;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Represents a reader for records written by BinaryWriter, over a byte array or a (memory-mapped) ByteBuffer.<br>
+ *
+ * Note: Reading past the end throws java.nio.BufferUnderflowException, e.g. for a file cut off while it was written.
+ */
+public class BinaryReader {
+    private final ByteBuffer buffer;
+
+    /**
+     * Constructor for a BinaryReader, starting at the buffer's position.
+     * @param buffer The bytes to read. Its position is moved by every read.
+     */
+    public BinaryReader(ByteBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    /**
+     * Overloaded constructor: Creates a BinaryReader over a byte array, starting at the first byte.
+     * @param bytes The bytes to read.
+     */
+    public BinaryReader(byte[] bytes) {
+        this(ByteBuffer.wrap(bytes));
+    }
+
+    public int getPosition() {
+        return this.buffer.position();
+    }
+
+    /**
+     * @param position The index of the next byte to read.
+     * @throws IllegalArgumentException if position is outside of the bytes.
+     */
+    public void setPosition(int position) {
+        if (position < 0 || position > this.buffer.limit()) {
+            throw new IllegalArgumentException("Position must be within the bytes!");
+        }
+        this.buffer.position(position);
+    }
+
+    /**
+     * @return The number of bytes left to read.
+     */
+    public int remaining() {
+        return this.buffer.remaining();
+    }
+
+    /**
+     * @return The next byte, from 0 to 255.
+     */
+    public int readByte() {
+        return this.buffer.get() & 0xFF;
+    }
+
+    /**
+     * @param length The number of bytes to read.
+     * @return A copy of the next bytes.
+     */
+    public byte[] readBytes(int length) {
+        byte[] bytes = new byte[length];
+        this.buffer.get(bytes);
+        return bytes;
+    }
+
+    /**
+     * @return The next unsigned varint, see BinaryWriter::writeVarLong.
+     * @throws IllegalArgumentException if the varint is longer than 10 bytes.
+     */
+    public long readVarLong() {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = this.readByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Varint is too long!");
+    }
+
+    /**
+     * @return The next varint, see BinaryWriter::writeVarInt.
+     * @throws IllegalArgumentException if the number does not fit a non-negative int.
+     */
+    public int readVarInt() {
+        long value = this.readVarLong();
+        if (value < 0 || value > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Varint is out of range!");
+        }
+        return (int) value;
+    }
+
+    /**
+     * @return The next zigzag varint, see BinaryWriter::writeZigZag.
+     */
+    public long readZigZag() {
+        long value = this.readVarLong();
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    public int readInt() {
+        return this.buffer.getInt();
+    }
+
+    public long readLong() {
+        return this.buffer.getLong();
+    }
+
+    public float readFloat() {
+        return this.buffer.getFloat();
+    }
+
+    public double readDouble() {
+        return this.buffer.getDouble();
+    }
+
+    /**
+     * @return The next string, see BinaryWriter::writeString.
+     */
+    public String readString() {
+        int length = this.readVarInt();
+        return new String(this.readBytes(length), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,160 @@
+package inkball;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * <p>Represents a growable byte array for compact binary records, read back with BinaryReader.</p>
+ * Counts and small numbers are written as varints (7 bits per byte, so values below 128 take one byte),
+ * and signed deltas with zigzag encoding, so small negative numbers stay small. Floats and doubles are written
+ * as their exact bits, big-endian, so positions read back unchanged.
+ */
+public class BinaryWriter {
+    private byte[] bytes;
+    private int size;
+
+    /**
+     * Constructor for an empty BinaryWriter.
+     */
+    public BinaryWriter() {
+        this(256);
+    }
+
+    /**
+     * Constructor for an empty BinaryWriter.
+     * @param capacity The number of bytes to allocate at first. The array grows when it is full.
+     * @throws IllegalArgumentException if capacity is not positive.
+     */
+    public BinaryWriter(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive!");
+        }
+        this.bytes = new byte[capacity];
+    }
+
+    /**
+     * @return The number of bytes written since construction or the last reset().
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Discards the bytes written, keeping the array for reuse.
+     */
+    public void reset() {
+        this.size = 0;
+    }
+
+    /**
+     * @return A copy of the bytes written.
+     */
+    public byte[] toByteArray() {
+        return Arrays.copyOf(this.bytes, this.size);
+    }
+
+    /**
+     * Writes the bytes written to a stream.
+     * @param out The stream to write to.
+     * @throws IOException if the stream cannot be written to.
+     */
+    public void writeTo(OutputStream out) throws IOException {
+        out.write(this.bytes, 0, this.size);
+    }
+
+    /**
+     * @param value The byte to write. Only the lower 8 bits are used.
+     */
+    public void writeByte(int value) {
+        this.ensureCapacity(1);
+        this.bytes[this.size++] = (byte) value;
+    }
+
+    /**
+     * @param values The bytes to write, unchanged.
+     */
+    public void writeBytes(byte[] values) {
+        this.ensureCapacity(values.length);
+        System.arraycopy(values, 0, this.bytes, this.size, values.length);
+        this.size += values.length;
+    }
+
+    /**
+     * Writes a number as an unsigned varint of 1 to 10 bytes. Negative numbers take 10 bytes, see writeZigZag.
+     * @param value The number to write.
+     */
+    public void writeVarLong(long value) {
+        this.ensureCapacity(10);
+        while ((value & ~0x7FL) != 0) {
+            this.bytes[this.size++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        this.bytes[this.size++] = (byte) value;
+    }
+
+    /**
+     * Writes a count or other non-negative number as a varint.
+     * @param value The number to write.
+     * @throws IllegalArgumentException if value is negative.
+     */
+    public void writeVarInt(int value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("Varint must not be negative!");
+        }
+        this.writeVarLong(value);
+    }
+
+    /**
+     * Writes a signed number as a zigzag varint, so that e.g. -1 and 1 take one byte each.
+     * @param value The number to write.
+     */
+    public void writeZigZag(long value) {
+        this.writeVarLong((value << 1) ^ (value >> 63));
+    }
+
+    /**
+     * @param value The number to write as 4 bytes, big-endian.
+     */
+    public void writeInt(int value) {
+        this.ensureCapacity(4);
+        for (int shift = 24; shift >= 0; shift -= 8) {
+            this.bytes[this.size++] = (byte) (value >>> shift);
+        }
+    }
+
+    /**
+     * @param value The number to write as 8 bytes, big-endian.
+     */
+    public void writeLong(long value) {
+        this.ensureCapacity(8);
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            this.bytes[this.size++] = (byte) (value >>> shift);
+        }
+    }
+
+    public void writeFloat(float value) {
+        this.writeInt(Float.floatToRawIntBits(value));
+    }
+
+    public void writeDouble(double value) {
+        this.writeLong(Double.doubleToRawLongBits(value));
+    }
+
+    /**
+     * Writes a string as the varint length of its UTF-8 bytes, followed by the bytes.
+     * @param value The string to write.
+     */
+    public void writeString(String value) {
+        byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+        this.writeVarInt(utf8.length);
+        this.writeBytes(utf8);
+    }
+
+    private void ensureCapacity(int extra) {
+        if (this.size + extra > this.bytes.length) {
+            this.bytes = Arrays.copyOf(this.bytes, Math.max(this.size + extra, 2 * this.bytes.length));
+        }
+    }
+}
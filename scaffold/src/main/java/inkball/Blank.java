@@ -1,7 +1,5 @@
 package inkball;
 
-import processing.core.PImage;
-
 /**
  * Child class of Tile. Represents a "Blank" Tile.
  * Has no inward functionality or specific interaction with other components.
@@ -13,8 +11,7 @@ public class Blank extends Tile {
     }
 
     @Override
-    public void draw(App app) {
-        PImage tile = app.getSprite("tile");
-        app.image(tile, x*App.CELLSIZE, y*App.CELLSIZE+App.TOPBAR, App.CELLSIZE, App.CELLSIZE);
+    public Sprite getSprite() {
+        return Sprite.TILE;
     }
-}
\ No newline at end of file
+}
\ No newline at end of file
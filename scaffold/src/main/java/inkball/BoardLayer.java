@@ -0,0 +1,89 @@
+package inkball;
+
+import processing.core.PGraphics;
+
+import java.util.BitSet;
+
+/**
+ * Represents the board tiles drawn into an offscreen PGraphics layer, which is drawn onto the window as one image.<br>
+ * The whole board is drawn into the layer once per level (whenever the world's board changes). After that only the
+ * tiles the world marks as changed, see GameWorld::getChangedTiles, are drawn again: damaged walls and removed walls.
+ */
+public class BoardLayer {
+    private PGraphics layer;
+
+    /**
+     * Represents the board the layer was drawn from, to notice when a new level creates a new board.
+     */
+    private Tile[][] board;
+
+    /**
+     * Brings the layer up to date with the world's board and draws it below the top bar.
+     * @param app The App to draw onto, which also provides the sprites.
+     * @param world The world whose board is drawn.
+     */
+    public void draw(App app, GameWorld world) {
+        this.update(app, world);
+        if (this.layer != null) {
+            app.image(this.layer, 0, App.TOPBAR);
+        }
+    }
+
+    /**
+     * Draws the whole board into the layer if the board is new, otherwise only the tiles marked as changed,
+     * then clears the world's changed tiles.<br>
+     *
+     * @param app The App that creates the layer and provides the sprites.
+     * @param world The world whose board is drawn.
+     * @return The number of sprites drawn into the layer.
+     */
+    public int update(App app, GameWorld world) {
+        Tile[][] board = world.getBoard();
+        BitSet changed = world.getChangedTiles();
+        if (board == null || board.length == 0) {
+            changed.clear();
+            return 0;
+        }
+        int cols = board[0].length;
+        int drawn = 0;
+        if (this.layer == null || board != this.board) {
+            int width = cols * App.CELLSIZE;
+            int height = board.length * App.CELLSIZE;
+            if (this.layer == null || this.layer.width != width || this.layer.height != height) {
+                this.layer = app.createGraphics(width, height);
+            }
+            this.board = board;
+            this.layer.beginDraw();
+            this.layer.clear();
+            for (Tile[] row : board) {
+                for (Tile tile : row) {
+                    drawn += this.drawTile(app, tile);
+                }
+            }
+            this.layer.endDraw();
+        }
+        else if (!changed.isEmpty()) {
+            this.layer.beginDraw();
+            for (int i = changed.nextSetBit(0); i >= 0; i = changed.nextSetBit(i + 1)) {
+                drawn += this.drawTile(app, board[i / cols][i % cols]);
+            }
+            this.layer.endDraw();
+        }
+        changed.clear();
+        return drawn;
+    }
+
+    /**
+     * Draws one tile's sprite into the layer, at the tile's position relative to the top left of the board.
+     * @return 1 if a sprite was drawn, 0 if the tile draws nothing.
+     */
+    private int drawTile(App app, Tile tile) {
+        Sprite sprite = tile == null ? null : tile.getSprite();
+        if (sprite == null) {
+            return 0;
+        }
+        this.layer.image(app.getSprite(sprite), tile.getX() * App.CELLSIZE, tile.getY() * App.CELLSIZE,
+                sprite.getSize(), sprite.getSize());
+        return 1;
+    }
+}
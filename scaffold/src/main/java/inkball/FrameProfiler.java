@@ -0,0 +1,200 @@
+package inkball;
+
+import java.io.*;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * <p>Represents the per-phase timing of App::draw, so a stutter can be traced to rendering, simulation or GC.</p>
+ * Each frame is split into the phases below. A phase is timed from the end of the previous one with System.nanoTime,
+ * and recorded into its own LatencyHistogram. Phases a frame skips (e.g. the simulation while paused) are not recorded for that frame.<br>
+ *
+ * Besides the phases, FRAME records the whole frame and GC the time the JVM reports spending in garbage collection
+ * during the frame, which is in whole milliseconds and 0 for most frames.
+ * Recording never allocates, so the profiler is always on. Only the overlay and the export cost anything.
+ */
+public class FrameProfiler {
+    /**
+     * Represents a part of the frame, in the order App::draw runs them.
+     */
+    public enum Phase {
+        /** Drawing the tiles and the win spiral. */
+        BOARD,
+        /** Drawing the timer and the score. */
+        TOP_BAR,
+        /** The paused, time's up and win screens, and the end-of-level check. */
+        END_GAME,
+        /** Drawing the ball queue and the spawn timer. */
+        BALL_QUEUE,
+        /** Drawing the player-drawn lines and the line being drawn. */
+        LINES,
+        /** The simulation ticks that are due, see GameWorld::step. */
+        SIMULATION,
+        /** Drawing the balls. */
+        BALLS,
+        /** Garbage collection during the frame. */
+        GC,
+        /** The whole frame. */
+        FRAME
+    }
+
+    /**
+     * Represents the column names of the CSV export, in the order of writeCsv. Times are in microseconds.
+     */
+    public static final String HEADER = "phase,count,mean_us,p50_us,p95_us,p99_us,max_us";
+
+    private final LatencyHistogram[] histograms = new LatencyHistogram[Phase.values().length];
+    private final List<GarbageCollectorMXBean> collectors = ManagementFactory.getGarbageCollectorMXBeans();
+
+    private boolean inFrame;
+    private long frameStart;
+    private long phaseStart;
+    private long gcStart;
+
+    /**
+     * Represents whether App::draw shows the overlay with the percentiles of every phase.
+     */
+    private boolean overlayVisible;
+
+    /**
+     * Constructor for a FrameProfiler object, with every histogram empty.
+     */
+    public FrameProfiler() {
+        for (int i = 0; i < this.histograms.length; i++) {
+            this.histograms[i] = new LatencyHistogram();
+        }
+    }
+
+    /**
+     * @param phase The phase.
+     * @return The histogram of the phase's times.
+     */
+    public LatencyHistogram getHistogram(Phase phase) {
+        return this.histograms[phase.ordinal()];
+    }
+
+    public boolean isOverlayVisible() {
+        return this.overlayVisible;
+    }
+
+    public void setOverlayVisible(boolean overlayVisible) {
+        this.overlayVisible = overlayVisible;
+    }
+
+    /**
+     * Starts timing a frame, and the first phase in it.
+     */
+    public void beginFrame() {
+        this.inFrame = true;
+        this.gcStart = this.getCollectionTime();
+        this.frameStart = System.nanoTime();
+        this.phaseStart = this.frameStart;
+    }
+
+    /**
+     * Ends a phase and starts the next one. Does nothing outside of a frame,
+     * e.g. when App::drawAll is called on its own by a test or benchmark.
+     * @param phase The phase that has just ended.
+     */
+    public void mark(Phase phase) {
+        if (!this.inFrame) {
+            return;
+        }
+        long now = System.nanoTime();
+        this.histograms[phase.ordinal()].record(now - this.phaseStart);
+        this.phaseStart = now;
+    }
+
+    /**
+     * Ends the frame, recording its total time and the time spent in garbage collection.
+     * Does nothing if no frame was started.
+     */
+    public void endFrame() {
+        if (!this.inFrame) {
+            return;
+        }
+        this.inFrame = false;
+        this.histograms[Phase.FRAME.ordinal()].record(System.nanoTime() - this.frameStart);
+        this.histograms[Phase.GC.ordinal()].record((this.getCollectionTime() - this.gcStart) * 1_000_000L);
+    }
+
+    /**
+     * Removes every recorded time.
+     */
+    public void reset() {
+        for (LatencyHistogram histogram : this.histograms) {
+            histogram.reset();
+        }
+    }
+
+    /**
+     * @return One line per phase with its p50, p95, p99 and maximum in milliseconds, for the overlay.
+     */
+    public String[] getSummary() {
+        Phase[] phases = Phase.values();
+        String[] lines = new String[phases.length + 1];
+        lines[0] = String.format(Locale.US, "%-10s %6s %6s %6s %6s", "ms", "p50", "p95", "p99", "max");
+        for (Phase phase : phases) {
+            LatencyHistogram histogram = this.getHistogram(phase);
+            lines[phase.ordinal() + 1] = String.format(Locale.US, "%-10s %6.2f %6.2f %6.2f %6.2f", phase,
+                    histogram.getValueAtPercentile(50) / 1e6, histogram.getValueAtPercentile(95) / 1e6,
+                    histogram.getValueAtPercentile(99) / 1e6, histogram.getMax() / 1e6);
+        }
+        return lines;
+    }
+
+    /**
+     * Writes the count, mean, percentiles and maximum of every phase as CSV, starting with HEADER.
+     * @param out The writer to write to. It is flushed, but not closed.
+     */
+    public void writeCsv(PrintWriter out) {
+        out.println(HEADER);
+        for (Phase phase : Phase.values()) {
+            LatencyHistogram histogram = this.getHistogram(phase);
+            out.format(Locale.US, "%s,%d,%.3f,%.3f,%.3f,%.3f,%.3f%n", phase.name().toLowerCase(Locale.ROOT),
+                    histogram.getTotalCount(), histogram.getMean() / 1e3,
+                    histogram.getValueAtPercentile(50) / 1e3, histogram.getValueAtPercentile(95) / 1e3,
+                    histogram.getValueAtPercentile(99) / 1e3, histogram.getMax() / 1e3);
+        }
+        out.flush();
+    }
+
+    /**
+     * Writes the recorded times to a directory: frame-timing.csv with the summary of every phase (see writeCsv),
+     * and one HdrHistogram percentile distribution in milliseconds per phase with any times, named after the phase (e.g. simulation.hgrm).
+     * @param directory The directory to write to. It is created if it does not exist.
+     * @throws IOException if the directory cannot be created or a file cannot be written.
+     */
+    public void export(File directory) throws IOException {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Cannot create directory " + directory);
+        }
+
+        try (PrintWriter out = new PrintWriter(new FileWriter(new File(directory, "frame-timing.csv")))) {
+            this.writeCsv(out);
+        }
+        for (Phase phase : Phase.values()) {
+            LatencyHistogram histogram = this.getHistogram(phase);
+            if (histogram.getTotalCount() == 0) {
+                continue;
+            }
+            File file = new File(directory, phase.name().toLowerCase(Locale.ROOT) + ".hgrm");
+            try (PrintWriter out = new PrintWriter(new FileWriter(file))) {
+                histogram.writePercentileDistribution(out, 1e6);
+            }
+        }
+    }
+
+    /**
+     * @return The total time all garbage collectors have reported, in milliseconds.
+     */
+    private long getCollectionTime() {
+        long total = 0;
+        for (int i = 0; i < this.collectors.size(); i++) {
+            total += Math.max(0, this.collectors.get(i).getCollectionTime());
+        }
+        return total;
+    }
+}
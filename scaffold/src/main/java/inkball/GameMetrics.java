@@ -0,0 +1,318 @@
+package inkball;
+
+import com.sun.net.httpserver.HttpServer;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Locale;
+
+/**
+ * <p>Represents the live metrics of a running game, for soak tests to scrape without attaching a profiler.</p>
+ * The game thread calls sample() once a frame, which copies the world's counts into volatile fields, so readers on other
+ * threads never touch the world. The metrics are published as the MBean {@value #OBJECT_NAME} (see GameMetricsMBean),
+ * and in the Prometheus text format at http://localhost:port/metrics once startServer() is called.<br>
+ *
+ * Counters (collision tests, wall breaks, captures) keep counting across levels: when a new world is sampled,
+ * the totals of the previous one are carried over, so they never go down.
+ */
+public class GameMetrics implements GameMetricsMBean {
+    /**
+     * Represents the JMX name the metrics are registered under.
+     */
+    public static final String OBJECT_NAME = "inkball:type=GameMetrics";
+
+    private static final String[] COLOURS = {"grey", "orange", "blue", "green", "yellow"};
+
+    private volatile int balls;
+    private volatile int lineSegments;
+    private volatile int drawnLines;
+    private volatile int drawnSegments;
+    private volatile int queueDepth;
+    private volatile long ticks;
+    private volatile long collisionTests;
+    private volatile long collisionHits;
+    private volatile long collisionTestsPerTick;
+    private volatile long wallBreaks;
+    private volatile long wrongCaptures;
+    private final long[] captures = new long[COLOURS.length];
+
+    /**
+     * Represents the world sampled last, and the totals of the worlds before it.
+     */
+    private GameWorld lastWorld;
+    private long baseTests;
+    private long baseHits;
+    private long baseWallBreaks;
+    private long baseWrongCaptures;
+    private final long[] baseCaptures = new long[COLOURS.length];
+
+    private ObjectName objectName;
+    private HttpServer server;
+
+    /**
+     * Copies the current counts of a world. Called by the game thread, see App::draw.
+     * @param world The world being played.
+     */
+    public void sample(GameWorld world) {
+        if (world != this.lastWorld && this.lastWorld != null) {
+            this.baseTests += this.lastWorld.getCollisionTests();
+            this.baseHits += this.lastWorld.getCollisionHits();
+            this.baseWallBreaks += this.lastWorld.getWallBreaks();
+            this.baseWrongCaptures += this.lastWorld.getWrongCaptures();
+            for (int i = 0; i < COLOURS.length; i++) {
+                this.baseCaptures[i] += this.lastWorld.getCaptures(i);
+            }
+        }
+        this.lastWorld = world;
+
+        this.balls = world.getBalls().size() + world.getBallStore().size();
+        this.lineSegments = world.getLineSegments().size();
+        ArrayList<ArrayList<Line>> strokes = world.getDrawnLines();
+        int segments = 0;
+        for (int i = 0; i < strokes.size(); i++) {
+            segments += strokes.get(i).size();
+        }
+        this.drawnLines = strokes.size();
+        this.drawnSegments = segments;
+        int queued = 0;
+        for (Ball ball : world.getBallQueue()) {
+            if (ball != null) {
+                queued++;
+            }
+        }
+        this.queueDepth = queued;
+        this.ticks = world.getTicks();
+
+        this.collisionTests = this.baseTests + world.getCollisionTests();
+        this.collisionHits = this.baseHits + world.getCollisionHits();
+        this.collisionTestsPerTick = world.getLastTickTests();
+        this.wallBreaks = this.baseWallBreaks + world.getWallBreaks();
+        this.wrongCaptures = this.baseWrongCaptures + world.getWrongCaptures();
+        synchronized (this.captures) {
+            for (int i = 0; i < COLOURS.length; i++) {
+                this.captures[i] = this.baseCaptures[i] + world.getCaptures(i);
+            }
+        }
+    }
+
+    @Override
+    public int getBalls() {
+        return this.balls;
+    }
+
+    @Override
+    public int getLineSegments() {
+        return this.lineSegments;
+    }
+
+    @Override
+    public int getDrawnLines() {
+        return this.drawnLines;
+    }
+
+    @Override
+    public int getDrawnSegments() {
+        return this.drawnSegments;
+    }
+
+    @Override
+    public int getQueueDepth() {
+        return this.queueDepth;
+    }
+
+    @Override
+    public long getTicks() {
+        return this.ticks;
+    }
+
+    @Override
+    public long getCollisionTests() {
+        return this.collisionTests;
+    }
+
+    @Override
+    public long getCollisionHits() {
+        return this.collisionHits;
+    }
+
+    @Override
+    public long getCollisionTestsPerTick() {
+        return this.collisionTestsPerTick;
+    }
+
+    @Override
+    public double getHitRatio() {
+        long tests = this.collisionTests;
+        if (tests == 0) {
+            return 0;
+        }
+        return (double) this.collisionHits / tests;
+    }
+
+    @Override
+    public long getWallBreaks() {
+        return this.wallBreaks;
+    }
+
+    @Override
+    public long getCaptures() {
+        long total = 0;
+        synchronized (this.captures) {
+            for (long capture : this.captures) {
+                total += capture;
+            }
+        }
+        return total;
+    }
+
+    /**
+     * @param colour The colour code of the balls, from 0 to 4.
+     * @return The balls of this colour absorbed by a hole.
+     * @throws IllegalArgumentException if colour is outside of 0-4.
+     */
+    public long getCaptures(int colour) {
+        if (colour < 0 || colour >= COLOURS.length) {
+            throw new IllegalArgumentException("Colour code must be between 0 and 4!");
+        }
+        synchronized (this.captures) {
+            return this.captures[colour];
+        }
+    }
+
+    @Override
+    public long getWrongCaptures() {
+        return this.wrongCaptures;
+    }
+
+    /**
+     * @return The metrics in the Prometheus text exposition format, each with its HELP and TYPE lines.
+     */
+    public String toPrometheus() {
+        StringBuilder out = new StringBuilder();
+        appendMetric(out, "inkball_balls", "gauge", "Balls on the board, including the ball store.", this.getBalls());
+        appendMetric(out, "inkball_line_segments", "gauge", "Wall and border segments.", this.getLineSegments());
+        appendMetric(out, "inkball_drawn_lines", "gauge", "Player-drawn lines.", this.getDrawnLines());
+        appendMetric(out, "inkball_drawn_segments", "gauge", "Segments of all player-drawn lines.", this.getDrawnSegments());
+        appendMetric(out, "inkball_queue_depth", "gauge", "Balls waiting in the ball queue.", this.getQueueDepth());
+        appendMetric(out, "inkball_ticks", "gauge", "Simulation ticks since the level started.", this.getTicks());
+        appendMetric(out, "inkball_collision_tests_total", "counter", "Look-ahead collision tests made.", this.getCollisionTests());
+        appendMetric(out, "inkball_collision_hits_total", "counter", "Collision tests that found a collision.", this.getCollisionHits());
+        appendMetric(out, "inkball_collision_tests_per_tick", "gauge", "Collision tests made by the last tick.", this.getCollisionTestsPerTick());
+        appendMetric(out, "inkball_collision_hit_ratio", "gauge", "Fraction of collision tests that found a collision.", this.getHitRatio());
+        appendMetric(out, "inkball_wall_breaks_total", "counter", "Walls broken and removed.", this.getWallBreaks());
+        appendMetric(out, "inkball_wrong_captures_total", "counter", "Balls that fell into a hole of the wrong colour.", this.getWrongCaptures());
+
+        out.append("# HELP inkball_captures_total Balls absorbed by a hole.\n");
+        out.append("# TYPE inkball_captures_total counter\n");
+        for (int i = 0; i < COLOURS.length; i++) {
+            out.append("inkball_captures_total{colour=\"").append(COLOURS[i]).append("\"} ").append(this.getCaptures(i)).append('\n');
+        }
+        return out.toString();
+    }
+
+    private static void appendMetric(StringBuilder out, String name, String type, String help, double value) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+        out.append(name).append(' ');
+        if (value == Math.rint(value)) {
+            out.append((long) value);
+        }
+        else {
+            out.append(String.format(Locale.US, "%.6f", value));
+        }
+        out.append('\n');
+    }
+
+    /**
+     * Registers the metrics with the platform MBean server as {@value #OBJECT_NAME}.
+     * Metrics registered before under the same name, e.g. by an earlier App, are replaced.
+     * @throws IllegalStateException if the MBean cannot be registered.
+     */
+    public void register() {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+            server.registerMBean(this, name);
+            this.objectName = name;
+        }
+        catch (JMException e) {
+            throw new IllegalStateException("Cannot register " + OBJECT_NAME + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Removes the metrics from the platform MBean server, if register() was called.
+     */
+    public void unregister() {
+        if (this.objectName == null) {
+            return;
+        }
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(this.objectName);
+        }
+        catch (JMException e) {
+            // Already removed
+        }
+        this.objectName = null;
+    }
+
+    public boolean isRegistered() {
+        return this.objectName != null;
+    }
+
+    /**
+     * Serves toPrometheus() at /metrics on the loopback address only, so the game is not reachable from other machines.
+     *
+     * @param port The port to listen on, or 0 for any free port.
+     * @return The port the server listens on.
+     * @throws IllegalArgumentException if port is outside of 0-65535.
+     * @throws IllegalStateException if the server is already running.
+     * @throws IOException if the port cannot be bound.
+     */
+    public int startServer(int port) throws IOException {
+        if (port < 0 || port > 65535) {
+            throw new IllegalArgumentException("Port must be between 0 and 65535!");
+        }
+        if (this.server != null) {
+            throw new IllegalStateException("Metrics server is already running!");
+        }
+
+        HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        server.createContext("/metrics", exchange -> {
+            byte[] body = this.toPrometheus().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+        this.server = server;
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Stops the metrics server, if it is running.
+     */
+    public void stopServer() {
+        if (this.server != null) {
+            this.server.stop(0);
+            this.server = null;
+        }
+    }
+
+    public boolean isServerRunning() {
+        return this.server != null;
+    }
+}
@@ -0,0 +1,60 @@
+package inkball;
+
+/**
+ * Represents the attributes GameMetrics publishes over JMX, as of the last frame sampled.
+ * Counters keep counting across levels. See GameMetrics::toPrometheus for the same values as Prometheus text.
+ */
+public interface GameMetricsMBean {
+    /**
+     * @return The balls on the board, including the ball store.
+     */
+    int getBalls();
+
+    /**
+     * @return The wall and border segments in the world's allLines.
+     */
+    int getLineSegments();
+
+    /**
+     * @return The player-drawn lines (strokes) in the world's drawnLines.
+     */
+    int getDrawnLines();
+
+    /**
+     * @return The segments of every player-drawn line.
+     */
+    int getDrawnSegments();
+
+    /**
+     * @return The balls waiting in the ball queue.
+     */
+    int getQueueDepth();
+
+    long getTicks();
+
+    /**
+     * @return The look-ahead collision tests made, see GameWorld::getCollisionTests.
+     */
+    long getCollisionTests();
+
+    long getCollisionHits();
+
+    /**
+     * @return The collision tests made by the last tick.
+     */
+    long getCollisionTestsPerTick();
+
+    /**
+     * @return The fraction of collision tests that found a collision, 0 before the first test.
+     */
+    double getHitRatio();
+
+    long getWallBreaks();
+
+    /**
+     * @return The balls absorbed by a hole, of every colour.
+     */
+    long getCaptures();
+
+    long getWrongCaptures();
+}
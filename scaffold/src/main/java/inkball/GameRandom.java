@@ -0,0 +1,62 @@
+package inkball;
+
+import java.util.Random;
+
+/**
+ * Represents the random generator of a GameWorld. It produces exactly the same numbers as java.util.Random
+ * for the same seed, but its state can be read and restored, so that a saved or replayed game
+ * continues with the same spawners and starting vectors, see WorldSnapshot.<br>
+ *
+ * Note: Not thread-safe, unlike java.util.Random. The world only draws numbers on the thread calling step().
+ */
+public class GameRandom extends Random {
+    private static final long MULTIPLIER = 0x5DEECE66DL;
+    private static final long ADDEND = 0xBL;
+    private static final long MASK = (1L << 48) - 1;
+
+    /**
+     * Represents the 48-bit state of the linear congruential generator, as in java.util.Random.
+     */
+    private long state;
+
+    /**
+     * Constructor for a GameRandom object with a seed that is different every time.
+     */
+    public GameRandom() {
+        super();
+    }
+
+    /**
+     * Constructor for a GameRandom object.
+     * @param seed The seed, giving the same numbers as new Random(seed).
+     */
+    public GameRandom(long seed) {
+        super(seed);
+    }
+
+    @Override
+    public void setSeed(long seed) {
+        super.setSeed(seed); // Also clears the cached Gaussian of Random
+        this.state = (seed ^ MULTIPLIER) & MASK;
+    }
+
+    @Override
+    protected int next(int bits) {
+        this.state = (this.state * MULTIPLIER + ADDEND) & MASK;
+        return (int) (this.state >>> (48 - bits));
+    }
+
+    /**
+     * @return The current state, which setState() restores.
+     */
+    public long getState() {
+        return this.state;
+    }
+
+    /**
+     * @param state A state returned by getState(). Only the lower 48 bits are used.
+     */
+    public void setState(long state) {
+        this.state = state & MASK;
+    }
+}
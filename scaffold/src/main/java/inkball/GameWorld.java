@@ -0,0 +1,2236 @@
+package inkball;
+
+import processing.data.JSONArray;
+import processing.data.JSONObject;
+import com.google.gson.Gson;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ *  <p>Represents the simulation state of one Inkball level, independent of any window.</p>
+ *  The GameWorld instance owns the board, balls, walls, holes, line segments, the ball queue and the score.
+ *  It is responsible for the per-tick game logic: collision, wall damage, hole capture and spawning.
+ *  It never draws and never needs a running PApplet, so it can be stepped headless (e.g. for simulations
+ *  and benchmarks). App is the renderer and input adapter built on top of it.
+ */
+public class GameWorld {
+
+    protected Tile[][] board;
+
+    /**
+     * Represents the size of the playing area in pixels, which the borders are placed around.
+     */
+    private int width = App.WIDTH;
+    private int height = App.HEIGHT;
+    protected ArrayList<Ball> balls = new ArrayList<>();
+
+    /**
+     * Represents balls kept as primitive arrays, used instead of balls when the level sets "ball_store".
+     */
+    protected BallStore ballStore = new BallStore();
+    protected boolean useBallStore = false;
+    private BallStore.Kernel ballStoreKernel;
+    private final float[] collisionPoint = new float[2];
+    private final float[] scratchVector = new float[2];
+    private final Wall[] wallsAssociated = new Wall[2];
+
+    /**
+     * Represents whether balls bounce off each other, read from the level's "ball_collisions".
+     */
+    protected boolean ballCollisions = false;
+    protected BallCollider ballCollider = new BallCollider();
+    protected ArrayList<Wall> walls = new ArrayList<>();
+    protected ArrayList<Line> allLines = new ArrayList<>();
+
+    /**
+     * Represents the player-drawn strokes, oldest first. Only change through addStroke() and removeLine(),
+     * so that the stroke tree stays in sync.
+     */
+    protected ArrayList<ArrayList<Line>> drawnLines = new ArrayList<>();
+    protected ArrayList<Spawner> spawners = new ArrayList<>();
+    protected ArrayList<Hole> holes = new ArrayList<>();
+
+    /**
+     * Represents balls that are yet to be released into the game board.
+     */
+    Ball[] ballQueue = new Ball[0]; // package-private for testing and because it is meant to be changed
+    protected int maxBallQueue;
+
+    /**
+     * Represents the working score of the current game session.
+     */
+    double score = 0.0d;
+
+    /**
+     * Represents a HashMap which contains the score to be added for one correct ball capture, according to colour.
+     */
+    HashMap<String, Integer> scoreIncrease = new HashMap<>();
+
+    /**
+     * Represents a HashMap which contains the score to be added for one incorrect ball capture, according to colour.
+     */
+    HashMap<String, Integer> scoreDecrease = new HashMap<>();
+
+    /**
+     * Represents multiplier for every correct ball capture.
+     */
+    float modScoreIncrease = 1;
+
+    /**
+     * Represents multiplier for every incorrect ball capture.
+     */
+    float modScoreDecrease = 1;
+
+    /**
+     * Represents the interval at which balls in the queue are spawned at. Unit in seconds.
+     */
+    protected int spawnInterval = 0;
+
+    /**
+     * Represents the time limit of the level read from the configuration. Unit in seconds.
+     */
+    protected int timeLimit = 0;
+
+    /**
+     * Represents the number of simulation ticks per second. Defaults to the render frame rate.
+     */
+    protected int tickRate = App.FPS;
+
+    /**
+     * Represents the number of ticks simulated since the level started.
+     */
+    long ticks = 0;
+
+    /**
+     * Represents the broadphase index over allLines. Built by addBorders(); null until then,
+     * in which case step() tests every line in allLines.
+     */
+    protected SegmentGrid segmentGrid;
+
+    /**
+     * Represents the collision faces of each wall tile, indexed by y * columns + x, then by TOP, LEFT, BOTTOM, RIGHT.
+     * A face is null while another wall or the edge of the board covers it. Null for tiles that are not walls.
+     * Built by addWallLineSegment(); null until then.
+     */
+    private Line[][] wallFaces;
+
+    /**
+     * Represent the direction from a wall tile to the tile beyond each face, in the order of getWallLineSegments().
+     */
+    private static final int[] FACE_DX = {0, -1, 0, 1};
+    private static final int[] FACE_DY = {-1, 0, 1, 0};
+
+    /**
+     * Represents the distance from a hole's centre within which it attracts a ball, in pixels.
+     */
+    static final float HOLE_REACH = 32;
+
+    /**
+     * Represents, for each tile (indexed by y * columns + x), the hole whose reach covers part of the tile, or null.
+     * A hole's reach fits inside its own 2x2 tiles, so each tile has at most one hole.
+     * Built by setLayout(); null until then, in which case getAttractingHole() tests every hole in holes.
+     */
+    private Hole[] holeField;
+
+    /**
+     * Represents the bounding volume hierarchy over drawnLines. Built by the first addStroke(); null until then,
+     * in which case stroke collisions and erasing scan every segment in drawnLines.
+     */
+    protected StrokeTree strokeTree;
+    private final ArrayList<StrokeTree.Entry> strokeHits = new ArrayList<>();
+    private final StrokeTree.QueryStack strokeStack = new StrokeTree.QueryStack();
+    private final ArrayList<Line> sweptCandidates = new ArrayList<>();
+
+    /**
+     * Represents the lists and arrays above, and the collision test counters, of the thread calling step().
+     */
+    private final Scratch scratch = new Scratch(this.collisionPoint, this.sweptCandidates, this.strokeHits, this.strokeStack);
+
+    /**
+     * Represents whether step() tests balls for collisions on several threads, read from the top-level "parallel_step".
+     */
+    protected boolean parallelStep = false;
+    private ForkJoinPool pool = ForkJoinPool.commonPool();
+
+    /**
+     * Represents, for every ball of the current tick, whether it hits nothing this tick. Balls in the ball list
+     * come first, followed by the slots of the ball store. Only valid while step() runs in parallel.
+     */
+    private boolean[] freeFlight = new boolean[0];
+    private boolean hasFreeFlight = false;
+    private int freeFlightOffset;
+    private final ThreadLocal<Scratch> scratches = ThreadLocal.withInitial(Scratch::new);
+
+    /**
+     * Represent the collision tests, and the tests that hit, made on the pool by the parallel step.
+     * Added once per task, see FreeFlightTask.
+     */
+    private final LongAdder parallelTests = new LongAdder();
+    private final LongAdder parallelHits = new LongAdder();
+
+    /**
+     * Represents the number of collision tests made by the last call to step().
+     */
+    private long lastTickTests = 0;
+
+    /**
+     * Represents the number of balls tested by one task of the parallel step. Ticks with fewer balls
+     * than this are stepped on the calling thread only.
+     */
+    public static final int PARALLEL_GRAIN = 32;
+
+    /**
+     * Represents the furthest a ball moves between two collision tests, in pixels. Ticks in which a ball
+     * would move further are split into substeps, see getSubsteps().
+     */
+    public static final float MAX_SUBSTEP_TRAVEL = Ball.ARTIFICIAL_RADIUS;
+
+    /**
+     * Limits the substeps of one ball per tick, so that a ball with a broken vector cannot stall the game.
+     */
+    public static final int MAX_SUBSTEPS = 64;
+
+    private final static int mouseRadius = 5;
+
+    /**
+     * Represents the random generator choosing spawners and starting vectors. Seeded by setSeed() for repeatable runs.
+     * Its state is saved by WorldSnapshot.
+     */
+    private final GameRandom random = new GameRandom();
+
+    /**
+     * Represents the number of absorbed balls per colour code, counted by capture().
+     */
+    private final int[] captures = new int[5];
+
+    /**
+     * Represents the number of balls that fell into a hole of the wrong colour and were re-queued.
+     */
+    private int wrongCaptures = 0;
+
+    /**
+     * Represents the number of walls broken and removed since the level started.
+     */
+    private int wallBreaks = 0;
+
+    /**
+     * Represents the tiles whose sprite changed since BoardLayer last drew them: damaged walls and
+     * removed walls (now blank). Indexed by y * columns + x.
+     */
+    private final BitSet changedTiles = new BitSet();
+
+    public Tile[][] getBoard() {
+        return this.board;
+    }
+
+    /**
+     * @return The tiles whose sprite changed since the set was last cleared, indexed by y * columns + x.
+     * The caller clears the set once it has redrawn them, see BoardLayer.
+     */
+    public BitSet getChangedTiles() {
+        return this.changedTiles;
+    }
+
+    /**
+     * Marks a tile of the board as changed, so that BoardLayer redraws it.
+     * @param tile The tile that changed.
+     */
+    void markChanged(Tile tile) {
+        if (this.board != null && this.board.length > 0) {
+            this.changedTiles.set(tile.getY() * this.board[0].length + tile.getX());
+        }
+    }
+
+    /**
+     * Creates an empty board of the given size. Tiles are filled in by setLayout().
+     * Boards larger than the window (e.g. generated stress levels) grow the playing area to fit,
+     * so that the borders and segment grid cover every tile. Such boards are meant to be run headless.
+     * @param rows number of rows of tiles
+     * @param cols number of columns of tiles
+     */
+    public void createBoard(int rows, int cols) {
+        this.board = new Tile[rows][cols];
+        this.changedTiles.clear();
+        this.wallFaces = null;
+        this.holeField = null;
+        this.width = Math.max(App.WIDTH, cols * App.CELLSIZE);
+        this.height = Math.max(App.HEIGHT, App.TOPBAR + rows * App.CELLSIZE);
+    }
+
+    /**
+     * @return The width of the playing area in pixels. The window width, unless createBoard() made a wider board.
+     */
+    public int getWidth() {
+        return this.width;
+    }
+
+    /**
+     * @return The height of the playing area in pixels, including the top bar.
+     *         The window height, unless createBoard() made a taller board.
+     */
+    public int getHeight() {
+        return this.height;
+    }
+
+    /**
+     * @return ArrayList of every wall and border line segment
+     */
+    public ArrayList<Line> getLineSegments() {
+        return this.allLines;
+    }
+
+    public SegmentGrid getSegmentGrid() {
+        return this.segmentGrid;
+    }
+
+    public StrokeTree getStrokeTree() {
+        return this.strokeTree;
+    }
+
+    public ArrayList<ArrayList<Line>> getDrawnLines() {
+        return this.drawnLines;
+    }
+
+    public ArrayList<Ball> getBalls() {
+        return this.balls;
+    }
+
+    public BallStore getBallStore() {
+        return this.ballStore;
+    }
+
+    public boolean getUseBallStore() {
+        return this.useBallStore;
+    }
+
+    public void setUseBallStore(boolean useBallStore) {
+        this.useBallStore = useBallStore;
+    }
+
+    /**
+     * @return The number of balls on the board, in both balls and the ball store.
+     */
+    public int getBallCount() {
+        return this.balls.size() + this.ballStore.size();
+    }
+
+    public boolean getBallCollisions() {
+        return this.ballCollisions;
+    }
+
+    public void setBallCollisions(boolean ballCollisions) {
+        this.ballCollisions = ballCollisions;
+    }
+
+    public boolean getParallelStep() {
+        return this.parallelStep;
+    }
+
+    public void setParallelStep(boolean parallelStep) {
+        this.parallelStep = parallelStep;
+    }
+
+    public ForkJoinPool getPool() {
+        return this.pool;
+    }
+
+    /**
+     * @param pool The pool the parallel step runs its tasks on. Defaults to the common pool.
+     * @throws IllegalArgumentException if pool is null.
+     */
+    public void setPool(ForkJoinPool pool) {
+        if (pool == null) {
+            throw new IllegalArgumentException("Pool must not be null!");
+        }
+        this.pool = pool;
+    }
+
+    /**
+     * Puts a new ball on the board. The ball is copied into the ball store if the level uses one.
+     * @param ball The Ball object to add.
+     */
+    public void addBall(Ball ball) {
+        if (this.useBallStore) {
+            this.ballStore.add(ball);
+        }
+        else {
+            this.balls.add(ball);
+        }
+    }
+
+    public ArrayList<Wall> getWalls() {
+        return this.walls;
+    }
+
+    public ArrayList<Hole> getHoles() {
+        return this.holes;
+    }
+
+    public ArrayList<Spawner> getSpawners() {
+        return this.spawners;
+    }
+
+    public Ball[] getBallQueue() {
+        return this.ballQueue;
+    }
+
+    public double getScore() {
+        return this.score;
+    }
+
+    public void setScore(double score) {
+        this.score = score;
+    }
+
+    public HashMap<String, Integer> getScoreIncrease() {
+        return this.scoreIncrease;
+    }
+
+    public HashMap<String, Integer> getScoreDecrease() {
+        return this.scoreDecrease;
+    }
+
+    public float getModScoreIncrease() {
+        return this.modScoreIncrease;
+    }
+
+    public float getModScoreDecrease() {
+        return this.modScoreDecrease;
+    }
+
+    /**
+     * Seeds the random generator of the world, so that spawners and starting vectors are picked the same way
+     * every run. Must be called before setLayout() for balls placed on the layout to be seeded too.
+     * @param seed The seed of the random generator.
+     */
+    public void setSeed(long seed) {
+        this.random.setSeed(seed);
+    }
+
+    GameRandom getRandom() {
+        return this.random;
+    }
+
+    /**
+     * Replaces the capture and wall counts, for restoring a WorldSnapshot.
+     * @param captures The number of absorbed balls per colour code, see getCaptures().
+     * @param wrongCaptures See getWrongCaptures().
+     * @param wallBreaks See getWallBreaks().
+     */
+    void setCounts(int[] captures, int wrongCaptures, int wallBreaks) {
+        System.arraycopy(captures, 0, this.captures, 0, this.captures.length);
+        this.wrongCaptures = wrongCaptures;
+        this.wallBreaks = wallBreaks;
+    }
+
+    /**
+     * @param colour The colour code of the balls, where 0 = grey, 1 = orange, 2 = blue, 3 = green, 4 = yellow.
+     * @return The number of balls of this colour absorbed by a hole since the level started.
+     * @throws IllegalArgumentException if colour is outside of 0-4.
+     */
+    public int getCaptures(int colour) {
+        if (colour < 0 || colour >= this.captures.length) {
+            throw new IllegalArgumentException("Colour code must be between 0 and 4!");
+        }
+        return this.captures[colour];
+    }
+
+    public int getWrongCaptures() {
+        return this.wrongCaptures;
+    }
+
+    public int getWallBreaks() {
+        return this.wallBreaks;
+    }
+
+    /**
+     * @return The number of look-ahead collision tests (see Ball::willCollide) made to find the walls, borders and
+     *         drawn lines balls hit, since the level started. Includes the tests of the parallel step.
+     */
+    public long getCollisionTests() {
+        return this.scratch.tests + this.parallelTests.sum();
+    }
+
+    /**
+     * @return The number of collision tests that found a collision, see getCollisionTests().
+     */
+    public long getCollisionHits() {
+        return this.scratch.hits + this.parallelHits.sum();
+    }
+
+    /**
+     * @return The number of collision tests made by the last tick, see getCollisionTests().
+     */
+    public long getLastTickTests() {
+        return this.lastTickTests;
+    }
+
+    public int getSpawnInterval() {
+        return this.spawnInterval;
+    }
+
+    public int getTimeLimit() {
+        return this.timeLimit;
+    }
+
+    public int getTickRate() {
+        return this.tickRate;
+    }
+
+    public long getTicks() {
+        return this.ticks;
+    }
+
+    /**
+     * Ball vectors are in pixels per frame at App.FPS, so each tick only applies a fraction of them.
+     * @return The fraction of a ball's vector applied per tick, App.FPS / tick rate.
+     */
+    public float getTickScale() {
+        return (float) App.FPS / this.tickRate;
+    }
+
+    /**
+     * Reads the settings of one level from the game configuration.<br>
+     *
+     * @param json The parsed configuration file, may be null.
+     * @param level The level to read, starting from 1.<br>
+     *
+     * <p>Missing or invalid values fall back to defaults: no time limit, a spawn interval of 1 second,
+     * no score multipliers, 50 points per capture and 25 points per wrong capture.
+     * The simulation tick rate is read from the top-level "tick_rate" and defaults to App.FPS.
+     * Balls are tested for collisions on several threads if the top-level "parallel_step" is true.
+     * Balls are kept in the ball store if the level sets "ball_store" to true,
+     * and bounce off each other if it sets "ball_collisions" to true.</p>
+     */
+    public void configure(JSONObject json, int level) {
+        try {
+            this.tickRate = json.getInt("tick_rate");
+        }
+        catch (Exception e) {
+            this.tickRate = App.FPS;
+        }
+
+        if (this.tickRate <= 0) {
+            this.tickRate = App.FPS;
+        }
+
+        try {
+            this.parallelStep = json.getBoolean("parallel_step", false);
+        }
+        catch (Exception e) {
+            this.parallelStep = false;
+        }
+
+        try {
+            this.timeLimit = json.getJSONArray("levels").getJSONObject(level - 1).getInt("time");
+        }
+        catch (Exception e) {
+            this.timeLimit = 0;
+        }
+
+        if (this.timeLimit <= 0) {
+            this.timeLimit = 0;
+        }
+
+        try {
+            this.useBallStore = json.getJSONArray("levels").getJSONObject(level - 1).getBoolean("ball_store", false);
+        }
+        catch (Exception e) {
+            this.useBallStore = false;
+        }
+
+        try {
+            this.ballCollisions = json.getJSONArray("levels").getJSONObject(level - 1).getBoolean("ball_collisions", false);
+        }
+        catch (Exception e) {
+            this.ballCollisions = false;
+        }
+
+        try {
+            this.spawnInterval = json.getJSONArray("levels").getJSONObject(level - 1).getInt("spawn_interval");
+        }
+        catch (Exception e) {
+            this.spawnInterval = 1;
+        }
+
+        try {
+            this.modScoreIncrease = json.getJSONArray("levels").getJSONObject(level - 1).getFloat("score_increase_from_hole_capture_modifier");
+        }
+        catch (Exception e) {
+            this.modScoreIncrease = 1; // Default value is no multiplier
+        }
+
+        try {
+            this.modScoreDecrease = json.getJSONArray("levels").getJSONObject(level - 1).getFloat("score_decrease_from_wrong_hole_modifier");
+        }
+        catch (Exception e) {
+            this.modScoreDecrease = 1; // Default value is no multiplier
+        }
+
+        JSONObject scoreIncJSON = new JSONObject();
+        try {
+            scoreIncJSON = json.getJSONObject("score_increase_from_hole_capture");
+        }
+        catch (Exception e) {
+            scoreIncJSON.put("grey", 50); // Set defaults
+            scoreIncJSON.put("orange", 50);
+            scoreIncJSON.put("blue", 50);
+            scoreIncJSON.put("green", 50);
+            scoreIncJSON.put("yellow", 50);
+        }
+
+        for (Object key : scoreIncJSON.keys()) {
+            String keyStr = (String) key;
+            Integer scoreInc = scoreIncJSON.getInt(keyStr);
+            scoreIncrease.put(keyStr, scoreInc);
+        }
+
+        JSONObject scoreDecJSON = new JSONObject();
+        try {
+            scoreDecJSON = json.getJSONObject("score_decrease_from_wrong_hole");
+        }
+        catch (Exception e){
+            scoreDecJSON.put("grey", 25); // Set defaults
+            scoreDecJSON.put("orange", 25);
+            scoreDecJSON.put("blue", 25);
+            scoreDecJSON.put("green", 25);
+            scoreDecJSON.put("yellow", 25);
+        }
+
+        for (Object key : scoreIncJSON.keys()) {
+            String keyStr = (String) key;
+            Integer scoreInc = scoreDecJSON.getInt(keyStr);
+            scoreDecrease.put(keyStr, scoreInc);
+        }
+    }
+
+    /**
+     * Fills the ball queue with the balls listed for the given level.
+     * Must be called after setLayout(), since balls placed on the layout also count towards the queue size.
+     *
+     * @param json The parsed configuration file, may be null.
+     * @param level The level to read, starting from 1. Defaults to five grey balls if not configured.
+     */
+    public void loadBallQueue(JSONObject json, int level) {
+        JSONArray ballsJSON = new JSONArray();
+        try {
+            ballsJSON = json.getJSONArray("levels").getJSONObject(level - 1).getJSONArray("balls");
+        }
+        catch (Exception e) {
+            List<String> balls = Arrays.asList("grey", "grey", "grey", "grey", "grey");
+            Gson gson = new Gson();
+            ballsJSON = JSONArray.parse(gson.toJson(balls));
+        }
+
+        this.maxBallQueue = ballsJSON.size() + this.getBallCount();
+
+        this.ballQueue = new Ball[this.maxBallQueue];
+
+        for (int i = 0; i < ballsJSON.size(); i++) {
+            int colour = colourToInt(ballsJSON.getString(i));
+            this.ballQueue[i] = new Ball(19 + 28 * i, 21, colour, this.random);
+        }
+    }
+
+    /**
+     * Sets up the game board layout based on file contents and initializes game objects.<br>
+     *
+     * @param lines The contents of the layout file, one list of single-character strings per line.<br>
+     *
+     * <p>This method performs the following major tasks:</p>
+     * <ol>
+     *   <li>Iterates through the board grid, creating game objects based on file symbols.</li>
+     *   <li>Handles cases of insufficient file data by filling with blank tiles.</li>
+     *   <li>Initializes walls, holes, spawners, and balls according to the layout.</li>
+     *   <li>Adds border lines to the game board.</li>
+     * </ol>
+     *
+     * Note: <p>Layout symbols and their meanings:</p>
+     * <ul>
+     *   <li>" " (space): Blank tile</li>
+     *   <li>"X": Wall (color 0)</li>
+     *   <li>"1"-"4": Colored walls</li>
+     *   <li>"H": Hole (followed by color code)</li>
+     *   <li>"S": Spawner</li>
+     *   <li>"B": Ball (followed by color code)</li>
+     * </ul>
+     *
+     * <p>Special considerations:</p>
+     * <ul>
+     *   <li>Handles cases where file data is shorter than expected board dimensions.</li>
+     *   <li>Skips already populated board positions.</li>
+     *   <li>Positions balls slightly offset from grid for centered appearance.</li>
+     * </ul>
+     */
+    public void setLayout(ArrayList<ArrayList<String>> lines) {
+        this.setLayout(LayoutGrid.fromLines(lines));
+    }
+
+    /**
+     * Sets up the game board from a layout read by LayoutParser, see setLayout(ArrayList).<br>
+     *
+     * @param layout The layout, one byte per tile.
+     */
+    public void setLayout(LayoutGrid layout) {
+        //CREATE OBJECTS BASED ON FILE
+        for (int i = 0; i < this.board.length; i++) {
+            int length = layout.getRowLength(i); // 0 for missing lines
+
+            for (int j = 0; j < this.board[0].length; j++) {
+                if (this.board[i][j] != null) { //if board has something in it, skip
+                    continue;
+                }
+
+                // HANDLE insufficient number of characters in a line, and missing lines
+                if (j >= length) {
+                    this.board[i][j] = new Blank(j, i);
+                    continue;
+                }
+
+                byte code = layout.get(i, j);
+                switch (code) {
+                    //WALL 0-4
+                    case 'X':
+                    case '1':
+                    case '2':
+                    case '3':
+                    case '4': {
+                        Wall wall = new Wall(j, i, code == 'X' ? 0 : code - '0');
+                        this.board[i][j] = wall;
+                        this.addToWalls(wall);
+                        break;
+                    }
+
+                    //HOLE
+                    case 'H': {
+                        int colour = this.getColourCode(layout, i, j);
+                        if (colour == -1) {
+                            this.board[i][j] = new Blank(j, i);
+                            this.board[i][j+1] = new Blank(j+1, i); //handle out of bounds
+                            break;
+                        }
+                        for (int k = 0; k <= 1; k++) {
+                            for (int l = 0; l <= 1; l++) {
+                                Hole.GridPosition gp = this.getPosition(l, k);
+                                if (k == 1 && l == 1) {
+                                    this.holes.add(new Hole (j+l, i+k, colour, gp)); // add the one w center coords
+                                }
+                                this.board[i+k][j+l] = new Hole(j+l, i+k, colour, gp);
+                            }
+                        }
+                        break;
+                    }
+
+                    //SPAWNER
+                    case 'S':
+                        this.board[i][j] = new Spawner(j, i);
+                        this.spawners.add(new Spawner(j, i));
+                        break;
+
+                    //BALL
+                    case 'B': {
+                        this.board[i][j] = new Blank(j, i);
+                        int colour = this.getColourCode(layout, i, j);
+                        if (colour != -1) {
+                            this.addBall(new Ball(j*App.CELLSIZE + 4, i*App.CELLSIZE+App.TOPBAR + 4, colour, this.random)); //add 4 so spawns in the middle
+                        }
+                        break;
+                    }
+
+                    //BLANK, and anything unknown
+                    default:
+                        this.board[i][j] = new Blank(j, i);
+                }
+            }
+        }
+
+        this.buildHoleField();
+
+        // ADD LINES FROM WALLS
+        this.addBorders();
+    }
+
+    /**
+     * Fills holeField from holes: each hole claims the tiles that its reach (HOLE_REACH around its centre) covers.
+     * Holes without a valid centre claim nothing.
+     */
+    void buildHoleField() {
+        int rows = this.board.length;
+        int cols = rows == 0 ? 0 : this.board[0].length;
+        this.holeField = new Hole[rows * cols];
+        for (Hole hole : this.holes) {
+            float centerX = hole.getHoleCenterX();
+            float centerY = hole.getHoleCenterY() - App.TOPBAR;
+            if (Float.isNaN(centerX) || Float.isNaN(centerY)) {
+                continue;
+            }
+            int minX = Math.max(0, (int) Math.floor((centerX - HOLE_REACH) / App.CELLSIZE));
+            int maxX = Math.min(cols - 1, (int) Math.ceil((centerX + HOLE_REACH) / App.CELLSIZE) - 1);
+            int minY = Math.max(0, (int) Math.floor((centerY - HOLE_REACH) / App.CELLSIZE));
+            int maxY = Math.min(rows - 1, (int) Math.ceil((centerY + HOLE_REACH) / App.CELLSIZE) - 1);
+            for (int y = minY; y <= maxY; y++) {
+                for (int x = minX; x <= maxX; x++) {
+                    if (this.holeField[y * cols + x] == null) {
+                        this.holeField[y * cols + x] = hole;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Finds the hole that attracts a ball centred at the given point: one lookup in holeField,
+     * then a distance check against that hole.<br>
+     *
+     * @param x The x-coordinate of the ball centre.
+     * @param y The y-coordinate of the ball centre.
+     * @return The hole within HOLE_REACH of the point, or null if there is none.
+     */
+    public Hole getAttractingHole(float x, float y) {
+        int rows = this.board == null ? 0 : this.board.length;
+        int cols = rows == 0 ? 0 : this.board[0].length;
+        if (this.holeField == null || this.holeField.length != rows * cols) {
+            for (int j = 0; j < this.holes.size(); j++) {
+                Hole hole = this.holes.get(j);
+                if (App.getDistance(x, y, hole.getHoleCenterX(), hole.getHoleCenterY()) < HOLE_REACH) {
+                    return hole;
+                }
+            }
+            return null;
+        }
+
+        int col = (int) Math.floor(x / App.CELLSIZE);
+        int row = (int) Math.floor((y - App.TOPBAR) / App.CELLSIZE);
+        if (col < 0 || row < 0 || col >= cols || row >= rows) {
+            return null;
+        }
+        Hole hole = this.holeField[row * cols + col];
+        if (hole != null && App.getDistance(x, y, hole.getHoleCenterX(), hole.getHoleCenterY()) < HOLE_REACH) {
+            return hole;
+        }
+        return null;
+    }
+
+    /**
+     * Releases the ball at the front of the queue from a random spawner,
+     * then shifts the remaining queued balls forward.<br>
+     *
+     * @return true if a ball was spawned, false if the queue is empty or uninitialised.
+     */
+    public boolean spawnBall() {
+        if (this.ballQueue.length == 0) {
+            return false;
+        }
+
+        if (this.ballQueue[0] == null || this.spawners.isEmpty()) {
+            return false;
+        }
+
+        int colour = this.ballQueue[0].getColour();
+        int i = this.random.nextInt(this.spawners.size());
+        Spawner spawner = this.spawners.get(i);
+        this.addBall(new Ball(spawner.getX() * App.CELLSIZE + 4, spawner.getY() * App.CELLSIZE + App.TOPBAR + 4, colour, this.random));
+        this.ballQueue[0] = null;
+
+        if (this.ballQueue.length > 1) {
+            ArrayList<Ball> tempQueue = new ArrayList<>();
+            for (Ball ball : this.ballQueue) {
+                if (ball != null) {
+                    tempQueue.add(ball);
+                }
+            }
+
+            this.ballQueue = new Ball[this.maxBallQueue]; // make queue null
+            for (int j = 0; j < tempQueue.size(); j++) {
+                this.ballQueue[j] = tempQueue.get(j);
+            }
+
+            for (int j = 0; j < this.ballQueue.length - 1; j++) {
+                if (this.ballQueue[j] == null) {
+                    break;
+                }
+                int c = this.ballQueue[j].getColour();
+                this.ballQueue[j] = new Ball(19 + 28 * j, 21, c, this.random); // move ball coordinates
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Adds a ball back to the first free slot of the queue, e.g. after it entered a hole of the wrong colour.
+     * The ball is dropped if the queue is full.
+     * @param colour colour code of the ball to re-queue
+     */
+    public void requeue(int colour) {
+        for (int i = 0; i < this.ballQueue.length; i++) {
+            if (this.ballQueue[i] == null) {
+                this.ballQueue[i] = new Ball(19 + 28 * i, 21, colour, this.random); // add back to queue
+                break;
+            }
+        }
+    }
+
+    /**
+     * @return true when no balls are left on the board or in the queue.
+     */
+    public boolean isCleared() {
+        return (this.ballQueue.length == 0 || this.ballQueue[0] == null) && this.balls.isEmpty() && this.ballStore.isEmpty();
+    }
+
+    /**
+     * Represents the state of a level after a tick, see getOutcome().
+     */
+    public enum Outcome {
+        PLAYING, WON, TIME_UP
+    }
+
+    /**
+     * Runs one tick of the level's rules headless: spawnIfDue(), step(), then getOutcome().
+     * App::tick applies the same rules, with its timers in between.<br>
+     *
+     * @param timeLimit The time the level may take, in seconds.
+     * @return The state of the level after the tick.
+     */
+    public Outcome tick(int timeLimit) {
+        this.spawnIfDue();
+        this.step();
+        return this.getOutcome(timeLimit);
+    }
+
+    /**
+     * Spawns the ball at the front of the queue if one is due: a ball is waiting and the tick count is a multiple of
+     * "spawn_interval" seconds (at least 1), starting with the first tick.<br>
+     *
+     * @return true if a ball was due, even if there was no spawner to release it from.
+     */
+    public boolean spawnIfDue() {
+        if (this.ballQueue.length == 0 || this.ballQueue[0] == null) {
+            return false;
+        }
+        long spawnTicks = (long) Math.max(1, this.spawnInterval) * this.tickRate;
+        if (this.ticks % spawnTicks != 0) {
+            return false;
+        }
+        this.spawnBall();
+        return true;
+    }
+
+    /**
+     * @param timeLimit The time the level may take, in seconds.
+     * @return WON once the level is cleared (see isCleared()), otherwise TIME_UP once timeLimit seconds of ticks
+     * have been simulated, otherwise PLAYING.
+     */
+    public Outcome getOutcome(int timeLimit) {
+        if (this.isCleared()) {
+            return Outcome.WON;
+        }
+        if (this.ticks >= (long) timeLimit * this.tickRate) {
+            return Outcome.TIME_UP;
+        }
+        return Outcome.PLAYING;
+    }
+
+    /**
+     * @param timeLimit The time the level may take, in seconds. 0 if it has no time limit.
+     * @return The score bonus for winning the level now: about 15 points per whole second left, 0 without a time limit.
+     */
+    public int getTimeBonus(int timeLimit) {
+        if (timeLimit <= 0) {
+            return 0;
+        }
+        long secondsLeft = timeLimit - this.ticks / this.tickRate;
+        return (int) (secondsLeft / 0.067);
+    }
+
+    /**
+     * Returns the integer representation of the input using the colour scale of Inkball:
+     * grey = 0, orange = 1, blue = 2, green = 3, yellow = 4, others = 0.
+     * @param colourStr string representation of a colour
+     * @return integer representation of colourStr
+     */
+    public static int colourToInt(String colourStr) {
+        if (colourStr.equals("grey")) {
+            return 0;
+        }
+        if (colourStr.equals("orange")) {
+            return 1;
+        }
+        if (colourStr.equals("blue")) {
+            return 2;
+        }
+        if (colourStr.equals("green")) {
+            return 3;
+        }
+        if (colourStr.equals("yellow")) {
+            return 4;
+        }
+        return 0;
+    }
+
+    /**
+     *Adds border lines to the game area and wall segments for all Wall tiles. <br>
+     * This method performs two main tasks:
+     * <ol><li>Creates four invisible border lines around the entire game area.</li>
+     * <li>Adds line segments for each Wall tile in the game board.</li></ol>
+     * Border lines are created slightly outside the playing area (32 pixels), see getWidth() and getHeight(),
+     * to ensure complete coverage. These lines are invisible (isDrawn = false)
+     * and have a color code of 0.
+     * For each Wall tile in the board, addWallLineSegment() is called to add
+     * the line segments of the sides a ball can reach.
+     * The segment grid is rebuilt to cover the border lines and everything inside them.
+     */
+    public void addBorders() {
+
+        float[] topLeftCorner = new float[] {-32, App.TOPBAR-32}; // H0, V0
+        float[] topRightCorner = new float[] {this.width+32, App.TOPBAR-32}; // H1, V0
+        float[] bottomLeftCorner = new float[] {-32, this.height+32}; // H0, V1
+        float[] bottomRightCorner = new float[] {this.width+32, this.height+32}; // H1, V1
+
+        boolean isDrawn = false;
+        Line[] borders = new Line[] {
+                new Line(topLeftCorner, topRightCorner, 0, isDrawn), //TOP
+                new Line(topLeftCorner, bottomLeftCorner, 0, isDrawn), //LEFT
+                new Line(bottomLeftCorner, bottomRightCorner, 0, isDrawn), // BOTTOM
+                new Line(bottomRightCorner, topRightCorner, 0, isDrawn) //RIGHT
+        };
+
+        // Grid must reach as far as the longest border can collide
+        float reach = Math.max(SegmentGrid.getReach(borders[0]), SegmentGrid.getReach(borders[1]));
+        this.segmentGrid = new SegmentGrid(topLeftCorner[0] - reach, topLeftCorner[1] - reach,
+                bottomRightCorner[0] + reach, bottomRightCorner[1] + reach, App.CELLSIZE);
+
+        for (Line border : borders) {
+            this.addSegment(border);
+        }
+
+        // line for non-border tiles
+        for (int i = 0; i < this.board.length; i++) {
+            for (int j = 0; j < this.board[0].length; j++) {
+                if (this.getBoard()[i][j].getClass() == Wall.class) {
+                    Wall wall = (Wall) this.getBoard()[i][j];
+                    this.addWallLineSegment(wall);
+                }
+            }
+        }
+
+    }
+
+    /**
+     * Gets the line segments representing the top, left, bottom, and right sides of the wall
+     * and adds the segments of the exposed sides to allLines.<br>
+     * A side shared with another wall, or facing the edge of the board, cannot be reached by a ball and is left out,
+     * so a row of walls only adds the sides facing the playing area. The sides are kept by tile, so that
+     * removeWall() can remove them and expose the sides of the neighbouring walls.
+     * @param wall The Wall object for which to generate line segments.
+     */
+    public void addWallLineSegment(Wall wall) {
+        Line[] lines = this.getWallLineSegments(wall);
+        Line[] faces = new Line[lines.length];
+        for (int face = 0; face < lines.length; face++) {
+            if (!this.isWall(wall.getX() + FACE_DX[face], wall.getY() + FACE_DY[face])) {
+                faces[face] = lines[face];
+                this.addSegment(lines[face]);
+            }
+        }
+        int cell = this.getCell(wall.getX(), wall.getY());
+        if (cell != -1) {
+            if (this.wallFaces == null) {
+                this.wallFaces = new Line[this.board.length * this.board[0].length][];
+            }
+            this.wallFaces[cell] = faces;
+        }
+    }
+
+    /**
+     * @return The index of a tile, y * columns + x, or -1 if there is no board or the tile is not on it.
+     */
+    private int getCell(int x, int y) {
+        if (this.board == null || this.board.length == 0 || y < 0 || y >= this.board.length
+                || x < 0 || x >= this.board[0].length) {
+            return -1;
+        }
+        return y * this.board[0].length + x;
+    }
+
+    /**
+     * @return true if the tile is a wall, or lies beyond the edge of the board, so the side of a wall facing it
+     * cannot be reached. false if there is no board.
+     */
+    private boolean isWall(int x, int y) {
+        if (this.board == null || this.board.length == 0) {
+            return false;
+        }
+        if (this.getCell(x, y) == -1) {
+            return true;
+        }
+        Tile tile = this.board[y][x];
+        return tile != null && tile.getClass() == Wall.class;
+    }
+
+    /**
+     * Adds a wall or border segment to allLines and the segment grid.
+     * Ends the free flight of the balls not yet stepped this tick, as they were only tested without the segment.
+     */
+    void addSegment(Line line) {
+        line.slot = this.allLines.size();
+        this.allLines.add(line);
+        if (this.segmentGrid != null) {
+            this.segmentGrid.insert(line);
+        }
+        this.hasFreeFlight = false;
+    }
+
+    /**
+     * Removes this exact wall or border segment from allLines and the segment grid.
+     * The last segment of allLines is moved into its slot, so the removal does not depend on the number of lines.
+     * @throws IllegalArgumentException if the segment was not added by addSegment().
+     */
+    private void removeSegment(Line line) {
+        int slot = line.slot;
+        if (slot < 0 || slot >= this.allLines.size() || this.allLines.get(slot) != line) {
+            throw new IllegalArgumentException("Segment is not in the world!");
+        }
+        Line last = this.allLines.remove(this.allLines.size() - 1);
+        if (last != line) {
+            this.allLines.set(slot, last);
+            last.slot = slot;
+        }
+        line.slot = -1;
+        if (this.segmentGrid != null) {
+            this.segmentGrid.remove(line);
+        }
+    }
+
+    /**
+     * Adds a wall of the board to walls.
+     */
+    private void addToWalls(Wall wall) {
+        wall.slot = this.walls.size();
+        this.walls.add(wall);
+    }
+
+    /**
+     * Removes a wall from walls, moving the last wall into its slot the same way as removeSegment().
+     * @throws IllegalArgumentException if the wall was not added by addToWalls().
+     */
+    private void removeFromWalls(Wall wall) {
+        int slot = wall.slot;
+        if (slot < 0 || slot >= this.walls.size() || this.walls.get(slot) != wall) {
+            throw new IllegalArgumentException("Wall is not in the world!");
+        }
+        Wall last = this.walls.remove(this.walls.size() - 1);
+        if (last != wall) {
+            this.walls.set(slot, last);
+            last.slot = slot;
+        }
+        wall.slot = -1;
+    }
+
+    /**
+     * Generates an array of Line objects representing the four sides of a Wall.
+     *
+     * @param wall The Wall object for which to generate line segments.
+     * @return An array of four Line objects representing the top, left, bottom, and right sides of the wall.
+     *         Each Line object contains:<br>
+     *         - Start and end coordinates adjusted for cell size and top bar offset<br>
+     *         - The color of the wall<br>
+     *         - A boolean indicating if the line is drawn (set to false by default)<br>
+     *         - The wall itself, see Line::getWall
+     **/
+    public Line[] getWallLineSegments(Wall wall) {
+        Line[] lines = new Line[4];
+
+        float[] topLeftCorner = new float[] {wall.getX()*App.CELLSIZE, wall.getY() * App.CELLSIZE + App.TOPBAR}; // H0, V0
+        float[] topRightCorner = new float[] {(wall.getX()+1)*App.CELLSIZE, wall.getY() * App.CELLSIZE + App.TOPBAR}; // H1, V0
+        float[] bottomLeftCorner = new float[] {wall.getX()*App.CELLSIZE, (wall.getY()+1) * App.CELLSIZE + App.TOPBAR}; // H0, V1
+        float[] bottomRightCorner = new float[] {(wall.getX()+1)*App.CELLSIZE, (wall.getY()+1)*App.CELLSIZE + App.TOPBAR};
+
+        int colour = wall.getColour();
+        boolean isDrawn = false;
+        lines[0] = new Line(topLeftCorner, topRightCorner, colour, isDrawn); //TOP
+        lines[1] = new Line(topLeftCorner, bottomLeftCorner, colour, isDrawn); //LEFT
+        lines[2] = new Line(bottomLeftCorner, bottomRightCorner, colour, isDrawn); // BOTTOM
+        lines[3] = new Line(bottomRightCorner, topRightCorner, colour, isDrawn);
+        for (Line line : lines) {
+            line.setWall(wall);
+        }
+
+        return lines;
+    }
+
+    /**
+     * Retrieves the color code from a 2D ArrayList of Strings at the specified position.
+     *
+     * @param lines The 2D ArrayList containing color information.
+     * @param i The row index in the ArrayList.
+     * @param j The column index in the ArrayList. The color code is expected to be at j+1.
+     * @return The color code as an integer. Returns -1 if:
+     *         - The specified position is out of bounds
+     *         - The color string is empty
+     *         - The color string cannot be parsed as an integer
+     *         - The parsed integer is not in the range 0-4
+     * @throws IndexOutOfBoundsException if the specified indices are out of range (caught internally)
+     * @throws NumberFormatException if the color string cannot be parsed as an integer (caught internally)
+     */
+    public int getColourCode (ArrayList<ArrayList<String>> lines, int i, int j) {
+        String colour = " ";
+        try {
+            colour = lines.get(i).get(j+1);
+        }
+        catch (IndexOutOfBoundsException e) {
+            return -1;
+        }
+
+        if (colour.equals(" ")) {
+            return -1;
+        }
+
+        int colourCode = -1;
+        try {
+            colourCode = Integer.parseInt(colour);
+        }
+        catch (NumberFormatException e) {
+            return -1;
+        }
+        if (colourCode < 0 || colourCode > 4) {
+            return -1;
+        }
+        return colourCode;
+    }
+
+    /**
+     * Retrieves the color code following the tile at the specified position of a layout,
+     * see getColourCode(ArrayList, int, int).
+     *
+     * @param layout The layout.
+     * @param i The row.
+     * @param j The column. The color code is expected to be at j+1.
+     * @return The color code from 0 to 4, or -1 if the next tile is outside the layout or not a color code.
+     */
+    public int getColourCode(LayoutGrid layout, int i, int j) {
+        byte code = layout.get(i, j + 1);
+        if (code < '0' || code > '4') {
+            return -1;
+        }
+        return code - '0';
+    }
+
+    /**
+     * Determines the grid position of a hole based on given coordinates.
+     *
+     * @param k The x-coordinate in a 2x2 grid (0 or 1)
+     * @param l The y-coordinate in a 2x2 grid (0 or 1)
+     * @return A Hole.GridPosition enum value representing the position:
+     *         - TL (TopLeft) for (0,0)
+     *         - TR (TopRight) for (1,0)
+     *         - BL (BottomLeft) for (0,1)
+     *         - BR (BottomRight) for (1,1)
+     *         Returns null if the coordinates are out of the 2x2 range.
+     */
+    public Hole.GridPosition getPosition(int k, int l) {
+        if (k == 0 && l == 0) {
+            return Hole.GridPosition.TL;
+        }
+        else if (k == 0 && l == 1) {
+            return Hole.GridPosition.BL;
+        }
+        else if (k == 1 && l == 0) {
+            return Hole.GridPosition.TR;
+        }
+        else if (k == 1 && l == 1) {
+            return Hole.GridPosition.BR;
+        }
+        else {
+            return null;
+        }
+    }
+
+    /**
+     * Commits a finished player-drawn line so that balls can collide with it.
+     * @param stroke The connected line segments making up the drawn line.
+     */
+    public void addStroke(ArrayList<Line> stroke) {
+        this.drawnLines.add(stroke);
+        if (this.strokeTree == null) {
+            this.strokeTree = new StrokeTree();
+        }
+        this.strokeTree.insertStroke(stroke);
+    }
+
+    /**
+     * Removes this exact stroke from drawnLines and the stroke tree.
+     * @param stroke The stroke to remove, compared by reference.
+     */
+    private void removeStroke(ArrayList<Line> stroke) {
+        for (int i = this.drawnLines.size() - 1; i >= 0; i--) {
+            if (this.drawnLines.get(i) == stroke) {
+                this.drawnLines.remove(i);
+                break;
+            }
+        }
+        if (this.strokeTree != null) {
+            this.strokeTree.removeStroke(stroke);
+        }
+    }
+
+    /**
+     * Finds the most recently drawn stroke segment that a ball will collide with.
+     *
+     * @param ball The Ball object to test.
+     * @return The segment hit, or null if the ball hits no drawn line.<br>
+     *
+     * Note: Searches from the most recently drawn lines backwards, using the stroke tree if one has been built.
+     */
+    public Line findStrokeCollision(Ball ball) {
+        if (this.strokeTree == null) {
+            for (int j = this.drawnLines.size() - 1; j >= 0; j--) {
+                for (int k = this.drawnLines.get(j).size() - 1; k >= 0; k--) {
+                    this.scratch.tests++;
+                    if (ball.willCollide(this.drawnLines.get(j).get(k), this.collisionPoint)) {
+                        this.scratch.hits++;
+                        return this.drawnLines.get(j).get(k);
+                    }
+                }
+            }
+            return null;
+        }
+
+        return this.findStrokeCollision(ball.getCenterX() + ball.getVector()[0], ball.getCenterY() + ball.getVector()[1]);
+    }
+
+    /**
+     * Overloaded method: Finds the most recently drawn stroke segment hit from a ball's look-ahead point.
+     *
+     * @param nextX The x-coordinate of the ball's centre after its next move (centre + vector).
+     * @param nextY The y-coordinate of the ball's centre after its next move.
+     * @return The segment hit, or null if the ball hits no drawn line.
+     */
+    public Line findStrokeCollision(float nextX, float nextY) {
+        return this.findStrokeCollision(nextX, nextY, this.scratch);
+    }
+
+    /**
+     * Overloaded method: Finds the most recently drawn stroke segment hit by a look-ahead point,
+     * using the given thread's lists to search the stroke tree and counting its tests.
+     */
+    private Line findStrokeCollision(float nextX, float nextY, Scratch scratch) {
+        if (this.strokeTree == null) {
+            for (int j = this.drawnLines.size() - 1; j >= 0; j--) {
+                for (int k = this.drawnLines.get(j).size() - 1; k >= 0; k--) {
+                    scratch.tests++;
+                    if (Ball.willCollide(nextX, nextY, this.drawnLines.get(j).get(k), null)) {
+                        scratch.hits++;
+                        return this.drawnLines.get(j).get(k);
+                    }
+                }
+            }
+            return null;
+        }
+
+        ArrayList<StrokeTree.Entry> strokeHits = scratch.strokeHits;
+        strokeHits.clear();
+        this.strokeTree.query(nextX, nextY, 0, strokeHits, scratch.stack);
+
+        StrokeTree.Entry latest = null;
+        for (int i = 0; i < strokeHits.size(); i++) {
+            StrokeTree.Entry hit = strokeHits.get(i);
+            if (latest == null || hit.getOrder() > latest.getOrder()) {
+                scratch.tests++;
+                if (Ball.willCollide(nextX, nextY, hit.getLine(), null)) {
+                    scratch.hits++;
+                    latest = hit;
+                }
+            }
+        }
+        return latest == null ? null : latest.getLine();
+    }
+
+    /**
+     * Overloaded method: Removes a line from the game based on the given coordinates.
+     *
+     * @param toRemove An array of floats representing the coordinates of the point to remove.
+     *                 Expected to be in the format [x, y].
+     * @return The removed group of line segments, or null if no line contains the point.<br>
+     *
+     * Note: The method searches for a line that contains the given point, starting from the most
+     * recently drawn lines (end of the list) and moving backwards. Once found, it removes
+     * the entire list containing that line from drawnLines.
+     * Only segments whose stroke tree box contains the point are tested, if the tree has been built.
+     */
+    public ArrayList<Line> removeLine(float[] toRemove) {
+        if (this.strokeTree != null) {
+            this.strokeHits.clear();
+            this.strokeTree.query(toRemove[0], toRemove[1], 0, this.strokeHits);
+
+            StrokeTree.Entry latest = null;
+            for (StrokeTree.Entry hit : this.strokeHits) {
+                if ((latest == null || hit.getOrder() > latest.getOrder())
+                        && this.mouseOnLine(toRemove, hit.getLine().getP1(), hit.getLine().getP2())) {
+                    latest = hit;
+                }
+            }
+            if (latest == null) {
+                return null;
+            }
+            this.removeStroke(latest.getStroke());
+            return latest.getStroke();
+        }
+
+        ArrayList<Line> removedLine = new ArrayList<>();
+
+        outerLoop:
+        for (int i = (this.drawnLines.size() - 1); i >= 0; i--) {
+            for (int j = (this.drawnLines.get(i).size() - 1); j >= 0; j--) {
+                if (this.mouseOnLine(toRemove, this.drawnLines.get(i).get(j).getP1(), this.drawnLines.get(i).get(j).getP2())) {
+                    removedLine = this.drawnLines.get(i);
+                    break outerLoop;
+                }
+            }
+        }
+
+        if (removedLine.isEmpty()) {
+            return null;
+        }
+
+        this.drawnLines.remove(removedLine);
+        return removedLine;
+    }
+
+    /**
+     * Removes a specific line and its associated group from the game.
+     *
+     * @param toRemove The Line object to be removed.
+     * @return The removed group of line segments, or null if the line was not found.<br>
+     *
+     * Note: The method searches for the specified line in drawnLines, starting from the most
+     * recently drawn lines (end of the list) and moving backwards. Once found, it removes
+     * the entire group (List) containing that line from drawnLines.
+     * Only segments whose stroke tree box contains the line's midpoint are tested, if the tree has been built.
+     */
+    public ArrayList<Line> removeLine(Line toRemove) {
+        if (this.strokeTree != null) {
+            // An equal segment has the same midpoint, so it is in the boxes around that point
+            this.strokeHits.clear();
+            this.strokeTree.query(toRemove.getMidX(), toRemove.getMidY(), 0, this.strokeHits);
+
+            StrokeTree.Entry latest = null;
+            for (StrokeTree.Entry hit : this.strokeHits) {
+                if ((latest == null || hit.getOrder() > latest.getOrder()) && hit.getLine().equals(toRemove)) {
+                    latest = hit;
+                }
+            }
+            if (latest == null) {
+                return null;
+            }
+            this.removeStroke(latest.getStroke());
+            return latest.getStroke();
+        }
+
+        ArrayList<Line> removedLine = new ArrayList<>();
+
+        outerLoop:
+        for (int i = this.drawnLines.size() - 1; i >= 0; i--) {
+            for (int j = (this.drawnLines.get(i).size() - 1); j >= 0; j--) {
+                if (this.drawnLines.get(i).get(j).equals(toRemove)) {
+                    removedLine = this.drawnLines.get(i);
+                    break outerLoop;
+                }
+            }
+        }
+
+        if (removedLine.isEmpty()) {
+            return null;
+        }
+
+        this.drawnLines.remove(removedLine);
+        return removedLine;
+    }
+
+    /**
+     * Determines if the mouse is on or near a line segment.
+     *
+     * @param mouseXY An array of two floats representing the mouse coordinates [x, y].
+     * @param lineP1 An array of two floats representing the coordinates of one endpoint of the line segment [x1, y1].
+     * @param lineP2 An array of two floats representing the coordinates of the other endpoint of the line segment [x2, y2].
+     * @return true if the mouse is considered to be on the line segment, false otherwise.
+     *
+     */
+    public boolean mouseOnLine(float[] mouseXY, float[] lineP1, float[] lineP2) {
+        double distP1 = App.getDistance(mouseXY, lineP1);
+        double distP2 = App.getDistance(mouseXY, lineP2);
+        double distP1P2 = App.getDistance(lineP1, lineP2);
+
+        return distP1 + distP2 < mouseRadius + distP1P2; //mouse radius is 5
+    }
+
+    /**
+     * Determines the walls associated with a potential collision between a ball and a line.
+     *
+     * @param ball The Ball object involved in the potential collision.
+     * @param line The Line object involved in the potential collision.
+     * @return An array of Wall objects. The first element is the wall the line is a side of, or the closest wall
+     *         to the collision point for other lines, and the second element is the wall at the same board position.
+     *         Both are the same wall for boards made by setLayout(), see damageWall().
+     *         Returns null if no collision is detected or if no associated walls are found.
+     *         The array is reused by the next call, so that collisions do not allocate.
+     *
+     * The method first checks for a collision using the ball's willCollide method.
+     * If a collision is detected, it looks the wall up from the line, see getWallAssociated(Line, float[]).
+     */
+    public Wall[] getWallAssociated(Ball ball, Line line) {
+        if (!ball.willCollide(line, this.collisionPoint)) {
+            return null;
+        }
+        return this.getWallAssociated(line, this.collisionPoint);
+    }
+
+    /**
+     * Determines the walls associated with a line that has been hit.<br>
+     * A side of a wall knows its wall (Line::getWall), so the wall is found without a search. Other lines,
+     * e.g. the borders, fall back to the closest wall to the collision point, see getWallAssociated(float[]).
+     *
+     * @param line The Line object that has been hit.
+     * @param collisionPoint The point [x, y] where the ball hits the line.
+     * @return An array of Wall objects, see getWallAssociated(Ball, Line), or null if no associated walls are found.
+     */
+    public Wall[] getWallAssociated(Line line, float[] collisionPoint) {
+        Wall wall = line.getWall();
+        if (wall != null && this.getCell(wall.getX(), wall.getY()) != -1 && this.board[wall.getY()][wall.getX()] == wall) {
+            this.wallsAssociated[0] = wall;
+            this.wallsAssociated[1] = wall;
+            return this.wallsAssociated;
+        }
+        return this.getWallAssociated(collisionPoint);
+    }
+
+    /**
+     * Overloaded method: Determines the walls associated with a collision point.<br>
+     * The board is searched in rings of tiles around the tile of the point, nearest first, and the search stops
+     * once no tile further out can have a closer centre, so walls far from the point are never looked at.
+     *
+     * @param collisionPoint The point [x, y] where a ball hits a line.
+     * @return An array of Wall objects, see getWallAssociated(Ball, Line). Returns null if no associated walls are found.
+     *         The array is reused by the next call.
+     */
+    public Wall[] getWallAssociated(float[] collisionPoint) {
+        Wall[] wallsAssociated = this.wallsAssociated;
+        Wall closestWall = null;
+        float minDistance = Float.MAX_VALUE;
+        if (this.board == null || this.board.length == 0) {
+            return null;
+        }
+
+        int rows = this.board.length;
+        int cols = this.board[0].length;
+        int column = Math.max(0, Math.min(cols - 1, (int) Math.floor(collisionPoint[0] / App.CELLSIZE)));
+        int row = Math.max(0, Math.min(rows - 1, (int) Math.floor((collisionPoint[1] - App.TOPBAR) / App.CELLSIZE)));
+        for (int ring = 0; ring <= Math.max(rows, cols); ring++) {
+            // Every centre in this ring is at least this far from the point
+            if (closestWall != null && ring * App.CELLSIZE - App.CELLSIZE / 2 > minDistance) {
+                break;
+            }
+            for (int i = row - ring; i <= row + ring; i++) {
+                if (i < 0 || i >= rows) {
+                    continue;
+                }
+                boolean isEdgeRow = i == row - ring || i == row + ring;
+                for (int j = column - ring; j <= column + ring; j += isEdgeRow ? 1 : 2 * ring) {
+                    if (j < 0 || j >= cols || !(this.board[i][j] instanceof Wall)) {
+                        continue;
+                    }
+                    Wall wall = (Wall) this.board[i][j];
+                    float wallCenterX = wall.getX() * App.CELLSIZE + App.CELLSIZE / 2;
+                    float wallCenterY = wall.getY() * App.CELLSIZE + App.TOPBAR + App.CELLSIZE / 2;
+                    float distance = (float) App.getDistance(collisionPoint[0], collisionPoint[1], wallCenterX, wallCenterY);
+
+                    if (distance < minDistance) {
+                        minDistance = distance; //find wall that is closest
+                        closestWall = wall;
+                    }
+                }
+            }
+        }
+
+        if (closestWall == null) {
+            return null;
+        }
+
+        wallsAssociated[0] = closestWall;
+
+        try {
+            wallsAssociated[1] = (Wall) (this.board[wallsAssociated[0].getY()][wallsAssociated[0].getX()]);
+            return wallsAssociated;
+        }
+        catch (Exception e) {
+            return null;
+        }
+    }
+
+    /**
+     * Removes a specified wall from the game, including its line segments and board representation.
+     *
+     * @param wall The Wall object to be removed from the game.
+     *
+     * The method performs the following steps:
+     * 1. Retrieves the exposed sides of the wall, added by addWallLineSegment().
+     * 2. If found, removes them from allLines and the segment grid.
+     * 3. Removes the wall from the walls collection.
+     * 4. Replaces the wall in the board array with a new Blank object.
+     * 5. Adds the sides of the neighbouring walls that face the new blank tile.
+     */
+    public void removeWall (Wall wall) {
+        int cell = this.getCell(wall.getX(), wall.getY());
+        if (cell == -1 || this.wallFaces == null || this.wallFaces[cell] == null) {
+            return;
+        }
+        for (Line face : this.wallFaces[cell]) {
+            if (face != null) {
+                this.removeSegment(face);
+            }
+        }
+        this.wallFaces[cell] = null;
+        this.removeFromWalls(wall);
+        this.wallBreaks++;
+        this.board[wall.getY()][wall.getX()] = new Blank(wall.getX(), wall.getY());
+        this.markChanged(wall);
+
+        for (int face = 0; face < FACE_DX.length; face++) {
+            int x = wall.getX() + FACE_DX[face];
+            int y = wall.getY() + FACE_DY[face];
+            int neighbour = this.getCell(x, y);
+            int opposite = (face + 2) % 4;
+            if (neighbour == -1 || this.wallFaces[neighbour] == null || this.wallFaces[neighbour][opposite] != null) {
+                continue;
+            }
+            Line exposed = this.getWallLineSegments((Wall) this.board[y][x])[opposite];
+            this.wallFaces[neighbour][opposite] = exposed;
+            this.addSegment(exposed);
+        }
+    }
+
+    /**
+     * Applies the score and queue changes of a ball that has fallen into a hole.<br>
+     *
+     * @param ball The Ball object that has been captured.
+     * @param hole The Hole object that captured the ball.<br>
+     *
+     * <ul>
+     *   <li>If colors match: Increases score and removes the ball.</li>
+     *   <li>If either color is grey (0): Increases score (less than color match) and removes the ball.</li>
+     *   <li>If colors mismatch: Decreases score, removes the ball, and adds it back to the queue.</li>
+     * </ul>
+     */
+    public void capture(Ball ball, Hole hole) {
+        boolean isAbsorbed = this.capture(ball.getColour(), hole);
+        this.getBalls().remove(ball); // avoid concurrent modification
+        if (isAbsorbed) {
+            ball.absorb();
+        }
+    }
+
+    /**
+     * Overloaded method: Applies the score and queue changes of a ball of the given colour falling into a hole.
+     * The caller removes the ball from the board.
+     *
+     * @param colour The colour code of the captured ball.
+     * @param hole The Hole object that captured the ball.
+     * @return true if the ball is absorbed, false if it was added back to the queue.
+     */
+    public boolean capture(int colour, Hole hole) {
+        if (colour == hole.getColour()) {
+            this.score += this.getScoreIncrease().get(hole.colourToString()) * this.getModScoreIncrease();
+            this.captures[colour]++;
+            return true;
+        }
+
+        else if (colour == 0 || hole.getColour() == 0) {
+            this.score += this.getScoreIncrease().get("grey") * this.getModScoreIncrease();
+            this.captures[colour]++;
+            return true;
+        }
+
+        else {
+            this.score -= this.getScoreDecrease().get(hole.colourToString()) * this.getModScoreDecrease();
+            this.wrongCaptures++;
+            this.requeue(colour);
+            return false;
+        }
+    }
+
+    /**
+     * Advances the simulation by one tick and facilitates interaction between game components.
+     * Balls move by getTickScale() of their vector per tick, split into substeps by getSubsteps() when a ball
+     * would move too far for one collision test. A tick does not allocate unless something is
+     * added or removed (a wall breaks, a line is hit, a ball is captured).
+     * Only the wall and border segments in the segment grid cell of a ball's look-ahead point are tested,
+     * in the order they were added. Balls in the ball store are stepped afterwards by stepStoredBall.
+     * If ball collisions are on, touching balls are bounced off each other once all balls have moved.<br>
+     * If the parallel step is on, balls are first tested for collisions on several threads, see findFreeFlight().
+     * Balls that hit nothing are then only moved, and every other ball is stepped as usual, in the same order.
+     * The result is exactly that of the sequential step.<br><br>
+     * Methods used: Ball::meetHole, moveBall, collideBalls
+     */
+    public void step() {
+        long testsBefore = this.getCollisionTests();
+        float scale = this.getTickScale();
+        if (this.parallelStep && this.balls.size() + this.ballStore.size() > PARALLEL_GRAIN) {
+            this.findFreeFlight(scale);
+        }
+
+        for (int i = this.balls.size() - 1; i >= 0; i--) {
+            Ball ball = this.balls.get(i);
+            ball.savePosition();
+
+            float[] vector = ball.getVector();
+            int substeps = vector == null ? 1 : getSubsteps(vector[0], vector[1], scale);
+            boolean isFree = this.hasFreeFlight && this.freeFlight[i];
+            for (int k = 0; k < substeps; k++) {
+                if (isFree) {
+                    ball.move(scale / substeps);
+                }
+                else {
+                    this.moveBall(ball, scale / substeps);
+                }
+            }
+
+            //Interact with line first
+            Hole hole = this.getAttractingHole(ball.getCenterX(), ball.getCenterY());
+            if (hole != null) {
+                ball.meetHole(hole, this);
+            }
+            else if (!this.holes.isEmpty()) {
+                ball.setBallRadius(12);
+            }
+        }
+
+        if (!this.ballStore.isEmpty()) {
+            if (this.ballStoreKernel == null) {
+                this.ballStoreKernel = this::stepStoredBall;
+            }
+            this.ballStore.forEach(this.ballStoreKernel);
+        }
+
+        this.hasFreeFlight = false;
+
+        if (this.ballCollisions) {
+            this.collideBalls();
+        }
+        this.lastTickTests = this.getCollisionTests() - testsBefore;
+        this.ticks++;
+    }
+
+    /**
+     * Tests every ball for collisions on the pool, without changing the world, and marks the balls
+     * that will hit no wall, border or drawn line this tick in freeFlight.<br>
+     *
+     * @param scale The fraction of the vectors moved this tick, see getTickScale().<br>
+     *
+     * Note: Balls mostly remove lines from the world while they are stepped. A ball that hits nothing before the tick
+     * then hits nothing when its turn comes, whatever the balls stepped before it broke or erased.
+     * The one exception is a broken wall exposing the sides of its neighbours, see removeWall(). addSegment() then
+     * clears hasFreeFlight, so the rest of the balls are stepped in full against the new sides.
+     * Balls that do hit something change walls, strokes or the score, so they are stepped sequentially as usual.
+     */
+    private void findFreeFlight(float scale) {
+        int count = this.balls.size() + this.ballStore.size();
+        if (this.freeFlight.length < count) {
+            this.freeFlight = new boolean[Math.max(count, 2 * this.freeFlight.length)];
+        }
+        this.pool.invoke(new FreeFlightTask(0, count, scale));
+        this.freeFlightOffset = this.balls.size();
+        this.hasFreeFlight = true;
+    }
+
+    /**
+     * Tests whether a ball hits nothing during its substeps this tick, following moveBall without moving it.<br>
+     *
+     * @param x The x-coordinate of the top left corner of the ball.
+     * @param y The y-coordinate of the top left corner of the ball.
+     * @param radius The radius of the ball.
+     * @param vx The x-component of the ball's vector.
+     * @param vy The y-component of the ball's vector.
+     * @param scale The fraction of the vector moved this tick.
+     * @param scratch The lists and arrays of the calling thread.
+     * @return true if the ball hits no wall, border or drawn line in any substep.
+     */
+    private boolean isFreeFlight(float x, float y, float radius, float vx, float vy, float scale, Scratch scratch) {
+        int substeps = getSubsteps(vx, vy, scale);
+        boolean isFast = isFast(vx, vy);
+        for (int k = 0; k < substeps; k++) {
+            float centerX = x + radius;
+            float centerY = y + radius;
+            float nextX = centerX + vx;
+            float nextY = centerY + vy;
+
+            ArrayList<Line> candidates = this.allLines;
+            if (this.segmentGrid != null) {
+                candidates = this.segmentGrid.query(nextX, nextY);
+            }
+            for (int j = candidates.size() - 1; j >= 0; j--) {
+                scratch.tests++;
+                if (Ball.willCollide(nextX, nextY, candidates.get(j), null)) {
+                    scratch.hits++;
+                    return false;
+                }
+            }
+            if (isFast && this.findSweptWallCollision(centerX, centerY, vx, vy, scratch) != null) {
+                return false;
+            }
+            if (this.findStrokeCollision(nextX, nextY, scratch) != null) {
+                return false;
+            }
+            if (isFast && this.findSweptStrokeCollision(centerX, centerY, vx, vy, scratch) != null) {
+                return false;
+            }
+
+            // Same arithmetic as Ball::move, so the next substep tests the same point
+            x += vx * (scale / substeps);
+            y += vy * (scale / substeps);
+        }
+        return true;
+    }
+
+    /**
+     * Represents the lists and arrays one thread needs to test balls for collisions,
+     * and the number of collision tests it has made, see getCollisionTests().
+     */
+    private static class Scratch {
+        private final float[] collisionPoint;
+        private final ArrayList<Line> sweptCandidates;
+        private final ArrayList<StrokeTree.Entry> strokeHits;
+        private final StrokeTree.QueryStack stack;
+        private long tests;
+        private long hits;
+
+        private Scratch() {
+            this(new float[2], new ArrayList<>(), new ArrayList<>(), new StrokeTree.QueryStack());
+        }
+
+        private Scratch(float[] collisionPoint, ArrayList<Line> sweptCandidates, ArrayList<StrokeTree.Entry> strokeHits, StrokeTree.QueryStack stack) {
+            this.collisionPoint = collisionPoint;
+            this.sweptCandidates = sweptCandidates;
+            this.strokeHits = strokeHits;
+            this.stack = stack;
+        }
+    }
+
+    /**
+     * Represents the collision tests of a range of balls, split in half until at most PARALLEL_GRAIN balls are left.
+     * Indices below the size of the ball list are balls, the rest are slots of the ball store.
+     */
+    private class FreeFlightTask extends RecursiveAction {
+        private final int from;
+        private final int to;
+        private final float scale;
+
+        private FreeFlightTask(int from, int to, float scale) {
+            this.from = from;
+            this.to = to;
+            this.scale = scale;
+        }
+
+        @Override
+        protected void compute() {
+            if (this.to - this.from > PARALLEL_GRAIN) {
+                int middle = (this.from + this.to) >>> 1;
+                invokeAll(new FreeFlightTask(this.from, middle, this.scale), new FreeFlightTask(middle, this.to, this.scale));
+                return;
+            }
+
+            Scratch scratch = scratches.get();
+            long testsBefore = scratch.tests;
+            long hitsBefore = scratch.hits;
+            int ballCount = balls.size();
+            for (int i = this.from; i < this.to; i++) {
+                if (i < ballCount) {
+                    Ball ball = balls.get(i);
+                    float[] vector = ball.getVector();
+                    freeFlight[i] = vector != null
+                            && isFreeFlight(ball.getX(), ball.getY(), ball.getBallRadius(), vector[0], vector[1], this.scale, scratch);
+                }
+                else {
+                    int slot = i - ballCount;
+                    freeFlight[i] = isFreeFlight(ballStore.x[slot], ballStore.y[slot], ballStore.radius[slot],
+                            ballStore.vx[slot], ballStore.vy[slot], this.scale, scratch);
+                }
+            }
+            parallelTests.add(scratch.tests - testsBefore);
+            parallelHits.add(scratch.hits - hitsBefore);
+        }
+    }
+
+    /**
+     * Calculates how many substeps a ball needs this tick, so that it never moves further than
+     * MAX_SUBSTEP_TRAVEL between two collision tests. Coarse ticks (a low tick rate) and fast balls are split
+     * into several substeps; a ball at normal speed and tick rate takes one.<br>
+     *
+     * @param vx The x-component of the ball's vector.
+     * @param vy The y-component of the ball's vector.
+     * @param scale The fraction of the vector moved per tick, see getTickScale().
+     * @return The number of substeps, at least 1.
+     */
+    public static int getSubsteps(float vx, float vy, float scale) {
+        double travel = Math.sqrt(vx * vx + vy * vy) * scale;
+        if (!(travel > MAX_SUBSTEP_TRAVEL)) {
+            return 1; // Also catches NaN
+        }
+        return (int) Math.min(MAX_SUBSTEPS, Math.ceil(travel / MAX_SUBSTEP_TRAVEL));
+    }
+
+    /**
+     * Moves a ball by one substep, bouncing it off the first wall, border or drawn line it hits.<br>
+     *
+     * @param ball The Ball object to move.
+     * @param scale The fraction of the ball's vector to move by.<br>
+     *
+     * Note: The look-ahead point (centre + vector) is tested first. If the ball is fast enough that the
+     * look-ahead could jump over a line, the path from the centre to the look-ahead is also swept, see Ball::timeOfImpact.
+     */
+    protected void moveBall(Ball ball, float scale) {
+        boolean hasCollided = false;
+        ArrayList<Line> candidates = this.allLines;
+        if (this.segmentGrid != null) {
+            candidates = this.segmentGrid.query(ball.getCenterX() + ball.getVector()[0], ball.getCenterY() + ball.getVector()[1]);
+        }
+        for (int j = candidates.size() - 1; j >= 0; j--) {
+            Line line = candidates.get(j);
+            this.scratch.tests++;
+            if (ball.willCollide(line, this.collisionPoint)) {
+                this.scratch.hits++;
+                hasCollided = true;
+                Wall[] wallsAssociated = this.getWallAssociated(ball, line);
+                if (wallsAssociated != null) {
+                    (wallsAssociated[0]).damage(ball);
+                    if (wallsAssociated[1] != wallsAssociated[0]) { // Separate copies on hand-made boards
+                        (wallsAssociated[1]).damage(ball);
+                    }
+                    this.markChanged(wallsAssociated[1]);
+                    if (wallsAssociated[0].getHP() == 0) {
+                        this.removeWall(wallsAssociated[0]);
+                    }
+                }
+                ball.interact(line, scale);
+                break;
+            }
+
+        }
+
+        float[] vector = ball.getVector();
+        boolean isFast = vector != null && isFast(vector[0], vector[1]);
+        if (!hasCollided && isFast) {
+            Line line = this.findSweptWallCollision(ball.getCenterX(), ball.getCenterY(), vector[0], vector[1]);
+            if (line != null) {
+                hasCollided = true;
+                this.damageWalls(line, ball.getColour());
+                ball.bounce(line, this.collisionPoint, scale);
+            }
+        }
+
+        Line strokeHit = this.findStrokeCollision(ball);
+        if (strokeHit != null) {
+            ball.interact(strokeHit, scale);
+            hasCollided = true;
+            this.removeLine(strokeHit);
+        }
+        else if (isFast) {
+            strokeHit = this.findSweptStrokeCollision(ball.getCenterX(), ball.getCenterY(), vector[0], vector[1]);
+            if (strokeHit != null) {
+                ball.bounce(strokeHit, this.collisionPoint, scale);
+                hasCollided = true;
+                this.removeLine(strokeHit);
+            }
+        }
+
+        if (!hasCollided) {
+            ball.move(scale);
+        }
+    }
+
+    /**
+     * @return true if a ball with this vector is fast enough for its look-ahead point to jump over a line,
+     *         so that the path to the look-ahead must be swept.
+     */
+    private static boolean isFast(float vx, float vy) {
+        return vx * vx + vy * vy > Ball.ARTIFICIAL_RADIUS * Ball.ARTIFICIAL_RADIUS;
+    }
+
+    /**
+     * Finds the first wall or border segment crossed by the path from a ball's centre to its look-ahead point.<br>
+     *
+     * @param centerX The x-coordinate of the ball centre.
+     * @param centerY The y-coordinate of the ball centre.
+     * @param vx The x-component of the ball's vector.
+     * @param vy The y-component of the ball's vector.
+     * @return The segment hit first, or null. The collision point is written to collisionPoint.
+     */
+    protected Line findSweptWallCollision(float centerX, float centerY, float vx, float vy) {
+        return this.findSweptWallCollision(centerX, centerY, vx, vy, this.scratch);
+    }
+
+    /**
+     * Overloaded method: Finds the first wall or border segment crossed by a ball's path,
+     * using the given thread's list for the candidate segments and writing the collision point to its array.
+     */
+    private Line findSweptWallCollision(float centerX, float centerY, float vx, float vy, Scratch scratch) {
+        ArrayList<Line> candidates = this.allLines;
+        ArrayList<Line> sweptCandidates = scratch.sweptCandidates;
+        if (this.segmentGrid != null) {
+            sweptCandidates.clear();
+            this.segmentGrid.queryPath(centerX, centerY, centerX + vx, centerY + vy, sweptCandidates);
+            candidates = sweptCandidates;
+        }
+
+        Line first = null;
+        float firstTime = Float.MAX_VALUE;
+        for (int j = candidates.size() - 1; j >= 0; j--) {
+            Line line = candidates.get(j);
+            float t = Ball.timeOfImpact(centerX, centerY, vx, vy, Ball.SWEEP_RADIUS, line);
+            if (t >= 0 && t < firstTime) {
+                first = line;
+                firstTime = t;
+            }
+        }
+        if (first != null) {
+            Ball.getCollisionPoint(centerX + firstTime * vx, centerY + firstTime * vy, first, scratch.collisionPoint);
+        }
+        return first;
+    }
+
+    /**
+     * Finds the first drawn line segment crossed by the path from a ball's centre to its look-ahead point.
+     * See findSweptWallCollision.
+     */
+    protected Line findSweptStrokeCollision(float centerX, float centerY, float vx, float vy) {
+        return this.findSweptStrokeCollision(centerX, centerY, vx, vy, this.scratch);
+    }
+
+    /**
+     * Overloaded method: Finds the first drawn line segment crossed by a ball's path,
+     * using the given thread's lists to search the stroke tree and writing the collision point to its array.
+     */
+    private Line findSweptStrokeCollision(float centerX, float centerY, float vx, float vy, Scratch scratch) {
+        ArrayList<StrokeTree.Entry> strokeHits = scratch.strokeHits;
+        Line first = null;
+        float firstTime = Float.MAX_VALUE;
+        if (this.strokeTree == null) {
+            for (int j = this.drawnLines.size() - 1; j >= 0; j--) {
+                ArrayList<Line> stroke = this.drawnLines.get(j);
+                for (int k = stroke.size() - 1; k >= 0; k--) {
+                    float t = Ball.timeOfImpact(centerX, centerY, vx, vy, Ball.SWEEP_RADIUS, stroke.get(k));
+                    if (t >= 0 && t < firstTime) {
+                        first = stroke.get(k);
+                        firstTime = t;
+                    }
+                }
+            }
+        }
+        else {
+            // A circle around the whole path overlaps the box of every segment the path can cross
+            float length = (float) Math.sqrt(vx * vx + vy * vy);
+            strokeHits.clear();
+            this.strokeTree.query(centerX + vx / 2, centerY + vy / 2, length / 2, strokeHits, scratch.stack);
+            for (int j = 0; j < strokeHits.size(); j++) {
+                StrokeTree.Entry hit = strokeHits.get(j);
+                float t = Ball.timeOfImpact(centerX, centerY, vx, vy, Ball.SWEEP_RADIUS, hit.getLine());
+                if (t >= 0 && t < firstTime) {
+                    first = hit.getLine();
+                    firstTime = t;
+                }
+            }
+        }
+        if (first != null) {
+            Ball.getCollisionPoint(centerX + firstTime * vx, centerY + firstTime * vy, first, scratch.collisionPoint);
+        }
+        return first;
+    }
+
+    /**
+     * Damages the wall the line belongs to, or the wall next to collisionPoint, and removes the wall if it breaks.
+     * @param line The line that has been hit.
+     * @param ballColour The colour code of the ball hitting the walls.
+     */
+    private void damageWalls(Line line, int ballColour) {
+        Wall[] wallsAssociated = this.getWallAssociated(line, this.collisionPoint);
+        if (wallsAssociated != null) {
+            wallsAssociated[0].damage(ballColour);
+            if (wallsAssociated[1] != wallsAssociated[0]) {
+                wallsAssociated[1].damage(ballColour);
+            }
+            this.markChanged(wallsAssociated[1]);
+            if (wallsAssociated[0].getHP() == 0) {
+                this.removeWall(wallsAssociated[0]);
+            }
+        }
+    }
+
+    /**
+     * Bounces balls that touch each other after they have moved, see BallCollider.
+     * Balls in the ball list and in the ball store can collide with each other.
+     * Their direction vectors are changed in place; positions are left as they are.
+     */
+    protected void collideBalls() {
+        BallCollider collider = this.ballCollider;
+        collider.clear();
+        for (int i = 0; i < this.balls.size(); i++) {
+            Ball ball = this.balls.get(i);
+            collider.add(ball.getCenterX(), ball.getCenterY(), ball.getVector()[0], ball.getVector()[1], ball.getBallRadius());
+        }
+        for (int i = 0; i < this.ballStore.size(); i++) {
+            collider.add(this.ballStore.getCenterX(i), this.ballStore.getCenterY(i), this.ballStore.vx[i], this.ballStore.vy[i], this.ballStore.radius[i]);
+        }
+
+        if (collider.resolve() == 0) {
+            return;
+        }
+
+        for (int i = 0; i < this.balls.size(); i++) {
+            float[] vector = this.balls.get(i).getVector();
+            vector[0] = collider.vx[i];
+            vector[1] = collider.vy[i];
+        }
+        int offset = this.balls.size();
+        for (int i = 0; i < this.ballStore.size(); i++) {
+            this.ballStore.vx[i] = collider.vx[offset + i];
+            this.ballStore.vy[i] = collider.vy[offset + i];
+        }
+    }
+
+    /**
+     * Advances one ball of the ball store by one tick. Follows the same rules as step() does for Ball objects,
+     * reading and writing the store's arrays directly. A captured ball is swap-removed from the store.<br>
+     *
+     * @param store The ball store being stepped.
+     * @param i The slot of the ball.
+     */
+    protected void stepStoredBall(BallStore store, int i) {
+        float scale = this.getTickScale();
+        store.prevX[i] = store.x[i];
+        store.prevY[i] = store.y[i];
+
+        int substeps = getSubsteps(store.vx[i], store.vy[i], scale);
+        boolean isFree = this.hasFreeFlight && store == this.ballStore && this.freeFlight[this.freeFlightOffset + i];
+        for (int k = 0; k < substeps; k++) {
+            if (isFree) {
+                store.x[i] += store.vx[i] * (scale / substeps);
+                store.y[i] += store.vy[i] * (scale / substeps);
+            }
+            else {
+                this.moveStoredBall(store, i, scale / substeps);
+            }
+        }
+
+        float centerX = store.getCenterX(i);
+        float centerY = store.getCenterY(i);
+        Hole hole = this.getAttractingHole(centerX, centerY);
+        if (hole != null) {
+            float holeCenterX = hole.getHoleCenterX();
+            float holeCenterY = hole.getHoleCenterY();
+            Ball.getAttractionVector(centerX, centerY, holeCenterX, holeCenterY, this.scratchVector);
+            store.vx[i] += this.scratchVector[0] * scale;
+            store.vy[i] += this.scratchVector[1] * scale;
+
+            store.radius[i] = 12 * (float) (App.getDistance(holeCenterX, holeCenterY, centerX, centerY) / 32);
+            if (store.radius[i] < 6) {
+                this.capture(store.colour[i], hole);
+                store.swapRemove(i);
+            }
+        }
+        else if (!this.holes.isEmpty()) {
+            store.radius[i] = 12;
+        }
+    }
+
+    /**
+     * Moves a ball of the ball store by one substep, following moveBall.<br>
+     *
+     * @param store The ball store being stepped.
+     * @param i The slot of the ball.
+     * @param scale The fraction of the ball's vector to move by.
+     */
+    private void moveStoredBall(BallStore store, int i, float scale) {
+        boolean hasCollided = false;
+        float nextX = store.getCenterX(i) + store.vx[i];
+        float nextY = store.getCenterY(i) + store.vy[i];
+        ArrayList<Line> candidates = this.allLines;
+        if (this.segmentGrid != null) {
+            candidates = this.segmentGrid.query(nextX, nextY);
+        }
+        for (int j = candidates.size() - 1; j >= 0; j--) {
+            Line line = candidates.get(j);
+            this.scratch.tests++;
+            if (Ball.willCollide(nextX, nextY, line, this.collisionPoint)) {
+                this.scratch.hits++;
+                hasCollided = true;
+                this.damageWalls(line, store.colour[i]);
+                this.interactStoredBall(store, i, line, scale);
+                break;
+            }
+        }
+
+        boolean isFast = isFast(store.vx[i], store.vy[i]);
+        if (!hasCollided && isFast) {
+            Line line = this.findSweptWallCollision(store.getCenterX(i), store.getCenterY(i), store.vx[i], store.vy[i]);
+            if (line != null) {
+                hasCollided = true;
+                this.damageWalls(line, store.colour[i]);
+                this.bounceStoredBall(store, i, line, scale);
+            }
+        }
+
+        Line strokeHit = this.findStrokeCollision(store.getCenterX(i) + store.vx[i], store.getCenterY(i) + store.vy[i]);
+        if (strokeHit != null) {
+            this.interactStoredBall(store, i, strokeHit, scale);
+            hasCollided = true;
+            this.removeLine(strokeHit);
+        }
+        else if (isFast) {
+            strokeHit = this.findSweptStrokeCollision(store.getCenterX(i), store.getCenterY(i), store.vx[i], store.vy[i]);
+            if (strokeHit != null) {
+                this.bounceStoredBall(store, i, strokeHit, scale);
+                hasCollided = true;
+                this.removeLine(strokeHit);
+            }
+        }
+
+        if (!hasCollided) {
+            store.x[i] += store.vx[i] * scale;
+            store.y[i] += store.vy[i] * scale;
+        }
+    }
+
+    /**
+     * Bounces a ball of the ball store off a line, following Ball::interact.
+     */
+    private void interactStoredBall(BallStore store, int i, Line line, float scale) {
+        if (!Ball.willCollide(store.getCenterX(i) + store.vx[i], store.getCenterY(i) + store.vy[i], line, this.collisionPoint)) {
+            return;
+        }
+        this.bounceStoredBall(store, i, line, scale);
+    }
+
+    /**
+     * Bounces a ball of the ball store off a line it is known to hit at collisionPoint, following Ball::bounce.
+     */
+    private void bounceStoredBall(BallStore store, int i, Line line, float scale) {
+        float centerX = store.getCenterX(i);
+        float centerY = store.getCenterY(i);
+        store.colour[i] = Ball.getNewColour(store.colour[i], line);
+        if (this.collisionPoint[0] == line.getP1()[0] && this.collisionPoint[1] == line.getP1()[1]) {
+            // Ball is directly on a dot
+            store.vx[i] = -store.vx[i];
+            store.vy[i] = -store.vy[i];
+        }
+        else {
+            this.scratchVector[0] = store.vx[i];
+            this.scratchVector[1] = store.vy[i];
+            Ball.reflect(centerX, centerY, this.scratchVector, line);
+            store.vx[i] = this.scratchVector[0];
+            store.vy[i] = this.scratchVector[1];
+        }
+        store.x[i] += store.vx[i] * scale;
+        store.y[i] += store.vy[i] * scale;
+    }
+}
@@ -1,7 +1,5 @@
 package inkball;
 
-import processing.core.PImage;
-
 public class Hole extends Tile {
     private int colour;
     /**
@@ -13,22 +11,38 @@ public class Hole extends Tile {
     }
     private GridPosition gridPosition;
 
+    /**
+     * Represents the centre of the whole 2x2 hole in pixels, worked out once from the grid position.
+     * NaN if the grid position is invalid.
+     */
+    private final float centerX;
+    private final float centerY;
+
     public Hole(int x, int y, int colour, GridPosition gridPosition) {
         super(x, y);
         this.colour = colour;
         this.gridPosition = gridPosition;
+        if (gridPosition == null) {
+            this.centerX = Float.NaN;
+            this.centerY = Float.NaN;
+        }
+        else {
+            boolean isLeft = gridPosition == GridPosition.TL || gridPosition == GridPosition.BL;
+            boolean isTop = gridPosition == GridPosition.TL || gridPosition == GridPosition.TR;
+            this.centerX = (isLeft ? x + 1 : x) * App.CELLSIZE;
+            this.centerY = (isTop ? y + 1 : y) * App.CELLSIZE + App.TOPBAR;
+        }
     }
 
+    /**
+     * @return The hole's sprite for its top left tile, which covers all four tiles, and null for the others.
+     */
     @Override
-    public void draw(App app) {
-        PImage tile;
+    public Sprite getSprite() {
         if (this.gridPosition == GridPosition.TL) {
-            tile = app.getSprite("hole"+colour);
-        }
-        else {
-            return;
+            return Sprite.hole(colour);
         }
-        app.image(tile, x*App.CELLSIZE, y*App.CELLSIZE+App.TOPBAR, App.CELLSIZE * 2, App.CELLSIZE * 2);
+        return null;
     }
 
     public int getColour() {
@@ -60,18 +74,25 @@ public class Hole extends Tile {
      * @return float[] or null if invalid GridPosition
      */
     public float[] getHoleCenter() {
-        if (this.gridPosition == GridPosition.TL) {
-            return new float[] {(this.getX()+1)*App.CELLSIZE, (this.getY()+1)*App.CELLSIZE+App.TOPBAR};
+        if (Float.isNaN(this.centerX)) {
+            return null;
         }
-        else if (this.gridPosition == GridPosition.BL) {
-            return new float[] {(this.getX()+1)*App.CELLSIZE, this.getY()*App.CELLSIZE+App.TOPBAR};
-        }
-        else if (this.gridPosition == GridPosition.TR) {
-            return new float[] {this.getX()*App.CELLSIZE, (this.getY()+1)*App.CELLSIZE+App.TOPBAR};
-        }
-        else if (this.gridPosition == GridPosition.BR) { //BR
-            return new float[] {this.getX()*App.CELLSIZE, this.getY()*App.CELLSIZE+App.TOPBAR};
-        }
-        return null;
+        return new float[] {this.centerX, this.centerY};
+    }
+
+    /**
+     * Allocation-free variant of getHoleCenter, for use every tick.
+     * @return The x-coordinate of the center of the hole, or NaN if invalid GridPosition
+     */
+    public float getHoleCenterX() {
+        return this.centerX;
+    }
+
+    /**
+     * Allocation-free variant of getHoleCenter, for use every tick.
+     * @return The y-coordinate of the center of the hole, or NaN if invalid GridPosition
+     */
+    public float getHoleCenterY() {
+        return this.centerY;
     }
 }
\ No newline at end of file
@@ -0,0 +1,186 @@
+package inkball;
+
+import java.io.PrintWriter;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * <p>Represents a histogram of latencies in nanoseconds, with a fixed set of log-linear buckets
+ * in the style of HdrHistogram.</p>
+ * Values below 64 get a bucket each. Above that, every power of two is split into 32 buckets of equal width,
+ * so any recorded value is known to within 1/32 (about 3%). Every non-negative long fits, so recording
+ * never fails, never allocates and only increments one counter, which keeps it cheap enough to call several times a frame.<br>
+ *
+ * The largest value is kept exactly. Percentiles report the highest value of the bucket they fall in, capped by the largest value.
+ */
+public class LatencyHistogram {
+    /**
+     * Represents the number of buckets each power of two is split into, as a power of two.
+     */
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    /**
+     * Represents the number of buckets needed for values up to Long.MAX_VALUE, see getBucket.
+     */
+    public static final int BUCKET_COUNT = getBucket(Long.MAX_VALUE) + 1;
+
+    private final long[] counts = new long[BUCKET_COUNT];
+    private long totalCount;
+    private long max;
+
+    /**
+     * Represents the sum of every recorded value, for the mean. Unit in nanoseconds.
+     */
+    private long sum;
+
+    /**
+     * Adds one value to the histogram.
+     * @param nanos The latency in nanoseconds. Negative values are recorded as 0.
+     */
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        this.counts[getBucket(value)]++;
+        this.totalCount++;
+        this.sum += value;
+        if (value > this.max) {
+            this.max = value;
+        }
+    }
+
+    /**
+     * Removes every recorded value.
+     */
+    public void reset() {
+        Arrays.fill(this.counts, 0);
+        this.totalCount = 0;
+        this.max = 0;
+        this.sum = 0;
+    }
+
+    public long getTotalCount() {
+        return this.totalCount;
+    }
+
+    /**
+     * @return The largest recorded value in nanoseconds, 0 if nothing was recorded.
+     */
+    public long getMax() {
+        return this.max;
+    }
+
+    /**
+     * @return The mean of the recorded values in nanoseconds, 0 if nothing was recorded.
+     */
+    public double getMean() {
+        if (this.totalCount == 0) {
+            return 0;
+        }
+        return (double) this.sum / this.totalCount;
+    }
+
+    /**
+     * Finds the value that the given percentage of recorded values are at or below.<br>
+     *
+     * @param percentile The percentile, from 0 to 100.
+     * @return The highest value of the bucket the percentile falls in, capped by getMax. 0 if nothing was recorded.
+     * @throws IllegalArgumentException if percentile is not between 0 and 100.
+     */
+    public long getValueAtPercentile(double percentile) {
+        if (!(percentile >= 0 && percentile <= 100)) {
+            throw new IllegalArgumentException("Percentile must be between 0 and 100!");
+        }
+        if (this.totalCount == 0) {
+            return 0;
+        }
+
+        long target = Math.max(1, (long) Math.ceil(percentile / 100 * this.totalCount));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += this.counts[i];
+            if (seen >= target) {
+                return Math.min(getHighestValue(i), this.max);
+            }
+        }
+        return this.max;
+    }
+
+    /**
+     * Writes the recorded values as a percentile distribution, in the text format of HdrHistogram's
+     * outputPercentileDistribution (".hgrm"), so the HdrHistogram plotter can chart it.
+     * There is one row for every non-empty bucket.<br>
+     *
+     * @param out The writer to write to. It is flushed, but not closed.
+     * @param unitScale The number of nanoseconds per output unit, e.g. 1000000 for milliseconds.
+     * @throws IllegalArgumentException if unitScale is not positive.
+     */
+    public void writePercentileDistribution(PrintWriter out, double unitScale) {
+        if (unitScale <= 0) {
+            throw new IllegalArgumentException("Unit scale must be positive!");
+        }
+
+        out.format(Locale.US, "%12s %14s %10s %14s%n%n", "Value", "Percentile", "TotalCount", "1/(1-Percentile)");
+        long seen = 0;
+        double squares = 0;
+        double mean = this.getMean();
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            if (this.counts[i] == 0) {
+                continue;
+            }
+            seen += this.counts[i];
+            double value = Math.min(getHighestValue(i), this.max) / unitScale;
+            double percentile = (double) seen / this.totalCount;
+            if (seen < this.totalCount) {
+                out.format(Locale.US, "%12.3f %2.12f %10d %14.2f%n", value, percentile, seen, 1 / (1 - percentile));
+            }
+            else {
+                out.format(Locale.US, "%12.3f %2.12f %10d%n", value, percentile, seen);
+            }
+
+            double middle = (getLowestValue(i) + Math.min(getHighestValue(i), this.max)) / 2.0;
+            squares += this.counts[i] * (middle - mean) * (middle - mean);
+        }
+
+        double deviation = this.totalCount == 0 ? 0 : Math.sqrt(squares / this.totalCount);
+        out.format(Locale.US, "#[Mean    = %12.3f, StdDeviation   = %12.3f]%n", mean / unitScale, deviation / unitScale);
+        out.format(Locale.US, "#[Max     = %12.3f, Total count    = %12d]%n", this.max / unitScale, this.totalCount);
+        out.format(Locale.US, "#[Buckets = %12d, SubBuckets     = %12d]%n", BUCKET_COUNT / SUB_BUCKETS, SUB_BUCKETS);
+        out.flush();
+    }
+
+    /**
+     * @param value A non-negative value.
+     * @return The index of the bucket the value is counted in.
+     */
+    static int getBucket(long value) {
+        if (value < 2 * SUB_BUCKETS) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return shift * SUB_BUCKETS + (int) (value >>> shift);
+    }
+
+    /**
+     * @param bucket The index of a bucket.
+     * @return The smallest value counted in the bucket.
+     */
+    static long getLowestValue(int bucket) {
+        if (bucket < 2 * SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = bucket / SUB_BUCKETS - 1;
+        return (long) (bucket - shift * SUB_BUCKETS) << shift;
+    }
+
+    /**
+     * @param bucket The index of a bucket.
+     * @return The largest value counted in the bucket.
+     */
+    static long getHighestValue(int bucket) {
+        if (bucket < 2 * SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = bucket / SUB_BUCKETS - 1;
+        return getLowestValue(bucket) + (1L << shift) - 1;
+    }
+}
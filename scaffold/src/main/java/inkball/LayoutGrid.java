@@ -0,0 +1,137 @@
+package inkball;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * <p>Represents a level layout as one byte per tile: the layout character, e.g. 'X', 'H' or ' '.</p>
+ * Rows are stored back to back in one array, so lines of different lengths take no padding.
+ * Built by LayoutParser from a layout file, or from rows of strings for saves and replays.<br>
+ *
+ * Note: Only ASCII characters are kept. Others are stored as '?', which GameWorld::setLayout treats as blank.
+ */
+public class LayoutGrid {
+    /**
+     * Represents the code returned for tiles past the end of their line or below the last line.
+     */
+    public static final byte NONE = 0;
+
+    private final byte[] codes;
+
+    /**
+     * Represents where each row starts in codes, with one extra entry for the end of the last row.
+     */
+    private final int[] rowStarts;
+    private final int rows;
+    private final int cols;
+
+    LayoutGrid(byte[] codes, int[] rowStarts, int rows) {
+        this.codes = codes;
+        this.rowStarts = rowStarts;
+        this.rows = rows;
+        int cols = 0;
+        for (int i = 0; i < rows; i++) {
+            cols = Math.max(cols, rowStarts[i + 1] - rowStarts[i]);
+        }
+        this.cols = cols;
+    }
+
+    /**
+     * Creates a layout from rows of characters, e.g. the rows kept in a save or a replay.<br>
+     *
+     * @param rows The rows of the layout.
+     * @return The layout.
+     */
+    public static LayoutGrid fromRows(List<String> rows) {
+        int size = 0;
+        for (String row : rows) {
+            size += row.length();
+        }
+        byte[] codes = new byte[size];
+        int[] rowStarts = new int[rows.size() + 1];
+        int k = 0;
+        for (int i = 0; i < rows.size(); i++) {
+            String row = rows.get(i);
+            rowStarts[i] = k;
+            for (int j = 0; j < row.length(); j++) {
+                codes[k++] = toCode(row.charAt(j));
+            }
+        }
+        rowStarts[rows.size()] = k;
+        return new LayoutGrid(codes, rowStarts, rows.size());
+    }
+
+    /**
+     * Creates a layout from lists of single-character strings, the form GameWorld::setLayout used to take.<br>
+     *
+     * @param lines The lines of the layout. Only the first character of each string is kept;
+     *              an empty string is a blank tile.
+     * @return The layout.
+     */
+    public static LayoutGrid fromLines(List<? extends List<String>> lines) {
+        int size = 0;
+        for (List<String> line : lines) {
+            size += line.size();
+        }
+        byte[] codes = new byte[size];
+        int[] rowStarts = new int[lines.size() + 1];
+        int k = 0;
+        for (int i = 0; i < lines.size(); i++) {
+            rowStarts[i] = k;
+            for (String tile : lines.get(i)) {
+                codes[k++] = tile.isEmpty() ? (byte) ' ' : toCode(tile.charAt(0));
+            }
+        }
+        rowStarts[lines.size()] = k;
+        return new LayoutGrid(codes, rowStarts, lines.size());
+    }
+
+    private static byte toCode(char c) {
+        return c < 0x80 ? (byte) c : (byte) '?';
+    }
+
+    /**
+     * @return The number of lines in the layout.
+     */
+    public int getRows() {
+        return this.rows;
+    }
+
+    /**
+     * @return The length of the longest line.
+     */
+    public int getCols() {
+        return this.cols;
+    }
+
+    /**
+     * @param i The row.
+     * @return The length of the row, 0 below the last line.
+     */
+    public int getRowLength(int i) {
+        if (i < 0 || i >= this.rows) {
+            return 0;
+        }
+        return this.rowStarts[i + 1] - this.rowStarts[i];
+    }
+
+    /**
+     * @param i The row.
+     * @param j The column.
+     * @return The layout character of the tile, or NONE if the tile is outside the layout.
+     */
+    public byte get(int i, int j) {
+        if (i < 0 || i >= this.rows || j < 0 || j >= this.rowStarts[i + 1] - this.rowStarts[i]) {
+            return NONE;
+        }
+        return this.codes[this.rowStarts[i] + j];
+    }
+
+    /**
+     * @param i The row, from 0 to getRows() - 1.
+     * @return The row as a string, as it appears in the layout file.
+     */
+    public String getRow(int i) {
+        return new String(this.codes, this.rowStarts[i], this.getRowLength(i), StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,97 @@
+package inkball;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+/**
+ * <p>Reads layout files into a LayoutGrid in one pass over their bytes.</p>
+ * Files are memory-mapped and every byte is copied straight into the grid, so no strings are made
+ * however large the layout is.<br>
+ *
+ * Lines end with "\n", "\r\n" or "\r", and a last line without an ending still counts, like Scanner::nextLine.
+ * Tabs and printable ASCII characters are tiles. Any other byte is an error, reported with its line and column.
+ */
+public class LayoutParser {
+    /**
+     * Represents an error in a layout file, at a line and column counted from 1.
+     */
+    public static class ParseException extends IOException {
+        private final int line;
+        private final int column;
+
+        public ParseException(String source, int line, int column, String message) {
+            super(source + ":" + line + ":" + column + ": " + message);
+            this.line = line;
+            this.column = column;
+        }
+
+        public int getLine() {
+            return this.line;
+        }
+
+        public int getColumn() {
+            return this.column;
+        }
+    }
+
+    /**
+     * Reads a layout file through a memory-mapped buffer.
+     * @param file The layout file.
+     * @return The layout.
+     * @throws IOException if the file cannot be read, or a ParseException if it is not a layout.
+     */
+    public static LayoutGrid parse(File file) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r"); FileChannel channel = raf.getChannel()) {
+            return parse(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), file.getPath());
+        }
+    }
+
+    /**
+     * Reads a layout from the remaining bytes of a buffer.<br>
+     *
+     * @param buffer The bytes of the layout. It is read to its limit.
+     * @param source The name of the layout in error messages, e.g. its path.
+     * @return The layout.
+     * @throws ParseException if the layout has a byte that is not a tile or a line ending.
+     */
+    public static LayoutGrid parse(ByteBuffer buffer, String source) throws ParseException {
+        byte[] codes = new byte[buffer.remaining()]; // Never more tiles than bytes
+        int[] rowStarts = new int[64];
+        int rows = 0;
+        int k = 0;
+        int column = 1;
+        while (buffer.hasRemaining()) {
+            byte b = buffer.get();
+            if (b == '\n' || b == '\r') {
+                if (b == '\r' && buffer.hasRemaining() && buffer.get(buffer.position()) == '\n') {
+                    buffer.get();
+                }
+                rows++;
+                if (rows + 1 >= rowStarts.length) {
+                    rowStarts = Arrays.copyOf(rowStarts, rowStarts.length * 2);
+                }
+                rowStarts[rows] = k;
+                column = 1;
+                continue;
+            }
+            if ((b < 0x20 && b != '\t') || b == 0x7f) { // Bytes from 0x80 are negative
+                throw new ParseException(source, rows + 1, column,
+                        String.format("Unexpected byte 0x%02X in layout!", b & 0xff));
+            }
+            codes[k++] = b;
+            column++;
+        }
+        if (column > 1) { // Last line without an ending
+            rows++;
+            if (rows + 1 > rowStarts.length) {
+                rowStarts = Arrays.copyOf(rowStarts, rows + 1);
+            }
+            rowStarts[rows] = k;
+        }
+        return new LayoutGrid(codes, rowStarts, rows);
+    }
+}
@@ -0,0 +1,409 @@
+package inkball;
+
+import processing.data.JSONArray;
+import processing.data.JSONObject;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.util.*;
+
+/**
+ * <p>Represents a seeded generator of level layouts and their configuration entries,
+ * used to build repeatable stress and soak-test workloads of any size.</p>
+ * Layouts use the same symbols as level1.txt to level3.txt and are read by GameWorld::setLayout:
+ * <ul>
+ *     <li>"X": Grey wall, placed around the edge of the board and at random inside it.</li>
+ *     <li>"1" to "4": Coloured wall, placed at random inside the board.</li>
+ *     <li>"H" followed by a colour code: Hole, filling a 2x2 space.</li>
+ *     <li>"S": Spawner.</li>
+ *     <li>"B" followed by a colour code: Ball placed on the board.</li>
+ * </ul>
+ * The same seed and settings always give the same layout and level entry.<br>
+ *
+ * Note: setLayout also reads the colour code after "B" as a tile, so every coloured ball on the board
+ * starts next to a wall of its colour, as in level1.txt. Boards larger than 18x18 can only be run headless,
+ * e.g. with BatchRunner.<br>
+ *
+ * Usage: {@code LevelGenerator [--out generated] [--levels 1] [--seed 0] [--rows 18] [--cols 18] [--wall-density 0.1]
+ * [--holes 4] [--spawners 2] [--balls 0] [--queued 8] [--time 180] [--spawn-interval 5] [--ball-store false]}
+ */
+public class LevelGenerator {
+    private static final String[] COLOURS = {"grey", "orange", "blue", "green", "yellow"};
+
+    /**
+     * Represents how many random positions are tried for each hole, spawner and ball before giving up.
+     */
+    private static final int MAX_ATTEMPTS = 1000;
+
+    private final long seed;
+    private int rows = 18;
+    private int cols = 18;
+
+    /**
+     * Represents the chance of each free tile inside the edge becoming a wall, from 0 to 1.
+     */
+    private float wallDensity = 0.1f;
+    private int holes = 4;
+    private int spawners = 2;
+
+    /**
+     * Represents the number of balls placed on the board with "B", which start moving straight away.
+     */
+    private int balls = 0;
+
+    /**
+     * Represents the number of balls in the level's "balls" queue, which are released from spawners over time.
+     */
+    private int queuedBalls = 8;
+    private int time = 180;
+    private int spawnInterval = 5;
+    private boolean ballStore = false;
+
+    /**
+     * Constructor for a LevelGenerator object.
+     * @param seed The seed which decides every random choice of the generator.
+     */
+    public LevelGenerator(long seed) {
+        this.seed = seed;
+    }
+
+    public long getSeed() {
+        return this.seed;
+    }
+
+    /**
+     * @param rows The number of rows of tiles, at least 4.
+     * @param cols The number of columns of tiles, at least 4.
+     * @throws IllegalArgumentException if the board is smaller than 4x4.
+     */
+    public void setSize(int rows, int cols) {
+        if (rows < 4 || cols < 4) {
+            throw new IllegalArgumentException("Board must be at least 4x4!");
+        }
+        this.rows = rows;
+        this.cols = cols;
+    }
+
+    /**
+     * @param wallDensity The chance of each free tile becoming a wall, from 0 to 1.
+     * @throws IllegalArgumentException if wallDensity is outside of 0-1.
+     */
+    public void setWallDensity(float wallDensity) {
+        if (!(wallDensity >= 0 && wallDensity <= 1)) {
+            throw new IllegalArgumentException("Wall density must be between 0 and 1!");
+        }
+        this.wallDensity = wallDensity;
+    }
+
+    /**
+     * Sets how many holes, spawners and balls the level has.
+     *
+     * @param holes The number of holes.
+     * @param spawners The number of spawners.
+     * @param balls The number of balls placed on the board.
+     * @param queuedBalls The number of balls in the queue.
+     * @throws IllegalArgumentException if any count is negative.
+     */
+    public void setCounts(int holes, int spawners, int balls, int queuedBalls) {
+        if (holes < 0 || spawners < 0 || balls < 0 || queuedBalls < 0) {
+            throw new IllegalArgumentException("Counts must not be negative!");
+        }
+        this.holes = holes;
+        this.spawners = spawners;
+        this.balls = balls;
+        this.queuedBalls = queuedBalls;
+    }
+
+    /**
+     * Sets the timing of the level entry.
+     *
+     * @param time The time limit in seconds, 0 for none.
+     * @param spawnInterval The seconds between two queued balls being released.
+     * @throws IllegalArgumentException if time is negative or spawnInterval is not positive.
+     */
+    public void setTiming(int time, int spawnInterval) {
+        if (time < 0 || spawnInterval <= 0) {
+            throw new IllegalArgumentException("Time must not be negative and spawn interval must be positive!");
+        }
+        this.time = time;
+        this.spawnInterval = spawnInterval;
+    }
+
+    /**
+     * @param ballStore Whether the level entry sets "ball_store", keeping balls as primitive arrays.
+     */
+    public void setBallStore(boolean ballStore) {
+        this.ballStore = ballStore;
+    }
+
+    /**
+     * Generates the layout.<br>
+     *
+     * @return The rows of the layout, each exactly as wide as the board.
+     * @throws IllegalStateException if there is no room left for a hole, spawner or ball.<br>
+     *
+     * Note: Holes are placed first, then spawners, then balls, each on free tiles inside the edge.
+     * Walls fill the remaining free tiles last, so they never cover anything else.
+     * Hole colours cycle through grey, orange, blue, green and yellow so that every colour is present.
+     */
+    public ArrayList<String> generateLayout() {
+        Random random = new Random(this.seed);
+        char[][] grid = new char[this.rows][this.cols];
+        boolean[][] isTaken = new boolean[this.rows][this.cols];
+        for (int i = 0; i < this.rows; i++) {
+            for (int j = 0; j < this.cols; j++) {
+                boolean isEdge = i == 0 || j == 0 || i == this.rows - 1 || j == this.cols - 1;
+                grid[i][j] = isEdge ? 'X' : ' ';
+                isTaken[i][j] = isEdge;
+            }
+        }
+
+        for (int k = 0; k < this.holes; k++) {
+            int[] position = this.findFree(random, isTaken, 2, 2, "hole");
+            this.take(isTaken, position, 2, 2);
+            grid[position[0]][position[1]] = 'H';
+            grid[position[0]][position[1] + 1] = (char) ('0' + k % 5);
+        }
+
+        for (int k = 0; k < this.spawners; k++) {
+            int[] position = this.findFree(random, isTaken, 1, 1, "spawner");
+            this.take(isTaken, position, 1, 1);
+            grid[position[0]][position[1]] = 'S';
+        }
+
+        for (int k = 0; k < this.balls; k++) {
+            int[] position = this.findFree(random, isTaken, 1, 2, "ball");
+            this.take(isTaken, position, 1, 2);
+            grid[position[0]][position[1]] = 'B';
+            grid[position[0]][position[1] + 1] = (char) ('0' + random.nextInt(5));
+        }
+
+        for (int i = 1; i < this.rows - 1; i++) {
+            for (int j = 1; j < this.cols - 1; j++) {
+                if (!isTaken[i][j] && random.nextFloat() < this.wallDensity) {
+                    int colour = random.nextInt(5);
+                    grid[i][j] = colour == 0 ? 'X' : (char) ('0' + colour);
+                }
+            }
+        }
+
+        ArrayList<String> layout = new ArrayList<>();
+        for (char[] row : grid) {
+            layout.add(new String(row));
+        }
+        return layout;
+    }
+
+    /**
+     * Generates the configuration entry of the level, for the "levels" array of config.json.
+     *
+     * @param layoutPath The path of the layout file, as it should appear in "layout".
+     * @return The level entry, with score modifiers of 1 and a queue of random colours.
+     */
+    public JSONObject generateLevel(String layoutPath) {
+        Random random = new Random(~this.seed); // Independent of the layout, so changing one does not change the other
+        JSONArray queue = new JSONArray();
+        for (int k = 0; k < this.queuedBalls; k++) {
+            queue.append(COLOURS[random.nextInt(COLOURS.length)]);
+        }
+
+        JSONObject level = new JSONObject();
+        level.setString("layout", layoutPath);
+        level.setInt("time", this.time);
+        level.setInt("spawn_interval", this.spawnInterval);
+        level.setFloat("score_increase_from_hole_capture_modifier", 1);
+        level.setFloat("score_decrease_from_wrong_hole_modifier", 1);
+        level.setJSONArray("balls", queue);
+        if (this.ballStore) {
+            level.setBoolean("ball_store", true);
+        }
+        return level;
+    }
+
+    /**
+     * Creates a configuration for the given levels, with the same score tables as config.json.
+     * @param levels The level entries, see generateLevel().
+     * @return The configuration, ready to be saved as config.json.
+     */
+    public static JSONObject generateConfig(List<JSONObject> levels) {
+        JSONArray levelsJSON = new JSONArray();
+        for (JSONObject level : levels) {
+            levelsJSON.append(level);
+        }
+
+        int[] increase = {70, 50, 50, 50, 100};
+        int[] decrease = {0, 25, 25, 25, 100};
+        JSONObject scoreIncrease = new JSONObject();
+        JSONObject scoreDecrease = new JSONObject();
+        for (int i = 0; i < COLOURS.length; i++) {
+            scoreIncrease.setInt(COLOURS[i], increase[i]);
+            scoreDecrease.setInt(COLOURS[i], decrease[i]);
+        }
+
+        JSONObject config = new JSONObject();
+        config.setJSONArray("levels", levelsJSON);
+        config.setJSONObject("score_increase_from_hole_capture", scoreIncrease);
+        config.setJSONObject("score_decrease_from_wrong_hole", scoreDecrease);
+        return config;
+    }
+
+    /**
+     * Writes the layout to a file and returns the matching level entry.
+     *
+     * @param directory The directory to write the layout to.
+     * @param fileName The name of the layout file, used as the entry's "layout" relative to directory.
+     * @return The level entry, see generateLevel().
+     * @throws IOException if the file cannot be written.
+     */
+    public JSONObject write(File directory, String fileName) throws IOException {
+        Files.write(new File(directory, fileName).toPath(), this.generateLayout());
+        return this.generateLevel(fileName);
+    }
+
+    /**
+     * Picks a random free space of the given size inside the edge of the board.
+     * @return The row and column of the top left tile of the space.
+     * @throws IllegalStateException if no free space is found.
+     */
+    private int[] findFree(Random random, boolean[][] isTaken, int height, int width, String name) {
+        int rowRange = this.rows - 1 - height;
+        int colRange = this.cols - 1 - width;
+        if (rowRange > 0 && colRange > 0) {
+            for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+                int row = 1 + random.nextInt(rowRange);
+                int col = 1 + random.nextInt(colRange);
+                if (this.isFree(isTaken, row, col, height, width)) {
+                    return new int[] {row, col};
+                }
+            }
+            // Crowded board: take the first free space instead
+            for (int row = 1; row <= rowRange; row++) {
+                for (int col = 1; col <= colRange; col++) {
+                    if (this.isFree(isTaken, row, col, height, width)) {
+                        return new int[] {row, col};
+                    }
+                }
+            }
+        }
+        throw new IllegalStateException("No room left for another " + name + " on a " + this.rows + "x" + this.cols + " board!");
+    }
+
+    private boolean isFree(boolean[][] isTaken, int row, int col, int height, int width) {
+        for (int i = row; i < row + height; i++) {
+            for (int j = col; j < col + width; j++) {
+                if (isTaken[i][j]) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private void take(boolean[][] isTaken, int[] position, int height, int width) {
+        for (int i = position[0]; i < position[0] + height; i++) {
+            for (int j = position[1]; j < position[1] + width; j++) {
+                isTaken[i][j] = true;
+            }
+        }
+    }
+
+    /**
+     * Parses the command-line options and writes the layouts and a config.json to the output directory.
+     * Level k is generated with seed + k - 1. Prints the usage and exits with status 1 if the options are invalid.
+     * @param args The command-line options, see the class description.
+     */
+    public static void main(String[] args) {
+        String outPath = "generated";
+        int levels = 1;
+        long seed = 0;
+        int rows = 18;
+        int cols = 18;
+        float wallDensity = 0.1f;
+        int holes = 4;
+        int spawners = 2;
+        int balls = 0;
+        int queuedBalls = 8;
+        int time = 180;
+        int spawnInterval = 5;
+        boolean ballStore = false;
+
+        try {
+            for (int i = 0; i < args.length; i++) {
+                if (i + 1 >= args.length) {
+                    throw new IllegalArgumentException("Missing value for " + args[i] + "!");
+                }
+                String value = args[++i];
+                switch (args[i - 1]) {
+                    case "--out":
+                        outPath = value;
+                        break;
+                    case "--levels":
+                        levels = Integer.parseInt(value);
+                        break;
+                    case "--seed":
+                        seed = Long.parseLong(value);
+                        break;
+                    case "--rows":
+                        rows = Integer.parseInt(value);
+                        break;
+                    case "--cols":
+                        cols = Integer.parseInt(value);
+                        break;
+                    case "--wall-density":
+                        wallDensity = Float.parseFloat(value);
+                        break;
+                    case "--holes":
+                        holes = Integer.parseInt(value);
+                        break;
+                    case "--spawners":
+                        spawners = Integer.parseInt(value);
+                        break;
+                    case "--balls":
+                        balls = Integer.parseInt(value);
+                        break;
+                    case "--queued":
+                        queuedBalls = Integer.parseInt(value);
+                        break;
+                    case "--time":
+                        time = Integer.parseInt(value);
+                        break;
+                    case "--spawn-interval":
+                        spawnInterval = Integer.parseInt(value);
+                        break;
+                    case "--ball-store":
+                        ballStore = Boolean.parseBoolean(value);
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unknown option " + args[i - 1] + "!");
+                }
+            }
+            if (levels <= 0) {
+                throw new IllegalArgumentException("Levels must be positive!");
+            }
+
+            File directory = new File(outPath);
+            if (!directory.isDirectory() && !directory.mkdirs()) {
+                throw new IOException("Cannot create " + outPath);
+            }
+            List<JSONObject> entries = new ArrayList<>();
+            for (int level = 1; level <= levels; level++) {
+                LevelGenerator generator = new LevelGenerator(seed + level - 1);
+                generator.setSize(rows, cols);
+                generator.setWallDensity(wallDensity);
+                generator.setCounts(holes, spawners, balls, queuedBalls);
+                generator.setTiming(time, spawnInterval);
+                generator.setBallStore(ballStore);
+                entries.add(generator.write(directory, "level" + level + ".txt"));
+            }
+            if (!generateConfig(entries).save(new File(directory, "config.json"), null)) {
+                throw new IOException("Cannot write " + outPath + "/config.json");
+            }
+        }
+        catch (IllegalArgumentException | IllegalStateException | IOException e) {
+            System.err.println(e.getMessage());
+            System.err.println("Usage: LevelGenerator [--out generated] [--levels 1] [--seed 0] [--rows 18] [--cols 18] [--wall-density 0.1] "
+                    + "[--holes 4] [--spawners 2] [--balls 0] [--queued 8] [--time 180] [--spawn-interval 5] [--ball-store false]");
+            System.exit(1);
+        }
+    }
+}
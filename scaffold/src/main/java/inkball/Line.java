@@ -13,6 +13,25 @@ public class Line {
     public boolean isDrawn;
     private int colourTo;
 
+    /**
+     * Represents the wall this line is a side of, so a hit finds its wall without a search.
+     * Null for borders and player-drawn lines.
+     */
+    private Wall wall;
+
+    /**
+     * Represents how close a ball may come to this line before it bounces, see Ball::willCollide.
+     * Set by StrokeSimplifier on segments that replace several drawn ones. 0 for every other line,
+     * which is tested with the ellipse around it.
+     */
+    private float contactDistance;
+
+    /**
+     * Represents the index of this line in GameWorld::getAllLines, so it can be removed without a search.
+     * -1 when the line is not a wall or border segment of a world.
+     */
+    int slot = -1;
+
     public Line(float[] P1, float[] P2, int colourTo, boolean isDrawn) {
         this.P1 = P1;
         this.P2 = P2;
@@ -84,10 +103,55 @@ public class Line {
         return new float[] {midPointX, midPointY};
     }
 
+    /**
+     * Allocation-free variant of getMidPoint.
+     * @return The x-coordinate of the midpoint.
+     */
+    public float getMidX() {
+        return (this.P2[0] + this.P1[0]) / 2;
+    }
+
+    /**
+     * Allocation-free variant of getMidPoint.
+     * @return The y-coordinate of the midpoint.
+     */
+    public float getMidY() {
+        return (this.P2[1] + this.P1[1]) / 2;
+    }
+
     public int getColourTo() {
         return this.colourTo;
     }
 
+    /**
+     * @return The wall this line is a side of, or null if it is not a side of a wall.
+     */
+    public Wall getWall() {
+        return this.wall;
+    }
+
+    void setWall(Wall wall) {
+        this.wall = wall;
+    }
+
+    /**
+     * @return How close a ball may come to this line before it bounces, or 0 if it is tested with the ellipse.
+     */
+    public float getContactDistance() {
+        return this.contactDistance;
+    }
+
+    /**
+     * @param contactDistance How close a ball may come to this line before it bounces, 0 to test the ellipse.
+     * @throws IllegalArgumentException if contactDistance is negative.
+     */
+    public void setContactDistance(float contactDistance) {
+        if (contactDistance < 0) {
+            throw new IllegalArgumentException("Contact distance must not be negative!");
+        }
+        this.contactDistance = contactDistance;
+    }
+
     /**
      * This returns a string representation of the Line object, used for testing.
      *
@@ -0,0 +1,509 @@
+package inkball;
+
+import processing.data.JSONObject;
+import processing.event.KeyEvent;
+import processing.event.MouseEvent;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * <p>Represents the headless playback of a replay written by ReplayRecorder.</p>
+ * The replay is played on an App that never opens a window: inputs are passed to the same mouse and key handlers
+ * as in the game, and every frame runs exactly the number of ticks that were recorded, so the game plays out the same
+ * way regardless of how fast the replay is played. Levels are set up from the recorded seed and layout, so the
+ * layout files do not need to exist.<br>
+ *
+ * Every keyframe played over is compared with the world, and a mismatch is counted as a desync.
+ * seek() starts from the nearest keyframe before the frame, found through the replay's index
+ * (or by reading the whole replay if it was cut off before it was closed).<br>
+ *
+ * Usage: {@code ReplayPlayer replay.ikr [--repeat 1]}, which plays the replay and reports the ticks per second,
+ * so a recorded session can be used as a benchmark.
+ */
+public class ReplayPlayer {
+
+    /**
+     * Represents the App the replay is played on. Restarts are set up from the replay's LEVEL records instead.
+     */
+    private static class ReplayApp extends App {
+        ReplayApp() {
+            this.isTesting = true;
+        }
+
+        @Override
+        public void restart() {
+        }
+    }
+
+    private final ByteBuffer bytes;
+    private final BinaryReader in;
+    private final ReplayApp app = new ReplayApp();
+
+    /**
+     * Represents the position of the first record, after the header.
+     */
+    private final int firstRecord;
+
+    /**
+     * Represents the frame and position of every keyframe.
+     */
+    private final ArrayList<long[]> keyframes = new ArrayList<>();
+
+    private int frame;
+    private long ticks;
+    private int desyncs;
+
+    /**
+     * Represents the frame of the first keyframe that did not match the world, -1 if there was none.
+     */
+    private int firstDesync = -1;
+    private boolean isEnded;
+    private int lastFrameCount;
+    private int lastMouseX;
+    private int lastMouseY;
+
+    /**
+     * Constructor for a ReplayPlayer, which maps the replay into memory and reads its header and keyframe index.
+     * Nothing is played until step() is called.<br>
+     *
+     * @param file The replay to play.
+     * @throws IOException if the file cannot be read or is not a replay.
+     */
+    public ReplayPlayer(File file) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r"); FileChannel channel = raf.getChannel()) {
+            this.bytes = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        this.in = new BinaryReader(this.bytes);
+
+        try {
+            if (!Arrays.equals(this.in.readBytes(ReplayRecorder.MAGIC.length), ReplayRecorder.MAGIC)) {
+                throw new IOException("Not a replay file!");
+            }
+            if (this.in.readByte() != ReplayRecorder.VERSION) {
+                throw new IOException("Unsupported replay version!");
+            }
+            this.app.json = JSONObject.parse(this.in.readString());
+            this.app.strokeTolerance = App.readStrokeTolerance(this.app.json); // Strokes are simplified as recorded
+        }
+        catch (BufferUnderflowException | IllegalArgumentException e) {
+            throw new IOException("Not a replay file!", e);
+        }
+        this.firstRecord = this.in.getPosition();
+
+        if (!this.readIndex()) {
+            this.scanKeyframes();
+        }
+        this.in.setPosition(this.firstRecord);
+    }
+
+    public App getApp() {
+        return this.app;
+    }
+
+    public GameWorld getWorld() {
+        return this.app.getWorld();
+    }
+
+    /**
+     * @return The number of frames played since the start of the replay.
+     */
+    public int getFrame() {
+        return this.frame;
+    }
+
+    /**
+     * @return The number of ticks run by this player, including those of earlier plays and seeks.
+     */
+    public long getTicks() {
+        return this.ticks;
+    }
+
+    /**
+     * @return The number of keyframes played over that did not match the world.
+     */
+    public int getDesyncs() {
+        return this.desyncs;
+    }
+
+    /**
+     * @return The frame of the first keyframe played over that did not match the world, or -1 if all matched.
+     */
+    public int getFirstDesync() {
+        return this.firstDesync;
+    }
+
+    /**
+     * @return The frames at which the replay has keyframes, in order.
+     */
+    public int[] getKeyframes() {
+        int[] frames = new int[this.keyframes.size()];
+        for (int i = 0; i < frames.length; i++) {
+            frames[i] = (int) this.keyframes.get(i)[0];
+        }
+        return frames;
+    }
+
+    public boolean isEnded() {
+        return this.isEnded;
+    }
+
+    /**
+     * Plays the next frame: passes its inputs to the App, then runs its ticks.<br>
+     *
+     * @return true if a frame was played, false if the replay has ended.
+     * A frame cut off at the end of the replay is not played.
+     */
+    public boolean step() {
+        if (this.isEnded) {
+            return false;
+        }
+        int start = this.in.getPosition();
+        try {
+            int type;
+            do { // Make sure the whole frame is there before applying any of it
+                type = this.readRecord(false);
+            } while (type != ReplayRecorder.FRAME && type != ReplayRecorder.INDEX);
+            if (type == ReplayRecorder.INDEX) {
+                this.isEnded = true;
+                return false;
+            }
+        }
+        catch (BufferUnderflowException | IllegalArgumentException e) {
+            this.isEnded = true;
+            return false;
+        }
+
+        this.in.setPosition(start);
+        this.app.frameCount = this.lastFrameCount + 1;
+        while (this.readRecord(true) != ReplayRecorder.FRAME) {
+            // inputs, levels and keyframes of this frame are applied by readRecord
+        }
+        return true;
+    }
+
+    /**
+     * Plays every remaining frame.
+     * @return The number of frames played.
+     */
+    public int playAll() {
+        int played = 0;
+        while (this.step()) {
+            played++;
+        }
+        return played;
+    }
+
+    /**
+     * Moves playback to just after a frame, starting from the nearest keyframe at or before it.
+     * If the frame is past the end, playback stops at the end.<br>
+     *
+     * @param frame The number of frames that should have been played.
+     * @throws IllegalArgumentException if frame is negative.
+     */
+    public void seek(int frame) {
+        if (frame < 0) {
+            throw new IllegalArgumentException("Frame must not be negative!");
+        }
+
+        long[] nearest = null;
+        for (long[] keyframe : this.keyframes) {
+            if (keyframe[0] <= frame) {
+                nearest = keyframe;
+            }
+        }
+
+        boolean isAhead = frame >= this.frame && (nearest == null || nearest[0] <= this.frame);
+        if (!isAhead) {
+            if (nearest == null) {
+                this.in.setPosition(this.firstRecord);
+                this.frame = 0;
+                this.lastFrameCount = 0;
+                this.lastMouseX = 0;
+                this.lastMouseY = 0;
+            }
+            else {
+                this.in.setPosition((int) nearest[1]);
+                this.loadKeyframe();
+            }
+            this.isEnded = false;
+        }
+
+        while (this.frame < frame && this.step()) {
+            // step() moves this.frame on
+        }
+    }
+
+    /**
+     * Reads one record and, if apply is set, plays it.<br>
+     *
+     * @param apply Whether to play the record, or only read over it.
+     * @return The type of the record.
+     * @throws IllegalArgumentException if the record type is unknown.
+     */
+    private int readRecord(boolean apply) {
+        int type = this.in.readByte();
+        switch (type) {
+            case ReplayRecorder.LEVEL:
+                this.readLevel(apply);
+                break;
+            case ReplayRecorder.FRAME:
+                this.readFrame(apply);
+                break;
+            case ReplayRecorder.MOUSE:
+                this.readMouse(apply);
+                break;
+            case ReplayRecorder.KEY:
+                int keyCode = this.in.readVarInt();
+                if (apply) {
+                    this.app.keyPressed(new KeyEvent(null, 0, KeyEvent.PRESS, 0, (char) keyCode, keyCode));
+                }
+                break;
+            case ReplayRecorder.KEYFRAME:
+                this.readKeyframe(apply);
+                break;
+            case ReplayRecorder.INDEX:
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown replay record " + type + "!");
+        }
+        return type;
+    }
+
+    /**
+     * Reads a LEVEL record and, if apply is set, sets the level up, see App::loadLevel.
+     */
+    private void readLevel(boolean apply) {
+        int level = this.in.readVarInt();
+        long seed = this.in.readLong();
+        int timeLimit = (int) this.in.readZigZag();
+        int lastSecond = (int) this.in.readZigZag();
+        float ballTimer = this.in.readFloat();
+        double score = this.in.readDouble();
+        int rows = this.in.readVarInt();
+        ArrayList<String> layout = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            layout.add(this.in.readString());
+        }
+        if (!apply) {
+            return;
+        }
+
+        this.app.loadLevel(level, seed, score, LayoutGrid.fromRows(layout));
+        App.timeLimit = timeLimit;
+        App.lastSecond = lastSecond;
+        App.ballTimer = ballTimer;
+    }
+
+    /**
+     * Reads a FRAME record and, if apply is set, runs its ticks.
+     */
+    private void readFrame(boolean apply) {
+        int frameTicks = this.in.readVarInt();
+        int frameCount = (int) (this.lastFrameCount + 1 + this.in.readZigZag());
+        if (!apply) {
+            return;
+        }
+
+        this.app.frameCount = frameCount;
+        for (int i = 0; i < frameTicks; i++) {
+            this.app.tick();
+        }
+        this.ticks += frameTicks;
+        this.lastFrameCount = frameCount;
+        this.frame++;
+    }
+
+    /**
+     * Reads a MOUSE record and, if apply is set, passes it to the App's mouse handler.
+     */
+    private void readMouse(boolean apply) {
+        int action = this.in.readByte();
+        int button = this.in.readVarInt();
+        int modifiers = this.in.readVarInt();
+        int x = (int) (this.lastMouseX + this.in.readZigZag());
+        int y = (int) (this.lastMouseY + this.in.readZigZag());
+        if (!apply) {
+            return;
+        }
+        this.lastMouseX = x;
+        this.lastMouseY = y;
+
+        if (action == ReplayRecorder.MOUSE_PRESS) {
+            this.app.mousePressed(new MouseEvent(null, 0, MouseEvent.PRESS, modifiers, x, y, button, 1));
+        }
+        else if (action == ReplayRecorder.MOUSE_DRAG) {
+            this.app.mouseDragged(new MouseEvent(null, 0, MouseEvent.DRAG, modifiers, x, y, button, 1));
+        }
+        else if (action == ReplayRecorder.MOUSE_RELEASE) {
+            this.app.mouseReleased(new MouseEvent(null, 0, MouseEvent.RELEASE, modifiers, x, y, button, 1));
+        }
+    }
+
+    /**
+     * Reads a KEYFRAME record and, if apply is set, counts a desync if the world does not match it.
+     * Mouse positions after a keyframe are recorded from (0, 0).
+     */
+    private void readKeyframe(boolean apply) {
+        int frame = this.in.readVarInt();
+        this.in.readVarLong(); // level offset, frame count, timers and line start are only needed by seek
+        this.in.readVarInt();
+        this.in.readZigZag();
+        this.in.readFloat();
+        this.in.readFloat();
+        this.in.readFloat();
+        byte[] snapshot = this.in.readBytes(this.in.readVarInt());
+        if (!apply) {
+            return;
+        }
+
+        this.lastMouseX = 0;
+        this.lastMouseY = 0;
+        if (!Arrays.equals(snapshot, WorldSnapshot.capture(this.app.getWorld()))) {
+            if (this.desyncs == 0) {
+                this.firstDesync = frame;
+            }
+            this.desyncs++;
+        }
+    }
+
+    /**
+     * Sets up the level of the KEYFRAME record at the reader's position and restores the keyframe into it.
+     * Leaves the reader after the keyframe.
+     */
+    private void loadKeyframe() {
+        if (this.in.readByte() != ReplayRecorder.KEYFRAME) {
+            throw new IllegalStateException("Index does not point to a keyframe!");
+        }
+        int frame = this.in.readVarInt();
+        int levelOffset = (int) this.in.readVarLong();
+        int frameCount = this.in.readVarInt();
+        int lastSecond = (int) this.in.readZigZag();
+        float ballTimer = this.in.readFloat();
+        float[] start = new float[] {this.in.readFloat(), this.in.readFloat()};
+        int length = this.in.readVarInt();
+        int snapshot = this.in.getPosition();
+
+        this.in.setPosition(levelOffset);
+        this.in.readByte();
+        this.readLevel(true);
+
+        this.in.setPosition(snapshot);
+        WorldSnapshot.restore(this.app.getWorld(), this.in);
+        this.in.setPosition(snapshot + length);
+
+        this.app.frameCount = frameCount;
+        this.app.start = start;
+        App.lastSecond = lastSecond;
+        App.ballTimer = ballTimer;
+        this.frame = frame;
+        this.lastFrameCount = frameCount;
+        this.lastMouseX = 0;
+        this.lastMouseY = 0;
+    }
+
+    /**
+     * Reads the keyframe index through the footer written by ReplayRecorder::close.
+     * @return true if the replay has a valid index.
+     */
+    private boolean readIndex() {
+        int size = this.bytes.limit();
+        int footer = 8 + ReplayRecorder.INDEX_MAGIC.length;
+        if (size - this.firstRecord < footer + 1) {
+            return false;
+        }
+        try {
+            this.in.setPosition(size - ReplayRecorder.INDEX_MAGIC.length);
+            if (!Arrays.equals(this.in.readBytes(ReplayRecorder.INDEX_MAGIC.length), ReplayRecorder.INDEX_MAGIC)) {
+                return false;
+            }
+            this.in.setPosition(size - footer);
+            long offset = this.in.readLong();
+            if (offset < this.firstRecord || offset >= size - footer) {
+                return false;
+            }
+            this.in.setPosition((int) offset);
+            if (this.in.readByte() != ReplayRecorder.INDEX) {
+                return false;
+            }
+            int count = this.in.readVarInt();
+            long frame = 0;
+            long position = 0;
+            for (int i = 0; i < count; i++) {
+                frame += this.in.readVarLong();
+                position += this.in.readVarLong();
+                this.keyframes.add(new long[] {frame, position});
+            }
+            return true;
+        }
+        catch (BufferUnderflowException | IllegalArgumentException e) {
+            this.keyframes.clear();
+            return false;
+        }
+    }
+
+    /**
+     * Finds the keyframes of a replay without an index by reading every record up to where the replay was cut off.
+     */
+    private void scanKeyframes() {
+        this.in.setPosition(this.firstRecord);
+        try {
+            while (this.in.remaining() > 0) {
+                int position = this.in.getPosition();
+                boolean isKeyframe = this.in.readByte() == ReplayRecorder.KEYFRAME;
+                int frame = isKeyframe ? this.in.readVarInt() : 0;
+                this.in.setPosition(position);
+                if (this.readRecord(false) == ReplayRecorder.INDEX) {
+                    break;
+                }
+                if (isKeyframe) {
+                    this.keyframes.add(new long[] {frame, position});
+                }
+            }
+        }
+        catch (BufferUnderflowException | IllegalArgumentException e) {
+            // the replay ends with a cut off record, which is never a listed keyframe
+        }
+    }
+
+    /**
+     * Plays a replay headless and prints how fast the ticks ran, and where it first desynced if it did.<br>
+     *
+     * @param args The replay file, followed by the optional --repeat with the number of times to play it.
+     * @throws IOException if the replay cannot be read.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.err.println("Usage: ReplayPlayer replay.ikr [--repeat 1]");
+            System.exit(1);
+        }
+        int repeat = 1;
+        for (int i = 1; i < args.length - 1; i++) {
+            if (args[i].equals("--repeat")) {
+                repeat = Integer.parseInt(args[++i]);
+            }
+        }
+
+        ReplayPlayer player = new ReplayPlayer(new File(args[0]));
+        for (int i = 0; i < repeat; i++) {
+            player.seek(0);
+            long ticks = player.getTicks();
+            long start = System.nanoTime();
+            int frames = player.playAll();
+            double seconds = (System.nanoTime() - start) / 1e9;
+            ticks = player.getTicks() - ticks;
+            System.out.printf("run %d: %d frames, %d ticks in %.3f s (%.0f ticks/s), score %d, %d desyncs%n",
+                    i + 1, frames, ticks, seconds, ticks / seconds, (int) player.getWorld().getScore(),
+                    player.getDesyncs());
+        }
+        if (player.getDesyncs() > 0) {
+            System.err.println("Replay desync at frame " + player.getFirstDesync());
+        }
+    }
+}
@@ -0,0 +1,316 @@
+package inkball;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * <p>Represents the recording of a game session as a compact binary replay, which ReplayPlayer plays back headless.</p>
+ * The log starts with a header (MAGIC, VERSION and the configuration), followed by one record per event:
+ * <ul>
+ *     <li>LEVEL: a level was set up, with the seed of its random generator, its layout and the App timers.
+ *     The seed makes every spawner and starting vector choice of the level repeatable.</li>
+ *     <li>MOUSE and KEY: an input that can change the game, with the mouse position as a delta from the last one.</li>
+ *     <li>FRAME: the end of a frame, with the number of simulation ticks that ran in it. Inputs before it belong to it.</li>
+ *     <li>KEYFRAME: a WorldSnapshot taken every keyframe interval, so playback can seek without starting from frame 0.</li>
+ * </ul>
+ * Numbers are varints, so most records take 2 to 6 bytes. Records are collected in memory and handed to a
+ * background thread in chunks, so the game thread never waits for the disk. close() appends an INDEX of the
+ * keyframes and a footer pointing to it.<br>
+ *
+ * Note: A replay cut off before close() (e.g. the game crashed) still plays up to its last complete frame,
+ * and its keyframes are found by reading the whole log.
+ */
+public class ReplayRecorder implements Closeable {
+    public static final byte[] MAGIC = {'I', 'K', 'R', 'P'};
+    public static final byte[] INDEX_MAGIC = {'I', 'K', 'R', 'I'};
+    public static final int VERSION = 1;
+
+    public static final int LEVEL = 1;
+    public static final int FRAME = 2;
+    public static final int MOUSE = 3;
+    public static final int KEY = 4;
+    public static final int KEYFRAME = 5;
+    public static final int INDEX = 6;
+
+    public static final int MOUSE_PRESS = 1;
+    public static final int MOUSE_DRAG = 2;
+    public static final int MOUSE_RELEASE = 3;
+
+    /**
+     * Represents the default number of frames between keyframes, 10 seconds at App.FPS.
+     */
+    public static final int DEFAULT_KEYFRAME_INTERVAL = 10 * App.FPS;
+
+    /**
+     * Represents the number of bytes collected before they are handed to the writer thread.
+     */
+    private static final int CHUNK_SIZE = 4096;
+
+    private static final byte[] END = new byte[0];
+
+    private final BinaryWriter buffer = new BinaryWriter(2 * CHUNK_SIZE);
+    private final BlockingQueue<byte[]> chunks = new LinkedBlockingQueue<>();
+    private final Thread writer;
+    private volatile IOException failure;
+    private boolean isClosed;
+
+    /**
+     * Represents the number of bytes handed to the writer thread, so that buffer.size() + flushed is the offset of the next record.
+     */
+    private long flushed;
+
+    private int frames;
+    private int lastFrameCount;
+    private int lastMouseX;
+    private int lastMouseY;
+    private int keyframeInterval = DEFAULT_KEYFRAME_INTERVAL;
+    private int lastKeyframe;
+
+    /**
+     * Represents the offset of the last LEVEL record, -1 before the first level.
+     */
+    private long levelOffset = -1;
+
+    /**
+     * Represents the frame and offset of every keyframe, written to the INDEX by close().
+     */
+    private final ArrayList<long[]> keyframes = new ArrayList<>();
+
+    /**
+     * Constructor for a ReplayRecorder, which starts the writer thread.
+     *
+     * @param file The file to write the replay to. It is replaced if it exists.
+     * @param config The configuration the game was started with, as JSON text.
+     * @throws IOException if the file cannot be created.
+     */
+    public ReplayRecorder(File file, String config) throws IOException {
+        OutputStream out = new BufferedOutputStream(new FileOutputStream(file), 2 * CHUNK_SIZE);
+        this.buffer.writeBytes(MAGIC);
+        this.buffer.writeByte(VERSION);
+        this.buffer.writeString(config);
+
+        this.writer = new Thread(() -> this.writeChunks(out), "replay-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    public int getKeyframeInterval() {
+        return this.keyframeInterval;
+    }
+
+    /**
+     * @param frames The number of frames between keyframes.
+     * @throws IllegalArgumentException if frames is not positive.
+     */
+    public void setKeyframeInterval(int frames) {
+        if (frames <= 0) {
+            throw new IllegalArgumentException("Keyframe interval must be positive!");
+        }
+        this.keyframeInterval = frames;
+    }
+
+    /**
+     * @return The number of frames recorded.
+     */
+    public int getFrames() {
+        return this.frames;
+    }
+
+    /**
+     * @return The number of bytes recorded so far, including those not yet written to the file.
+     */
+    public long getSize() {
+        return this.flushed + this.buffer.size();
+    }
+
+    /**
+     * Records that a level has been set up, see App::setup.<br>
+     *
+     * @param level The level, starting from 1.
+     * @param seed The seed the world's random generator was given before the level was set up.
+     * @param timeLimit App.timeLimit after the set up.
+     * @param lastSecond App.lastSecond after the set up.
+     * @param ballTimer App.ballTimer after the set up.
+     * @param score The score carried over from the previous level.
+     * @param layout The layout of the level, see LayoutParser.
+     */
+    public void recordLevel(int level, long seed, int timeLimit, int lastSecond, float ballTimer, double score,
+                            LayoutGrid layout) {
+        this.levelOffset = this.getSize();
+        this.buffer.writeByte(LEVEL);
+        this.buffer.writeVarInt(level);
+        this.buffer.writeLong(seed);
+        this.buffer.writeZigZag(timeLimit);
+        this.buffer.writeZigZag(lastSecond);
+        this.buffer.writeFloat(ballTimer);
+        this.buffer.writeDouble(score);
+        this.buffer.writeVarInt(layout == null ? 0 : layout.getRows());
+        for (int i = 0; layout != null && i < layout.getRows(); i++) {
+            this.buffer.writeString(layout.getRow(i));
+        }
+    }
+
+    /**
+     * Records a mouse event.
+     * @param action MOUSE_PRESS, MOUSE_DRAG or MOUSE_RELEASE.
+     * @param button The mouse button, e.g. PConstants.LEFT.
+     * @param modifiers The modifier keys held, see processing.event.Event.
+     * @param x The x-coordinate of the mouse.
+     * @param y The y-coordinate of the mouse.
+     */
+    public void recordMouse(int action, int button, int modifiers, int x, int y) {
+        this.buffer.writeByte(MOUSE);
+        this.buffer.writeByte(action);
+        this.buffer.writeVarInt(button);
+        this.buffer.writeVarInt(modifiers);
+        this.buffer.writeZigZag(x - this.lastMouseX);
+        this.buffer.writeZigZag(y - this.lastMouseY);
+        this.lastMouseX = x;
+        this.lastMouseY = y;
+    }
+
+    /**
+     * Records a key press.
+     * @param keyCode The code of the key pressed.
+     */
+    public void recordKey(int keyCode) {
+        this.buffer.writeByte(KEY);
+        this.buffer.writeVarInt(keyCode);
+    }
+
+    /**
+     * Records the end of a frame, and hands the records to the writer thread once a chunk is full.
+     * @param frameCount App.frameCount during the frame. Saved as the difference from the last frame's plus one, usually 0.
+     * @param ticks The number of simulation ticks that ran in the frame.
+     */
+    public void endFrame(int frameCount, int ticks) {
+        this.buffer.writeByte(FRAME);
+        this.buffer.writeVarInt(ticks);
+        this.buffer.writeZigZag(frameCount - (this.lastFrameCount + 1));
+        this.lastFrameCount = frameCount;
+        this.frames++;
+        if (this.buffer.size() >= CHUNK_SIZE) {
+            this.flush();
+        }
+    }
+
+    /**
+     * @return true if a level has been recorded and a keyframe interval has passed since the last keyframe.
+     */
+    public boolean isKeyframeDue() {
+        return this.levelOffset >= 0 && this.frames - this.lastKeyframe >= this.keyframeInterval;
+    }
+
+    /**
+     * Records a keyframe of the current level, after the last recorded frame.<br>
+     *
+     * @param frameCount App.frameCount of the last frame.
+     * @param lastSecond App.lastSecond.
+     * @param ballTimer App.ballTimer.
+     * @param start App.start, the point a new line is drawn from.
+     * @param world The world being played.
+     * @throws IllegalStateException if no level has been recorded.<br>
+     *
+     * Note: The player state (drawing, paused) is not saved, so App only records keyframes while
+     * the game is playing and no line is being drawn.
+     */
+    public void recordKeyframe(int frameCount, int lastSecond, float ballTimer, float[] start, GameWorld world) {
+        if (this.levelOffset < 0) {
+            throw new IllegalStateException("Keyframe recorded before the first level!");
+        }
+        this.keyframes.add(new long[] {this.frames, this.getSize()});
+        this.lastKeyframe = this.frames;
+        this.lastMouseX = 0; // so that playback can start at the keyframe
+        this.lastMouseY = 0;
+
+        byte[] snapshot = WorldSnapshot.capture(world);
+        this.buffer.writeByte(KEYFRAME);
+        this.buffer.writeVarInt(this.frames);
+        this.buffer.writeVarLong(this.levelOffset);
+        this.buffer.writeVarInt(frameCount);
+        this.buffer.writeZigZag(lastSecond);
+        this.buffer.writeFloat(ballTimer);
+        this.buffer.writeFloat(start[0]);
+        this.buffer.writeFloat(start[1]);
+        this.buffer.writeVarInt(snapshot.length);
+        this.buffer.writeBytes(snapshot);
+        this.flush();
+    }
+
+    /**
+     * Writes the keyframe index and footer, and waits for the writer thread to write everything.
+     * Does nothing if already closed.
+     * @throws IOException if the file could not be written.
+     */
+    @Override
+    public void close() throws IOException {
+        if (this.isClosed) {
+            return;
+        }
+        this.isClosed = true;
+
+        long indexOffset = this.getSize();
+        this.buffer.writeByte(INDEX);
+        this.buffer.writeVarInt(this.keyframes.size());
+        long lastFrame = 0;
+        long lastOffset = 0;
+        for (long[] keyframe : this.keyframes) {
+            this.buffer.writeVarLong(keyframe[0] - lastFrame);
+            this.buffer.writeVarLong(keyframe[1] - lastOffset);
+            lastFrame = keyframe[0];
+            lastOffset = keyframe[1];
+        }
+        this.buffer.writeLong(indexOffset);
+        this.buffer.writeBytes(INDEX_MAGIC);
+        this.flush();
+
+        this.chunks.add(END);
+        try {
+            this.writer.join();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while writing the replay!", e);
+        }
+        if (this.failure != null) {
+            throw this.failure;
+        }
+    }
+
+    /**
+     * Hands the collected records to the writer thread.
+     */
+    private void flush() {
+        if (this.buffer.size() == 0) {
+            return;
+        }
+        this.flushed += this.buffer.size();
+        if (this.failure == null) { // Keep no more chunks once the file cannot be written
+            this.chunks.add(this.buffer.toByteArray());
+        }
+        this.buffer.reset();
+    }
+
+    /**
+     * Writes chunks to the file until END is taken. Runs on the writer thread.
+     */
+    private void writeChunks(OutputStream out) {
+        try (OutputStream stream = out) {
+            while (true) {
+                byte[] chunk = this.chunks.take();
+                if (chunk == END) {
+                    break;
+                }
+                stream.write(chunk);
+            }
+        }
+        catch (IOException e) {
+            this.failure = e;
+        }
+        catch (InterruptedException e) {
+            this.failure = new IOException("Replay writer was interrupted!", e);
+        }
+    }
+}
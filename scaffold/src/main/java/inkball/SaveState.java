@@ -0,0 +1,232 @@
+package inkball;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+
+/**
+ * <p>Represents a saved game: the level with its layout, the App timers and a WorldSnapshot of the world
+ * (wall health, balls, strokes, ball queue and score).</p>
+ * The layout is saved with the game, so a save still loads if the level's layout file changes.
+ * Lines being drawn are not saved.<br>
+ *
+ * Saves are written to a temporary file through a memory-mapped buffer, forced to disk and then moved over the
+ * save file, so a crash while saving leaves the last complete save. The body is checked with a CRC32 when it is read.
+ */
+public class SaveState {
+    public static final byte[] MAGIC = {'I', 'K', 'S', 'V'};
+    public static final int VERSION = 1;
+
+    private final int level;
+    private final boolean isPaused;
+    private final int timeLimit;
+    private final int lastSecond;
+    private final float ballTimer;
+    private final int frameCount;
+    private final LayoutGrid layout;
+    private final byte[] snapshot;
+
+    private SaveState(int level, boolean isPaused, int timeLimit, int lastSecond, float ballTimer, int frameCount,
+                      LayoutGrid layout, byte[] snapshot) {
+        this.level = level;
+        this.isPaused = isPaused;
+        this.timeLimit = timeLimit;
+        this.lastSecond = lastSecond;
+        this.ballTimer = ballTimer;
+        this.frameCount = frameCount;
+        this.layout = layout;
+        this.snapshot = snapshot;
+    }
+
+    /**
+     * Saves the game of an App. Only the world is copied, so this is cheap enough to call on the animation thread;
+     * encoding and writing are left to toBytes() and write().<br>
+     *
+     * @param app The App whose game is saved.
+     * @return The saved game.
+     * @throws IllegalArgumentException if the game is not being played or paused.
+     */
+    public static SaveState capture(App app) {
+        if (app.gameState != App.GameState.PLAYING && app.gameState != App.GameState.PAUSED) {
+            throw new IllegalArgumentException("Only a game in progress can be saved!");
+        }
+        return new SaveState(App.gameLevel, app.gameState == App.GameState.PAUSED, App.timeLimit, App.lastSecond,
+                App.ballTimer, app.frameCount, app.layout, WorldSnapshot.capture(app.getWorld()));
+    }
+
+    public int getLevel() {
+        return this.level;
+    }
+
+    public boolean isPaused() {
+        return this.isPaused;
+    }
+
+    /**
+     * @return The seconds left when the game was saved, see App.lastSecond.
+     */
+    public int getLastSecond() {
+        return this.lastSecond;
+    }
+
+    /**
+     * Sets the saved level up on an App and restores the saved world into it, see App::loadLevel.
+     * @param app The App to load the game into. Its configuration must have the saved level.
+     * @throws IllegalArgumentException if the snapshot does not match the saved layout. The App is then unchanged.
+     */
+    public void apply(App app) {
+        this.apply(app, this.restoreWorld(app));
+    }
+
+    /**
+     * Restores the saved world into a new world set up for the saved level, without changing the App.
+     * @param app The App whose configuration has the saved level, see App::createWorld.
+     * @return The restored world, see apply(App, GameWorld).
+     * @throws IllegalArgumentException if the snapshot does not match the saved layout.
+     */
+    public GameWorld restoreWorld(App app) {
+        GameWorld world = app.createWorld(this.level, 0, 0, this.layout);
+        WorldSnapshot.restore(world, new BinaryReader(this.snapshot));
+        return world;
+    }
+
+    /**
+     * Overloaded method: Sets the saved level up on an App with a world already restored by restoreWorld().
+     * @param app The App to load the game into.
+     * @param world The restored world.
+     */
+    public void apply(App app, GameWorld world) {
+        app.loadLevel(this.level, world, this.layout);
+        App.timeLimit = this.timeLimit;
+        App.lastSecond = this.lastSecond;
+        App.ballTimer = this.ballTimer;
+        app.frameCount = this.frameCount;
+        if (this.isPaused) {
+            app.gameState = App.GameState.PAUSED;
+        }
+    }
+
+    /**
+     * @return The save as bytes: MAGIC, VERSION, the body length and CRC32, then the body.
+     */
+    public byte[] toBytes() {
+        BinaryWriter body = new BinaryWriter(this.snapshot.length + 1024);
+        body.writeVarInt(this.level);
+        body.writeByte(this.isPaused ? 1 : 0);
+        body.writeZigZag(this.timeLimit);
+        body.writeZigZag(this.lastSecond);
+        body.writeFloat(this.ballTimer);
+        body.writeVarInt(this.frameCount);
+        body.writeVarInt(this.layout == null ? 0 : this.layout.getRows());
+        for (int i = 0; this.layout != null && i < this.layout.getRows(); i++) {
+            body.writeString(this.layout.getRow(i));
+        }
+        body.writeVarInt(this.snapshot.length);
+        body.writeBytes(this.snapshot);
+
+        byte[] bodyBytes = body.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(bodyBytes);
+        BinaryWriter out = new BinaryWriter(bodyBytes.length + 16);
+        out.writeBytes(MAGIC);
+        out.writeByte(VERSION);
+        out.writeVarInt(bodyBytes.length);
+        out.writeInt((int) crc.getValue());
+        out.writeBytes(bodyBytes);
+        return out.toByteArray();
+    }
+
+    /**
+     * Reads a save written by toBytes().<br>
+     *
+     * @param buffer The bytes of the save, from its first byte.
+     * @return The saved game.
+     * @throws IOException if the bytes are not a save, have an unsupported version, or are cut off or damaged.
+     */
+    public static SaveState fromBytes(ByteBuffer buffer) throws IOException {
+        BinaryReader in = new BinaryReader(buffer);
+        try {
+            if (!Arrays.equals(in.readBytes(MAGIC.length), MAGIC)) {
+                throw new IOException("Not a save file!");
+            }
+            if (in.readByte() != VERSION) {
+                throw new IOException("Unsupported save version!");
+            }
+            int length = in.readVarInt();
+            int expected = in.readInt();
+            if (length > in.remaining()) {
+                throw new IOException("Save file is cut off!");
+            }
+            CRC32 crc = new CRC32();
+            ByteBuffer body = buffer.slice();
+            body.limit(length);
+            crc.update(body);
+            if ((int) crc.getValue() != expected) {
+                throw new IOException("Save file is damaged!");
+            }
+
+            int level = in.readVarInt();
+            boolean isPaused = in.readByte() == 1;
+            int timeLimit = (int) in.readZigZag();
+            int lastSecond = (int) in.readZigZag();
+            float ballTimer = in.readFloat();
+            int frameCount = in.readVarInt();
+            int rows = in.readVarInt();
+            ArrayList<String> layout = new ArrayList<>(rows);
+            for (int i = 0; i < rows; i++) {
+                layout.add(in.readString());
+            }
+            byte[] snapshot = in.readBytes(in.readVarInt());
+            return new SaveState(level, isPaused, timeLimit, lastSecond, ballTimer, frameCount,
+                    LayoutGrid.fromRows(layout), snapshot);
+        }
+        catch (BufferUnderflowException | IllegalArgumentException e) {
+            throw new IOException("Save file is damaged!", e);
+        }
+    }
+
+    /**
+     * Writes a save through a memory-mapped temporary file, then moves it over the file,
+     * so the file always holds a complete save.
+     * @param file The save file. Its directory must exist.
+     * @param bytes The save, see toBytes().
+     * @throws IOException if the file cannot be written.
+     */
+    public static void write(File file, byte[] bytes) throws IOException {
+        File temp = new File(file.getPath() + ".tmp");
+        try (RandomAccessFile raf = new RandomAccessFile(temp, "rw"); FileChannel channel = raf.getChannel()) {
+            channel.truncate(bytes.length);
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, bytes.length);
+            buffer.put(bytes);
+            buffer.force();
+        }
+        try {
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Reads a save file through a memory-mapped buffer.
+     * @param file The save file.
+     * @return The saved game.
+     * @throws IOException if the file cannot be read or is not a complete save, see fromBytes.
+     */
+    public static SaveState read(File file) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r"); FileChannel channel = raf.getChannel()) {
+            return fromBytes(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package inkball;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Represents the background thread that encodes and writes saved games, see SaveState::write.
+ * The animation thread only copies the world (SaveState::capture) and hands the copy over, so saving never
+ * waits for the disk. A save handed over while the previous one is still being written is skipped,
+ * so a slow disk cannot queue up saves.
+ */
+public class SaveWriter implements Closeable {
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(task -> {
+        Thread thread = new Thread(task, "save-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean isWriting = new AtomicBoolean();
+
+    private volatile int saves;
+    private volatile IOException lastError;
+
+    /**
+     * Hands a save to the writer thread.<br>
+     *
+     * @param file The file to save to.
+     * @param state The saved game.
+     * @return true if the save will be written, false if the previous save is still being written
+     * or the writer is closed.
+     */
+    public boolean submit(File file, SaveState state) {
+        if (this.executor.isShutdown() || !this.isWriting.compareAndSet(false, true)) {
+            return false;
+        }
+        this.executor.execute(() -> {
+            try {
+                SaveState.write(file, state.toBytes());
+                this.saves++;
+                this.lastError = null;
+            }
+            catch (IOException e) {
+                this.lastError = e;
+                System.err.println("Could not save to " + file.getPath() + ": " + e.getMessage());
+            }
+            finally {
+                this.isWriting.set(false);
+            }
+        });
+        return true;
+    }
+
+    /**
+     * @return true if a save is being written.
+     */
+    public boolean isWriting() {
+        return this.isWriting.get();
+    }
+
+    /**
+     * @return The number of saves written.
+     */
+    public int getSaves() {
+        return this.saves;
+    }
+
+    /**
+     * @return The error of the last save if it failed, null otherwise.
+     */
+    public IOException getLastError() {
+        return this.lastError;
+    }
+
+    /**
+     * Waits for the save being written, if any, and stops the writer thread.
+     */
+    @Override
+    public void close() {
+        this.executor.shutdown();
+        try {
+            this.executor.awaitTermination(10, TimeUnit.SECONDS);
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
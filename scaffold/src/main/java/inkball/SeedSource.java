@@ -0,0 +1,94 @@
+package inkball;
+
+import processing.data.JSONObject;
+
+import java.util.SplittableRandom;
+
+/**
+ * <p>Represents the random source of a game session, from which every level's world gets its seed.</p>
+ * The session seed is given with {@code --seed} on the command line, or the top-level "seed" of the configuration,
+ * or picked at random otherwise. The same session seed gives the same seeds for every level and restart,
+ * so a session plays out the same way every run.<br>
+ *
+ * Seeds are drawn from a java.util.SplittableRandom, so consecutive seeds are unrelated (unlike consecutive
+ * seeds of java.util.Random), and split() gives independent sources for simulations run in parallel.<br>
+ *
+ * Note: Not thread-safe. Split the source instead of sharing it between threads.
+ */
+public class SeedSource {
+    private final long seed;
+    private final SplittableRandom random;
+
+    /**
+     * Constructor for a SeedSource object.
+     * @param seed The session seed.
+     */
+    public SeedSource(long seed) {
+        this(seed, new SplittableRandom(seed));
+    }
+
+    private SeedSource(long seed, SplittableRandom random) {
+        this.seed = seed;
+        this.random = random;
+    }
+
+    /**
+     * Creates the source of a session from the command line and the configuration.<br>
+     *
+     * @param json The configuration, whose top-level "seed" is used if the command line has none. May be null.
+     * @param args The command-line arguments, which may contain {@code --seed} followed by the seed. May be null.
+     * @return The source with the seed of the command line, else of the configuration, else a random seed.
+     * @throws IllegalArgumentException if the command-line seed is missing or not a whole number.
+     */
+    public static SeedSource create(JSONObject json, String[] args) {
+        if (args != null) {
+            for (int i = 0; i < args.length; i++) {
+                if (!args[i].equals("--seed")) {
+                    continue;
+                }
+                if (i + 1 >= args.length) {
+                    throw new IllegalArgumentException("Missing value for --seed!");
+                }
+                try {
+                    return new SeedSource(Long.parseLong(args[i + 1]));
+                }
+                catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("Seed must be a whole number!");
+                }
+            }
+        }
+
+        try {
+            if (json != null && json.hasKey("seed")) {
+                return new SeedSource(json.getLong("seed"));
+            }
+        }
+        catch (Exception e) {
+            // not a number, so the session gets a random seed
+        }
+        return new SeedSource(new SplittableRandom().nextLong());
+    }
+
+    /**
+     * @return The session seed this source was created with, which recreates it.
+     */
+    public long getSeed() {
+        return this.seed;
+    }
+
+    /**
+     * @return The seed for the next world, see GameWorld::setSeed.
+     */
+    public long nextSeed() {
+        return this.random.nextLong();
+    }
+
+    /**
+     * @return A new source whose seeds are independent of this one's, e.g. for a simulation on another thread.
+     * Splitting the same source in the same order always gives the same sources.
+     */
+    public SeedSource split() {
+        SplittableRandom child = this.random.split();
+        return new SeedSource(this.seed, child);
+    }
+}
@@ -0,0 +1,180 @@
+package inkball;
+
+import java.util.ArrayList;
+
+/**
+ * Represents a static uniform grid index over wall and border line segments.
+ * Every cell lists the segments that a ball could collide with while its look-ahead point
+ * (centre + vector) is inside that cell, so a ball only needs to test the segments of one cell
+ * instead of every segment on the board.<br>
+ *
+ * Note: Ball::willCollide treats a segment as an ellipse with the segment endpoints as foci,
+ * so each segment is registered in every cell within getReach() of it.
+ * Segments in a cell are kept in insertion order.
+ */
+public class SegmentGrid {
+    private final float minX;
+    private final float minY;
+    private final float cellSize;
+    private final int cols;
+    private final int rows;
+    private final ArrayList<ArrayList<Line>> cells;
+
+    private static final ArrayList<Line> EMPTY = new ArrayList<>();
+
+    /**
+     * Constructor for a SegmentGrid object covering the given area.
+     *
+     * @param minX The left edge of the area, in 1px units and relative to the app window.
+     * @param minY The top edge of the area.
+     * @param maxX The right edge of the area.
+     * @param maxY The bottom edge of the area.
+     * @param cellSize The width and height of one grid cell, usually App.CELLSIZE.
+     */
+    public SegmentGrid(float minX, float minY, float maxX, float maxY, float cellSize) {
+        this.minX = minX;
+        this.minY = minY;
+        this.cellSize = cellSize;
+        this.cols = Math.max(1, (int) Math.ceil((maxX - minX) / cellSize));
+        this.rows = Math.max(1, (int) Math.ceil((maxY - minY) / cellSize));
+        this.cells = new ArrayList<>(this.cols * this.rows);
+        for (int i = 0; i < this.cols * this.rows; i++) {
+            this.cells.add(new ArrayList<>());
+        }
+    }
+
+    /**
+     * Calculates how far from a segment a ball's look-ahead point can be while still colliding with it.
+     * This is the semi-minor axis of the ellipse |p - P1| + |p - P2| &lt; ARTIFICIAL_RADIUS + |P1 - P2|,
+     * or the line's contact distance if that is larger, plus 1px to absorb rounding.
+     *
+     * @param line The Line object to measure.
+     * @return The collision reach of the line in pixels.
+     */
+    public static float getReach(Line line) {
+        float dx = line.getP2()[0] - line.getP1()[0];
+        float dy = line.getP2()[1] - line.getP1()[1];
+        return Math.max(Ball.getContactDistance(Math.sqrt(dx * dx + dy * dy)), line.getContactDistance()) + 1;
+    }
+
+    /**
+     * Adds a line segment to every cell within its collision reach.
+     * @param line The Line object to add.
+     */
+    public void insert(Line line) {
+        float reach = getReach(line);
+        int col0 = this.toCol(Math.min(line.getP1()[0], line.getP2()[0]) - reach);
+        int col1 = this.toCol(Math.max(line.getP1()[0], line.getP2()[0]) + reach);
+        int row0 = this.toRow(Math.min(line.getP1()[1], line.getP2()[1]) - reach);
+        int row1 = this.toRow(Math.max(line.getP1()[1], line.getP2()[1]) + reach);
+        for (int row = row0; row <= row1; row++) {
+            for (int col = col0; col <= col1; col++) {
+                this.cells.get(row * this.cols + col).add(line);
+            }
+        }
+    }
+
+    /**
+     * Removes this exact Line object from every cell it was added to.
+     * Lines are compared by reference, since neighbouring walls can have equal edges.
+     * @param line The Line object to remove.
+     */
+    public void remove(Line line) {
+        float reach = getReach(line);
+        int col0 = this.toCol(Math.min(line.getP1()[0], line.getP2()[0]) - reach);
+        int col1 = this.toCol(Math.max(line.getP1()[0], line.getP2()[0]) + reach);
+        int row0 = this.toRow(Math.min(line.getP1()[1], line.getP2()[1]) - reach);
+        int row1 = this.toRow(Math.max(line.getP1()[1], line.getP2()[1]) + reach);
+        for (int row = row0; row <= row1; row++) {
+            for (int col = col0; col <= col1; col++) {
+                ArrayList<Line> cell = this.cells.get(row * this.cols + col);
+                for (int i = cell.size() - 1; i >= 0; i--) {
+                    if (cell.get(i) == line) {
+                        cell.remove(i);
+                        break;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets the segments that a look-ahead point could collide with.
+     *
+     * @param x The x-coordinate of the point.
+     * @param y The y-coordinate of the point.
+     * @return The segments of the cell containing the point, in insertion order.
+     *         Returns an empty list if the point is outside the grid, since no segment reaches there.
+     *         The returned list must not be modified.
+     */
+    public ArrayList<Line> query(float x, float y) {
+        float col = (x - this.minX) / this.cellSize;
+        float row = (y - this.minY) / this.cellSize;
+        if (col < 0 || row < 0 || col >= this.cols || row >= this.rows) {
+            return EMPTY;
+        }
+        return this.cells.get((int) row * this.cols + (int) col);
+    }
+
+    /**
+     * Gets the segments that a look-ahead moving along a path could collide with, by walking every cell
+     * the path passes through (Amanatides and Woo's grid traversal). Used for the swept test of fast balls.
+     *
+     * @param x0 The x-coordinate of the start of the path.
+     * @param y0 The y-coordinate of the start of the path.
+     * @param x1 The x-coordinate of the end of the path.
+     * @param y1 The y-coordinate of the end of the path.
+     * @param out The list the segments are added to. A segment in several cells is added once per cell.
+     */
+    public void queryPath(float x0, float y0, float x1, float y1, ArrayList<Line> out) {
+        float gx0 = (x0 - this.minX) / this.cellSize;
+        float gy0 = (y0 - this.minY) / this.cellSize;
+        float gx1 = (x1 - this.minX) / this.cellSize;
+        float gy1 = (y1 - this.minY) / this.cellSize;
+        int col = (int) Math.floor(gx0);
+        int row = (int) Math.floor(gy0);
+        int endCol = (int) Math.floor(gx1);
+        int endRow = (int) Math.floor(gy1);
+
+        float dx = gx1 - gx0;
+        float dy = gy1 - gy0;
+        int stepCol = dx > 0 ? 1 : -1;
+        int stepRow = dy > 0 ? 1 : -1;
+        // How far along the path the next column and row boundaries are, and the distance between boundaries
+        float nextCol = dx == 0 ? Float.MAX_VALUE : (dx > 0 ? (col + 1 - gx0) / dx : (gx0 - col) / -dx);
+        float nextRow = dy == 0 ? Float.MAX_VALUE : (dy > 0 ? (row + 1 - gy0) / dy : (gy0 - row) / -dy);
+        float deltaCol = dx == 0 ? Float.MAX_VALUE : 1 / Math.abs(dx);
+        float deltaRow = dy == 0 ? Float.MAX_VALUE : 1 / Math.abs(dy);
+
+        int cellsLeft = Math.abs(endCol - col) + Math.abs(endRow - row);
+        while (true) {
+            if (col >= 0 && row >= 0 && col < this.cols && row < this.rows) {
+                ArrayList<Line> cell = this.cells.get(row * this.cols + col);
+                for (int i = 0; i < cell.size(); i++) {
+                    out.add(cell.get(i));
+                }
+            }
+            if (cellsLeft-- <= 0) {
+                break;
+            }
+            if (nextCol < nextRow) {
+                col += stepCol;
+                nextCol += deltaCol;
+            }
+            else {
+                row += stepRow;
+                nextRow += deltaRow;
+            }
+        }
+    }
+
+    private int toCol(float x) {
+        int col = (int) Math.floor((x - this.minX) / this.cellSize);
+        return Math.max(0, Math.min(this.cols - 1, col));
+    }
+
+    private int toRow(float y) {
+        int row = (int) Math.floor((y - this.minY) / this.cellSize);
+        return Math.max(0, Math.min(this.rows - 1, row));
+    }
+}
@@ -0,0 +1,82 @@
+package inkball;
+
+/**
+ * Represents a fixed-timestep clock which decouples the simulation tick rate from the render frame rate.
+ * Real time is collected in an accumulator and spent in whole ticks, so the simulation keeps a steady
+ * number of ticks per second even when frames are dropped. The leftover fraction of a tick is used
+ * to interpolate ball positions when rendering.
+ */
+public class SimulationClock {
+    /**
+     * The most real time that is simulated in one frame, in nanoseconds.
+     * Prevents a long stall (e.g. dragging the window) from triggering a burst of catch-up ticks.
+     */
+    public static final long MAX_FRAME_NANOS = 250_000_000L;
+
+    private final int tickRate;
+    private final long tickNanos;
+
+    /**
+     * Represents real time that has passed but has not been simulated yet, in nanoseconds.
+     */
+    private long accumulator;
+    private long lastTime;
+    private boolean isRunning;
+
+    /**
+     * Constructor for a SimulationClock object.
+     * @param tickRate The number of simulation ticks per second.
+     * @throws IllegalArgumentException if tickRate is not positive.
+     */
+    public SimulationClock(int tickRate) {
+        if (tickRate <= 0) {
+            throw new IllegalArgumentException("Tick rate must be positive!");
+        }
+        this.tickRate = tickRate;
+        this.tickNanos = 1_000_000_000L / tickRate;
+        this.reset();
+    }
+
+    public int getTickRate() {
+        return this.tickRate;
+    }
+
+    /**
+     * Adds the real time passed since the last call to the accumulator,
+     * and takes as many whole ticks out of it as possible.<br>
+     *
+     * @param now The current time in nanoseconds, e.g. from System.nanoTime().
+     * @return The number of simulation ticks to run this frame.
+     *         The first call after construction or reset() only starts the clock and returns 0.
+     */
+    public int advance(long now) {
+        if (!this.isRunning) {
+            this.isRunning = true;
+            this.lastTime = now;
+            return 0;
+        }
+
+        long elapsed = Math.max(0, now - this.lastTime);
+        this.lastTime = now;
+        this.accumulator += Math.min(elapsed, MAX_FRAME_NANOS);
+
+        int ticks = (int) (this.accumulator / this.tickNanos);
+        this.accumulator -= ticks * this.tickNanos;
+        return ticks;
+    }
+
+    /**
+     * @return How far the clock is between the last tick and the next one, from 0 (inclusive) to 1 (exclusive).
+     */
+    public float getAlpha() {
+        return (float) this.accumulator / this.tickNanos;
+    }
+
+    /**
+     * Stops the clock, e.g. when the game is paused, so that the paused time is not simulated afterwards.
+     */
+    public void reset() {
+        this.isRunning = false;
+        this.accumulator = 0;
+    }
+}
@@ -1,7 +1,5 @@
 package inkball;
 
-import processing.core.PImage;
-
 /**
  * Child class of Tile. Has no inward functionality or specific logic handling.
  */
@@ -11,8 +9,7 @@ public class Spawner extends Tile {
     }
 
     @Override
-    public void draw(App app) {
-        PImage tile = app.getSprite("entrypoint");
-        app.image(tile, x*App.CELLSIZE, y*App.CELLSIZE+App.TOPBAR, App.CELLSIZE, App.CELLSIZE);
+    public Sprite getSprite() {
+        return Sprite.ENTRYPOINT;
     }
-}
\ No newline at end of file
+}
\ No newline at end of file
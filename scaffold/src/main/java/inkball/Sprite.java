@@ -0,0 +1,98 @@
+package inkball;
+
+/**
+ * Represents every sprite of the game as a region of the sprite sheet "inkball_spritesheet.png", see SpriteAtlas.<br>
+ * Sprites are looked up by colour through ball(), hole() and wall(), which index arrays, so drawing a sprite
+ * needs neither a name built from strings nor a hash lookup.
+ * <ul>
+ *   <li>Column 1: tile, entrypoint and the balls (24 by 24).</li>
+ *   <li>Column 2: the holes (64 by 64).</li>
+ *   <li>Column 3: the walls, then the damaged walls.</li>
+ * </ul>
+ * Regions are separated by a 1 pixel gap.
+ */
+public enum Sprite {
+    TILE(1, 1, 32),
+    ENTRYPOINT(1, 34, 32),
+    BALL0(1, 157, 24),
+    BALL1(1, 181, 24),
+    BALL2(1, 205, 24),
+    BALL3(1, 229, 24),
+    BALL4(1, 253, 24),
+    HOLE0(34, 1, 64),
+    HOLE1(34, 66, 64),
+    HOLE2(34, 131, 64),
+    HOLE3(34, 196, 64),
+    HOLE4(34, 261, 64),
+    WALL0(99, 1, 32),
+    WALL1(99, 34, 32),
+    WALL2(99, 67, 32),
+    WALL3(99, 100, 32),
+    WALL4(99, 133, 32),
+    WALL0_DAMAGED(99, 166, 32),
+    WALL1_DAMAGED(99, 199, 32),
+    WALL2_DAMAGED(99, 232, 32),
+    WALL3_DAMAGED(99, 265, 32),
+    WALL4_DAMAGED(99, 298, 32);
+
+    private static final Sprite[] BALLS = {BALL0, BALL1, BALL2, BALL3, BALL4};
+    private static final Sprite[] HOLES = {HOLE0, HOLE1, HOLE2, HOLE3, HOLE4};
+    private static final Sprite[] WALLS = {WALL0, WALL1, WALL2, WALL3, WALL4};
+    private static final Sprite[] DAMAGED_WALLS = {WALL0_DAMAGED, WALL1_DAMAGED, WALL2_DAMAGED, WALL3_DAMAGED, WALL4_DAMAGED};
+
+    private final int x;
+    private final int y;
+    private final int size;
+
+    Sprite(int x, int y, int size) {
+        this.x = x;
+        this.y = y;
+        this.size = size;
+    }
+
+    /**
+     * @return The x coordinate of the sprite's top left corner in the sprite sheet.
+     */
+    public int getX() {
+        return this.x;
+    }
+
+    /**
+     * @return The y coordinate of the sprite's top left corner in the sprite sheet.
+     */
+    public int getY() {
+        return this.y;
+    }
+
+    /**
+     * @return The width and height of the sprite in the sprite sheet, in pixels.
+     */
+    public int getSize() {
+        return this.size;
+    }
+
+    /**
+     * @param colour The colour code of a ball, 0 to 4.
+     * @return The sprite of a ball of that colour.
+     */
+    public static Sprite ball(int colour) {
+        return BALLS[colour];
+    }
+
+    /**
+     * @param colour The colour code of a hole, 0 to 4.
+     * @return The sprite of a hole of that colour, which covers 2 by 2 tiles.
+     */
+    public static Sprite hole(int colour) {
+        return HOLES[colour];
+    }
+
+    /**
+     * @param colour The colour code of a wall, 0 to 4.
+     * @param isDamaged Whether the wall shows damage.
+     * @return The sprite of a wall of that colour.
+     */
+    public static Sprite wall(int colour, boolean isDamaged) {
+        return isDamaged ? DAMAGED_WALLS[colour] : WALLS[colour];
+    }
+}
@@ -0,0 +1,71 @@
+package inkball;
+
+import processing.core.PConstants;
+import processing.core.PImage;
+
+/**
+ * Represents the sprites cut out of the sprite sheet, indexed by Sprite::ordinal.<br>
+ * The sheet is cut once when it is loaded, so getting a sprite while drawing is an array lookup.
+ * The sheet marks transparent pixels with magenta, which become transparent in the cut sprites.
+ */
+public class SpriteAtlas {
+    /**
+     * Represents the colour the sprite sheet uses for transparent pixels.
+     */
+    public static final int TRANSPARENT_KEY = 0xffff00ff;
+
+    private final PImage[] images = new PImage[Sprite.values().length];
+
+    /**
+     * Cuts every sprite out of the sprite sheet, replacing any sprites already set.
+     * @param sheet The sprite sheet image, see Sprite for its layout.
+     * @throws IllegalArgumentException if a sprite lies outside the sheet.
+     */
+    public void load(PImage sheet) {
+        sheet.loadPixels();
+        for (Sprite sprite : Sprite.values()) {
+            if (sprite.getX() + sprite.getSize() > sheet.width || sprite.getY() + sprite.getSize() > sheet.height) {
+                throw new IllegalArgumentException("Sprite sheet is too small for " + sprite + "!");
+            }
+            PImage image = new PImage(sprite.getSize(), sprite.getSize(), PConstants.ARGB);
+            for (int j = 0; j < sprite.getSize(); j++) {
+                int from = (sprite.getY() + j) * sheet.width + sprite.getX();
+                for (int i = 0; i < sprite.getSize(); i++) {
+                    int pixel = sheet.pixels[from + i];
+                    image.pixels[j * sprite.getSize() + i] = pixel == TRANSPARENT_KEY ? 0 : pixel;
+                }
+            }
+            image.updatePixels();
+            this.images[sprite.ordinal()] = image;
+        }
+    }
+
+    /**
+     * @return true if every sprite has an image.
+     */
+    public boolean isLoaded() {
+        for (PImage image : this.images) {
+            if (image == null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @param sprite The sprite to get.
+     * @return The sprite's image, or null if it has not been loaded or set.
+     */
+    public PImage get(Sprite sprite) {
+        return this.images[sprite.ordinal()];
+    }
+
+    /**
+     * Sets the image of a sprite, e.g. a placeholder when there is no sprite sheet to load.
+     * @param sprite The sprite to set.
+     * @param image The sprite's image.
+     */
+    public void set(Sprite sprite, PImage image) {
+        this.images[sprite.ordinal()] = image;
+    }
+}
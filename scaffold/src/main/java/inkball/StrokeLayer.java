@@ -0,0 +1,118 @@
+package inkball;
+
+import processing.core.PConstants;
+import processing.core.PShape;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+/**
+ * Represents the finished player-drawn strokes as retained polylines, so a stroke of hundreds of segments is drawn
+ * with one shape() call instead of one line() call per segment.<br>
+ * A stroke's shape is built once, when the stroke is finished (see App::mouseReleased), and dropped when the stroke
+ * is removed (see App::removeLine). Strokes that enter the world another way, e.g. from a saved game, get their shape
+ * the first time they are drawn, and shapes of strokes removed by balls are dropped when they are next drawn.
+ */
+public class StrokeLayer {
+    /**
+     * Represents the width of drawn strokes, see Line::draw.
+     */
+    public static final float STROKE_WEIGHT = 10;
+
+    private final IdentityHashMap<ArrayList<Line>, PShape> shapes = new IdentityHashMap<>();
+
+    /**
+     * Builds the shape of a finished stroke.
+     * @param app The App that creates the shape.
+     * @param stroke The stroke, compared by reference.
+     * @return The stroke's shape.
+     */
+    public PShape add(App app, ArrayList<Line> stroke) {
+        PShape shape = build(app, stroke);
+        this.shapes.put(stroke, shape);
+        return shape;
+    }
+
+    /**
+     * Drops the shape of a removed stroke.
+     * @param stroke The stroke, compared by reference.
+     */
+    public void remove(ArrayList<Line> stroke) {
+        this.shapes.remove(stroke);
+    }
+
+    /**
+     * @return The number of strokes with a shape.
+     */
+    public int size() {
+        return this.shapes.size();
+    }
+
+    /**
+     * Draws every stroke's shape, building the shapes strokes do not have yet,
+     * then drops the shapes of strokes that are no longer drawn.
+     * @param app The App to draw onto.
+     * @param strokes The strokes to draw, see GameWorld::getDrawnLines.
+     */
+    public void draw(App app, ArrayList<ArrayList<Line>> strokes) {
+        for (ArrayList<Line> stroke : strokes) {
+            PShape shape = this.shapes.get(stroke);
+            if (shape == null) {
+                shape = this.add(app, stroke);
+            }
+            app.shape(shape);
+        }
+        if (this.shapes.size() > strokes.size()) {
+            Set<ArrayList<Line>> kept = Collections.newSetFromMap(new IdentityHashMap<>());
+            kept.addAll(strokes);
+            this.shapes.keySet().retainAll(kept);
+        }
+    }
+
+    /**
+     * Builds an open polyline through the drawn segments of a stroke. Segments that do not continue from the
+     * previous one start a new polyline, and the polylines are grouped into one shape.<br>
+     *
+     * @param app The App that creates the shape.
+     * @param stroke The stroke's segments, in the order they were drawn.
+     * @return The polyline, or a group of polylines if the stroke has gaps or no drawn segments.
+     */
+    static PShape build(App app, ArrayList<Line> stroke) {
+        ArrayList<PShape> paths = new ArrayList<>();
+        PShape path = null;
+        float[] last = null;
+        for (Line line : stroke) {
+            if (!line.isDrawn) {
+                continue;
+            }
+            if (path == null || !Arrays.equals(last, line.getP1())) {
+                if (path != null) {
+                    path.endShape();
+                }
+                path = app.createShape();
+                path.beginShape();
+                path.noFill();
+                path.stroke(line.getColourTo());
+                path.strokeWeight(STROKE_WEIGHT);
+                path.vertex(line.getP1()[0], line.getP1()[1]);
+                paths.add(path);
+            }
+            path.vertex(line.getP2()[0], line.getP2()[1]);
+            last = line.getP2();
+        }
+        if (path != null) {
+            path.endShape();
+        }
+        if (paths.size() == 1) {
+            return paths.get(0);
+        }
+        PShape group = app.createShape(PConstants.GROUP);
+        for (PShape child : paths) {
+            group.addChild(child);
+        }
+        return group;
+    }
+}
@@ -0,0 +1,138 @@
+package inkball;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Simplifies player-drawn strokes with the Ramer-Douglas-Peucker algorithm before they are committed,
+ * see App::mouseReleased.<br>
+ * A stroke is recorded as one segment per frame the mouse is dragged, so a slow stroke is hundreds of short, nearly
+ * collinear segments that every ball has to test. Only the points further than the tolerance from the simplified
+ * stroke are kept, so the number of segments follows the shape of the stroke rather than how long it took to draw.
+ * <ul>
+ *   <li>The first and last point of the stroke are always kept.</li>
+ *   <li>Segments that do not continue from the previous one, or differ in colour, are simplified separately.</li>
+ *   <li>The kept points are the stroke's own point arrays, so simplified segments still meet exactly.</li>
+ *   <li>A segment that replaces several drawn ones keeps their average contact distance, see Line::getContactDistance.
+ *       Balls then bounce as far from it as from the drawn segments, rather than from the wider ellipse
+ *       Ball::willCollide puts around a long line.</li>
+ * </ul>
+ */
+public class StrokeSimplifier {
+
+    /**
+     * Simplifies a stroke.<br>
+     *
+     * @param stroke The stroke's segments, in the order they were drawn.
+     * @param tolerance The furthest, in pixels, a dropped point may be from the simplified stroke.
+     *                  0 or less keeps every point.
+     * @return A new stroke with the kept segments, or the same stroke if nothing can be simplified.
+     */
+    public static ArrayList<Line> simplify(ArrayList<Line> stroke, float tolerance) {
+        if (tolerance <= 0 || stroke.size() < 2) {
+            return stroke;
+        }
+        ArrayList<Line> simplified = new ArrayList<>();
+        int start = 0;
+        for (int i = 1; i <= stroke.size(); i++) {
+            if (i == stroke.size() || !continues(stroke.get(i - 1), stroke.get(i))) {
+                simplifyRun(stroke, start, i, tolerance, simplified);
+                start = i;
+            }
+        }
+        return simplified.size() == stroke.size() ? stroke : simplified;
+    }
+
+    /**
+     * @return true if the next segment starts where the previous one ends and is drawn the same way.
+     */
+    private static boolean continues(Line previous, Line next) {
+        return previous.isDrawn == next.isDrawn && previous.getColourTo() == next.getColourTo()
+                && Arrays.equals(previous.getP2(), next.getP1());
+    }
+
+    /**
+     * Simplifies the connected segments from index from (inclusive) to index to (exclusive) and adds the kept
+     * segments to out. Uses a stack of point ranges instead of recursion, so long strokes cannot overflow the stack.
+     */
+    private static void simplifyRun(ArrayList<Line> stroke, int from, int to, float tolerance, ArrayList<Line> out) {
+        int count = to - from + 1;
+        float[][] points = new float[count][];
+        for (int i = 0; i < count - 1; i++) {
+            points[i] = stroke.get(from + i).getP1();
+        }
+        points[count - 1] = stroke.get(to - 1).getP2();
+
+        boolean[] kept = new boolean[count];
+        kept[0] = true;
+        kept[count - 1] = true;
+        int[] stack = new int[2 * count];
+        int top = 0;
+        stack[top++] = 0;
+        stack[top++] = count - 1;
+        while (top > 0) {
+            int last = stack[--top];
+            int first = stack[--top];
+            int furthest = -1;
+            float furthestDistance = tolerance;
+            for (int i = first + 1; i < last; i++) {
+                float distance = distanceToSegment(points[i], points[first], points[last]);
+                if (distance > furthestDistance) {
+                    furthest = i;
+                    furthestDistance = distance;
+                }
+            }
+            if (furthest != -1) {
+                kept[furthest] = true;
+                stack[top++] = first;
+                stack[top++] = furthest;
+                stack[top++] = furthest;
+                stack[top++] = last;
+            }
+        }
+
+        Line template = stroke.get(from);
+        int previous = 0;
+        float contactDistance = 0;
+        for (int i = 1; i < count; i++) {
+            Line drawn = stroke.get(from + i - 1);
+            contactDistance += drawn.getContactDistance() > 0 ? drawn.getContactDistance()
+                    : Ball.getContactDistance(App.getDistance(points[i - 1], points[i]));
+            if (kept[i]) {
+                Line line = new Line(points[previous], points[i], template.getColourTo(), template.isDrawn);
+                if (i - previous > 1) {
+                    line.setContactDistance(contactDistance / (i - previous));
+                }
+                else {
+                    line.setContactDistance(drawn.getContactDistance());
+                }
+                out.add(line);
+                previous = i;
+                contactDistance = 0;
+            }
+        }
+    }
+
+    /**
+     * Calculates the distance from a point to a segment. A segment whose ends are the same point (e.g. a stroke that
+     * loops back to its start) gives the distance between the two points.<br>
+     *
+     * @param point The point [x, y].
+     * @param start The start of the segment [x, y].
+     * @param end The end of the segment [x, y].
+     * @return The distance from the point to the closest point of the segment.
+     */
+    static float distanceToSegment(float[] point, float[] start, float[] end) {
+        float dx = end[0] - start[0];
+        float dy = end[1] - start[1];
+        float lengthSquared = dx * dx + dy * dy;
+        float t = 0;
+        if (lengthSquared > 0) {
+            t = ((point[0] - start[0]) * dx + (point[1] - start[1]) * dy) / lengthSquared;
+            t = Math.max(0, Math.min(1, t));
+        }
+        float x = start[0] + t * dx - point[0];
+        float y = start[1] + t * dy - point[1];
+        return (float) Math.sqrt(x * x + y * y);
+    }
+}
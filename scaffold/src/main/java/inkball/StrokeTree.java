@@ -0,0 +1,372 @@
+package inkball;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+
+/**
+ * Represents a dynamic AABB tree (bounding volume hierarchy) over the segments of player-drawn strokes.
+ * Strokes are inserted when the player finishes drawing them and deleted when a ball hits them or the
+ * player erases them, so queries stay logarithmic in the number of drawn segments.<br>
+ *
+ * Note: Each leaf box is a segment's bounding box grown by SegmentGrid::getReach, so any point a ball or the
+ * mouse can hit the segment from is inside the box. Every leaf carries an order key so that callers can
+ * prefer the most recently drawn segment, matching the order of drawnLines.
+ */
+public class StrokeTree {
+
+    /**
+     * Represents one stroke segment stored in the tree.
+     */
+    public static class Entry {
+        private final Line line;
+        private final ArrayList<Line> stroke;
+        private final long order;
+
+        private Entry(Line line, ArrayList<Line> stroke, long order) {
+            this.line = line;
+            this.stroke = stroke;
+            this.order = order;
+        }
+
+        public Line getLine() {
+            return this.line;
+        }
+
+        public ArrayList<Line> getStroke() {
+            return this.stroke;
+        }
+
+        /**
+         * @return A key which is larger for later strokes, and for later segments within the same stroke.
+         */
+        public long getOrder() {
+            return this.order;
+        }
+    }
+
+    /**
+     * Represents the work list of one query. Queries through the same stack must not run at the same time,
+     * so each thread searching the tree at once needs its own.
+     */
+    public static class QueryStack {
+        private final ArrayList<Node> nodes = new ArrayList<>();
+    }
+
+    private static class Node {
+        float minX;
+        float minY;
+        float maxX;
+        float maxY;
+        Node parent;
+        Node left;
+        Node right;
+        Entry entry;
+        int height;
+
+        boolean isLeaf() {
+            return this.left == null;
+        }
+    }
+
+    private Node root;
+    private final IdentityHashMap<ArrayList<Line>, Node[]> strokeLeaves = new IdentityHashMap<>();
+    private long nextStroke = 0;
+    private final QueryStack stack = new QueryStack();
+
+    public int getStrokeCount() {
+        return this.strokeLeaves.size();
+    }
+
+    /**
+     * @return The height of the tree, 0 if empty. Stays logarithmic in the number of segments.
+     */
+    public int getHeight() {
+        return this.root == null ? 0 : this.root.height + 1;
+    }
+
+    /**
+     * Adds every segment of a stroke to the tree. A stroke that is already in the tree is ignored.
+     * @param stroke The connected line segments making up the drawn line.
+     */
+    public void insertStroke(ArrayList<Line> stroke) {
+        if (this.strokeLeaves.containsKey(stroke)) {
+            return;
+        }
+
+        long strokeOrder = this.nextStroke++;
+        Node[] leaves = new Node[stroke.size()];
+        for (int i = 0; i < stroke.size(); i++) {
+            Line line = stroke.get(i);
+            float reach = SegmentGrid.getReach(line);
+            Node leaf = new Node();
+            leaf.minX = Math.min(line.getP1()[0], line.getP2()[0]) - reach;
+            leaf.minY = Math.min(line.getP1()[1], line.getP2()[1]) - reach;
+            leaf.maxX = Math.max(line.getP1()[0], line.getP2()[0]) + reach;
+            leaf.maxY = Math.max(line.getP1()[1], line.getP2()[1]) + reach;
+            leaf.entry = new Entry(line, stroke, (strokeOrder << 32) | i);
+            this.insertLeaf(leaf);
+            leaves[i] = leaf;
+        }
+        this.strokeLeaves.put(stroke, leaves);
+    }
+
+    /**
+     * Removes every segment of a stroke from the tree. Strokes are compared by reference.
+     * @param stroke The stroke to remove.
+     * @return true if the stroke was in the tree.
+     */
+    public boolean removeStroke(ArrayList<Line> stroke) {
+        Node[] leaves = this.strokeLeaves.remove(stroke);
+        if (leaves == null) {
+            return false;
+        }
+        for (Node leaf : leaves) {
+            this.removeLeaf(leaf);
+        }
+        return true;
+    }
+
+    /**
+     * Finds every segment whose box overlaps a circle. A radius of 0 is a point query.
+     *
+     * @param x The x-coordinate of the circle centre.
+     * @param y The y-coordinate of the circle centre.
+     * @param radius The radius of the circle.
+     * @param out The list the matching entries are added to, in no particular order.
+     */
+    public void query(float x, float y, float radius, ArrayList<Entry> out) {
+        this.query(x, y, radius, out, this.stack);
+    }
+
+    /**
+     * Overloaded method: Finds every segment whose box overlaps a circle, using the caller's work list.
+     * Several threads may query the tree at once this way, as long as none of them changes the tree.
+     *
+     * @param x The x-coordinate of the circle centre.
+     * @param y The y-coordinate of the circle centre.
+     * @param radius The radius of the circle.
+     * @param out The list the matching entries are added to, in no particular order.
+     * @param stack The work list to search with.
+     */
+    public void query(float x, float y, float radius, ArrayList<Entry> out, QueryStack stack) {
+        if (this.root == null) {
+            return;
+        }
+
+        ArrayList<Node> nodes = stack.nodes;
+        nodes.clear();
+        nodes.add(this.root);
+        while (!nodes.isEmpty()) {
+            Node node = nodes.remove(nodes.size() - 1);
+            float dx = Math.max(0, Math.max(node.minX - x, x - node.maxX));
+            float dy = Math.max(0, Math.max(node.minY - y, y - node.maxY));
+            if (dx * dx + dy * dy > radius * radius) {
+                continue;
+            }
+            if (node.isLeaf()) {
+                out.add(node.entry);
+            }
+            else {
+                nodes.add(node.left);
+                nodes.add(node.right);
+            }
+        }
+    }
+
+    private void insertLeaf(Node leaf) {
+        if (this.root == null) {
+            this.root = leaf;
+            leaf.parent = null;
+            return;
+        }
+
+        // Find the cheapest sibling by the surface area heuristic (perimeter in 2D)
+        Node index = this.root;
+        while (!index.isLeaf()) {
+            float perimeter = perimeter(index);
+            float combined = unionPerimeter(index, leaf);
+            float cost = 2 * combined;
+            float inheritanceCost = 2 * (combined - perimeter);
+
+            float costLeft = descentCost(index.left, leaf) + inheritanceCost;
+            float costRight = descentCost(index.right, leaf) + inheritanceCost;
+
+            if (cost < costLeft && cost < costRight) {
+                break;
+            }
+            index = costLeft < costRight ? index.left : index.right;
+        }
+
+        Node sibling = index;
+        Node oldParent = sibling.parent;
+        Node newParent = new Node();
+        newParent.parent = oldParent;
+        newParent.height = sibling.height + 1;
+        newParent.left = sibling;
+        newParent.right = leaf;
+        sibling.parent = newParent;
+        leaf.parent = newParent;
+        setUnion(newParent, sibling, leaf);
+
+        if (oldParent == null) {
+            this.root = newParent;
+        }
+        else if (oldParent.left == sibling) {
+            oldParent.left = newParent;
+        }
+        else {
+            oldParent.right = newParent;
+        }
+
+        this.refit(leaf.parent);
+    }
+
+    private void removeLeaf(Node leaf) {
+        if (leaf == this.root) {
+            this.root = null;
+            return;
+        }
+
+        Node parent = leaf.parent;
+        Node grandParent = parent.parent;
+        Node sibling = parent.left == leaf ? parent.right : parent.left;
+        leaf.parent = null;
+
+        if (grandParent == null) {
+            this.root = sibling;
+            sibling.parent = null;
+            return;
+        }
+
+        if (grandParent.left == parent) {
+            grandParent.left = sibling;
+        }
+        else {
+            grandParent.right = sibling;
+        }
+        sibling.parent = grandParent;
+        this.refit(grandParent);
+    }
+
+    /**
+     * Walks up from a node, rebalancing and recalculating heights and boxes on the way to the root.
+     */
+    private void refit(Node index) {
+        while (index != null) {
+            index = this.balance(index);
+            index.height = 1 + Math.max(index.left.height, index.right.height);
+            setUnion(index, index.left, index.right);
+            index = index.parent;
+        }
+    }
+
+    /**
+     * Performs a left or right rotation if node A is imbalanced.
+     * @return The node now at A's position in the tree.
+     */
+    private Node balance(Node a) {
+        if (a.isLeaf() || a.height < 2) {
+            return a;
+        }
+
+        Node b = a.left;
+        Node c = a.right;
+        int balance = c.height - b.height;
+
+        if (balance > 1) { // Rotate C up
+            Node f = c.left;
+            Node g = c.right;
+            c.left = a;
+            c.parent = a.parent;
+            a.parent = c;
+            this.replaceChild(c.parent, a, c);
+
+            if (f.height > g.height) {
+                c.right = f;
+                a.right = g;
+                g.parent = a;
+                setUnion(a, b, g);
+                setUnion(c, a, f);
+                a.height = 1 + Math.max(b.height, g.height);
+                c.height = 1 + Math.max(a.height, f.height);
+            }
+            else {
+                c.right = g;
+                a.right = f;
+                f.parent = a;
+                setUnion(a, b, f);
+                setUnion(c, a, g);
+                a.height = 1 + Math.max(b.height, f.height);
+                c.height = 1 + Math.max(a.height, g.height);
+            }
+            return c;
+        }
+
+        if (balance < -1) { // Rotate B up
+            Node d = b.left;
+            Node e = b.right;
+            b.left = a;
+            b.parent = a.parent;
+            a.parent = b;
+            this.replaceChild(b.parent, a, b);
+
+            if (d.height > e.height) {
+                b.right = d;
+                a.left = e;
+                e.parent = a;
+                setUnion(a, e, c);
+                setUnion(b, a, d);
+                a.height = 1 + Math.max(e.height, c.height);
+                b.height = 1 + Math.max(a.height, d.height);
+            }
+            else {
+                b.right = e;
+                a.left = d;
+                d.parent = a;
+                setUnion(a, d, c);
+                setUnion(b, a, e);
+                a.height = 1 + Math.max(d.height, c.height);
+                b.height = 1 + Math.max(a.height, e.height);
+            }
+            return b;
+        }
+
+        return a;
+    }
+
+    private void replaceChild(Node parent, Node oldChild, Node newChild) {
+        if (parent == null) {
+            this.root = newChild;
+        }
+        else if (parent.left == oldChild) {
+            parent.left = newChild;
+        }
+        else {
+            parent.right = newChild;
+        }
+    }
+
+    private static float descentCost(Node child, Node leaf) {
+        if (child.isLeaf()) {
+            return unionPerimeter(child, leaf);
+        }
+        return unionPerimeter(child, leaf) - perimeter(child);
+    }
+
+    private static float perimeter(Node node) {
+        return 2 * ((node.maxX - node.minX) + (node.maxY - node.minY));
+    }
+
+    private static float unionPerimeter(Node a, Node b) {
+        float width = Math.max(a.maxX, b.maxX) - Math.min(a.minX, b.minX);
+        float height = Math.max(a.maxY, b.maxY) - Math.min(a.minY, b.minY);
+        return 2 * (width + height);
+    }
+
+    private static void setUnion(Node node, Node a, Node b) {
+        node.minX = Math.min(a.minX, b.minX);
+        node.minY = Math.min(a.minY, b.minY);
+        node.maxX = Math.max(a.maxX, b.maxX);
+        node.maxY = Math.max(a.maxY, b.maxY);
+    }
+}
@@ -2,7 +2,7 @@ package inkball;
 
 /**
  * Represents a tile on the game board.
- * This is an abstract parent class with an abstract draw() method.
+ * This is an abstract parent class; each kind of tile names the sprite it is drawn with.
  */
 public abstract class Tile {
     protected int x;
@@ -13,7 +13,23 @@ public abstract class Tile {
         this.y = y;
     }
 
-    public abstract void draw(App app);
+    /**
+     * @return The sprite drawn at this tile, from the top left of the tile at the sprite's size,
+     * or null if nothing is drawn at this tile (e.g. a part of a hole other than its top left tile).
+     */
+    public abstract Sprite getSprite();
+
+    /**
+     * Draws the tile's sprite onto the window, see BoardLayer for drawing the whole board at once.
+     * @param app The App to draw onto.
+     */
+    public void draw(App app) {
+        Sprite sprite = this.getSprite();
+        if (sprite == null) {
+            return;
+        }
+        app.image(app.getSprite(sprite), x*App.CELLSIZE, y*App.CELLSIZE+App.TOPBAR, sprite.getSize(), sprite.getSize());
+    }
 
     public int getX() {
         return this.x;
@@ -23,4 +39,4 @@ public abstract class Tile {
         return this.y;
     }
 
-}
\ No newline at end of file
+}
\ No newline at end of file
@@ -1,7 +1,5 @@
 package inkball;
 
-import processing.core.PImage;
-
 /**
  * This is the child class of Tile. It is responsible for modifying its own attributes.
  * Methods added to implement the extension, Bricks.
@@ -13,6 +11,12 @@ public class Wall extends Tile {
      */
     private int hp;
 
+    /**
+     * Represents the index of this wall in GameWorld::getWalls, so it can be removed without a search.
+     * -1 when the wall is not on a board.
+     */
+    int slot = -1;
+
     /**
      * Constructor for Wall object.
      * HP is set to default at 4, to allow for 3 hits/damage before it reaches 0 and is removed.
@@ -29,16 +33,12 @@ public class Wall extends Tile {
         this.hp = 4;
     }
 
+    /**
+     * @return The wall's sprite, which shows damage once the HP drops below 3.
+     */
     @Override
-    public void draw(App app) {
-        PImage tile = app.getSprite("wall"+this.colour);
-        if (this.hp <= 4 && this.hp > 2) {
-            tile = app.getSprite("wall"+this.colour);
-        }
-        else if (this.hp < 3) {
-            tile = app.getSprite("wall"+this.colour+"-damaged");
-        }
-        app.image(tile, x*App.CELLSIZE, y*App.CELLSIZE+App.TOPBAR, App.CELLSIZE, App.CELLSIZE);
+    public Sprite getSprite() {
+        return Sprite.wall(this.colour, this.hp < 3);
     }
 
     public int getColour() {
@@ -49,6 +49,17 @@ public class Wall extends Tile {
         return this.hp;
     }
 
+    /**
+     * @param hp The health points, e.g. of a saved game. Walls at 0 are removed, so 0 is not allowed.
+     * @throws IllegalArgumentException if hp is outside of 1-4.
+     */
+    public void setHP(int hp) {
+        if (hp < 1 || hp > 4) {
+            throw new IllegalArgumentException("HP must be between 1 and 4!");
+        }
+        this.hp = hp;
+    }
+
     /**
      * Reduces the HP attribute value by 1 when:<br>
      * - The Wall colour is grey;<br>
@@ -57,11 +68,19 @@ public class Wall extends Tile {
      * @param ball The Ball object that is colliding with the Wall object.
      */
     public void damage(Ball ball) {
+        this.damage(ball.getColour());
+    }
+
+    /**
+     * Overloaded method: Damages the wall when hit by a ball of the given colour.
+     * @param ballColour The colour code of the ball hitting the wall.
+     */
+    public void damage(int ballColour) {
         if (this.colour == 0) {
             this.hp--;
             return;
         }
-        if (this.colour == ball.getColour()) {
+        if (this.colour == ballColour) {
             this.hp--;
         }
     }
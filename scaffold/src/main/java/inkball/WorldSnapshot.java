@@ -0,0 +1,242 @@
+package inkball;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Random;
+
+/**
+ * <p>Represents the binary snapshot of everything in a GameWorld that changes while a level is played:
+ * ticks, score, capture counts, the random generator, wall health and broken walls, drawn strokes,
+ * balls (including the ball store) and the ball queue.</p>
+ * Everything set up from the configuration and the layout (board, holes, spawners, score tables) is not saved.
+ * A snapshot is therefore restored into a world freshly set up for the same level, which then continues
+ * exactly like the world it was taken from.<br>
+ *
+ * Note: Positions and vectors are saved as exact float bits, so two snapshots of worlds in the same state
+ * have the same bytes. Walls are saved row by row from the board rather than in the order of GameWorld::getWalls,
+ * which changes as walls break. Previous positions are not saved, as they are only used for drawing.
+ */
+public final class WorldSnapshot {
+    /**
+     * Represents the format version written as the first byte.
+     * Version 2 adds the contact distance of simplified stroke segments. Version 1 snapshots can still be restored.
+     */
+    public static final int VERSION = 2;
+
+    /**
+     * Represents the random generator balls are restored with. Their vector is replaced straight away.
+     */
+    private static final Random UNUSED = new Random(0);
+
+    private WorldSnapshot() {
+    }
+
+    /**
+     * @param world The world to save.
+     * @return The snapshot of the world, see write.
+     */
+    public static byte[] capture(GameWorld world) {
+        BinaryWriter out = new BinaryWriter(1024);
+        write(world, out);
+        return out.toByteArray();
+    }
+
+    /**
+     * Writes the snapshot of a world.
+     * @param world The world to save.
+     * @param out The writer to write to.
+     */
+    public static void write(GameWorld world, BinaryWriter out) {
+        out.writeByte(VERSION);
+        out.writeVarLong(world.ticks);
+        out.writeDouble(world.score);
+        for (int i = 0; i < 5; i++) {
+            out.writeVarInt(world.getCaptures(i));
+        }
+        out.writeVarInt(world.getWrongCaptures());
+        out.writeVarInt(world.getWallBreaks());
+        out.writeLong(world.getRandom().getState());
+
+        Tile[][] board = world.getBoard();
+        int wallCount = 0;
+        for (Tile[] row : board) {
+            for (Tile tile : row) {
+                if (tile instanceof Wall) {
+                    wallCount++;
+                }
+            }
+        }
+        out.writeVarInt(wallCount);
+        for (Tile[] row : board) {
+            for (Tile tile : row) {
+                if (tile instanceof Wall) {
+                    Wall wall = (Wall) tile;
+                    out.writeVarInt(wall.getX());
+                    out.writeVarInt(wall.getY());
+                    out.writeByte(wall.getHP());
+                }
+            }
+        }
+
+        ArrayList<ArrayList<Line>> strokes = world.getDrawnLines();
+        out.writeVarInt(strokes.size());
+        for (ArrayList<Line> stroke : strokes) {
+            out.writeVarInt(stroke.size());
+            for (Line line : stroke) {
+                out.writeFloat(line.getP1()[0]);
+                out.writeFloat(line.getP1()[1]);
+                out.writeFloat(line.getP2()[0]);
+                out.writeFloat(line.getP2()[1]);
+                out.writeVarInt(line.getColourTo());
+                out.writeByte((line.isDrawn ? 1 : 0) | (line.getContactDistance() > 0 ? 2 : 0));
+                if (line.getContactDistance() > 0) {
+                    out.writeFloat(line.getContactDistance());
+                }
+            }
+        }
+
+        ArrayList<Ball> balls = world.getBalls();
+        out.writeVarInt(balls.size());
+        for (Ball ball : balls) {
+            float[] vector = ball.getVector();
+            out.writeFloat(ball.getX());
+            out.writeFloat(ball.getY());
+            out.writeByte(ball.getColour());
+            out.writeFloat(ball.getBallRadius());
+            out.writeByte((vector != null ? 1 : 0) | (ball.getIsAbsorbed() ? 2 : 0));
+            if (vector != null) {
+                out.writeFloat(vector[0]);
+                out.writeFloat(vector[1]);
+            }
+        }
+
+        BallStore store = world.getBallStore();
+        out.writeVarInt(store.size());
+        for (int i = 0; i < store.size(); i++) {
+            out.writeFloat(store.x[i]);
+            out.writeFloat(store.y[i]);
+            out.writeFloat(store.vx[i]);
+            out.writeFloat(store.vy[i]);
+            out.writeFloat(store.radius[i]);
+            out.writeByte(store.colour[i]);
+        }
+
+        Ball[] queue = world.getBallQueue();
+        out.writeVarInt(queue.length);
+        for (Ball ball : queue) {
+            out.writeByte(ball == null ? 0 : ball.getColour() + 1);
+            if (ball != null) {
+                out.writeFloat(ball.getX());
+                out.writeFloat(ball.getY());
+            }
+        }
+    }
+
+    /**
+     * Restores a snapshot into a world.<br>
+     *
+     * @param world A world set up for the level the snapshot was taken in (configure, createBoard, setLayout,
+     *              loadBallQueue), with no strokes drawn yet.
+     * @param in The reader positioned at the start of the snapshot.
+     * @throws IllegalArgumentException if the snapshot has an unknown version, the world already has strokes,
+     *                                  or the snapshot has a wall the world does not have.<br>
+     *
+     * Note: Walls missing from the snapshot are removed from the world, the rest get their saved health.
+     */
+    public static void restore(GameWorld world, BinaryReader in) {
+        int version = in.readByte();
+        if (version < 1 || version > VERSION) {
+            throw new IllegalArgumentException("Unsupported snapshot version!");
+        }
+        if (!world.getDrawnLines().isEmpty()) {
+            throw new IllegalArgumentException("World must not have strokes yet!");
+        }
+
+        world.ticks = in.readVarLong();
+        world.score = in.readDouble();
+        int[] captures = new int[5];
+        for (int i = 0; i < captures.length; i++) {
+            captures[i] = in.readVarInt();
+        }
+        int wrongCaptures = in.readVarInt();
+        int wallBreaks = in.readVarInt();
+        world.getRandom().setState(in.readLong());
+
+        int cols = world.getBoard().length == 0 ? 0 : world.getBoard()[0].length;
+        int wallCount = in.readVarInt();
+        HashMap<Integer, Integer> health = new HashMap<>();
+        for (int i = 0; i < wallCount; i++) {
+            int x = in.readVarInt();
+            int y = in.readVarInt();
+            health.put(y * cols + x, in.readByte());
+        }
+        int found = 0;
+        for (Wall wall : new ArrayList<>(world.getWalls())) {
+            Integer hp = health.get(wall.getY() * cols + wall.getX());
+            if (hp == null) {
+                world.removeWall(wall);
+                continue;
+            }
+            found++;
+            wall.setHP(hp); // The same wall as on the board
+            world.markChanged(wall);
+        }
+        if (found != health.size()) {
+            throw new IllegalArgumentException("Snapshot does not match the level!");
+        }
+        world.setCounts(captures, wrongCaptures, wallBreaks);
+
+        int strokeCount = in.readVarInt();
+        for (int i = 0; i < strokeCount; i++) {
+            int lineCount = in.readVarInt();
+            ArrayList<Line> stroke = new ArrayList<>(lineCount);
+            for (int j = 0; j < lineCount; j++) {
+                float[] p1 = new float[] {in.readFloat(), in.readFloat()};
+                float[] p2 = new float[] {in.readFloat(), in.readFloat()};
+                Line line = new Line(p1, p2, in.readVarInt(), false);
+                int flags = in.readByte();
+                line.isDrawn = (flags & 1) != 0;
+                if ((flags & 2) != 0) {
+                    line.setContactDistance(in.readFloat());
+                }
+                stroke.add(line);
+            }
+            world.addStroke(stroke);
+        }
+
+        world.balls.clear();
+        int ballCount = in.readVarInt();
+        for (int i = 0; i < ballCount; i++) {
+            Ball ball = new Ball(in.readFloat(), in.readFloat(), in.readByte(), UNUSED);
+            ball.setBallRadius(in.readFloat());
+            int flags = in.readByte();
+            ball.setVector((flags & 1) != 0 ? new float[] {in.readFloat(), in.readFloat()} : null);
+            if ((flags & 2) != 0) {
+                ball.absorb();
+            }
+            world.balls.add(ball);
+        }
+
+        BallStore store = world.getBallStore();
+        store.clear();
+        int storeCount = in.readVarInt();
+        for (int i = 0; i < storeCount; i++) {
+            float x = in.readFloat();
+            float y = in.readFloat();
+            float vx = in.readFloat();
+            float vy = in.readFloat();
+            float radius = in.readFloat();
+            int slot = store.add(x, y, vx, vy, in.readByte());
+            store.radius[slot] = radius;
+        }
+
+        Ball[] queue = new Ball[in.readVarInt()];
+        for (int i = 0; i < queue.length; i++) {
+            int colour = in.readByte() - 1;
+            if (colour >= 0) {
+                queue[i] = new Ball(in.readFloat(), in.readFloat(), colour, UNUSED);
+            }
+        }
+        world.ballQueue = queue;
+    }
+}
@@ -0,0 +1,68 @@
+package inkball;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import processing.core.PImage;
+
+import java.util.ArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks that the simulation and drawing loop does not allocate once it is warmed up.<br>
+ *
+ * Note: Runs in the allocationTest task, in its own JVM. Mockito instruments every class it mocks or spies,
+ * and instrumented calls allocate, so this cannot share a JVM with the other tests.
+ */
+public class AllocationTest {
+    @Test
+    @Tag("allocation")
+    public void testSteadyStateTickAllocatesNothing() {
+        App headless = new App() {
+            @Override
+            public void image(PImage img, float a, float b, float c, float d) {
+                // No renderer in tests
+            }
+        };
+        for (int i = 0; i <= 4; i++) {
+            headless.atlas.set(Sprite.ball(i), new PImage(1, 1));
+        }
+
+        GameWorld world = headless.getWorld();
+        world.configure(null, 1);
+        world.createBoard(18, 18);
+        world.setLayout(new ArrayList<>()); // Borders only, so nothing breaks or is captured
+        for (int i = 0; i < 50; i++) {
+            Ball ball = new Ball(40 + (i * 37) % 480, App.TOPBAR + 40 + (i * 53) % 480, i % 5);
+            ball.setVector(new float[] {(i % 7) - 3 + 0.5f, (i % 5) - 2 + 0.25f});
+            world.getBalls().add(ball);
+        }
+
+        int oldTimeLimit = App.timeLimit;
+        App.timeLimit = Integer.MAX_VALUE / App.FPS;
+        try {
+            com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) java.lang.management.ManagementFactory.getThreadMXBean();
+            for (int i = 0; i < 20000; i++) { // Warm up, and let every ball settle into bouncing
+                headless.tick();
+                headless.drawAll();
+            }
+
+            long baseline = threads.getCurrentThreadAllocatedBytes();
+            baseline = threads.getCurrentThreadAllocatedBytes() - baseline; // Cost of measuring
+
+            long before = threads.getCurrentThreadAllocatedBytes();
+            for (int i = 0; i < 1000; i++) {
+                headless.tick();
+                headless.drawAll();
+            }
+            long allocated = threads.getCurrentThreadAllocatedBytes() - before - baseline;
+
+            assertEquals(App.GameState.PLAYING, headless.gameState);
+            assertEquals(50, world.getBalls().size());
+            assertEquals(0, allocated);
+        }
+        finally {
+            App.timeLimit = oldTimeLimit;
+        }
+    }
+}
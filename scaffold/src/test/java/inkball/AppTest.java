@@ -29,7 +29,7 @@ public class AppTest extends App {
         //System.setProperty("user.dir", "scaffold/src/main/resources");
 
 //        app.json = 'config.json';
-//        app.board = new Tile[App.BOARD_HEIGHT][App.BOARD_WIDTH];
+//        app.world.board = new Tile[App.BOARD_HEIGHT][App.BOARD_WIDTH];
 
         // Mock JSON structure
 //        when(mockJson.getJSONArray("levels")).thenReturn(mockLevels);
@@ -69,21 +69,21 @@ public class AppTest extends App {
 
         // Instance fields
         assertEquals(App.GameState.PLAYING, app.gameState);
-        assertEquals(1.0f, app.getModScoreIncrease(), 0.001f);
-        assertEquals(1.0f, app.getModScoreDecrease(), 0.001f);
-        assertEquals(0, app.spawnInterval);
+        assertEquals(1.0f, app.world.getModScoreIncrease(), 0.001f);
+        assertEquals(1.0f, app.world.getModScoreDecrease(), 0.001f);
+        assertEquals(0, app.world.spawnInterval);
         assertEquals(0, app.lastLine);
 
         assertArrayEquals(new float[2], app.start);
         assertArrayEquals(new float[2], app.end);
 
         assertTrue(app.getBalls().isEmpty());
-        assertTrue(app.walls.isEmpty());
-        assertTrue(app.allLines.isEmpty());
-        assertTrue(app.drawnLines.isEmpty());
+        assertTrue(app.world.walls.isEmpty());
+        assertTrue(app.world.allLines.isEmpty());
+        assertTrue(app.world.drawnLines.isEmpty());
         assertTrue(app.tempLines.isEmpty());
-        assertTrue(app.spawners.isEmpty());
-        assertTrue(app.holes.isEmpty());
+        assertTrue(app.world.spawners.isEmpty());
+        assertTrue(app.world.holes.isEmpty());
         assertTrue(app.sprites.isEmpty());
 
         assertArrayEquals(new int[]{0, 0}, app.firstSpiral);
@@ -93,7 +93,7 @@ public class AppTest extends App {
     @Test
     public void testGetBoard() {
         Tile[][] board = new Tile[App.BOARD_HEIGHT][App.BOARD_WIDTH];
-        app.board = new Tile[App.BOARD_HEIGHT][App.BOARD_WIDTH];
+        app.world.board = new Tile[App.BOARD_HEIGHT][App.BOARD_WIDTH];
         assertArrayEquals(board, app.getBoard());
     }
 
@@ -135,7 +135,7 @@ public class AppTest extends App {
         App.ballTimer = 0.5f;
         App.isDrawing = true;
         app.lastLine = 10;
-        app.ballQueue = new Ball[5];
+        app.world.ballQueue = new Ball[5];
 
         // Prevent nullPointer for FPS due to spy objects being unreliable with static fields
         doNothing().when(app).setup();
@@ -147,16 +147,16 @@ public class AppTest extends App {
         assertEquals(1.0f, App.ballTimer, 0.001f);
         assertFalse(App.isDrawing);
         assertEquals(0, app.lastLine);
-        assertEquals(0, app.ballQueue.length);
+        assertEquals(0, app.world.ballQueue.length);
 
         // Verify new ArrayLists are created
         assertTrue(app.getBalls().isEmpty());
         assertTrue(app.getLineSegments().isEmpty());
-        assertTrue(app.allLines.isEmpty());
-        assertTrue(app.drawnLines.isEmpty());
+        assertTrue(app.world.allLines.isEmpty());
+        assertTrue(app.world.drawnLines.isEmpty());
         assertTrue(app.tempLines.isEmpty());
-        assertTrue(app.spawners.isEmpty());
-        assertTrue(app.holes.isEmpty());
+        assertTrue(app.world.spawners.isEmpty());
+        assertTrue(app.world.holes.isEmpty());
 
         // Verify gameLevel
         assertEquals(2, App.gameLevel);
@@ -207,27 +207,27 @@ public class AppTest extends App {
     /** Spawn Balls **/
     @Test
     public void testNormalSpawnBalls() {
-        app.ballQueue = new Ball[5];
-        app.ballQueue[0] = new Ball(21, 14, 2);
-        app.spawners.add(new Spawner(0, 0));
-        app.spawnInterval = 1; //frameCount always 0 in testing
+        app.world.ballQueue = new Ball[5];
+        app.world.ballQueue[0] = new Ball(21, 14, 2);
+        app.world.spawners.add(new Spawner(0, 0));
+        app.world.spawnInterval = 1; //frameCount always 0 in testing
 
         app.spawnBalls();
 
-        app.ballQueue = new Ball[1];
-        app.ballQueue[0] = new Ball(21, 14, 2);
+        app.world.ballQueue = new Ball[1];
+        app.world.ballQueue[0] = new Ball(21, 14, 2);
         app.spawnBalls();
     }
 
     @Test
     public void testNegativeSpawnBalls() {
-        app.ballQueue = new Ball[0];
+        app.world.ballQueue = new Ball[0];
         app.spawnBalls();
 
-        app.ballQueue = new Ball[5];
+        app.world.ballQueue = new Ball[5];
         app.spawnBalls();
 
-        app.spawnInterval = 2;
+        app.world.spawnInterval = 2;
         app.spawnBalls(); //doesnt pass 3rd conditional
     }
 
@@ -237,27 +237,27 @@ public class AppTest extends App {
         ballTimer = 1;
 
         // Create mock board
-        app.board = new Tile[(HEIGHT-TOPBAR)/CELLSIZE][WIDTH/CELLSIZE];
-        for (int i = 0; i < app.board.length; i++) {
-            for (int j = 0; j < app.board[i].length; j++) {
-                app.board[i][j] = mock(Tile.class);
+        app.world.board = new Tile[(HEIGHT-TOPBAR)/CELLSIZE][WIDTH/CELLSIZE];
+        for (int i = 0; i < app.world.board.length; i++) {
+            for (int j = 0; j < app.world.board[i].length; j++) {
+                app.world.board[i][j] = mock(Tile.class);
             }
         }
 
         // Create mock ball queue
-        app.ballQueue = new Ball[5];
-        for (int i = 0; i < app.ballQueue.length; i++) {
-            app.ballQueue[i] = new Ball(5, 14, 2);
+        app.world.ballQueue = new Ball[5];
+        for (int i = 0; i < app.world.ballQueue.length; i++) {
+            app.world.ballQueue[i] = new Ball(5, 14, 2);
         }
 
         // Create dummy components
-        app.balls.clear();
-        app.balls.add(new Ball(100, 100, 3));
-        app.drawnLines.clear();
-        app.drawnLines.add(new ArrayList<>());
-        app.drawnLines.get(0).add(new Line(new float[]{0, 0}, new float[]{100, 100}, 2, true));
-        app.allLines.clear();
-        app.allLines.add(new Line(new float[]{0, 0}, new float[]{100, 100}, 2, true));
+        app.world.balls.clear();
+        app.world.balls.add(new Ball(100, 100, 3));
+        app.world.drawnLines.clear();
+        app.world.drawnLines.add(new ArrayList<>());
+        app.world.drawnLines.get(0).add(new Line(new float[]{0, 0}, new float[]{100, 100}, 2, true));
+        app.world.allLines.clear();
+        GameWorldTest.addLine(app.world, new Line(new float[]{0, 0}, new float[]{100, 100}, 2, true));
 
         doNothing().when(app).textSize(anyFloat());
         doNothing().when(app).fill(anyInt());
@@ -265,8 +265,10 @@ public class AppTest extends App {
         doNothing().when(app).text(anyString(), anyFloat(), anyFloat());
         doNothing().when(app).strokeWeight(anyFloat());
         doNothing().when(app).rect(anyFloat(), anyFloat(), anyFloat(), anyFloat());
+        doNothing().when(app).line(anyFloat(), anyFloat(), anyFloat(), anyFloat());
+        doNothing().when(app).stroke(anyInt());
         doNothing().when(app).image(any(PImage.class), anyFloat(), anyFloat(), anyFloat(), anyFloat());
-        doReturn(mock(PImage.class)).when(app).getSprite(anyString());
+        doReturn(mock(PImage.class)).when(app).getSprite(any(Sprite.class));
 
         app.draw();
 
@@ -274,16 +276,16 @@ public class AppTest extends App {
         app.gameState = GameState.WIN;
         // //  reset dummy components
         // Create dummy components
-        app.balls.clear();
+        app.world.balls.clear();
         Ball ball = mock(Ball.class);
-        app.balls.add(ball);
+        app.world.balls.add(ball);
 
         Line line = mock(Line.class);
-        app.drawnLines.clear();
-        app.drawnLines.add(new ArrayList<>());
-        app.drawnLines.get(0).add(line);
-        app.allLines.clear();
-        app.allLines.add(line);
+        app.world.drawnLines.clear();
+        app.world.drawnLines.add(new ArrayList<>());
+        app.world.drawnLines.get(0).add(line);
+        app.world.allLines.clear();
+        GameWorldTest.addLine(app.world, line);
 
         doNothing().when(ball).draw(app);
         doNothing().when(line).draw(app);
@@ -295,7 +297,7 @@ public class AppTest extends App {
         App.gameLevel = 1;
         app.maxLevel = 2;
 
-        app.firstSpiral = new int[]{app.board[0].length - 1, app.board.length - 1};
+        app.firstSpiral = new int[]{app.world.board[0].length - 1, app.world.board.length - 1};
         app.secondSpiral = new int[]{0, 0};
         doNothing().when(app).restart();
 
@@ -322,30 +324,30 @@ public class AppTest extends App {
         app.gameState = GameState.PLAYING;
         app.frameCount = 270;
         App.lastSecond = 2;
-        app.ballQueue = new Ball[5];
+        app.world.ballQueue = new Ball[5];
         app.draw();
 
         app.gameState = GameState.PLAYING;
         app.frameCount = 270;
         App.lastSecond = 2;
-        app.ballQueue[0] = new Ball(21, 14, 2);
+        app.world.ballQueue[0] = new Ball(21, 14, 2);
         app.draw();
 
         //Case 1B: Test empty ballQueue
         app.frameCount = 350;
         App.lastSecond = 2;
-        app.ballQueue = new Ball[7];
+        app.world.ballQueue = new Ball[7];
         app.draw();
 
         app.frameCount = 350;
         App.lastSecond = 2;
-        app.ballQueue = new Ball[7];
-        app.ballQueue[0] = new Ball(5, 14, 2);
-        app.ballQueue[1] = new Ball(5, 14, 2);
-        app.ballQueue[2] = new Ball(5, 14, 2);
-        app.ballQueue[3] = new Ball(5, 14, 2);
-        app.ballQueue[4] = new Ball(5, 14, 2);
-        app.ballQueue[5] = new Ball(5, 14, 2);
+        app.world.ballQueue = new Ball[7];
+        app.world.ballQueue[0] = new Ball(5, 14, 2);
+        app.world.ballQueue[1] = new Ball(5, 14, 2);
+        app.world.ballQueue[2] = new Ball(5, 14, 2);
+        app.world.ballQueue[3] = new Ball(5, 14, 2);
+        app.world.ballQueue[4] = new Ball(5, 14, 2);
+        app.world.ballQueue[5] = new Ball(5, 14, 2);
         app.draw();
 
         //Case 2: Game Paused
@@ -363,7 +365,7 @@ public class AppTest extends App {
         ArrayList<Line> lines = new ArrayList<>();
         Line mockLine = mock(Line.class);
         for (int i = 0; i < 10; i++) {
-            app.walls.add(mockWall);
+            GameWorldTest.addWall(app.world, mockWall);
             app.getBalls().add(mockBall);
             lines.add(mockLine);
         }
@@ -371,19 +373,19 @@ public class AppTest extends App {
         for (int i = 0; i < 10; i++) {
             // Adding line groups to app objects
             app.tempLines.add(lines);
-            app.allLines.add(mockLine);
-            app.drawnLines.add(lines);
+            GameWorldTest.addLine(app.world, mockLine);
+            app.world.drawnLines.add(lines);
         }
 
-        app.board = new Tile[App.BOARD_HEIGHT][App.BOARD_WIDTH];
-        for (int i = 0; i < app.board.length; i++) {
-            for (int j = 0; j < app.board[i].length; j++) {
-                app.board[i][j] = mock(Tile.class);
+        app.world.board = new Tile[App.BOARD_HEIGHT][App.BOARD_WIDTH];
+        for (int i = 0; i < app.world.board.length; i++) {
+            for (int j = 0; j < app.world.board[i].length; j++) {
+                app.world.board[i][j] = mock(Tile.class);
             }
         }
 
         // Create mock ball queue
-        app.ballQueue = new Ball[5];
+        app.world.ballQueue = new Ball[5];
 
         doNothing().when(app).textSize(anyFloat());
         doNothing().when(app).fill(anyInt());
@@ -392,22 +394,22 @@ public class AppTest extends App {
         doNothing().when(app).strokeWeight(anyFloat());
         doNothing().when(app).rect(anyFloat(), anyFloat(), anyFloat(), anyFloat());
         doNothing().when(app).image(any(PImage.class), anyFloat(), anyFloat(), anyFloat(), anyFloat());
-        doReturn(mock(PImage.class)).when(app).getSprite(anyString());
+        doReturn(mock(PImage.class)).when(app).getSprite(any(Sprite.class));
         doNothing().when(mockLine).draw(app);
         doNothing().when(mockBall).draw(app);
         doNothing().when(mockWall).draw(app);
 
         app.draw();
 
-        for (int i = 0; i < app.ballQueue.length; i++) {
-            app.ballQueue[i] = new Ball(5, 14, 2);
+        for (int i = 0; i < app.world.ballQueue.length; i++) {
+            app.world.ballQueue[i] = new Ball(5, 14, 2);
         }
 
         doNothing().when(app).drawAll();
 
         app.draw();
 
-        app.ballQueue[0] = null;
+        app.world.ballQueue[0] = null;
         app.getBalls().clear();
         app.gameState = GameState.PLAYING;
 
@@ -415,132 +417,6 @@ public class AppTest extends App {
 
     }
 
-    @Test
-    public void testAllDraw() {
-        //Empty balls branch
-        app.balls = new ArrayList<>();
-        app.drawAll();
-
-        //Fill balls
-        Ball mockBall = mock(Ball.class);
-        Wall mockWall = mock(Wall.class);
-        Line mockLine = mock(Line.class);
-        Hole mockHole = mock(Hole.class);
-        ArrayList<Line> lines = new ArrayList<>();
-
-        for (int i = 0; i < 10; i++) {
-            app.walls.add(mockWall);
-            app.balls.add(mockBall);
-            app.allLines.add(mockLine);
-            app.holes.add(mockHole);
-            lines.add(mockLine);
-        }
-
-        for (int i = 0; i < 10; i++) {
-            // Adding line groups to app objects
-            app.drawnLines.add(lines);
-        }
-
-        doNothing().when(mockBall).draw(this);
-        when(mockBall.willCollide(mockLine)).thenReturn(null); // branch: no collision
-
-        when(app.getWallAssociated(mockBall, mockLine)).thenReturn(new Wall[]{mockWall, mockWall});
-        doNothing().when(mockWall).damage(mockBall);
-        when(mockWall.getHP()).thenReturn(0);
-        doNothing().when(app).removeWall(mockWall);
-        doNothing().when(mockBall).interact(mockLine);
-
-        MockedStatic<App> mockStaticApp = mockStatic(App.class);
-        when(mockBall.getBallCenter()).thenReturn(new float[] {0, 0});
-        when(mockHole.getHoleCenter()).thenReturn(new float[] {50, 50});
-        mockStaticApp.when(() -> getDistance(new float[] {0, 0}, new float[] {50, 50})).thenReturn(50.0d); // branch: not in hole radius
-        doNothing().when(mockBall).setBallRadius(12);
-
-        doNothing().when(mockBall).moveOne();
-
-        doNothing().when(mockBall).interact(mockLine);
-        doNothing().when(app).removeLine(mockLine);
-
-        app.drawAll();
-
-        when(mockBall.willCollide(mockLine)).thenReturn(new float[]{0, 0}); // Branch where collision happens
-
-        app.drawAll();
-
-
-        when(mockBall.willCollide(mockLine)).thenReturn(null); // branch: no collision
-
-        when(app.getWallAssociated(mockBall, mockLine)).thenReturn(new Wall[]{mockWall, mockWall});
-        doNothing().when(mockWall).damage(mockBall);
-        when(mockWall.getHP()).thenReturn(0);
-        doNothing().when(app).removeWall(mockWall);
-        doNothing().when(mockBall).interact(mockLine);
-
-        doNothing().when(mockBall).moveOne();
-
-        doNothing().when(mockBall).interact(mockLine);
-        doNothing().when(app).removeLine(mockLine);
-        when(mockBall.willCollide(mockLine)).thenReturn(null); // branch: no collision
-
-        when(mockBall.getBallCenter()).thenReturn(new float[] {0, 0});
-        when(mockHole.getHoleCenter()).thenReturn(new float[] {10, 10});
-        mockStaticApp.when(() -> getDistance(new float[] {0, 0}, new float[] {10, 10})).thenReturn(10.0d); // branch: in hole radius
-        when(mockBall.meetHole(mockHole, app)).thenReturn(true);
-        app.drawAll();
-
-    }
-
-    @Test
-    public void testAddBorders() {
-        Wall mockWall = mock(Wall.class);
-        Tile mockTile = mock(Tile.class);
-        app.allLines.clear();
-
-        app.board = new Tile[32][32];
-
-        for (int i = 0; i < app.board.length; i++) {
-            for (int j = 0; j < app.board[i].length; j++) {
-                if (i == 0) {
-                    app.board[i][j] = mockWall;
-                }
-                else {
-
-                    app.board[i][j] = mockTile;
-                }
-            }
-        }
-
-        doNothing().when(app).addWallLineSegment(mockWall);
-        app.addBorders();
-
-        float[] topLeftCorner = new float[] {-32, TOPBAR-32}; // H0, V0
-        float[] topRightCorner = new float[] {WIDTH+32, TOPBAR-32}; // H1, V0
-        float[] bottomLeftCorner = new float[] {-32, HEIGHT+32}; // H0, V1
-        float[] bottomRightCorner = new float[] {WIDTH+32, HEIGHT+32}; // H1, V1
-        boolean isDrawn = false;
-        assertEquals(app.allLines.get(0), new Line(topLeftCorner, topRightCorner, 0, isDrawn));
-        assertEquals(app.allLines.get(1), new Line(topLeftCorner, bottomLeftCorner, 0, isDrawn));
-        assertEquals(app.allLines.get(2), new Line(bottomLeftCorner, bottomRightCorner, 0, isDrawn));
-        assertEquals(app.allLines.get(3), new Line(bottomRightCorner, topRightCorner, 0, isDrawn));
-
-    }
-
-
-    @Test
-    public void testAddWallLineSegments() {
-        Wall wall = new Wall(1, 1, 2);
-        app.allLines.clear();
-
-        app.addWallLineSegment(wall);
-    }
-
-    @Test
-    public void testGetWallLineSegments() {
-        Wall wall = new Wall(1, 1, 2);
-
-        app.getWallLineSegments(wall);
-    }
-
     @Test
     public void testRemoveLine() {
         // Testing when input is a coordinate
@@ -549,34 +425,34 @@ public class AppTest extends App {
         float[] toRemove = new float[] {2, 2};
         Line line = new Line(new float[]{0, 0}, new float[]{4,4}, 0, true);
 
-        app.drawnLines.clear();
-        app.drawnLines.add(new ArrayList<>());
-        app.drawnLines.get(0).add(line);
+        app.world.drawnLines.clear();
+        app.world.drawnLines.add(new ArrayList<>());
+        app.world.drawnLines.get(0).add(line);
 
         //when(app.mouseOnLine(toRemove, line.getP1(), line.getP2())).thenReturn(true);
         app.removeLine(toRemove);
 
         // Testing when input is coordinate, and line not found
-        app.drawnLines.clear();
-        app.drawnLines.add(new ArrayList<>());
-        app.drawnLines.get(0).add(new Line(new float[]{-500, -500}, new float[]{-400, -400}, 0, true));
+        app.world.drawnLines.clear();
+        app.world.drawnLines.add(new ArrayList<>());
+        app.world.drawnLines.get(0).add(new Line(new float[]{-500, -500}, new float[]{-400, -400}, 0, true));
         app.removeLine(toRemove);
 
         // Testing when input is a line
         Line line2 = new Line(new float[]{0, 0}, new float[]{4, 4}, 0, true);
-        app.drawnLines.clear();
-        app.drawnLines.add(new ArrayList<>());
-        app.drawnLines.get(0).add(line2);
+        app.world.drawnLines.clear();
+        app.world.drawnLines.add(new ArrayList<>());
+        app.world.drawnLines.get(0).add(line2);
 
         //when(line.equals(line2)).thenReturn(true);
-        app.removeLine(line2);
+        app.world.removeLine(line2);
 
         // Testing when input is line, and line not found in drawnLines
         //when(line.equals(line2)).thenReturn(false);
-        app.drawnLines.clear();
-        app.drawnLines.add(new ArrayList<>());
-        app.drawnLines.get(0).add(new Line(new float[]{-2, -2}, new float[]{8, 3}, 0, true));
-        app.removeLine(line2);
+        app.world.drawnLines.clear();
+        app.world.drawnLines.add(new ArrayList<>());
+        app.world.drawnLines.get(0).add(new Line(new float[]{-2, -2}, new float[]{8, 3}, 0, true));
+        app.world.removeLine(line2);
     }
 
     @Test
@@ -699,67 +575,9 @@ public class AppTest extends App {
         app.mouseDragged(e);
     }
 
-    @Test
-    public void testGetWallAssociated() {
-        Ball ball = new Ball(30, 34, 1);
-        ball.setVector(new float[]{2, -2});
-        Line line = new Line(new float[]{0, 0}, new float[]{50, 50}, 0, true);
-        assertNotNull(ball.willCollide(line)); // check that ball will collide
-
-        //Branch 1: Wall found
-        Wall wall = new Wall(1, 1, 2);
-        app.walls.clear();
-        app.walls.add(wall);
-        assertNull(app.getWallAssociated(ball, line)); // Test for branch where wall is not on board
-        app.board = new Tile[32][32];
-        app.board[1][1] = wall;
-        assertNotNull(app.getWallAssociated(ball, line)); // Positive case
-
-        //Branch 2: Wall not found, so distance > minDistance
-        wall = new Wall(100, 100, 2);
-        app.walls.clear();
-        app.walls.add(wall);
-        app.board = new Tile[100][100];
-        app.board[99][99] = wall;
-        assertNull(app.getWallAssociated(ball, line));
-        app.getWallAssociated(ball, line);
-    }
-
-    @Test
-    public void testRemoveWall() {
-        Wall wall = new Wall(0, 0, 2);
-        //Case where no wall found
-        app.allLines.clear();
-        app.walls.clear();
-        // add dummy lines
-        for (int i = 0; i < 10; i++) {
-            app.allLines.add(new Line(new float[]{500, 500}, new float[]{600, 600}, 1, true));
-        }
-
-        app.removeWall(wall);
-
-        //Case where wall is found
-        app.walls.add(wall);
-        app.allLines.clear();
-        app.board = new Tile[32][32];
-        app.board[0][0] = wall;
-        Line[] toRemove = app.getWallLineSegments(wall);
-        app.allLines.addAll(Arrays.asList(toRemove));
-
-        // // add dummy lines
-        app.allLines.add(new Line(new float[]{100, 100}, new float[]{100, 100}, 1, true)); // dummy lines
-        app.allLines.add(new Line(new float[]{75, 50}, new float[]{75, 50}, 1, true)); // dummy lines
-        app.allLines.add(new Line(new float[]{150, 60}, new float[]{150, 60}, 1, true)); // dummy lines
-
-        app.removeWall(wall);
-        assertFalse(app.walls.contains(wall));
-        assertFalse(app.allLines.containsAll(Arrays.asList(toRemove)));
-        assertSame(app.board[0][0].getClass(), Blank.class);
-    }
-
     @Test
     public void testSpiral() {
-        app.board = new Tile[32][32];
+        app.world.board = new Tile[32][32];
         int[] spiral = new int[]{1, 0};
         app.moveSpiral(spiral);
 
@@ -822,75 +640,49 @@ public class AppTest extends App {
     @Test
     public void testSpawnBalls() {
         //Case: Empty ball queue
-        app.ballQueue = new Ball[5];
-        app.ballQueue[0] = new Ball(100, 100, 1);
-        app.frameCount = 31;
-        app.spawnInterval = 1;
+        app.world.ballQueue = new Ball[5];
+        app.world.ballQueue[0] = new Ball(100, 100, 1);
+        app.world.ticks = 31;
+        app.world.spawnInterval = 1;
         app.spawnBalls();
 
         //Case: Ball Queue not empty
-        app.spawners.add(new Spawner(2, 2));
-        app.spawners.add(new Spawner(3, 3));
-
-        app.maxBallQueue = 5;
-        app.ballQueue = new Ball[app.maxBallQueue];
-        app.frameCount = 30;
-        app.spawnInterval = 1;
-        app.ballQueue[0] = new Ball(100, 100, 1);
-        app.ballQueue[1] = new Ball(50, 40, 2);
-        app.ballQueue[2] = new Ball(0, 10, 3);
-        app.ballQueue[3] = new Ball(10, 70, 4);
+        app.world.spawners.add(new Spawner(2, 2));
+        app.world.spawners.add(new Spawner(3, 3));
+
+        app.world.maxBallQueue = 5;
+        app.world.ballQueue = new Ball[app.world.maxBallQueue];
+        app.world.ticks = 30;
+        app.world.spawnInterval = 1;
+        app.world.ballQueue[0] = new Ball(100, 100, 1);
+        app.world.ballQueue[1] = new Ball(50, 40, 2);
+        app.world.ballQueue[2] = new Ball(0, 10, 3);
+        app.world.ballQueue[3] = new Ball(10, 70, 4);
         app.spawnBalls();
 
-
-    }
-
-    @Test
-    public void testGetColourCode() {
-        ArrayList<ArrayList<String>> line = new ArrayList<>();
-        line.add(new ArrayList<>());
-        line.get(0).add("H");
-        //Catch index out of bounds
-        assertEquals(-1, app.getColourCode(line, 0, 0));
-
-        // Catch whitespace
-        line.get(0).add(" ");
-        assertEquals(-1, app.getColourCode(line, 0, 0));
-
-        // Catch non-numeric input
-        line.get(0).set(1, "Hello");
-        assertEquals(-1, app.getColourCode(line, 0, 0));
-
-        line.get(0).set(1, "-1");
-        assertEquals(-1, app.getColourCode(line, 0, 0));
-
-        line.get(0).set(1, "5");
-        assertEquals(-1, app.getColourCode(line, 0, 0));
-
-        line.get(0).set(1, "2");
-        assertEquals(2, app.getColourCode(line, 0, 0));
     }
 
     @Test
     public void testSetLayout() {
-        app.board = new Tile[(HEIGHT-TOPBAR)/CELLSIZE][WIDTH/CELLSIZE];
+        app.world = spy(new GameWorld()); // Spy so that getPosition can be stubbed
+        app.world.board = new Tile[(HEIGHT-TOPBAR)/CELLSIZE][WIDTH/CELLSIZE];
         ArrayList<ArrayList<String>> lines = new ArrayList<>();
 
         // Branch: Insufficient number of lines
-        when(app.getFileContents()).thenReturn(lines);
+        when(app.getFileContents()).thenAnswer(invocation -> LayoutGrid.fromLines(lines));
         app.setLayout();
 
         // Branch: Sufficient number of lines, Insufficient number of characters
-        app.board = new Tile[(HEIGHT-TOPBAR)/CELLSIZE][WIDTH/CELLSIZE]; // reset board
-        for (int i = 0; i < app.board.length; i++) {
+        app.world.board = new Tile[(HEIGHT-TOPBAR)/CELLSIZE][WIDTH/CELLSIZE]; // reset board
+        for (int i = 0; i < app.world.board.length; i++) {
             lines.add(new ArrayList<>());
         }
-        app.board[0][0] = null;
+        app.world.board[0][0] = null;
         app.setLayout();
 
         // Branch: Sufficient number of lines, Sufficient number of characters in lnies
-        app.board = new Tile[(HEIGHT-TOPBAR)/CELLSIZE][WIDTH/CELLSIZE]; // reset board
-        app.board[0][0] = new Blank(0, 0);
+        app.world.board = new Tile[(HEIGHT-TOPBAR)/CELLSIZE][WIDTH/CELLSIZE]; // reset board
+        app.world.board[0][0] = new Blank(0, 0);
         lines.get(0).add(" ");
         lines.get(0).add(" "); // Blank tile
         lines.get(0).add("X"); // Grey wall
@@ -910,11 +702,11 @@ public class AppTest extends App {
         lines.get(0).add("$"); // Invalid input
 
         // Fill rest of line 0 to meet number of lines needed
-        for (int i = lines.get(0).size(); i < app.board[0].length; i++) {
+        for (int i = lines.get(0).size(); i < app.world.board[0].length; i++) {
             lines.get(0).add(" ");
         }
 
-        when(app.getPosition(anyInt(), anyInt())).thenReturn(Hole.GridPosition.BL);
+        when(app.world.getPosition(anyInt(), anyInt())).thenReturn(Hole.GridPosition.BL);
         app.setLayout();
 
     }
@@ -950,31 +742,45 @@ public class AppTest extends App {
     }
 
     @Test
-    public void testGetDistance() {
-        // Branch: Positive inputs
-        App.getDistance(new float[]{1.0f, 4.0f}, new float[]{1.0f, 4.0f});
-        App.getDistance(new double[]{100.0d, 100.0d}, new float[]{200.0f, 150.0f});
-    }
-
-    @Test
-    public void testColourToInt() {
-        int result = app.colourToInt("grey");
-        assertEquals(0, result);
+    public void testFrameProfiler() {
+        doNothing().when(app).drawFrame();
+        app.draw();
+        assertEquals(1, app.profiler.getHistogram(FrameProfiler.Phase.FRAME).getTotalCount());
+        verify(app, never()).drawProfilerOverlay();
 
-        result = app.colourToInt("orange");
-        assertEquals(1, result);
+        KeyEvent event = new KeyEvent(null, 100, KeyEvent.PRESS, 0, 'f', 70); // Press f
+        app.keyPressed(event);
+        assertTrue(app.profiler.isOverlayVisible());
 
-        result = app.colourToInt("blue");
-        assertEquals(2, result);
+        doNothing().when(app).strokeWeight(anyFloat());
+        doNothing().when(app).fill(anyFloat(), anyFloat(), anyFloat(), anyFloat());
+        doNothing().when(app).fill(anyInt());
+        doNothing().when(app).rect(anyFloat(), anyFloat(), anyFloat(), anyFloat());
+        doNothing().when(app).textSize(anyFloat());
+        doNothing().when(app).textAlign(anyInt(), anyInt());
+        doNothing().when(app).text(anyString(), anyFloat(), anyFloat());
+        app.draw();
+        verify(app).drawProfilerOverlay();
+        verify(app, times(FrameProfiler.Phase.values().length + 1)).text(anyString(), anyFloat(), anyFloat());
 
-        result = app.colourToInt("green");
-        assertEquals(3, result);
+        app.keyPressed(event);
+        assertFalse(app.profiler.isOverlayVisible());
+    }
 
-        result = app.colourToInt("yellow");
-        assertEquals(4, result);
+    @Test
+    public void testDrawAllMarksPhases() {
+        app.profiler.beginFrame();
+        app.drawAll();
+        app.profiler.endFrame();
+        assertEquals(1, app.profiler.getHistogram(FrameProfiler.Phase.SIMULATION).getTotalCount());
+        assertEquals(1, app.profiler.getHistogram(FrameProfiler.Phase.BALLS).getTotalCount());
+    }
 
-        result = app.colourToInt("helloWorld");
-        assertEquals(0, result);
+    @Test
+    public void testGetDistance() {
+        // Branch: Positive inputs
+        App.getDistance(new float[]{1.0f, 4.0f}, new float[]{1.0f, 4.0f});
+        App.getDistance(new double[]{100.0d, 100.0d}, new float[]{200.0f, 150.0f});
     }
 
     @Test
@@ -1002,14 +808,50 @@ public class AppTest extends App {
     }
 
     @Test
-    public void testGetPosition() {
-        assertEquals(Hole.GridPosition.BL, app.getPosition(0, 1));
-        assertEquals(Hole.GridPosition.TR, app.getPosition(1, 0));
-        assertEquals(Hole.GridPosition.BR, app.getPosition(1, 1));
-        assertNull(app.getPosition(2, 2));
-        assertNull(app.getPosition(0, 2));
-        assertNull(app.getPosition(2, 1));
-        assertNull(app.getPosition(1, 2));
-        assertNull(app.getPosition(2, 0));
+    public void testTick() {
+        app.world.createBoard(1, 1);
+        app.world.board[0][0] = new Blank(0, 0);
+        app.world.ballQueue = new Ball[] {new Ball(0, 0, 1)};
+        app.world.spawnInterval = 100; // no spawner, so nothing can spawn anyway
+        app.gameState = GameState.PLAYING;
+        App.timeLimit = 2;
+        App.lastSecond = 2;
+        App.ballTimer = 1;
+
+        // Timer only counts down once a full second of ticks has been simulated
+        for (int i = 0; i < App.FPS - 1; i++) {
+            app.tick();
+        }
+        assertEquals(2, App.lastSecond);
+        app.tick();
+        assertEquals(1, App.lastSecond);
+        assertEquals(1.0f, App.ballTimer, 0.001f); // reset to 1.1 by the spawn check on the first tick
+
+        // Time is up after timeLimit seconds of ticks
+        for (int i = 0; i < App.FPS; i++) {
+            app.tick();
+        }
+        assertEquals(0, App.lastSecond);
+        assertEquals(GameState.OVER, app.gameState);
+
+        // Level is won once the queue and board are empty
+        app.gameState = GameState.PLAYING;
+        app.world.ballQueue[0] = null;
+        App.gameLevel = 1;
+        app.tick();
+        assertEquals(GameState.WIN, app.gameState);
+        assertEquals(2, App.gameLevel);
+    }
+
+    @Test
+    public void testDrawAllInterpolates() {
+        Ball ball = spy(new Ball(100, 100, 1));
+        app.world.balls.add(ball);
+        doNothing().when(ball).draw(any(App.class), anyFloat());
+        doNothing().when(app).tick();
+
+        app.drawAll(); // first frame only starts the clock
+        verify(app, never()).tick();
+        verify(ball).draw(app, 0.0f);
     }
 }
@@ -0,0 +1,126 @@
+package inkball;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BallColliderTest {
+    private BallCollider collider;
+
+    @BeforeEach
+    public void setUp() {
+        collider = new BallCollider();
+    }
+
+    @Test
+    public void testHeadOn() {
+        collider.add(100, 100, 2, 0, 12);
+        collider.add(120, 100, -1, 0, 12);
+        assertEquals(1, collider.resolve());
+        assertEquals(-1, collider.vx[0], 0.0001f); // Equal masses swap velocities
+        assertEquals(2, collider.vx[1], 0.0001f);
+        assertEquals(0, collider.vy[0], 0.0001f);
+        assertEquals(0, collider.vy[1], 0.0001f);
+    }
+
+    @Test
+    public void testGlancing() {
+        collider.add(100, 100, 0, 2, 12);
+        collider.add(100, 120, 0, 0, 12);
+        collider.add(300, 300, 1, 1, 12);
+        assertEquals(1, collider.resolve());
+        assertEquals(0, collider.vy[0], 0.0001f);
+        assertEquals(2, collider.vy[1], 0.0001f);
+        assertEquals(1, collider.vx[2]); // Untouched
+        assertEquals(1, collider.vy[2]);
+
+        collider.clear();
+        collider.add(100, 100, 1.5f, 0.5f, 12);
+        collider.add(110, 118, -0.5f, -1, 12);
+        collider.resolve();
+        float energy = collider.vx[0] * collider.vx[0] + collider.vy[0] * collider.vy[0] + collider.vx[1] * collider.vx[1] + collider.vy[1] * collider.vy[1];
+        assertEquals(3.75f, energy, 0.001f); // Kinetic energy is kept
+        assertEquals(1, collider.vx[0] + collider.vx[1], 0.0001f); // So is momentum
+        assertEquals(-0.5f, collider.vy[0] + collider.vy[1], 0.0001f);
+    }
+
+    @Test
+    public void testSeparating() {
+        collider.add(100, 100, -1, 0, 12);
+        collider.add(110, 100, 1, 0, 12);
+        assertEquals(1, collider.resolve()); // Touching, but already moving apart
+        assertEquals(-1, collider.vx[0]);
+        assertEquals(1, collider.vx[1]);
+    }
+
+    @Test
+    public void testSameCentre() {
+        collider.add(100, 100, 1, 0, 12);
+        collider.add(100, 100, -1, 0, 12);
+        collider.resolve();
+        assertEquals(-1, collider.vx[0], 0.0001f);
+        assertEquals(1, collider.vx[1], 0.0001f);
+    }
+
+    @Test
+    public void testGetPair() {
+        collider.add(100, 100, 0, 0, 12);
+        collider.add(110, 100, 0, 0, 12);
+        collider.resolve();
+        int[] pair = collider.getPair(0);
+        assertEquals(1, pair[0] + pair[1]);
+        assertThrows(IndexOutOfBoundsException.class, () -> collider.getPair(1));
+        assertThrows(IndexOutOfBoundsException.class, () -> collider.getPair(-1));
+    }
+
+    @Test
+    public void testMatchesBruteForce() {
+        Random random = new Random(11);
+        for (int tick = 0; tick < 20; tick++) {
+            collider.clear();
+            for (int i = 0; i < 500; i++) {
+                collider.add(random.nextFloat() * App.WIDTH, App.TOPBAR + random.nextFloat() * (App.HEIGHT - App.TOPBAR), 0, 0, 6 + random.nextInt(7));
+            }
+            collider.resolve();
+            assertMatchesBruteForce();
+        }
+    }
+
+    @Test
+    public void testRebuildMatchesBruteForce() {
+        // The number of balls changes every tick, so the order is rebuilt every time, from descending x
+        Random random = new Random(5);
+        for (int tick = 0; tick < 20; tick++) {
+            collider.clear();
+            int count = 300 + 17 * tick;
+            for (int i = 0; i < count; i++) {
+                float x = -20 + (count - i) * (App.WIDTH + 40f) / count;
+                collider.add(x, App.TOPBAR + random.nextFloat() * (App.HEIGHT - App.TOPBAR), 0, 0, 6 + random.nextInt(7));
+            }
+            collider.resolve();
+            assertMatchesBruteForce();
+        }
+    }
+
+    private void assertMatchesBruteForce() {
+        HashSet<String> found = new HashSet<>();
+        for (int k = 0; k < collider.getPairCount(); k++) {
+            int[] pair = collider.getPair(k);
+            found.add(Math.min(pair[0], pair[1]) + "," + Math.max(pair[0], pair[1]));
+        }
+        HashSet<String> expected = new HashSet<>();
+        for (int i = 0; i < collider.size(); i++) {
+            for (int j = i + 1; j < collider.size(); j++) {
+                if (collider.isTouching(i, j)) {
+                    expected.add(i + "," + j);
+                }
+            }
+        }
+        assertEquals(expected, found);
+        assertEquals(found.size(), collider.getPairCount()); // No pair is reported twice
+    }
+}
@@ -0,0 +1,109 @@
+package inkball;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BallStoreTest {
+    private BallStore store;
+
+    @BeforeEach
+    public void setUp() {
+        store = new BallStore(2);
+    }
+
+    @Test
+    public void testInvalidCapacity() {
+        assertThrows(IllegalArgumentException.class, () -> new BallStore(-1));
+    }
+
+    @Test
+    public void testAddAndGrow() {
+        for (int i = 0; i < 100; i++) {
+            assertEquals(i, store.add(i, 2 * i, 1, -1, i % 5));
+        }
+        assertEquals(100, store.size());
+        assertTrue(store.getCapacity() >= 100);
+        assertEquals(99, store.x[99]);
+        assertEquals(198, store.y[99]);
+        assertEquals(4, store.colour[99]);
+        assertEquals(12, store.radius[99]);
+        assertEquals(111, store.getCenterX(99));
+    }
+
+    @Test
+    public void testInvalidColour() {
+        store.add(0, 0, 0, 0, 7);
+        assertEquals(0, store.colour[0]); // Defaults to grey, like Ball
+    }
+
+    @Test
+    public void testAddBall() {
+        Ball ball = new Ball(10, 20, 3);
+        ball.setVector(new float[] {1.5f, -2});
+        ball.setBallRadius(8);
+        store.add(ball);
+        assertEquals(10, store.x[0]);
+        assertEquals(20, store.y[0]);
+        assertEquals(1.5f, store.vx[0]);
+        assertEquals(-2, store.vy[0]);
+        assertEquals(8, store.radius[0]);
+        assertEquals(3, store.colour[0]);
+    }
+
+    @Test
+    public void testSwapRemove() {
+        store.add(0, 0, 0, 0, 1);
+        store.add(1, 1, 0, 0, 2);
+        store.add(2, 2, 0, 0, 3);
+
+        store.swapRemove(0);
+        assertEquals(2, store.size());
+        assertEquals(2, store.x[0]); // Last ball moved into the freed slot
+        assertEquals(3, store.colour[0]);
+
+        store.swapRemove(1); // Removing the last slot moves nothing
+        assertEquals(1, store.size());
+        assertEquals(2, store.x[0]);
+
+        assertThrows(IndexOutOfBoundsException.class, () -> store.swapRemove(1));
+        assertThrows(IndexOutOfBoundsException.class, () -> store.swapRemove(-1));
+    }
+
+    @Test
+    public void testForEachWithRemoval() {
+        for (int i = 0; i < 10; i++) {
+            store.add(i, 0, 1, 0, i % 2);
+        }
+        int[] visited = new int[1];
+        store.forEach((s, i) -> {
+            visited[0]++;
+            if (s.colour[i] == 1) {
+                s.swapRemove(i); // Remove odd balls while iterating
+            }
+            else {
+                s.x[i] += s.vx[i];
+            }
+        });
+        assertEquals(10, visited[0]);
+        assertEquals(5, store.size());
+        for (int i = 0; i < store.size(); i++) {
+            assertEquals(0, store.colour[i]);
+            assertEquals(1, store.x[i] % 2, 0.0001f); // Every even ball moved once
+        }
+    }
+
+    @Test
+    public void testSavePositions() {
+        store.add(5, 6, 0, 0, 0);
+        store.x[0] = 7;
+        store.y[0] = 8;
+        store.savePositions();
+        assertEquals(7, store.prevX[0]);
+        assertEquals(8, store.prevY[0]);
+
+        store.clear();
+        assertTrue(store.isEmpty());
+    }
+}
@@ -16,6 +16,7 @@ import static org.junit.jupiter.api.Assertions.*;
 class BallTest {
 
     private App app;
+    private GameWorld world;
     private Ball ball;
     private Line line;
     private Hole hole;
@@ -25,37 +26,38 @@ class BallTest {
     public void setUp() {
         // Setup runs before each test
         //System.setProperty("user.dir", "scaffold/src/test/java/inkball/BallTest.java");
-        app = spy(App.class); // Creating a mock app because only score tests are relevant
-        this.appSpySetUp();
+        app = spy(App.class); // Creating a mock app because only draw tests are relevant
+        world = spy(GameWorld.class); // Creating a mock world because only score tests are relevant
+        this.worldSpySetUp();
 
         mockBallList = mock(ArrayList.class);
-        when(app.getBalls()).thenReturn(mockBallList);
+        when(world.getBalls()).thenReturn(mockBallList);
 
         ball = new Ball(88, 88, 4);
         line = new Line(new float[]{90, 90}, new float[]{105, 105}, 1, false);
         hole = new Hole(3, 3, 0, Hole.GridPosition.BR);
     }
 
-    public void appSpySetUp() {
-        App.scoreTemp = 0;
-        app.modScoreIncrease = 1.1f;
-        app.modScoreDecrease = 1.0f;
-        app.scoreIncrease = new HashMap<>();
-        app.scoreDecrease = new HashMap<>();
+    public void worldSpySetUp() {
+        world.score = 0;
+        world.modScoreIncrease = 1.1f;
+        world.modScoreDecrease = 1.0f;
+        world.scoreIncrease = new HashMap<>();
+        world.scoreDecrease = new HashMap<>();
 
-        app.scoreIncrease.put("grey", 70);
-        app.scoreIncrease.put("orange", 50);
-        app.scoreIncrease.put("blue", 30);
-        app.scoreIncrease.put("green", 20);
-        app.scoreIncrease.put("yellow", 100);
+        world.scoreIncrease.put("grey", 70);
+        world.scoreIncrease.put("orange", 50);
+        world.scoreIncrease.put("blue", 30);
+        world.scoreIncrease.put("green", 20);
+        world.scoreIncrease.put("yellow", 100);
 
-        app.scoreDecrease.put("grey", 0);
-        app.scoreDecrease.put("orange", 25); //-25
-        app.scoreDecrease.put("blue", 20);
-        app.scoreDecrease.put("green", 10); //-10
-        app.scoreDecrease.put("yellow", 60); //-60
+        world.scoreDecrease.put("grey", 0);
+        world.scoreDecrease.put("orange", 25); //-25
+        world.scoreDecrease.put("blue", 20);
+        world.scoreDecrease.put("green", 10); //-10
+        world.scoreDecrease.put("yellow", 60); //-60
 
-        app.ballQueue = new Ball[5];
+        world.ballQueue = new Ball[5];
     }
 
     /** Testing Ball Construction **/
@@ -96,9 +98,9 @@ class BallTest {
         App app = spy(App.class);
         PImage mockImage = mock(PImage.class);
         doNothing().when(app).image(any(PImage.class), anyFloat(), anyFloat(), anyFloat(), anyFloat());
-        doReturn(mock(PImage.class)).when(app).getSprite(anyString());
+        doReturn(mock(PImage.class)).when(app).getSprite(any(Sprite.class));
         ball.draw(app);
-        verify(app).getSprite("ball"+ball.getColour());
+        verify(app).getSprite(Sprite.ball(ball.getColour()));
         verify(app).image(any(PImage.class), anyFloat(), anyFloat(), anyFloat(), anyFloat());
     }
 
@@ -106,7 +108,7 @@ class BallTest {
     public void testNegativeDraw() {
         ball.absorb();
         ball.draw(app);
-        verify(app, never()).getSprite(anyString());
+        verify(app, never()).getSprite(any(Sprite.class));
         verify(app, never()).image(any(PImage.class), anyFloat(), anyFloat(), anyFloat(), anyFloat());
     }
 
@@ -373,15 +375,15 @@ class BallTest {
         float[] ballCenter = ball.getBallCenter();
         float[] holeCenter = hole.getHoleCenter();
 
-        double expectedScore = App.scoreTemp;
+        double expectedScore = world.score;
         float[] expectedVec = new float[] {ball.getVector()[0] + ball.getAttractionVector(hole)[0], ball.getVector()[1] + ball.getAttractionVector(hole)[1]};
         float expectedRad = 12 * (float) (App.getDistance(holeCenter, ballCenter) / 32); // Ensures shrink animation is applied
 
         //assertFalse(expectedRad < 6 || App.getDistance(ballCenter, holeCenter) < 8);
-        assertTrue(ball.meetHole(hole, app));
+        assertTrue(ball.meetHole(hole, world));
 
-        ball.meetHole(hole, app);
-        assertEquals(expectedScore, App.scoreTemp, 1.0d);
+        ball.meetHole(hole, world);
+        assertEquals(expectedScore, world.score, 1.0d);
         assertArrayEquals(expectedVec, ball.getVector(), 5.0f);
         assertEquals(expectedRad, ball.getBallRadius(), 1.0f); // Floating-point differences are unrecognisable to the eye, hence higher delta
 
@@ -396,15 +398,15 @@ class BallTest {
 
         // Not testing for vec because doesn't matter due to absorption
         //expectedRad = 12 * (float) (App.getDistance(hole2Center, ball2Center) / 32); // Ensures shrink animation is applied
-        expectedScore += app.getScoreIncrease().get(hole2.colourToString()) * app.getModScoreIncrease(); // 30 * 1.1 = 33
+        expectedScore += world.getScoreIncrease().get(hole2.colourToString()) * world.getModScoreIncrease(); // 30 * 1.1 = 33
 
         //assertTrue(expectedRad < 6);
-        assertTrue(ball2.meetHole(hole2, app));
+        assertTrue(ball2.meetHole(hole2, world));
 
-        ball2.meetHole(hole2, app);
+        ball2.meetHole(hole2, world);
         assertEquals(0, ball2.getBallRadius(), 1.0d); // Need to be 0
         assertEquals(ball2.getColour(), hole2.getColour(), 1.0d);
-        assertEquals(expectedScore, App.scoreTemp, 1.0d);
+        assertEquals(expectedScore, world.score, 1.0d);
         verify(mockBallList).remove(ball2);
         assertTrue(ball2.getIsAbsorbed());
 
@@ -415,9 +417,9 @@ class BallTest {
         assertEquals(0, ball3.getColour(), 1.0d);
         assertNotEquals(0, hole2.getColour());
 
-        expectedScore += app.getScoreIncrease().get("grey") * app.modScoreIncrease; // 110
-        ball3.meetHole(hole2, app);
-        assertEquals(expectedScore, App.scoreTemp, 1.0d);
+        expectedScore += world.getScoreIncrease().get("grey") * world.modScoreIncrease; // 110
+        ball3.meetHole(hole2, world);
+        assertEquals(expectedScore, world.score, 1.0d);
         verify(mockBallList).remove(ball3);
         assertTrue(ball3.getIsAbsorbed());
 
@@ -429,9 +431,9 @@ class BallTest {
         assertNotEquals(0, ball3.getColour());
         assertEquals(0, hole3.getColour(), 1.0d);
 
-        expectedScore += app.getScoreIncrease().get("grey") * app.getModScoreIncrease(); // 187
-        ball3.meetHole(hole3, app);
-        assertEquals(expectedScore, App.scoreTemp, 1.0d);
+        expectedScore += world.getScoreIncrease().get("grey") * world.getModScoreIncrease(); // 187
+        ball3.meetHole(hole3, world);
+        assertEquals(expectedScore, world.score, 1.0d);
         verify(mockBallList).remove(ball3);
         assertTrue(ball3.getIsAbsorbed());
 
@@ -442,15 +444,15 @@ class BallTest {
         assertEquals(0, ball3.getColour());
         assertEquals(0, hole3.getColour());
 
-        expectedScore += app.getScoreIncrease().get("grey") * app.getModScoreIncrease(); // 264
-        ball3.meetHole(hole3, app);
-        assertEquals(expectedScore, App.scoreTemp, 1.0d);
+        expectedScore += world.getScoreIncrease().get("grey") * world.getModScoreIncrease(); // 264
+        ball3.meetHole(hole3, world);
+        assertEquals(expectedScore, world.score, 1.0d);
         verify(mockBallList).remove(ball3);
         assertTrue(ball3.getIsAbsorbed());
 
         /** C) Different colours and NOT grey **/
         Random rand = new Random();
-        double initialScore = App.scoreTemp;
+        double initialScore = world.score;
         for (int i = 0; i < 1000; i++) { // Do 1000 rounds of testing
             //System.out.println(i); //track how many tests successful
             Ball ball4 = new Ball(ball2.getX(), ball2.getY(), ball2.getColour());
@@ -465,21 +467,21 @@ class BallTest {
             assertFalse(ball4.getColour() == 0 || hole4.getColour() == 0);
 
             expectedScore = initialScore;
-            App.scoreTemp = initialScore;
-            expectedScore -= app.getScoreDecrease().get(hole4.colourToString()) * app.getModScoreDecrease(); //239, 254, 204
-            Ball[] initialQueue = app.ballQueue.clone();
+            world.score = initialScore;
+            expectedScore -= world.getScoreDecrease().get(hole4.colourToString()) * world.getModScoreDecrease(); //239, 254, 204
+            Ball[] initialQueue = world.ballQueue.clone();
 
-            ball4.meetHole(hole4, app);
-            assertEquals(expectedScore, App.scoreTemp, 1.0d);
+            ball4.meetHole(hole4, world);
+            assertEquals(expectedScore, world.score, 1.0d);
             verify(mockBallList).remove(ball4);
             assertFalse(ball4.getIsAbsorbed()); // Ball should not be signaled as absorbed, or else it wouldn't draw
 
             for (int j = i % 5; j < initialQueue.length - 1; j++) {
                 if (initialQueue[j] == null) {
-                    if (app.ballQueue[j] == null) {
-                        fail("Failed NormalMeetHole: Failed capture ball was not added to app.ballQueue");
+                    if (world.ballQueue[j] == null) {
+                        fail("Failed NormalMeetHole: Failed capture ball was not added to world.ballQueue");
                     }
-                    else if (app.ballQueue[j].getColour() == ball4.getColour()) {
+                    else if (world.ballQueue[j].getColour() == ball4.getColour()) {
                         break;
                     }
                     else {
@@ -488,8 +490,8 @@ class BallTest {
                 }
             }
 
-            if (app.ballQueue[app.ballQueue.length - 1] != null) {
-                app.ballQueue = new Ball[5]; // clear array
+            if (world.ballQueue[world.ballQueue.length - 1] != null) {
+                world.ballQueue = new Ball[5]; // clear array
             }
         }
     }
@@ -498,14 +500,14 @@ class BallTest {
     public void testNegativeMeetHole() {
         // Negative Case: Ball already absorbed
         ball.absorb();
-        assertFalse(ball.meetHole(hole, app));
+        assertFalse(ball.meetHole(hole, world));
     }
 
     @Test
     public void testEdgeMeetHole() {
         // Edge Case: gridPosition of hole is null, hence center of hole unknown
         Hole edgeHole = new Hole(4, 4, 0, null);
-        assertFalse(ball.meetHole(edgeHole, app));
+        assertFalse(ball.meetHole(edgeHole, world));
     }
 
     /** Testing getAttractionVector() **/
@@ -568,4 +570,86 @@ class BallTest {
         ball = new Ball(84, 148, 4);
         assertEquals("yellow", ball.colourToString());
     }
-}
\ No newline at end of file
+
+    /** Testing move() and interpolated draw() **/
+    @Test
+    public void testMove() {
+        ball.setVector(new float[] {4, -2});
+        ball.savePosition();
+        ball.move(0.25f); // Quarter of the vector, e.g. 30 FPS vectors at a 120 Hz tick rate
+        assertEquals(89, ball.getX(), 0.0001f);
+        assertEquals(87.5f, ball.getY(), 0.0001f);
+    }
+
+    @Test
+    public void testInterpolatedDraw() {
+        App app = spy(App.class);
+        doNothing().when(app).image(any(PImage.class), anyFloat(), anyFloat(), anyFloat(), anyFloat());
+        doReturn(mock(PImage.class)).when(app).getSprite(any(Sprite.class));
+
+        ball.setVector(new float[] {4, -2});
+        ball.savePosition();
+        ball.moveOne();
+
+        ball.draw(app, 0.5f); // Halfway between previous and current position
+        verify(app).image(any(PImage.class), eq(90.0f), eq(87.0f), anyFloat(), anyFloat());
+
+        ball.draw(app); // Current position
+        verify(app).image(any(PImage.class), eq(92.0f), eq(86.0f), anyFloat(), anyFloat());
+    }
+
+    @Test
+    public void testStaticVariants() {
+        Ball ball = new Ball(30, 34, 1);
+        ball.setVector(new float[] {2, -2});
+        Line line = new Line(new float[] {0, 0}, new float[] {50, 50}, 3, true);
+        float[] center = ball.getBallCenter();
+
+        float[] collisionPoint = new float[2];
+        assertTrue(Ball.willCollide(center[0] + 2, center[1] - 2, line, collisionPoint));
+        assertArrayEquals(ball.willCollide(line), collisionPoint);
+        assertFalse(Ball.willCollide(500, 500, line, null));
+
+        float[] vector = new float[] {2, -2};
+        Ball.reflect(center[0], center[1], vector, line);
+        assertArrayEquals(ball.setNewDirection(line), vector);
+
+        assertEquals(3, Ball.getNewColour(1, line));
+        assertEquals(1, Ball.getNewColour(1, new Line(new float[] {0, 0}, new float[] {1, 1}, 0, true)));
+    }
+
+    @Test
+    public void testTimeOfImpact() {
+        Line line = new Line(new float[] {100, 0}, new float[] {100, 100}, 0, false);
+        assertEquals(0.45f, Ball.timeOfImpact(50, 50, 100, 0, 5, line), 0.0001f); // Side of the line
+        assertEquals(0.46f, Ball.timeOfImpact(50, -3, 100, 0, 5, line), 0.0001f); // Rounded end
+        assertEquals(-1, Ball.timeOfImpact(50, -10, 100, 0, 5, line)); // Passes above
+        assertEquals(-1, Ball.timeOfImpact(50, 50, -100, 0, 5, line)); // Moving away
+        assertEquals(-1, Ball.timeOfImpact(50, 50, 40, 0, 5, line)); // Stops short
+        assertEquals(-1, Ball.timeOfImpact(97, 50, 100, 0, 5, line)); // Already touching
+
+        Line dot = new Line(new float[] {100, 50}, new float[] {100, 50}, 0, false);
+        assertEquals(0.45f, Ball.timeOfImpact(50, 50, 100, 0, 5, dot), 0.0001f);
+
+        float[] collisionPoint = new float[2];
+        Ball.getCollisionPoint(50, 50, dot, collisionPoint);
+        assertArrayEquals(dot.getP1(), collisionPoint); // So that bounce reverses the ball
+    }
+
+    @Test
+    public void testBounce() {
+        Ball ball = new Ball(30, 34, 1);
+        ball.setVector(new float[] {2, -2});
+        Line line = new Line(new float[] {0, 0}, new float[] {50, 50}, 3, true);
+        Ball expected = new Ball(30, 34, 1);
+        expected.setVector(new float[] {2, -2});
+
+        float[] collisionPoint = new float[2];
+        assertTrue(ball.willCollide(line, collisionPoint));
+        ball.bounce(line, collisionPoint, 1);
+        expected.interact(line);
+        assertArrayEquals(expected.getVector(), ball.getVector());
+        assertEquals(expected.getX(), ball.getX());
+        assertEquals(3, ball.getColour());
+    }
+}
@@ -0,0 +1,125 @@
+package inkball;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import processing.data.JSONObject;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BatchRunnerTest {
+    @TempDir
+    Path directory;
+
+    private JSONObject json;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        String[] rows = new String[18];
+        rows[0] = "XXXXXXXXXXXXXXXXXX";
+        for (int i = 1; i < 17; i++) {
+            rows[i] = "X                X";
+        }
+        rows[3] = "X  S             X";
+        rows[8] = "X       H0       X";
+        rows[13] = "X   B1       S   X";
+        rows[17] = rows[0];
+        Files.write(directory.resolve("small.txt"), Arrays.asList(rows));
+
+        json = JSONObject.parse("{\"levels\": ["
+                + "{\"layout\": \"small.txt\", \"time\": 120, \"spawn_interval\": 2, \"balls\": [\"grey\", \"blue\"]},"
+                + "{\"layout\": \"small.txt\", \"spawn_interval\": 1, \"balls\": [\"green\"]}],"
+                + "\"score_increase_from_hole_capture\": {\"grey\": 70, \"orange\": 50, \"blue\": 50, \"green\": 50, \"yellow\": 100},"
+                + "\"score_decrease_from_wrong_hole\": {\"grey\": 0, \"orange\": 25, \"blue\": 25, \"green\": 25, \"yellow\": 100}}");
+    }
+
+    @Test
+    public void testInvalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> new BatchRunner(null, null));
+        BatchRunner runner = new BatchRunner(json, directory.toFile());
+        assertThrows(IllegalArgumentException.class, () -> runner.setMaxTime(0));
+        assertThrows(IllegalArgumentException.class, () -> runner.runAll(0, 0, 1));
+        assertThrows(IllegalArgumentException.class, () -> runner.runAll(1, 0, 0));
+    }
+
+    @Test
+    public void testRunIsRepeatable() throws IOException {
+        BatchRunner runner = new BatchRunner(json, directory.toFile());
+        assertEquals(2, runner.getLevelCount());
+
+        BatchRunner.Result first = runner.run(1, 42);
+        BatchRunner.Result second = runner.run(1, 42);
+        assertEquals(first.toCsv(), second.toCsv());
+        assertTrue(first.getTimeUsed() > 0 && first.getTimeUsed() <= 120);
+
+        int captured = 0;
+        for (int colour = 0; colour < 5; colour++) {
+            captured += first.getCaptures(colour);
+        }
+        if (first.getWon()) {
+            assertEquals(3, captured); // A grey hole absorbs every colour
+            assertTrue(first.getScore() >= 3 * 50);
+        }
+        assertEquals(0, first.getWrongCaptures());
+    }
+
+    @Test
+    public void testMatchesApp() throws IOException {
+        // The same level and seed played through App::tick ends the same way as the batch run
+        BatchRunner.Result result = new BatchRunner(json, directory.toFile()).run(1, 42);
+
+        App app = new App();
+        app.json = json;
+        app.loadLevel(1, 42, 0, LayoutParser.parse(directory.resolve("small.txt").toFile()));
+        App.timeLimit = app.getWorld().getTimeLimit();
+        App.lastSecond = App.timeLimit;
+        while (app.gameState == App.GameState.PLAYING) {
+            app.tick();
+        }
+        assertEquals(result.getWon(), app.gameState == App.GameState.WIN);
+        assertEquals(result.getScore(), app.getWorld().getScore());
+        assertEquals(result.getTimeUsed(), (float) app.getWorld().getTicks() / app.getWorld().getTickRate());
+    }
+
+    @Test
+    public void testMaxTime() throws IOException {
+        BatchRunner runner = new BatchRunner(json, directory.toFile());
+        runner.setMaxTime(2);
+        BatchRunner.Result result = runner.run(2, 0); // Level 2 has no time limit
+        assertTrue(result.getTimeUsed() <= 2);
+    }
+
+    @Test
+    public void testRunAll() {
+        BatchRunner runner = new BatchRunner(json, directory.toFile());
+        runner.setMaxTime(5);
+        List<BatchRunner.Result> results = runner.runAll(3, 10, 4);
+        assertEquals(6, results.size());
+        for (int i = 0; i < results.size(); i++) {
+            assertEquals(i / 3 + 1, results.get(i).getLevel()); // Ordered by level, then by seed
+            assertEquals(10 + i % 3, results.get(i).getSeed());
+        }
+        assertEquals(runner.runAll(3, 10, 1).get(4).toCsv(), results.get(4).toCsv()); // Threads do not change results
+
+        StringWriter text = new StringWriter();
+        BatchRunner.writeCsv(results, new PrintWriter(text));
+        String[] lines = text.toString().split("\\R");
+        assertEquals(7, lines.length);
+        assertEquals(BatchRunner.HEADER, lines[0]);
+        assertEquals(12, lines[1].split(",").length);
+    }
+
+    @Test
+    public void testMissingLayout() {
+        json.getJSONArray("levels").getJSONObject(1).setString("layout", "missing.txt");
+        BatchRunner runner = new BatchRunner(json, directory.toFile());
+        assertThrows(FileNotFoundException.class, () -> runner.run(2, 0));
+        assertThrows(IllegalStateException.class, () -> runner.runAll(1, 0, 2));
+    }
+}
@@ -0,0 +1,109 @@
+package inkball;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BinaryWriterTest {
+
+    @Test
+    public void testRoundTrip() {
+        BinaryWriter out = new BinaryWriter(1); // Grows as it is written
+        out.writeByte(200);
+        out.writeVarInt(0);
+        out.writeVarInt(300);
+        out.writeVarInt(Integer.MAX_VALUE);
+        out.writeVarLong(-1);
+        out.writeZigZag(-1);
+        out.writeZigZag(Long.MIN_VALUE);
+        out.writeInt(-123456);
+        out.writeLong(Long.MAX_VALUE);
+        out.writeFloat(-0.1f);
+        out.writeFloat(Float.NaN);
+        out.writeDouble(Math.PI);
+        out.writeString("héllo");
+        out.writeBytes(new byte[] {1, 2, 3});
+
+        BinaryReader in = new BinaryReader(out.toByteArray());
+        assertEquals(200, in.readByte());
+        assertEquals(0, in.readVarInt());
+        assertEquals(300, in.readVarInt());
+        assertEquals(Integer.MAX_VALUE, in.readVarInt());
+        assertEquals(-1, in.readVarLong());
+        assertEquals(-1, in.readZigZag());
+        assertEquals(Long.MIN_VALUE, in.readZigZag());
+        assertEquals(-123456, in.readInt());
+        assertEquals(Long.MAX_VALUE, in.readLong());
+        assertEquals(-0.1f, in.readFloat());
+        assertTrue(Float.isNaN(in.readFloat()));
+        assertEquals(Math.PI, in.readDouble());
+        assertEquals("héllo", in.readString());
+        assertArrayEquals(new byte[] {1, 2, 3}, in.readBytes(3));
+        assertEquals(0, in.remaining());
+    }
+
+    @Test
+    public void testVarintSize() {
+        BinaryWriter out = new BinaryWriter();
+        out.writeVarInt(127);
+        assertEquals(1, out.size());
+        out.writeVarInt(128);
+        assertEquals(3, out.size());
+        out.writeZigZag(-64);
+        assertEquals(4, out.size());
+        out.writeVarLong(-1);
+        assertEquals(14, out.size());
+    }
+
+    @Test
+    public void testResetAndWriteTo() throws IOException {
+        BinaryWriter out = new BinaryWriter(4);
+        out.writeInt(7);
+        out.reset();
+        assertEquals(0, out.size());
+        out.writeByte(9);
+
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        out.writeTo(stream);
+        assertArrayEquals(new byte[] {9}, stream.toByteArray());
+        assertArrayEquals(new byte[] {9}, out.toByteArray());
+    }
+
+    @Test
+    public void testPosition() {
+        BinaryReader in = new BinaryReader(ByteBuffer.wrap(new byte[] {5, 6, 7}));
+        in.setPosition(2);
+        assertEquals(7, in.readByte());
+        assertEquals(3, in.getPosition());
+        in.setPosition(0);
+        assertEquals(5, in.readByte());
+        assertEquals(2, in.remaining());
+        assertThrows(IllegalArgumentException.class, () -> in.setPosition(4));
+        assertThrows(IllegalArgumentException.class, () -> in.setPosition(-1));
+    }
+
+    @Test
+    public void testErrors() {
+        assertThrows(IllegalArgumentException.class, () -> new BinaryWriter(0));
+        assertThrows(IllegalArgumentException.class, () -> new BinaryWriter().writeVarInt(-1));
+
+        BinaryWriter out = new BinaryWriter();
+        out.writeVarLong(1L << 40);
+        assertThrows(IllegalArgumentException.class, () -> new BinaryReader(out.toByteArray()).readVarInt());
+
+        byte[] tooLong = new byte[11];
+        Arrays.fill(tooLong, (byte) 0x80);
+        assertThrows(IllegalArgumentException.class, () -> new BinaryReader(tooLong).readVarLong());
+
+        // A record cut off in the middle
+        assertThrows(BufferUnderflowException.class, () -> new BinaryReader(new byte[] {1, 2}).readInt());
+        assertThrows(BufferUnderflowException.class, () -> new BinaryReader(new byte[] {(byte) 0x80}).readVarLong());
+        assertThrows(BufferUnderflowException.class, () -> new BinaryReader(new byte[] {5, 'a'}).readString());
+    }
+}
@@ -19,7 +19,7 @@ public class BlankTest {
 
     @Test
     public void testDraw() {
-        when(app.getSprite("tile")).thenReturn(mock(PImage.class));
+        when(app.getSprite(Sprite.TILE)).thenReturn(mock(PImage.class));
         doNothing().when(app).image(any(PImage.class), anyFloat(), anyFloat(), anyFloat(), anyFloat());
         blank.draw(app);
         verify(app).image(any(PImage.class), anyFloat(), anyFloat(), anyFloat(), anyFloat());
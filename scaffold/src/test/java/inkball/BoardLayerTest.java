@@ -0,0 +1,80 @@
+package inkball;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import processing.core.PGraphics;
+import processing.core.PImage;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class BoardLayerTest {
+    private App app;
+    private PGraphics layer;
+    private GameWorld world;
+    private BoardLayer boardLayer;
+
+    @BeforeEach
+    public void setUp() {
+        app = mock(App.class);
+        layer = mock(PGraphics.class);
+        layer.width = 4 * App.CELLSIZE;
+        layer.height = 3 * App.CELLSIZE;
+        when(app.createGraphics(anyInt(), anyInt())).thenReturn(layer);
+        when(app.getSprite(any(Sprite.class))).thenReturn(mock(PImage.class));
+
+        world = new GameWorld();
+        world.createBoard(3, 4);
+        ArrayList<ArrayList<String>> lines = new ArrayList<>();
+        lines.add(new ArrayList<>(Arrays.asList("1", "H", "1", " ")));
+        lines.add(new ArrayList<>(Arrays.asList("S", " ", " ", " ")));
+        lines.add(new ArrayList<>(Arrays.asList(" ", " ", " ", "2")));
+        world.setLayout(lines);
+        boardLayer = new BoardLayer();
+    }
+
+    @Test
+    public void testDrawsBoardOnce() {
+        // 12 tiles, of which the three other tiles of the hole draw nothing
+        assertEquals(9, boardLayer.update(app, world));
+        verify(app).createGraphics(4 * App.CELLSIZE, 3 * App.CELLSIZE);
+        verify(layer, times(9)).image(any(PImage.class), anyFloat(), anyFloat(), anyFloat(), anyFloat());
+        verify(layer).image(any(PImage.class), eq(32f), eq(0f), eq(64f), eq(64f)); // The hole
+
+        // Unchanged board: nothing is drawn into the layer, it is only drawn onto the window
+        boardLayer.draw(app, world);
+        verify(layer, times(9)).image(any(PImage.class), anyFloat(), anyFloat(), anyFloat(), anyFloat());
+        verify(app).image(layer, 0, App.TOPBAR);
+    }
+
+    @Test
+    public void testChangedTiles() {
+        boardLayer.update(app, world);
+        Wall wall = (Wall) world.getBoard()[2][3];
+        wall.damage(2);
+        wall.damage(2);
+        world.markChanged(wall);
+        assertEquals(1, boardLayer.update(app, world));
+        verify(app).getSprite(Sprite.WALL2_DAMAGED);
+        verify(layer, times(2)).image(any(PImage.class), eq(96f), eq(64f), eq(32f), eq(32f)); // Full draw, then the redraw
+        assertTrue(world.getChangedTiles().isEmpty());
+
+        world.removeWall((Wall) world.getBoard()[0][0]);
+        assertEquals(1, boardLayer.update(app, world));
+        assertEquals(0, boardLayer.update(app, world));
+    }
+
+    @Test
+    public void testNewBoard() {
+        boardLayer.update(app, world);
+        world.createBoard(3, 4);
+        ArrayList<ArrayList<String>> lines = new ArrayList<>();
+        lines.add(new ArrayList<>(Arrays.asList(" ", " ", " ", " ")));
+        world.setLayout(lines);
+        assertEquals(12, boardLayer.update(app, world));
+        verify(app, times(1)).createGraphics(anyInt(), anyInt()); // Same size, so the layer is reused
+    }
+}
@@ -0,0 +1,103 @@
+package inkball;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FrameProfilerTest {
+    @TempDir
+    Path directory;
+
+    private FrameProfiler profiler;
+
+    @BeforeEach
+    public void setUp() {
+        profiler = new FrameProfiler();
+    }
+
+    @Test
+    public void testMarkOutsideFrame() {
+        profiler.mark(FrameProfiler.Phase.SIMULATION);
+        profiler.endFrame();
+        for (FrameProfiler.Phase phase : FrameProfiler.Phase.values()) {
+            assertEquals(0, profiler.getHistogram(phase).getTotalCount());
+        }
+    }
+
+    @Test
+    public void testFrame() throws InterruptedException {
+        for (int i = 0; i < 3; i++) {
+            profiler.beginFrame();
+            profiler.mark(FrameProfiler.Phase.BOARD);
+            Thread.sleep(2);
+            profiler.mark(FrameProfiler.Phase.SIMULATION);
+            profiler.endFrame();
+        }
+
+        assertEquals(3, profiler.getHistogram(FrameProfiler.Phase.BOARD).getTotalCount());
+        assertEquals(3, profiler.getHistogram(FrameProfiler.Phase.SIMULATION).getTotalCount());
+        assertEquals(3, profiler.getHistogram(FrameProfiler.Phase.FRAME).getTotalCount());
+        assertEquals(3, profiler.getHistogram(FrameProfiler.Phase.GC).getTotalCount());
+        assertEquals(0, profiler.getHistogram(FrameProfiler.Phase.LINES).getTotalCount()); // Skipped phase
+        assertTrue(profiler.getHistogram(FrameProfiler.Phase.SIMULATION).getValueAtPercentile(50) >= 2_000_000);
+        assertTrue(profiler.getHistogram(FrameProfiler.Phase.FRAME).getMax()
+                >= profiler.getHistogram(FrameProfiler.Phase.SIMULATION).getMax());
+
+        profiler.reset();
+        assertEquals(0, profiler.getHistogram(FrameProfiler.Phase.FRAME).getTotalCount());
+    }
+
+    @Test
+    public void testSummary() {
+        profiler.beginFrame();
+        profiler.endFrame();
+        String[] lines = profiler.getSummary();
+        assertEquals(FrameProfiler.Phase.values().length + 1, lines.length);
+        assertTrue(lines[0].contains("p99"));
+        assertTrue(lines[lines.length - 1].startsWith("FRAME"));
+    }
+
+    @Test
+    public void testWriteCsv() {
+        profiler.beginFrame();
+        profiler.mark(FrameProfiler.Phase.BOARD);
+        profiler.endFrame();
+
+        StringWriter text = new StringWriter();
+        profiler.writeCsv(new PrintWriter(text));
+        String[] lines = text.toString().split("\\R");
+
+        assertEquals(FrameProfiler.HEADER, lines[0]);
+        assertEquals(FrameProfiler.Phase.values().length + 1, lines.length);
+        assertTrue(lines[1].startsWith("board,1,"));
+        assertTrue(lines[2].startsWith("top_bar,0,"));
+        assertEquals(7, lines[1].split(",").length);
+    }
+
+    @Test
+    public void testExport() throws IOException {
+        profiler.beginFrame();
+        profiler.mark(FrameProfiler.Phase.BOARD);
+        profiler.endFrame();
+
+        File out = directory.resolve("timing").toFile();
+        profiler.export(out);
+
+        List<String> csv = Files.readAllLines(new File(out, "frame-timing.csv").toPath());
+        assertEquals(FrameProfiler.HEADER, csv.get(0));
+        assertTrue(new File(out, "board.hgrm").isFile());
+        assertTrue(new File(out, "frame.hgrm").isFile());
+        assertFalse(new File(out, "lines.hgrm").exists()); // No times recorded
+
+        File blocked = directory.resolve("file").toFile();
+        assertTrue(blocked.createNewFile());
+        assertThrows(IOException.class, () -> profiler.export(blocked));
+    }
+}
@@ -0,0 +1,144 @@
+package inkball;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GameMetricsTest {
+    private GameMetrics metrics;
+    private GameWorld world;
+
+    @BeforeEach
+    public void setUp() {
+        metrics = new GameMetrics();
+        world = new GameWorld();
+        world.configure(null, 1);
+        world.createBoard(18, 18);
+        world.setLayout(new ArrayList<>()); // Borders only
+        world.ballQueue = new Ball[] {new Ball(0, 0, 1), null, new Ball(0, 0, 2)};
+        Ball ball = new Ball(App.CELLSIZE + 2, App.TOPBAR + 100, 0); // Next to the left border
+        ball.setVector(new float[] {-2, 2}); // and heading into it, whatever the random starting vector
+        world.addBall(ball);
+        world.addStroke(new ArrayList<>(Arrays.asList(
+                new Line(new float[] {10, 10}, new float[] {20, 20}, 0, true),
+                new Line(new float[] {20, 20}, new float[] {30, 20}, 0, true))));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        metrics.stopServer();
+        metrics.unregister();
+    }
+
+    @Test
+    public void testSample() {
+        for (int i = 0; i < 5; i++) {
+            world.step();
+        }
+        metrics.sample(world);
+
+        assertEquals(1, metrics.getBalls());
+        assertEquals(world.getLineSegments().size(), metrics.getLineSegments());
+        assertEquals(1, metrics.getDrawnLines());
+        assertEquals(2, metrics.getDrawnSegments());
+        assertEquals(2, metrics.getQueueDepth());
+        assertEquals(5, metrics.getTicks());
+        assertEquals(world.getCollisionTests(), metrics.getCollisionTests());
+        assertEquals(world.getLastTickTests(), metrics.getCollisionTestsPerTick());
+        assertTrue(metrics.getCollisionTests() > 0);
+        assertTrue(metrics.getHitRatio() >= 0 && metrics.getHitRatio() <= 1);
+        assertThrows(IllegalArgumentException.class, () -> metrics.getCaptures(5));
+    }
+
+    @Test
+    public void testCountersCarryOver() {
+        world.step();
+        world.capture(2, new Hole(3, 3, 2, Hole.GridPosition.BR));
+        world.capture(1, new Hole(3, 3, 3, Hole.GridPosition.BR));
+        metrics.sample(world);
+        long tests = metrics.getCollisionTests();
+        assertEquals(1, metrics.getCaptures(2));
+        assertEquals(1, metrics.getWrongCaptures());
+
+        GameWorld next = new GameWorld(); // e.g. the next level
+        next.configure(null, 1);
+        next.capture(2, new Hole(3, 3, 2, Hole.GridPosition.BR));
+        metrics.sample(next);
+        metrics.sample(next); // Sampling the same world again adds nothing
+        assertEquals(tests, metrics.getCollisionTests());
+        assertEquals(2, metrics.getCaptures(2));
+        assertEquals(2, metrics.getCaptures());
+        assertEquals(1, metrics.getWrongCaptures());
+        assertEquals(0, metrics.getBalls());
+    }
+
+    @Test
+    public void testPrometheus() {
+        world.step();
+        metrics.sample(world);
+        String text = metrics.toPrometheus();
+
+        assertTrue(text.contains("# TYPE inkball_balls gauge\ninkball_balls 1\n"));
+        assertTrue(text.contains("# TYPE inkball_collision_tests_total counter\n"));
+        assertTrue(text.contains("inkball_queue_depth 2\n"));
+        assertTrue(text.contains("inkball_captures_total{colour=\"yellow\"} 0\n"));
+        for (String line : text.split("\n")) {
+            assertTrue(line.startsWith("# ") || line.matches("inkball_[a-z_]+(\\{colour=\"[a-z]+\"})? [0-9.]+"), line);
+        }
+    }
+
+    @Test
+    public void testJmx() throws Exception {
+        metrics.sample(world);
+        metrics.register();
+        assertTrue(metrics.isRegistered());
+
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName(GameMetrics.OBJECT_NAME);
+        assertEquals(1, server.getAttribute(name, "Balls"));
+        assertEquals(2, server.getAttribute(name, "QueueDepth"));
+
+        GameMetrics replacement = new GameMetrics();
+        replacement.register(); // Replaces the earlier registration
+        assertEquals(0, server.getAttribute(name, "Balls"));
+        replacement.unregister();
+        assertFalse(server.isRegistered(name));
+        metrics.unregister(); // Already removed
+        assertFalse(metrics.isRegistered());
+    }
+
+    @Test
+    public void testServer() throws IOException {
+        assertThrows(IllegalArgumentException.class, () -> metrics.startServer(-1));
+        assertThrows(IllegalArgumentException.class, () -> metrics.startServer(70000));
+
+        metrics.sample(world);
+        int port = metrics.startServer(0);
+        assertTrue(metrics.isServerRunning());
+        assertThrows(IllegalStateException.class, () -> metrics.startServer(0));
+
+        HttpURLConnection connection = (HttpURLConnection) new URL("http://127.0.0.1:" + port + "/metrics").openConnection();
+        assertEquals(200, connection.getResponseCode());
+        assertTrue(connection.getContentType().startsWith("text/plain"));
+        try (InputStream in = connection.getInputStream()) {
+            String body = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            assertEquals(metrics.toPrometheus(), body);
+        }
+
+        metrics.stopServer();
+        assertFalse(metrics.isServerRunning());
+    }
+}
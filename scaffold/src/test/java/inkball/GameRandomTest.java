@@ -0,0 +1,59 @@
+package inkball;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GameRandomTest {
+
+    @Test
+    public void testSameAsRandom() {
+        for (long seed : new long[] {0, 1, 42, -7, Long.MAX_VALUE}) {
+            Random expected = new Random(seed);
+            GameRandom random = new GameRandom(seed);
+            for (int i = 0; i < 100; i++) {
+                assertEquals(expected.nextInt(10), random.nextInt(10));
+                assertEquals(expected.nextInt(), random.nextInt());
+                assertEquals(expected.nextFloat(), random.nextFloat());
+                assertEquals(expected.nextDouble(), random.nextDouble());
+                assertEquals(expected.nextLong(), random.nextLong());
+                assertEquals(expected.nextBoolean(), random.nextBoolean());
+            }
+        }
+    }
+
+    @Test
+    public void testSetSeed() {
+        GameRandom random = new GameRandom();
+        random.nextGaussian(); // Leaves a cached Gaussian, which setSeed clears
+        random.setSeed(99);
+        Random expected = new Random(99);
+        for (int i = 0; i < 10; i++) {
+            assertEquals(expected.nextGaussian(), random.nextGaussian());
+            assertEquals(expected.nextInt(5), random.nextInt(5));
+        }
+    }
+
+    @Test
+    public void testState() {
+        GameRandom random = new GameRandom(5);
+        random.nextInt(); // Move away from the seed
+        long state = random.getState();
+        int[] first = new int[20];
+        for (int i = 0; i < first.length; i++) {
+            first[i] = random.nextInt(100);
+        }
+
+        GameRandom copy = new GameRandom();
+        copy.setState(state);
+        random.setState(state | (0xFFFFL << 48)); // Bits above the 48-bit state are ignored
+        assertEquals(state, random.getState());
+        for (int value : first) {
+            assertEquals(value, copy.nextInt(100));
+            assertEquals(value, random.nextInt(100));
+        }
+        assertEquals(random.getState(), copy.getState());
+    }
+}
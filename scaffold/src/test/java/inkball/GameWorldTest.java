@@ -0,0 +1,983 @@
+package inkball;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.mockito.Mockito.*;
+
+import org.mockito.MockedStatic;
+import processing.data.JSONObject;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GameWorldTest {
+
+    private GameWorld world;
+
+    @BeforeEach
+    public void setUp() {
+        // Spy so that a real GameWorld is used while still allowing methods to be stubbed
+        world = spy(new GameWorld());
+    }
+
+    /**
+     * Adds a line to allLines with its slot, like GameWorld::addSegment but without the segment grid,
+     * so that mocks and lines outside the board can be added.
+     */
+    static void addLine(GameWorld world, Line line) {
+        line.slot = world.allLines.size();
+        world.allLines.add(line);
+    }
+
+    /**
+     * Adds a wall to walls with its slot, like GameWorld::setLayout does.
+     */
+    static void addWall(GameWorld world, Wall wall) {
+        wall.slot = world.walls.size();
+        world.walls.add(wall);
+    }
+
+    @Test
+    public void testStep() {
+        //Empty balls branch
+        world.balls = new ArrayList<>();
+        world.step();
+
+        //Fill balls
+        Ball mockBall = mock(Ball.class);
+        Wall mockWall = mock(Wall.class);
+        Line mockLine = mock(Line.class);
+        Hole mockHole = mock(Hole.class);
+        ArrayList<Line> lines = new ArrayList<>();
+
+        for (int i = 0; i < 10; i++) {
+            addWall(world, mockWall);
+            world.balls.add(mockBall);
+            addLine(world, mockLine);
+            world.holes.add(mockHole);
+            lines.add(mockLine);
+        }
+
+        for (int i = 0; i < 10; i++) {
+            // Adding line groups to world objects
+            world.drawnLines.add(lines);
+        }
+
+        when(mockBall.willCollide(mockLine)).thenReturn(null); // branch: no collision
+        when(mockBall.willCollide(eq(mockLine), any())).thenReturn(false);
+        when(mockBall.getVector()).thenReturn(new float[] {0, 0});
+
+        when(world.getWallAssociated(mockBall, mockLine)).thenReturn(new Wall[]{mockWall, mockWall});
+        doNothing().when(mockWall).damage(mockBall);
+        when(mockWall.getHP()).thenReturn(0);
+        doNothing().when(world).removeWall(mockWall);
+        doNothing().when(mockBall).interact(mockLine);
+
+        try (MockedStatic<App> mockStaticApp = mockStatic(App.class)) {
+            when(mockBall.getBallCenter()).thenReturn(new float[] {0, 0});
+            when(mockHole.getHoleCenter()).thenReturn(new float[] {50, 50});
+            when(mockHole.getHoleCenterX()).thenReturn(50f);
+            when(mockHole.getHoleCenterY()).thenReturn(50f);
+            mockStaticApp.when(() -> App.getDistance(new float[] {0, 0}, new float[] {50, 50})).thenReturn(50.0d); // branch: not in hole radius
+            mockStaticApp.when(() -> App.getDistance(0f, 0f, 50f, 50f)).thenReturn(50.0d);
+            doNothing().when(mockBall).setBallRadius(12);
+
+            doNothing().when(mockBall).moveOne();
+
+            doNothing().when(mockBall).interact(mockLine);
+            doReturn(null).when(world).removeLine(mockLine);
+
+            world.step();
+
+            when(mockBall.willCollide(mockLine)).thenReturn(new float[]{0, 0}); // Branch where collision happens
+            when(mockBall.willCollide(eq(mockLine), any())).thenReturn(true);
+
+            world.step();
+
+
+            when(mockBall.willCollide(mockLine)).thenReturn(null); // branch: no collision
+            when(mockBall.willCollide(eq(mockLine), any())).thenReturn(false);
+
+            when(world.getWallAssociated(mockBall, mockLine)).thenReturn(new Wall[]{mockWall, mockWall});
+            doNothing().when(mockWall).damage(mockBall);
+            when(mockWall.getHP()).thenReturn(0);
+            doNothing().when(world).removeWall(mockWall);
+            doNothing().when(mockBall).interact(mockLine);
+
+            doNothing().when(mockBall).moveOne();
+
+            doNothing().when(mockBall).interact(mockLine);
+            doReturn(null).when(world).removeLine(mockLine);
+            when(mockBall.willCollide(mockLine)).thenReturn(null); // branch: no collision
+
+            when(mockBall.getBallCenter()).thenReturn(new float[] {0, 0});
+            when(mockHole.getHoleCenter()).thenReturn(new float[] {10, 10});
+            when(mockHole.getHoleCenterX()).thenReturn(10f);
+            when(mockHole.getHoleCenterY()).thenReturn(10f);
+            mockStaticApp.when(() -> App.getDistance(new float[] {0, 0}, new float[] {10, 10})).thenReturn(10.0d); // branch: in hole radius
+            mockStaticApp.when(() -> App.getDistance(0f, 0f, 10f, 10f)).thenReturn(10.0d);
+            when(mockBall.meetHole(mockHole, world)).thenReturn(true);
+            world.step();
+        }
+
+    }
+
+    @Test
+    public void testAddBorders() {
+        Wall mockWall = mock(Wall.class);
+        Tile mockTile = mock(Tile.class);
+        world.allLines.clear();
+
+        world.board = new Tile[32][32];
+
+        for (int i = 0; i < world.board.length; i++) {
+            for (int j = 0; j < world.board[i].length; j++) {
+                if (i == 0) {
+                    world.board[i][j] = mockWall;
+                }
+                else {
+
+                    world.board[i][j] = mockTile;
+                }
+            }
+        }
+
+        doNothing().when(world).addWallLineSegment(mockWall);
+        world.addBorders();
+
+        float[] topLeftCorner = new float[] {-32, App.TOPBAR-32}; // H0, V0
+        float[] topRightCorner = new float[] {App.WIDTH+32, App.TOPBAR-32}; // H1, V0
+        float[] bottomLeftCorner = new float[] {-32, App.HEIGHT+32}; // H0, V1
+        float[] bottomRightCorner = new float[] {App.WIDTH+32, App.HEIGHT+32}; // H1, V1
+        boolean isDrawn = false;
+        assertEquals(world.allLines.get(0), new Line(topLeftCorner, topRightCorner, 0, isDrawn));
+        assertEquals(world.allLines.get(1), new Line(topLeftCorner, bottomLeftCorner, 0, isDrawn));
+        assertEquals(world.allLines.get(2), new Line(bottomLeftCorner, bottomRightCorner, 0, isDrawn));
+        assertEquals(world.allLines.get(3), new Line(bottomRightCorner, topRightCorner, 0, isDrawn));
+
+    }
+
+    @Test
+    public void testCreateBoardSize() {
+        world.createBoard(18, 18);
+        assertEquals(App.WIDTH, world.getWidth());
+        assertEquals(App.HEIGHT, world.getHeight());
+        world.createBoard(40, 30);
+        assertEquals(30 * App.CELLSIZE, world.getWidth());
+        assertEquals(App.TOPBAR + 40 * App.CELLSIZE, world.getHeight());
+
+        world.setLayout(new ArrayList<>());
+        assertEquals(new Line(new float[] {-32, App.TOPBAR - 32}, new float[] {30 * App.CELLSIZE + 32, App.TOPBAR - 32}, 0, false), world.allLines.get(0));
+        assertFalse(world.getSegmentGrid().query(30 * App.CELLSIZE - 16, App.TOPBAR + 40 * App.CELLSIZE + 16).isEmpty()); // Bottom right corner is covered
+    }
+
+    @Test
+    public void testAddWallLineSegments() {
+        Wall wall = new Wall(1, 1, 2);
+        world.allLines.clear();
+
+        world.addWallLineSegment(wall);
+    }
+
+    @Test
+    public void testGetWallLineSegments() {
+        Wall wall = new Wall(1, 1, 2);
+
+        world.getWallLineSegments(wall);
+    }
+
+    @Test
+    public void testGetWallAssociated() {
+        Ball ball = new Ball(30, 34, 1);
+        ball.setVector(new float[]{2, -2});
+        Line line = new Line(new float[]{0, 0}, new float[]{50, 50}, 0, true);
+        assertNotNull(ball.willCollide(line)); // check that ball will collide
+
+        //Branch 1: Wall found
+        Wall wall = new Wall(1, 1, 2);
+        world.walls.clear();
+        addWall(world, wall);
+        assertNull(world.getWallAssociated(ball, line)); // Test for branch where wall is not on board
+        world.board = new Tile[32][32];
+        world.board[1][1] = wall;
+        assertNotNull(world.getWallAssociated(ball, line)); // Positive case
+
+        //Branch 2: Wall not found, so distance > minDistance
+        wall = new Wall(100, 100, 2);
+        world.walls.clear();
+        addWall(world, wall);
+        world.board = new Tile[100][100];
+        world.board[99][99] = wall;
+        assertNull(world.getWallAssociated(ball, line));
+        world.getWallAssociated(ball, line);
+    }
+
+    @Test
+    public void testRemoveWall() {
+        Wall wall = new Wall(0, 0, 2);
+        //Case where no wall found
+        world.allLines.clear();
+        world.walls.clear();
+        // add dummy lines
+        for (int i = 0; i < 10; i++) {
+            addLine(world, new Line(new float[]{500, 500}, new float[]{600, 600}, 1, true));
+        }
+
+        world.removeWall(wall);
+        assertEquals(0, world.getWallBreaks());
+
+        //Case where wall is found
+        addWall(world, wall);
+        world.allLines.clear();
+        world.board = new Tile[32][32];
+        world.board[0][0] = wall;
+        Line[] toRemove = world.getWallLineSegments(wall);
+        world.addWallLineSegment(wall);
+        assertEquals(2, world.allLines.size()); // The top and left sides face the edge of the board
+
+        // // add dummy lines
+        addLine(world, new Line(new float[]{100, 100}, new float[]{100, 100}, 1, true)); // dummy lines
+        addLine(world, new Line(new float[]{75, 50}, new float[]{75, 50}, 1, true)); // dummy lines
+        addLine(world, new Line(new float[]{150, 60}, new float[]{150, 60}, 1, true)); // dummy lines
+
+        world.removeWall(wall);
+        assertFalse(world.walls.contains(wall));
+        assertFalse(world.allLines.containsAll(Arrays.asList(toRemove)));
+        assertSame(world.board[0][0].getClass(), Blank.class);
+        assertEquals(1, world.getWallBreaks());
+        assertTrue(world.getChangedTiles().get(0)); // So the board layer draws the blank tile
+    }
+
+    @Test
+    public void testCaptureCounts() {
+        world.configure(null, 1);
+        world.ballQueue = new Ball[2];
+        assertTrue(world.capture(2, new Hole(3, 3, 2, Hole.GridPosition.BR)));
+        assertTrue(world.capture(4, new Hole(3, 3, 0, Hole.GridPosition.BR)));
+        assertFalse(world.capture(1, new Hole(3, 3, 3, Hole.GridPosition.BR)));
+        assertEquals(1, world.getCaptures(2));
+        assertEquals(1, world.getCaptures(4));
+        assertEquals(0, world.getCaptures(1));
+        assertEquals(1, world.getWrongCaptures());
+        assertThrows(IllegalArgumentException.class, () -> world.getCaptures(5));
+        assertThrows(IllegalArgumentException.class, () -> world.getCaptures(-1));
+    }
+
+    @Test
+    public void testSetSeed() {
+        ArrayList<String> first = null;
+        for (int run = 0; run < 2; run++) {
+            GameWorld seeded = new GameWorld();
+            seeded.setSeed(7);
+            seeded.configure(null, 1);
+            seeded.createBoard(18, 18);
+            seeded.setLayout(toLayout("SB1 B2 B3 B4", "    S"));
+            seeded.loadBallQueue(null, 1);
+            for (int i = 0; i < 5; i++) {
+                seeded.spawnBall();
+            }
+            ArrayList<String> description = new ArrayList<>();
+            for (Ball ball : seeded.getBalls()) {
+                description.add(ball.getX() + "," + ball.getY() + "," + Arrays.toString(ball.getVector()));
+            }
+            if (first == null) {
+                first = description;
+            }
+            else {
+                assertEquals(first, description); // Same spawners and starting vectors
+            }
+        }
+    }
+
+    private static ArrayList<ArrayList<String>> toLayout(String... rows) {
+        ArrayList<ArrayList<String>> lines = new ArrayList<>();
+        for (String row : rows) {
+            ArrayList<String> chars = new ArrayList<>();
+            for (char c : row.toCharArray()) {
+                chars.add(Character.toString(c));
+            }
+            lines.add(chars);
+        }
+        return lines;
+    }
+
+    private static GameWorld makeStressWorld(boolean useBallStore) {
+        GameWorld world = new GameWorld();
+        world.configure(null, 1);
+        world.setUseBallStore(useBallStore);
+        world.createBoard(18, 18);
+        world.setLayout(toLayout(
+                "XXXXXXXXXXXXXXXXXX",
+                "X       1        X",
+                "X  H1        H2  X",
+                "X                X",
+                "X     22   33    X",
+                "X                X",
+                "X  H0   4    H3  X",
+                "X                X",
+                "X   XX      1    X",
+                "X                X",
+                "X        H4      X",
+                "X  3             X",
+                "X            2   X",
+                "X      X         X",
+                "X                X",
+                "X   4       XXX  X",
+                "X                X",
+                "XXXXXXXXXXXXXXXXXX"));
+        for (int i = 0; i < 40; i++) {
+            Ball ball = new Ball(40 + (i * 37) % 480, App.TOPBAR + 40 + (i * 53) % 480, i % 5);
+            ball.setVector(new float[] {(i % 7) - 3 + 0.5f, (i % 5) - 2 + 0.25f});
+            world.addBall(ball);
+        }
+        return world;
+    }
+
+    private static ArrayList<String> describeBalls(GameWorld world) {
+        ArrayList<String> description = new ArrayList<>();
+        for (Ball ball : world.getBalls()) {
+            description.add(ball.getX() + "," + ball.getY() + "," + ball.getColour() + "," + ball.getBallRadius());
+        }
+        BallStore store = world.getBallStore();
+        for (int i = 0; i < store.size(); i++) {
+            description.add(store.x[i] + "," + store.y[i] + "," + store.colour[i] + "," + store.radius[i]);
+        }
+        description.sort(null);
+        return description;
+    }
+
+    @Test
+    public void testConfigureBallStore() {
+        JSONObject json = JSONObject.parse("{\"levels\": [{\"ball_store\": true}],"
+                + "\"score_increase_from_hole_capture\": {\"grey\": 50},"
+                + "\"score_decrease_from_wrong_hole\": {\"grey\": 25}}");
+        world.configure(json, 1);
+        assertTrue(world.getUseBallStore());
+        world.configure(null, 1);
+        assertFalse(world.getUseBallStore());
+
+        world.setUseBallStore(true);
+        world.createBoard(18, 18);
+        world.setLayout(toLayout("SB1"));
+        world.loadBallQueue(null, 1);
+        assertEquals(1, world.getBallStore().size());
+        assertTrue(world.getBalls().isEmpty());
+        assertEquals(6, world.getBallQueue().length);
+
+        assertTrue(world.spawnBall());
+        assertEquals(2, world.getBallCount());
+        assertFalse(world.isCleared());
+    }
+
+    @Test
+    public void testBallStoreMatchesBalls() {
+        GameWorld objects = makeStressWorld(false);
+        GameWorld store = makeStressWorld(true);
+        assertEquals(40, objects.getBalls().size());
+        assertEquals(40, store.getBallStore().size());
+
+        for (int tick = 0; tick < 600; tick++) {
+            objects.step();
+            store.step();
+            assertEquals(describeBalls(objects), describeBalls(store), "Diverged at tick " + tick);
+            assertEquals(objects.getScore(), store.getScore(), 0.0001);
+            assertEquals(objects.getWalls().size(), store.getWalls().size());
+        }
+        assertTrue(store.getBallStore().size() < 40); // Some balls were captured
+    }
+
+    @Test
+    public void testConfigureParallelStep() {
+        JSONObject json = JSONObject.parse("{\"parallel_step\": true,"
+                + "\"score_increase_from_hole_capture\": {\"grey\": 50},"
+                + "\"score_decrease_from_wrong_hole\": {\"grey\": 25}}");
+        world.configure(json, 1);
+        assertTrue(world.getParallelStep());
+        world.configure(null, 1);
+        assertFalse(world.getParallelStep());
+        assertSame(ForkJoinPool.commonPool(), world.getPool());
+        assertThrows(IllegalArgumentException.class, () -> world.setPool(null));
+    }
+
+    /**
+     * Adds the same strokes and fast balls to a stress world, so that parallel steps also see strokes being hit.
+     */
+    private static void addStrokesAndFastBalls(GameWorld world) {
+        for (int i = 0; i < 6; i++) {
+            ArrayList<Line> stroke = new ArrayList<>();
+            for (int j = 0; j < 4; j++) {
+                stroke.add(new Line(new float[] {60 + 70 * i + 10 * j, 200 + 40 * i}, new float[] {70 + 70 * i + 10 * j, 205 + 40 * i}, 0, true));
+            }
+            world.addStroke(stroke);
+        }
+        for (int i = 0; i < 4; i++) {
+            Ball ball = new Ball(100 + 90 * i, App.TOPBAR + 300, i);
+            ball.setVector(new float[] {25 - 10 * i, 18 + 3 * i});
+            world.addBall(ball);
+        }
+    }
+
+    @Test
+    public void testParallelStepMatchesSequential() {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (boolean useBallStore : new boolean[] {false, true}) {
+                for (boolean collisions : new boolean[] {false, true}) {
+                    GameWorld sequential = makeStressWorld(useBallStore);
+                    GameWorld parallel = makeStressWorld(useBallStore);
+                    addStrokesAndFastBalls(sequential);
+                    addStrokesAndFastBalls(parallel);
+                    addWallBreak(sequential);
+                    addWallBreak(parallel);
+                    sequential.setBallCollisions(collisions);
+                    parallel.setBallCollisions(collisions);
+                    parallel.setParallelStep(true);
+                    parallel.setPool(pool);
+
+                    for (int tick = 0; tick < 600; tick++) {
+                        sequential.step();
+                        parallel.step();
+                        if (tick == 0) {
+                            assertEquals(Blank.class, parallel.board[8][4].getClass());
+                        }
+                        assertEquals(describeBalls(sequential), describeBalls(parallel), "Diverged at tick " + tick);
+                        assertEquals(sequential.getScore(), parallel.getScore());
+                        assertEquals(sequential.getWalls().size(), parallel.getWalls().size());
+                        assertEquals(sequential.getDrawnLines().size(), parallel.getDrawnLines().size());
+                        assertEquals(sequential.getBallQueue().length, parallel.getBallQueue().length);
+                    }
+                    assertTrue(parallel.getDrawnLines().size() < 6); // Some strokes were hit
+                    assertTrue(parallel.getBallCount() < 44); // Some balls were captured
+                }
+            }
+        }
+        finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Adds a ball that breaks a wall of the stress world on the first tick, and a ball inside that wall's tile
+     * that only hits the side of the next wall once the break exposes it, later in the same tick.
+     */
+    private static void addWallBreak(GameWorld world) {
+        ((Wall) world.board[8][4]).setHP(1);
+        Ball behind = new Ball(150 - 12, App.TOPBAR + 8 * App.CELLSIZE + 4, 0);
+        behind.setVector(new float[] {4, 0});
+        world.addBall(behind);
+        Ball breaker = new Ball(114 - 12, App.TOPBAR + 8 * App.CELLSIZE + 4, 0);
+        breaker.setVector(new float[] {4, 0});
+        world.addBall(breaker); // Stepped first, as balls are stepped from the last added
+    }
+
+    @Test
+    public void testCollisionCounters() {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            GameWorld sequential = makeStressWorld(true);
+            GameWorld parallel = makeStressWorld(true);
+            addStrokesAndFastBalls(sequential);
+            addStrokesAndFastBalls(parallel);
+            parallel.setParallelStep(true);
+            parallel.setPool(pool);
+            assertEquals(0, sequential.getCollisionTests());
+
+            long perTick = 0;
+            for (int tick = 0; tick < 300; tick++) {
+                sequential.step();
+                parallel.step();
+                perTick += sequential.getLastTickTests();
+            }
+            assertEquals(sequential.getCollisionTests(), perTick);
+            assertTrue(sequential.getCollisionHits() > 0);
+            assertTrue(sequential.getCollisionHits() < sequential.getCollisionTests());
+            // The parallel step also counts the tests that found the balls hitting nothing
+            assertTrue(parallel.getCollisionTests() >= sequential.getCollisionTests());
+            assertTrue(parallel.getCollisionHits() >= sequential.getCollisionHits());
+        }
+        finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testConfigureBallCollisions() {
+        JSONObject json = JSONObject.parse("{\"levels\": [{\"ball_collisions\": true}],"
+                + "\"score_increase_from_hole_capture\": {\"grey\": 50},"
+                + "\"score_decrease_from_wrong_hole\": {\"grey\": 25}}");
+        world.configure(json, 1);
+        assertTrue(world.getBallCollisions());
+        world.configure(null, 1);
+        assertFalse(world.getBallCollisions());
+    }
+
+    @Test
+    public void testBallCollisions() {
+        for (boolean collisions : new boolean[] {false, true}) {
+            for (boolean useBallStore : new boolean[] {false, true}) {
+                world = new GameWorld();
+                world.configure(null, 1);
+                world.setBallCollisions(collisions);
+                world.setUseBallStore(useBallStore);
+                world.createBoard(18, 18);
+                world.setLayout(new ArrayList<>());
+                Ball left = new Ball(200, 300, 1);
+                left.setVector(new float[] {2, 0});
+                Ball right = new Ball(260, 300, 2);
+                right.setVector(new float[] {-2, 0});
+                world.addBall(left);
+                world.addBall(right);
+
+                for (int tick = 0; tick < 30; tick++) {
+                    world.step();
+                }
+
+                float leftX = left.getX();
+                if (useBallStore) {
+                    BallStore store = world.getBallStore();
+                    leftX = store.colour[0] == left.getColour() ? store.x[0] : store.x[1];
+                }
+                if (collisions) {
+                    assertTrue(leftX < 200, "Balls should bounce apart"); // Met in the middle, then came back
+                }
+                else {
+                    assertEquals(260, leftX, 0.0001f); // Passed through each other
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testStrokeTree() {
+        world = new GameWorld();
+        GameWorld linear = new GameWorld(); // Strokes added directly, so no tree is built
+        assertNull(world.getStrokeTree());
+
+        for (int i = 0; i < 20; i++) {
+            ArrayList<Line> stroke = new ArrayList<>();
+            for (int j = 0; j < 5; j++) {
+                stroke.add(new Line(new float[] {100 + 10 * j, 100 + 7 * i}, new float[] {110 + 10 * j, 100 + 7 * i}, 0, true));
+            }
+            world.addStroke(stroke);
+            linear.drawnLines.add(stroke);
+        }
+        assertEquals(20, world.getStrokeTree().getStrokeCount());
+
+        Ball ball = new Ball(100, 100, 0);
+        for (int x = 90; x < 170; x += 3) {
+            for (int y = 90; y < 250; y += 3) {
+                ball.setVector(new float[] {x - ball.getBallCenter()[0], y - ball.getBallCenter()[1]});
+                assertSame(linear.findStrokeCollision(ball), world.findStrokeCollision(ball));
+            }
+        }
+
+        // Erasing removes the most recent stroke under the mouse from both the list and the tree
+        ArrayList<Line> latest = world.drawnLines.get(19);
+        assertSame(latest, world.removeLine(new float[] {120, 233}));
+        assertEquals(19, world.drawnLines.size());
+        assertEquals(19, world.getStrokeTree().getStrokeCount());
+        assertNull(world.removeLine(new float[] {400, 400}));
+
+        ArrayList<Line> first = world.drawnLines.get(0);
+        assertSame(first, world.removeLine(new Line(new float[] {100, 100}, new float[] {110, 100}, 0, true)));
+        assertFalse(world.drawnLines.contains(first));
+        assertEquals(18, world.getStrokeTree().getStrokeCount());
+    }
+
+    @Test
+    public void testGetSubsteps() {
+        assertEquals(1, GameWorld.getSubsteps(2, 2, 1));
+        assertEquals(1, GameWorld.getSubsteps(0, 0, 1));
+        assertEquals(4, GameWorld.getSubsteps(40, 0, 1));
+        assertEquals(2, GameWorld.getSubsteps(2, 0, 10)); // Coarse ticks
+        assertEquals(1, GameWorld.getSubsteps(Float.NaN, 0, 1));
+        assertEquals(GameWorld.MAX_SUBSTEPS, GameWorld.getSubsteps(1e9f, 0, 1));
+    }
+
+    /**
+     * Makes a world with a column of orange walls down the middle, and one blue ball left of it moving right.
+     */
+    private static GameWorld makeWallColumnWorld(JSONObject json, boolean useBallStore, float speed) {
+        GameWorld world = new GameWorld();
+        world.configure(json, 1);
+        world.setUseBallStore(useBallStore);
+        world.createBoard(18, 18);
+        String[] rows = new String[18];
+        Arrays.fill(rows, "         1        ");
+        world.setLayout(toLayout(rows));
+        Ball ball = new Ball(66, App.TOPBAR + 5 * App.CELLSIZE + 4, 2); // Centre level with the middle of a wall
+        ball.setVector(new float[] {speed, 0});
+        world.addBall(ball);
+        return world;
+    }
+
+    private static float getOnlyBallCenterX(GameWorld world) {
+        if (world.getBalls().isEmpty()) {
+            return world.getBallStore().getCenterX(0);
+        }
+        return world.getBalls().get(0).getCenterX();
+    }
+
+    @Test
+    public void testFastBallDoesNotTunnel() {
+        for (boolean useBallStore : new boolean[] {false, true}) {
+            // The look-ahead point goes from 270 to 334, jumping over the whole wall from 288 to 320
+            GameWorld world = makeWallColumnWorld(null, useBallStore, 64);
+            float maxX = 0;
+            for (int tick = 0; tick < 10; tick++) {
+                world.step();
+                maxX = Math.max(maxX, getOnlyBallCenterX(world));
+            }
+            assertTrue(maxX < 9 * App.CELLSIZE, "Ball went through the wall to " + maxX);
+            assertEquals(1, world.getBallCount());
+        }
+    }
+
+    @Test
+    public void testCoarseTicksDoNotTunnel() {
+        JSONObject json = JSONObject.parse("{\"tick_rate\": 1," // 30 frames of movement per tick
+                + "\"score_increase_from_hole_capture\": {\"grey\": 50},"
+                + "\"score_decrease_from_wrong_hole\": {\"grey\": 25}}");
+        for (boolean useBallStore : new boolean[] {false, true}) {
+            GameWorld world = makeWallColumnWorld(json, useBallStore, 2.5f); // Moves 75px per tick
+            assertEquals(30, world.getTickScale());
+            float maxX = 0;
+            for (int tick = 0; tick < 4; tick++) { // Only hits the wall once, so it does not break
+                world.step();
+                maxX = Math.max(maxX, getOnlyBallCenterX(world));
+            }
+            assertEquals(18, world.getWalls().size());
+            assertTrue(maxX < 9 * App.CELLSIZE, "Ball went through the wall to " + maxX);
+            float vx = useBallStore ? world.getBallStore().vx[0] : world.getBalls().get(0).getVector()[0];
+            assertEquals(-2.5f, vx, 0.0001f); // Bounced off the wall
+        }
+    }
+
+    @Test
+    public void testFastBallHitsStroke() {
+        world = new GameWorld();
+        world.configure(null, 1);
+        world.createBoard(18, 18);
+        world.setLayout(new ArrayList<>());
+        ArrayList<Line> stroke = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            stroke.add(new Line(new float[] {290, 200 + 4 * i}, new float[] {290, 204 + 4 * i}, 0, true));
+        }
+        world.addStroke(stroke);
+
+        Ball ball = new Ball(58, 208, 2);
+        ball.setVector(new float[] {40, 0});
+        world.getBalls().add(ball);
+        for (int tick = 0; tick < 10 && !world.getDrawnLines().isEmpty(); tick++) {
+            world.step();
+        }
+        assertTrue(world.getDrawnLines().isEmpty());
+        assertTrue(ball.getCenterX() < 290);
+        assertTrue(ball.getVector()[0] < 0);
+    }
+
+    @Test
+    public void testSegmentGrid() {
+        assertNull(world.getSegmentGrid()); // Not built until the borders are added
+        world.createBoard(18, 18);
+        ArrayList<ArrayList<String>> lines = new ArrayList<>();
+        lines.add(new ArrayList<>(Arrays.asList(" ", " ", "1", "1")));
+        world.setLayout(lines);
+        assertNotNull(world.getSegmentGrid());
+
+        Wall wall = (Wall) world.board[0][2];
+        Line bottom = world.allLines.get(5);
+        assertEquals(world.getWallLineSegments(wall)[2], bottom);
+        float[] below = new float[] {2 * App.CELLSIZE + 16, App.TOPBAR + App.CELLSIZE + 4};
+        assertTrue(world.getSegmentGrid().query(below[0], below[1]).contains(bottom));
+        assertEquals(8, world.allLines.size()); // Borders, and the left/bottom and bottom/right sides of the walls
+
+        world.removeWall(wall);
+        assertFalse(world.getSegmentGrid().query(below[0], below[1]).contains(bottom));
+        assertEquals(7, world.allLines.size()); // Borders and the other wall, now also showing its left side
+        Line left = world.getWallLineSegments((Wall) world.board[0][3])[1];
+        assertTrue(world.getSegmentGrid().query(3 * App.CELLSIZE - 4, App.TOPBAR + 16).contains(world.allLines.get(6)));
+        assertEquals(left, world.allLines.get(6));
+    }
+
+    @Test
+    public void testWallRegistry() {
+        world.createBoard(18, 18);
+        ArrayList<ArrayList<String>> lines = new ArrayList<>();
+        lines.add(new ArrayList<>(Arrays.asList("1", "2", " ", " ", "X")));
+        world.setLayout(lines);
+        for (Wall wall : world.walls) {
+            assertSame(wall, world.board[wall.getY()][wall.getX()]); // One wall per tile
+        }
+
+        // A side finds its own wall, even where the collision point is closer to the next wall
+        Wall first = (Wall) world.board[0][0];
+        Line bottom = world.allLines.stream().filter(line -> line.getWall() == first && line.getP1()[1] > App.TOPBAR).findFirst().get();
+        Wall[] associated = world.getWallAssociated(bottom, new float[] {App.CELLSIZE + 10, App.TOPBAR + App.CELLSIZE});
+        assertSame(first, associated[0]);
+        assertSame(first, associated[1]);
+        assertNull(world.allLines.get(0).getWall()); // Borders belong to no wall
+
+        // Other lines find the closest wall, as a scan over every wall would
+        for (int x = -40; x < App.WIDTH + 40; x += 7) {
+            for (int y = App.TOPBAR - 40; y < App.HEIGHT + 40; y += 11) {
+                Wall closest = null;
+                double min = Double.MAX_VALUE;
+                for (Wall wall : world.walls) {
+                    double distance = App.getDistance(x, y, wall.getX() * App.CELLSIZE + 16, wall.getY() * App.CELLSIZE + App.TOPBAR + 16);
+                    if (distance < min) {
+                        min = distance;
+                        closest = wall;
+                    }
+                }
+                Wall found = world.getWallAssociated(new float[] {x, y})[0];
+                assertEquals(min, App.getDistance(x, y, found.getX() * App.CELLSIZE + 16, found.getY() * App.CELLSIZE + App.TOPBAR + 16), 0.001, "Near " + x + ", " + y + " expected " + closest);
+            }
+        }
+    }
+
+    @Test
+    public void testWallFaces() {
+        // A 3 by 3 block of walls only has the 12 sides around it
+        world.createBoard(18, 18);
+        ArrayList<ArrayList<String>> lines = new ArrayList<>();
+        lines.add(new ArrayList<>());
+        for (int i = 0; i < 3; i++) {
+            lines.add(new ArrayList<>(Arrays.asList(" ", "1", "1", "1")));
+        }
+        world.setLayout(lines);
+        assertEquals(4 + 12, world.allLines.size());
+
+        // Opening the middle exposes the inner side of the four walls around it
+        Wall middle = world.walls.stream().filter(w -> w.getX() == 2 && w.getY() == 2).findFirst().get();
+        world.removeWall(middle);
+        assertEquals(4 + 16, world.allLines.size());
+        assertTrue(world.allLines.contains(world.getWallLineSegments((Wall) world.board[1][2])[2]));
+
+        // Removing a corner exposes its neighbours' sides and does not add a side twice
+        Wall corner = world.walls.stream().filter(w -> w.getX() == 1 && w.getY() == 1).findFirst().get();
+        world.removeWall(corner);
+        assertEquals(4 + 16 - 2 + 2, world.allLines.size());
+        assertEquals(2, world.getWallBreaks());
+        assertSlots();
+
+        // Removals move the last wall and segment into the freed slot
+        while (!world.walls.isEmpty()) {
+            Wall wall = world.walls.get(world.walls.size() / 2);
+            world.removeWall(wall);
+            assertEquals(-1, wall.slot);
+            assertFalse(world.walls.contains(wall));
+            assertSlots();
+        }
+        assertEquals(4, world.allLines.size()); // Only the borders are left
+    }
+
+    /**
+     * Asserts that every wall and segment knows its index in walls and allLines.
+     */
+    private void assertSlots() {
+        for (int i = 0; i < world.walls.size(); i++) {
+            assertEquals(i, world.walls.get(i).slot);
+        }
+        for (int i = 0; i < world.allLines.size(); i++) {
+            assertEquals(i, world.allLines.get(i).slot);
+        }
+    }
+
+    @Test
+    public void testRules() {
+        world.createBoard(1, 2);
+        world.board[0][0] = new Spawner(0, 0);
+        world.board[0][1] = new Blank(1, 0);
+        world.spawners.add((Spawner) world.board[0][0]);
+        world.tickRate = 10;
+        world.spawnInterval = 2;
+        world.maxBallQueue = 2;
+        world.ballQueue = new Ball[] {new Ball(0, 0, 1), null};
+
+        // A ball is due on the first tick and every spawn_interval seconds after
+        assertTrue(world.spawnIfDue());
+        assertEquals(1, world.getBallCount());
+        assertFalse(world.spawnIfDue()); // Queue is empty
+        world.ballQueue[0] = new Ball(0, 0, 2);
+        world.ticks = 19;
+        assertFalse(world.spawnIfDue());
+        world.ticks = 20;
+        assertTrue(world.spawnIfDue());
+
+        assertEquals(GameWorld.Outcome.PLAYING, world.getOutcome(3));
+        world.ticks = 30;
+        assertEquals(GameWorld.Outcome.TIME_UP, world.getOutcome(3));
+        world.balls.clear();
+        assertEquals(GameWorld.Outcome.WON, world.getOutcome(3)); // Winning beats running out of time
+
+        world.ticks = 25;
+        assertEquals((int) (1 / 0.067), world.getTimeBonus(3));
+        assertEquals(0, world.getTimeBonus(0));
+    }
+
+    @Test
+    public void testHoleField() {
+        // Two holes side by side: H1 at (1, 1) and H2 at (3, 1)
+        world.createBoard(18, 18);
+        ArrayList<ArrayList<String>> lines = new ArrayList<>();
+        lines.add(new ArrayList<>());
+        lines.add(new ArrayList<>(Arrays.asList(" ", "H", "1", "H", "2")));
+        world.setLayout(lines);
+        assertEquals(2, world.holes.size());
+        Hole first = world.holes.get(0);
+        Hole second = world.holes.get(1);
+        assertEquals(64, first.getHoleCenterX());
+        assertEquals(64 + App.TOPBAR, first.getHoleCenterY());
+
+        assertSame(first, world.getAttractingHole(64, 64 + App.TOPBAR));
+        assertSame(first, world.getAttractingHole(95, 70 + App.TOPBAR));
+        assertSame(second, world.getAttractingHole(97, 70 + App.TOPBAR));
+        assertNull(world.getAttractingHole(34, 34 + App.TOPBAR)); // Corner of the hole, out of reach
+        assertNull(world.getAttractingHole(300, 300));
+        assertNull(world.getAttractingHole(-10, -10));
+
+        // Same answer as testing every hole, across the whole board
+        for (float y = 0; y < App.HEIGHT; y += 3.5f) {
+            for (float x = 0; x < App.WIDTH; x += 3.5f) {
+                Hole expected = null;
+                for (Hole hole : world.holes) {
+                    if (App.getDistance(x, y, hole.getHoleCenterX(), hole.getHoleCenterY()) < GameWorld.HOLE_REACH) {
+                        expected = hole;
+                    }
+                }
+                assertSame(expected, world.getAttractingHole(x, y));
+            }
+        }
+    }
+
+    @Test
+    public void testGetColourCode() {
+        ArrayList<ArrayList<String>> line = new ArrayList<>();
+        line.add(new ArrayList<>());
+        line.get(0).add("H");
+        //Catch index out of bounds
+        assertEquals(-1, world.getColourCode(line, 0, 0));
+
+        // Catch whitespace
+        line.get(0).add(" ");
+        assertEquals(-1, world.getColourCode(line, 0, 0));
+
+        // Catch non-numeric input
+        line.get(0).set(1, "Hello");
+        assertEquals(-1, world.getColourCode(line, 0, 0));
+
+        line.get(0).set(1, "-1");
+        assertEquals(-1, world.getColourCode(line, 0, 0));
+
+        line.get(0).set(1, "5");
+        assertEquals(-1, world.getColourCode(line, 0, 0));
+
+        line.get(0).set(1, "2");
+        assertEquals(2, world.getColourCode(line, 0, 0));
+    }
+
+    @Test
+    public void testColourToInt() {
+        int result = GameWorld.colourToInt("grey");
+        assertEquals(0, result);
+
+        result = GameWorld.colourToInt("orange");
+        assertEquals(1, result);
+
+        result = GameWorld.colourToInt("blue");
+        assertEquals(2, result);
+
+        result = GameWorld.colourToInt("green");
+        assertEquals(3, result);
+
+        result = GameWorld.colourToInt("yellow");
+        assertEquals(4, result);
+
+        result = GameWorld.colourToInt("helloWorld");
+        assertEquals(0, result);
+    }
+
+    @Test
+    public void testGetPosition() {
+        assertEquals(Hole.GridPosition.BL, world.getPosition(0, 1));
+        assertEquals(Hole.GridPosition.TR, world.getPosition(1, 0));
+        assertEquals(Hole.GridPosition.BR, world.getPosition(1, 1));
+        assertNull(world.getPosition(2, 2));
+        assertNull(world.getPosition(0, 2));
+        assertNull(world.getPosition(2, 1));
+        assertNull(world.getPosition(1, 2));
+        assertNull(world.getPosition(2, 0));
+    }
+
+    /** Stepping without an App **/
+    @Test
+    public void testHeadlessStep() {
+        world = new GameWorld();
+        world.configure(null, 1);
+        world.createBoard(18, 18);
+
+        ArrayList<ArrayList<String>> lines = new ArrayList<>();
+        for (String row : new String[] {"XXXX", "XS B2", "X  H1", "X"}) {
+            ArrayList<String> chars = new ArrayList<>();
+            for (char c : row.toCharArray()) {
+                chars.add(Character.toString(c));
+            }
+            lines.add(chars);
+        }
+        world.setLayout(lines);
+        world.loadBallQueue(null, 1);
+
+        assertEquals(1, world.getBalls().size());
+        assertEquals(1, world.getSpawners().size());
+        assertEquals(1, world.getHoles().size());
+        assertEquals(6, world.getBallQueue().length); // five default balls plus the one on the board
+
+        assertTrue(world.spawnBall());
+        assertEquals(2, world.getBalls().size());
+
+        for (int i = 0; i < 1000; i++) {
+            world.step(); // Must not need a PApplet to run
+        }
+    }
+
+    @Test
+    public void testConfigureTickRate() {
+        JSONObject json = new JSONObject();
+        json.setJSONObject("score_increase_from_hole_capture", new JSONObject().setInt("grey", 70));
+        json.setJSONObject("score_decrease_from_wrong_hole", new JSONObject().setInt("grey", 0));
+        json.setInt("tick_rate", 120);
+        world.configure(json, 1);
+        assertEquals(120, world.getTickRate());
+        assertEquals(0.25f, world.getTickScale(), 0.0001f);
+
+        json.setInt("tick_rate", -5); // Invalid tick rate falls back to the frame rate
+        world.configure(json, 1);
+        assertEquals(App.FPS, world.getTickRate());
+
+        world.configure(null, 1);
+        assertEquals(App.FPS, world.getTickRate());
+        assertEquals(1, world.getTickScale(), 0.0001f);
+    }
+
+    @Test
+    public void testStepCountsTicks() {
+        world.createBoard(1, 1);
+        world.board[0][0] = new Blank(0, 0);
+        world.tickRate = 120;
+        Ball ball = new Ball(100, 100, 0);
+        ball.setVector(new float[] {4, 0});
+        world.balls.add(ball);
+
+        for (int i = 0; i < 4; i++) {
+            world.step();
+        }
+        // Four ticks at 120 Hz cover the same distance as one frame at 30 FPS
+        assertEquals(104, ball.getX(), 0.001f);
+        assertEquals(4, world.getTicks());
+    }
+}
@@ -53,7 +53,7 @@ public class HoleTest {
 
         hole = new Hole(2, 2, 2, Hole.GridPosition.TL);
         doNothing().when(app).image(any(PImage.class), anyInt(), anyInt());
-        when(app.getSprite("hole2")).thenReturn(mock(PImage.class));
+        when(app.getSprite(Sprite.HOLE2)).thenReturn(mock(PImage.class));
         hole.draw(app);
     }
 }
\ No newline at end of file
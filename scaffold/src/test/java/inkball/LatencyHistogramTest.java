@@ -0,0 +1,102 @@
+package inkball;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LatencyHistogramTest {
+    private LatencyHistogram histogram;
+
+    @BeforeEach
+    public void setUp() {
+        histogram = new LatencyHistogram();
+    }
+
+    @Test
+    public void testEmpty() {
+        assertEquals(0, histogram.getTotalCount());
+        assertEquals(0, histogram.getMax());
+        assertEquals(0, histogram.getMean());
+        assertEquals(0, histogram.getValueAtPercentile(99));
+    }
+
+    @Test
+    public void testInvalidPercentile() {
+        assertThrows(IllegalArgumentException.class, () -> histogram.getValueAtPercentile(-1));
+        assertThrows(IllegalArgumentException.class, () -> histogram.getValueAtPercentile(100.5));
+        assertThrows(IllegalArgumentException.class, () -> histogram.getValueAtPercentile(Double.NaN));
+        assertThrows(IllegalArgumentException.class, () -> histogram.writePercentileDistribution(new PrintWriter(new StringWriter()), 0));
+    }
+
+    @Test
+    public void testBuckets() {
+        // Buckets cover every value once, in order, and are at most 1/32 of their values wide
+        long previous = -1;
+        for (int bucket = 0; bucket < LatencyHistogram.BUCKET_COUNT; bucket++) {
+            long lowest = LatencyHistogram.getLowestValue(bucket);
+            long highest = LatencyHistogram.getHighestValue(bucket);
+            assertEquals(previous + 1, lowest);
+            assertTrue(highest - lowest <= lowest / 32);
+            assertEquals(bucket, LatencyHistogram.getBucket(lowest));
+            assertEquals(bucket, LatencyHistogram.getBucket(highest));
+            previous = highest;
+        }
+        assertEquals(Long.MAX_VALUE, previous);
+    }
+
+    @Test
+    public void testPercentiles() {
+        for (long i = 1; i <= 1000; i++) {
+            histogram.record(i * 1000); // 1 to 1000 microseconds
+        }
+        assertEquals(1000, histogram.getTotalCount());
+        assertEquals(1_000_000, histogram.getMax());
+        assertEquals(500_500, histogram.getMean(), 0.001);
+        assertEquals(500_000, histogram.getValueAtPercentile(50), 500_000 / 32.0);
+        assertEquals(950_000, histogram.getValueAtPercentile(95), 950_000 / 32.0);
+        assertEquals(990_000, histogram.getValueAtPercentile(99), 990_000 / 32.0);
+        assertEquals(1_000_000, histogram.getValueAtPercentile(100)); // Capped by the exact maximum
+        assertEquals(1000, histogram.getValueAtPercentile(0), 1000 / 32.0);
+    }
+
+    @Test
+    public void testRecordEdgeValues() {
+        histogram.record(-5); // e.g. a clock going backwards
+        histogram.record(Long.MAX_VALUE);
+        assertEquals(2, histogram.getTotalCount());
+        assertEquals(0, histogram.getValueAtPercentile(50));
+        assertEquals(Long.MAX_VALUE, histogram.getValueAtPercentile(100));
+    }
+
+    @Test
+    public void testReset() {
+        histogram.record(123);
+        histogram.reset();
+        assertEquals(0, histogram.getTotalCount());
+        assertEquals(0, histogram.getMax());
+        assertEquals(0, histogram.getValueAtPercentile(50));
+    }
+
+    @Test
+    public void testWritePercentileDistribution() {
+        histogram.record(1_000_000);
+        histogram.record(1_000_000);
+        histogram.record(3_000_000);
+
+        StringWriter text = new StringWriter();
+        histogram.writePercentileDistribution(new PrintWriter(text), 1e6);
+        String[] lines = text.toString().split("\\R");
+
+        assertTrue(lines[0].trim().startsWith("Value"));
+        assertTrue(lines[1].isEmpty());
+        assertArrayEquals(new String[] {"1.016", "0.666666666667", "2", "3.00"}, lines[2].trim().split(" +"));
+        assertArrayEquals(new String[] {"3.000", "1.000000000000", "3"}, lines[3].trim().split(" +"));
+        assertTrue(lines[4].startsWith("#[Mean"));
+        assertTrue(lines[5].contains("Total count"));
+        assertTrue(lines[5].trim().endsWith("3]"));
+    }
+}
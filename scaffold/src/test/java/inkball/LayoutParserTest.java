@@ -0,0 +1,143 @@
+package inkball;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Scanner;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LayoutParserTest {
+
+    private static LayoutGrid parse(String text) throws IOException {
+        return LayoutParser.parse(ByteBuffer.wrap(text.getBytes(StandardCharsets.ISO_8859_1)), "test");
+    }
+
+    @Test
+    public void testFile() throws IOException {
+        LayoutGrid layout = LayoutParser.parse(new File("level1.txt"));
+        List<String> rows = Files.readAllLines(Paths.get("level1.txt"));
+        assertEquals(rows.size(), layout.getRows());
+        for (int i = 0; i < rows.size(); i++) {
+            assertEquals(rows.get(i), layout.getRow(i));
+        }
+        assertEquals('X', layout.get(0, 0));
+
+        assertThrows(FileNotFoundException.class, () -> LayoutParser.parse(new File("missing.txt")));
+    }
+
+    @Test
+    public void testLines() throws IOException {
+        // Same lines as Scanner::nextLine
+        for (String text : new String[] {"", "\n", "X", "X\n", "XH1\r\nB2 \rS\n\nX", "\t1\n\r\n"}) {
+            ArrayList<String> expected = new ArrayList<>();
+            try (Scanner scan = new Scanner(text)) {
+                while (scan.hasNextLine()) {
+                    expected.add(scan.nextLine());
+                }
+            }
+            LayoutGrid layout = parse(text);
+            assertEquals(expected.size(), layout.getRows());
+            for (int i = 0; i < expected.size(); i++) {
+                assertEquals(expected.get(i), layout.getRow(i));
+            }
+        }
+
+        LayoutGrid layout = parse("XH1\n\nB2  \n");
+        assertEquals(3, layout.getRows());
+        assertEquals(4, layout.getCols());
+        assertEquals(0, layout.getRowLength(1));
+        assertEquals('1', layout.get(0, 2));
+        assertEquals(LayoutGrid.NONE, layout.get(0, 3)); // Past the end of the line
+        assertEquals(LayoutGrid.NONE, layout.get(3, 0)); // Below the last line
+        assertEquals(LayoutGrid.NONE, layout.get(-1, 0));
+    }
+
+    @Test
+    public void testErrors() {
+        LayoutParser.ParseException e = assertThrows(LayoutParser.ParseException.class,
+                () -> parse("XXX\nX\u00e9X\n"));
+        assertEquals(2, e.getLine());
+        assertEquals(2, e.getColumn());
+        assertEquals("test:2:2: Unexpected byte 0xE9 in layout!", e.getMessage());
+
+        e = assertThrows(LayoutParser.ParseException.class, () -> parse("X\r\n\r\n  \u0000"));
+        assertEquals(3, e.getLine());
+        assertEquals(3, e.getColumn());
+    }
+
+    @Test
+    public void testLarge() throws IOException {
+        // 1000 by 1000 tiles, all in one array
+        StringBuilder text = new StringBuilder();
+        char[] row = new char[1000];
+        Arrays.fill(row, 'X');
+        for (int i = 0; i < 1000; i++) {
+            text.append(row).append('\n');
+        }
+        LayoutGrid layout = parse(text.toString());
+        assertEquals(1000, layout.getRows());
+        assertEquals(1000, layout.getCols());
+        assertEquals('X', layout.get(999, 999));
+    }
+
+    @Test
+    public void testFromLines() {
+        ArrayList<ArrayList<String>> lines = new ArrayList<>();
+        lines.add(new ArrayList<>(Arrays.asList("X", "", "H", "2")));
+        lines.add(new ArrayList<>());
+        lines.add(new ArrayList<>(Arrays.asList("\u00e9", "Hello")));
+        LayoutGrid layout = LayoutGrid.fromLines(lines);
+        assertEquals("X H2", layout.getRow(0));
+        assertEquals("", layout.getRow(1));
+        assertEquals("?H", layout.getRow(2));
+
+        LayoutGrid rows = LayoutGrid.fromRows(Arrays.asList("X H2", "", "?H"));
+        for (int i = 0; i < 3; i++) {
+            assertEquals(layout.getRow(i), rows.getRow(i));
+        }
+    }
+
+    @Test
+    public void testSetLayout() throws IOException {
+        // The same world from the parsed layout as from the lists of strings
+        ArrayList<ArrayList<String>> lines = new ArrayList<>();
+        for (String row : Files.readAllLines(Paths.get("level2.txt"))) {
+            ArrayList<String> chars = new ArrayList<>();
+            for (char c : row.toCharArray()) {
+                chars.add(Character.toString(c));
+            }
+            lines.add(chars);
+        }
+
+        GameWorld fromLines = new GameWorld();
+        fromLines.setSeed(5);
+        fromLines.createBoard((App.HEIGHT - App.TOPBAR) / App.CELLHEIGHT, App.WIDTH / App.CELLSIZE);
+        fromLines.setLayout(lines);
+
+        GameWorld parsed = new GameWorld();
+        parsed.setSeed(5);
+        parsed.createBoard((App.HEIGHT - App.TOPBAR) / App.CELLHEIGHT, App.WIDTH / App.CELLSIZE);
+        parsed.setLayout(LayoutParser.parse(new File("level2.txt")));
+
+        assertEquals(fromLines.getWalls().size(), parsed.getWalls().size());
+        assertEquals(fromLines.getHoles().size(), parsed.getHoles().size());
+        assertEquals(fromLines.getSpawners().size(), parsed.getSpawners().size());
+        assertEquals(fromLines.allLines.size(), parsed.allLines.size());
+        assertArrayEquals(WorldSnapshot.capture(fromLines), WorldSnapshot.capture(parsed));
+        for (int i = 0; i < parsed.board.length; i++) {
+            for (int j = 0; j < parsed.board[i].length; j++) {
+                assertEquals(fromLines.board[i][j].getClass(), parsed.board[i][j].getClass());
+            }
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package inkball;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import processing.data.JSONObject;
+
+import java.io.*;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LevelGeneratorTest {
+    @TempDir
+    Path directory;
+
+    private static ArrayList<ArrayList<String>> toLines(List<String> layout) {
+        ArrayList<ArrayList<String>> lines = new ArrayList<>();
+        for (String row : layout) {
+            ArrayList<String> chars = new ArrayList<>();
+            for (char c : row.toCharArray()) {
+                chars.add(Character.toString(c));
+            }
+            lines.add(chars);
+        }
+        return lines;
+    }
+
+    private static GameWorld load(LevelGenerator generator, int rows, int cols) {
+        GameWorld world = new GameWorld();
+        world.configure(null, 1);
+        world.createBoard(rows, cols);
+        world.setLayout(toLines(generator.generateLayout()));
+        return world;
+    }
+
+    @Test
+    public void testInvalidSettings() {
+        LevelGenerator generator = new LevelGenerator(0);
+        assertThrows(IllegalArgumentException.class, () -> generator.setSize(3, 18));
+        assertThrows(IllegalArgumentException.class, () -> generator.setWallDensity(1.5f));
+        assertThrows(IllegalArgumentException.class, () -> generator.setWallDensity(Float.NaN));
+        assertThrows(IllegalArgumentException.class, () -> generator.setCounts(-1, 0, 0, 0));
+        assertThrows(IllegalArgumentException.class, () -> generator.setTiming(10, 0));
+
+        generator.setSize(4, 4);
+        generator.setCounts(2, 0, 0, 0); // Only one 2x2 space inside the edge
+        assertThrows(IllegalStateException.class, generator::generateLayout);
+    }
+
+    @Test
+    public void testRepeatable() {
+        LevelGenerator first = new LevelGenerator(5);
+        LevelGenerator second = new LevelGenerator(5);
+        assertEquals(first.generateLayout(), second.generateLayout());
+        assertEquals(first.generateLevel("a.txt").toString(), second.generateLevel("a.txt").toString());
+        assertNotEquals(first.generateLayout(), new LevelGenerator(6).generateLayout());
+    }
+
+    @Test
+    public void testLayout() {
+        LevelGenerator generator = new LevelGenerator(1);
+        generator.setSize(20, 30);
+        generator.setWallDensity(0);
+        generator.setCounts(6, 3, 4, 0);
+        ArrayList<String> layout = generator.generateLayout();
+        assertEquals(20, layout.size());
+        for (String row : layout) {
+            assertEquals(30, row.length());
+        }
+        assertEquals(String.join("", Collections.nCopies(30, "X")), layout.get(0));
+        assertEquals(String.join("", Collections.nCopies(30, "X")), layout.get(19));
+
+        GameWorld world = load(generator, 20, 30);
+        assertEquals(6, world.getHoles().size());
+        assertEquals(3, world.getSpawners().size());
+        assertEquals(4, world.getBalls().size());
+        HashSet<Integer> colours = new HashSet<>();
+        for (Hole hole : world.getHoles()) {
+            colours.add(hole.getColour());
+        }
+        assertEquals(5, colours.size()); // Every colour has a hole
+    }
+
+    @Test
+    public void testStressLevel() {
+        LevelGenerator generator = new LevelGenerator(2);
+        generator.setSize(100, 100);
+        generator.setWallDensity(0.3f);
+        generator.setCounts(40, 20, 1000, 0);
+        GameWorld world = load(generator, 100, 100);
+        assertTrue(world.getWalls().size() > 2000);
+        assertEquals(1000, world.getBalls().size());
+        assertEquals(100 * App.CELLSIZE, world.getWidth());
+        assertEquals(App.TOPBAR + 100 * App.CELLSIZE, world.getHeight());
+
+        for (int tick = 0; tick < 30; tick++) {
+            world.step();
+        }
+        for (Ball ball : world.getBalls()) { // Walls around the edge keep every ball on the board
+            assertTrue(ball.getX() > 0 && ball.getX() < world.getWidth());
+            assertTrue(ball.getY() > App.TOPBAR && ball.getY() < world.getHeight());
+        }
+    }
+
+    @Test
+    public void testConfigRunsInBatchRunner() throws IOException {
+        List<JSONObject> levels = new ArrayList<>();
+        for (int k = 0; k < 2; k++) {
+            LevelGenerator generator = new LevelGenerator(k);
+            generator.setSize(30, 24);
+            generator.setCounts(5, 2, 10, 6);
+            generator.setTiming(20, 1);
+            generator.setBallStore(k == 1);
+            levels.add(generator.write(directory.toFile(), "level" + k + ".txt"));
+        }
+        JSONObject config = LevelGenerator.generateConfig(levels);
+        assertTrue(config.getJSONArray("levels").getJSONObject(1).getBoolean("ball_store"));
+        assertEquals(6, config.getJSONArray("levels").getJSONObject(0).getJSONArray("balls").size());
+
+        BatchRunner runner = new BatchRunner(config, directory.toFile());
+        List<BatchRunner.Result> results = runner.runAll(1, 0, 2);
+        assertEquals(2, results.size());
+        for (BatchRunner.Result result : results) {
+            assertTrue(result.getTimeUsed() > 0 && result.getTimeUsed() <= 20);
+        }
+    }
+}
@@ -0,0 +1,253 @@
+package inkball;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import processing.core.PImage;
+import processing.data.JSONObject;
+import processing.event.KeyEvent;
+import processing.event.MouseEvent;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ReplayPlayerTest {
+    private static final int FRAMES = 240;
+
+    @TempDir
+    Path directory;
+
+    private RecordingApp app;
+    private File file;
+    private int recordedTicks;
+
+    /**
+     * Represents a clock that runs 1 to 4 ticks per frame, like a game running at an uneven frame rate.
+     */
+    private static class UnevenClock extends SimulationClock {
+        private int frames;
+
+        UnevenClock(int tickRate) {
+            super(tickRate);
+        }
+
+        @Override
+        public int advance(long now) {
+            return 1 + this.frames++ % 4;
+        }
+    }
+
+    /**
+     * Represents an App that runs without a window: it draws nothing and reads level1.txt for every level.
+     */
+    private static class RecordingApp extends App {
+        RecordingApp(JSONObject json) {
+            this.isTesting = true;
+            this.json = json;
+        }
+
+        @Override
+        public void setup() {
+            super.setup();
+            this.clock = new UnevenClock(this.world.getTickRate());
+        }
+
+        @Override
+        public PImage getSprite(Sprite sprite) {
+            return null;
+        }
+
+        @Override
+        public void image(PImage img, float a, float b, float c, float d) {
+        }
+
+        @Override
+        public LayoutGrid getFileContents() {
+            try {
+                return LayoutParser.parse(new File("level1.txt"));
+            }
+            catch (IOException e) {
+                return null;
+            }
+        }
+
+        @Override
+        protected void drawFrame() {
+            this.drawAll();
+        }
+
+        void mouse(int action, int x, int y, int modifiers) {
+            MouseEvent event = new MouseEvent(null, 0, action, modifiers, x, y, LEFT, 1);
+            if (action == MouseEvent.PRESS) {
+                this.mousePressed(event);
+            }
+            else if (action == MouseEvent.DRAG) {
+                this.mouseDragged(event);
+            }
+            else {
+                this.mouseReleased(event);
+            }
+        }
+
+        void key(int keyCode) {
+            this.keyPressed(new KeyEvent(null, 0, KeyEvent.PRESS, 0, (char) keyCode, keyCode));
+        }
+    }
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        JSONObject json = JSONObject.parse(new String(Files.readAllBytes(Paths.get("config.json"))));
+        json.getJSONArray("levels").getJSONObject(0).setInt("spawn_interval", 1);
+        App.gameLevel = 1;
+        App.lastSecond = 0;
+        App.ballTimer = 1;
+        App.isDrawing = false;
+
+        app = new RecordingApp(json);
+        file = directory.resolve("session.ikr").toFile();
+        app.recorder = new ReplayRecorder(file, json.format(-1));
+        app.recorder.setKeyframeInterval(20);
+        app.setup();
+        app.frameCount = 1;
+
+        for (int frame = 1; frame <= FRAMES; frame++) {
+            if (frame >= 10 && frame < 16) { // A stroke, one segment per frame
+                app.mouse(frame == 10 ? MouseEvent.PRESS : MouseEvent.DRAG, 100 + 20 * (frame - 10), 300 + 3 * frame, 0);
+            }
+            if (frame == 16) {
+                app.mouse(MouseEvent.RELEASE, 230, 360, 0);
+            }
+            if (frame == 50 || frame == 70) {
+                app.key(32); // Pause, then resume
+            }
+            if (frame == 90) {
+                app.key(82); // Restart
+            }
+            if (frame >= 120 && frame < 126) {
+                app.mouse(frame == 120 ? MouseEvent.PRESS : MouseEvent.DRAG, 300, 200 + 10 * (frame - 120), 0);
+            }
+            if (frame == 126) {
+                app.mouse(MouseEvent.RELEASE, 300, 270, 0);
+            }
+            if (frame >= 140 && frame < 144) {
+                app.mouse(frame == 140 ? MouseEvent.PRESS : MouseEvent.DRAG, 400, 150 + 15 * (frame - 140), 0);
+            }
+            if (frame == 144) {
+                app.mouse(MouseEvent.RELEASE, 400, 220, 0);
+            }
+            if (frame == 160) {
+                app.mouse(MouseEvent.PRESS, 400, 180, 2); // Ctrl-click removes the last stroke
+            }
+
+            app.draw();
+            recordedTicks += app.frameTicks;
+            app.frameCount++;
+        }
+        assertEquals(1, app.getWorld().getDrawnLines().size());
+        app.stopRecording();
+        assertNull(app.recorder);
+    }
+
+    @Test
+    public void testPlayAll() throws IOException {
+        ReplayPlayer player = new ReplayPlayer(file);
+        assertTrue(player.getKeyframes().length >= 5);
+        assertEquals(FRAMES, player.playAll());
+        assertFalse(player.step());
+        assertTrue(player.isEnded());
+
+        assertEquals(FRAMES, player.getFrame());
+        assertEquals(recordedTicks, player.getTicks());
+        assertEquals(0, player.getDesyncs());
+        assertEquals(-1, player.getFirstDesync());
+        assertArrayEquals(WorldSnapshot.capture(app.getWorld()), WorldSnapshot.capture(player.getWorld()));
+    }
+
+    @Test
+    public void testDesync() throws IOException {
+        ReplayPlayer player = new ReplayPlayer(file);
+        int[] keyframes = player.getKeyframes();
+        player.seek(keyframes[1] + 1);
+        player.getWorld().setScore(player.getWorld().getScore() + 1); // No longer the world that was recorded
+        player.playAll();
+        assertTrue(player.getDesyncs() > 0);
+        assertTrue(Arrays.binarySearch(keyframes, player.getFirstDesync()) > 1); // A keyframe after the change
+    }
+
+    @Test
+    public void testSeek() throws IOException {
+        byte[] expected = WorldSnapshot.capture(app.getWorld());
+        ReplayPlayer player = new ReplayPlayer(file);
+        int[] keyframes = player.getKeyframes();
+
+        player.seek(keyframes[keyframes.length - 1] + 3);
+        assertEquals(keyframes[keyframes.length - 1] + 3, player.getFrame());
+        assertTrue(player.getTicks() < recordedTicks); // Started from the keyframe
+        player.playAll();
+        assertArrayEquals(expected, WorldSnapshot.capture(player.getWorld()));
+
+        player.seek(5); // Before the first keyframe, so from the start
+        assertEquals(5, player.getFrame());
+        player.seek(100); // Past the restart
+        assertEquals(100, player.getFrame());
+        player.playAll();
+        assertArrayEquals(expected, WorldSnapshot.capture(player.getWorld()));
+        assertEquals(0, player.getDesyncs());
+
+        player.seek(FRAMES + 50);
+        assertEquals(FRAMES, player.getFrame());
+        assertThrows(IllegalArgumentException.class, () -> player.seek(-1));
+    }
+
+    @Test
+    public void testCutOff() throws IOException {
+        byte[] bytes = Files.readAllBytes(file.toPath());
+        File cut = directory.resolve("cut.ikr").toFile();
+        Files.write(cut.toPath(), Arrays.copyOf(bytes, bytes.length / 2 + 3));
+
+        ReplayPlayer player = new ReplayPlayer(cut);
+        int[] keyframes = player.getKeyframes();
+        assertTrue(keyframes.length > 0); // Found without the index
+        int frames = player.playAll();
+        assertTrue(frames > keyframes[keyframes.length - 1] && frames < FRAMES);
+        assertEquals(0, player.getDesyncs());
+
+        player.seek(keyframes[keyframes.length - 1]);
+        assertEquals(keyframes[keyframes.length - 1], player.getFrame());
+        assertEquals(frames, player.getFrame() + player.playAll());
+    }
+
+    @Test
+    public void testNotAReplay() throws IOException {
+        File other = directory.resolve("other.ikr").toFile();
+        Files.write(other.toPath(), "level1.txt".getBytes());
+        assertThrows(IOException.class, () -> new ReplayPlayer(other));
+
+        Files.write(other.toPath(), new byte[0]);
+        assertThrows(IOException.class, () -> new ReplayPlayer(other));
+    }
+
+    @Test
+    public void testRecorder() throws IOException {
+        ReplayRecorder recorder = new ReplayRecorder(directory.resolve("empty.ikr").toFile(), "{}");
+        assertFalse(recorder.isKeyframeDue());
+        assertThrows(IllegalArgumentException.class, () -> recorder.setKeyframeInterval(0));
+        assertThrows(IllegalStateException.class,
+                () -> recorder.recordKeyframe(0, 0, 1, new float[2], new GameWorld()));
+        recorder.endFrame(1, 0);
+        recorder.recordKey(32);
+        recorder.endFrame(2, 0);
+        assertEquals(2, recorder.getFrames());
+        long size = recorder.getSize();
+        recorder.close();
+        recorder.close(); // Closing twice does nothing
+        assertTrue(Files.size(directory.resolve("empty.ikr")) > size);
+        assertEquals(2, new ReplayPlayer(directory.resolve("empty.ikr").toFile()).playAll());
+    }
+}
@@ -0,0 +1,132 @@
+package inkball;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import processing.data.JSONObject;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SaveStateTest {
+    @TempDir
+    Path directory;
+
+    private App app;
+    private LayoutGrid layout;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        app = new App();
+        app.json = JSONObject.parse(new String(Files.readAllBytes(Paths.get("config.json"))));
+        layout = LayoutParser.parse(new File("level2.txt"));
+        app.loadLevel(2, 11, 40, layout);
+        App.timeLimit = 180;
+        App.lastSecond = 150;
+        App.ballTimer = 0.5f;
+
+        GameWorld world = app.getWorld();
+        for (int i = 0; i < 500; i++) {
+            if (world.getTicks() % world.getTickRate() == 0) {
+                world.spawnBall();
+            }
+            world.step();
+        }
+        world.addStroke(new ArrayList<>(Arrays.asList(
+                new Line(new float[] {100, 300}, new float[] {200, 320}, 0, true))));
+        world.getWalls().get(3).setHP(1);
+    }
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        byte[] world = WorldSnapshot.capture(app.getWorld());
+        SaveState state = SaveState.capture(app);
+        byte[] bytes = state.toBytes();
+        SaveState read = SaveState.fromBytes(ByteBuffer.wrap(bytes));
+        assertEquals(2, read.getLevel());
+        assertEquals(150, read.getLastSecond());
+        assertFalse(read.isPaused());
+        assertArrayEquals(bytes, read.toBytes());
+
+        App loaded = new App();
+        loaded.json = app.json;
+        read.apply(loaded);
+        assertArrayEquals(world, WorldSnapshot.capture(loaded.getWorld()));
+        assertEquals(2, App.gameLevel);
+        assertEquals(180, App.timeLimit);
+        assertEquals(0.5f, App.ballTimer);
+        assertEquals(App.GameState.PLAYING, loaded.gameState);
+        assertEquals(app.getWorld().getScore(), loaded.getWorld().getScore());
+        assertEquals(app.getWorld().getModScoreIncrease(), loaded.getWorld().getModScoreIncrease());
+    }
+
+    @Test
+    public void testPaused() throws IOException {
+        app.gameState = App.GameState.PAUSED;
+        SaveState state = SaveState.fromBytes(ByteBuffer.wrap(SaveState.capture(app).toBytes()));
+        assertTrue(state.isPaused());
+        App loaded = new App();
+        loaded.json = app.json;
+        state.apply(loaded);
+        assertEquals(App.GameState.PAUSED, loaded.gameState);
+
+        app.gameState = App.GameState.OVER;
+        assertThrows(IllegalArgumentException.class, () -> SaveState.capture(app));
+    }
+
+    @Test
+    public void testMismatch() throws IOException {
+        // A save that does not match its layout leaves the game being played as it was
+        app.layout = LayoutGrid.fromRows(Arrays.asList("", "")); // No walls
+        SaveState state = SaveState.fromBytes(ByteBuffer.wrap(SaveState.capture(app).toBytes()));
+        App loaded = new App();
+        loaded.json = app.json;
+        loaded.loadLevel(1, 3, 0, LayoutParser.parse(new File("level1.txt")));
+        GameWorld world = loaded.getWorld();
+        byte[] before = WorldSnapshot.capture(world);
+        assertThrows(IllegalArgumentException.class, () -> state.restoreWorld(loaded));
+        assertThrows(IllegalArgumentException.class, () -> state.apply(loaded));
+        assertSame(world, loaded.getWorld());
+        assertArrayEquals(before, WorldSnapshot.capture(world));
+        assertEquals(1, App.gameLevel);
+    }
+
+    @Test
+    public void testFile() throws IOException {
+        File file = directory.resolve("game.iks").toFile();
+        Files.write(file.toPath(), new byte[100_000]); // A longer old file is replaced entirely
+        byte[] bytes = SaveState.capture(app).toBytes();
+        SaveState.write(file, bytes);
+        assertArrayEquals(bytes, Files.readAllBytes(file.toPath()));
+        assertFalse(new File(file.getPath() + ".tmp").exists());
+        assertArrayEquals(bytes, SaveState.read(file).toBytes());
+    }
+
+    @Test
+    public void testDamaged() throws IOException {
+        byte[] bytes = SaveState.capture(app).toBytes();
+
+        byte[] flipped = bytes.clone();
+        flipped[bytes.length / 2] ^= 1;
+        assertThrows(IOException.class, () -> SaveState.fromBytes(ByteBuffer.wrap(flipped)));
+
+        byte[] cut = Arrays.copyOf(bytes, bytes.length - 10);
+        assertThrows(IOException.class, () -> SaveState.fromBytes(ByteBuffer.wrap(cut)));
+        assertThrows(IOException.class, () -> SaveState.fromBytes(ByteBuffer.wrap(new byte[3])));
+
+        byte[] version = bytes.clone();
+        version[SaveState.MAGIC.length] = (byte) (SaveState.VERSION + 1);
+        assertThrows(IOException.class, () -> SaveState.fromBytes(ByteBuffer.wrap(version)));
+
+        assertThrows(FileNotFoundException.class, () -> SaveState.read(directory.resolve("missing.iks").toFile()));
+    }
+}
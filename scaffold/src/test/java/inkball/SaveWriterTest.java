@@ -0,0 +1,50 @@
+package inkball;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import processing.data.JSONObject;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SaveWriterTest {
+    @TempDir
+    Path directory;
+
+    private SaveState newState() throws IOException {
+        App app = new App();
+        app.json = JSONObject.parse(new String(Files.readAllBytes(Paths.get("config.json"))));
+        app.loadLevel(1, 0, 0, LayoutGrid.fromLines(new ArrayList<>()));
+        return SaveState.capture(app);
+    }
+
+    @Test
+    public void testSubmit() throws IOException {
+        SaveState state = newState();
+        File file = directory.resolve("auto.iks").toFile();
+        SaveWriter writer = new SaveWriter();
+        assertTrue(writer.submit(file, state));
+        writer.close();
+
+        assertFalse(writer.isWriting());
+        assertEquals(1, writer.getSaves());
+        assertNull(writer.getLastError());
+        assertArrayEquals(state.toBytes(), Files.readAllBytes(file.toPath()));
+        assertFalse(writer.submit(file, state)); // Closed
+    }
+
+    @Test
+    public void testError() throws IOException {
+        SaveWriter writer = new SaveWriter();
+        assertTrue(writer.submit(directory.resolve("missing").resolve("auto.iks").toFile(), newState()));
+        writer.close();
+        assertEquals(0, writer.getSaves());
+        assertNotNull(writer.getLastError());
+    }
+}
@@ -0,0 +1,66 @@
+package inkball;
+
+import org.junit.jupiter.api.Test;
+import processing.data.JSONObject;
+
+import java.util.HashSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SeedSourceTest {
+
+    @Test
+    public void testSameSeeds() {
+        SeedSource first = new SeedSource(42);
+        SeedSource second = new SeedSource(42);
+        HashSet<Long> seen = new HashSet<>();
+        for (int i = 0; i < 100; i++) {
+            long seed = first.nextSeed();
+            assertEquals(seed, second.nextSeed());
+            seen.add(seed);
+        }
+        assertEquals(100, seen.size());
+        assertEquals(42, first.getSeed());
+        assertNotEquals(new SeedSource(43).nextSeed(), new SeedSource(42).nextSeed());
+    }
+
+    @Test
+    public void testSplit() {
+        SeedSource source = new SeedSource(7);
+        SeedSource child = source.split();
+        SeedSource again = new SeedSource(7).split();
+        assertEquals(7, child.getSeed());
+        long seed = child.nextSeed();
+        assertEquals(seed, again.nextSeed());
+        assertNotEquals(seed, source.nextSeed());
+    }
+
+    @Test
+    public void testSeededWorlds() {
+        // Worlds seeded from the same session launch their balls the same way
+        GameWorld first = new GameWorld();
+        first.setSeed(new SeedSource(3).nextSeed());
+        GameWorld second = new GameWorld();
+        second.setSeed(new SeedSource(3).nextSeed());
+        for (int i = 0; i < 20; i++) {
+            Ball ball = new Ball(0, 0, 0, first.getRandom());
+            assertArrayEquals(ball.getVector(), new Ball(0, 0, 0, second.getRandom()).getVector());
+        }
+    }
+
+    @Test
+    public void testCreate() {
+        JSONObject json = JSONObject.parse("{\"seed\": 123}");
+        assertEquals(5, SeedSource.create(json, new String[] {"--seed", "5"}).getSeed()); // Command line first
+        assertEquals(123, SeedSource.create(json, null).getSeed());
+        assertEquals(123, SeedSource.create(json, new String[] {"--other"}).getSeed());
+        assertEquals(-9, SeedSource.create(null, new String[] {"--seed", "-9"}).getSeed());
+
+        // Random otherwise, also if the configured seed is not a number
+        assertNotNull(SeedSource.create(null, null));
+        assertNotNull(SeedSource.create(JSONObject.parse("{\"seed\": \"abc\"}"), new String[0]));
+
+        assertThrows(IllegalArgumentException.class, () -> SeedSource.create(json, new String[] {"--seed"}));
+        assertThrows(IllegalArgumentException.class, () -> SeedSource.create(json, new String[] {"--seed", "x"}));
+    }
+}
@@ -0,0 +1,108 @@
+package inkball;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SegmentGridTest {
+    private SegmentGrid grid;
+
+    @BeforeEach
+    public void setUp() {
+        grid = new SegmentGrid(0, 0, 320, 320, 32);
+    }
+
+    @Test
+    public void testInsertAndQuery() {
+        Line line = new Line(new float[] {100, 100}, new float[] {132, 100}, 1, false);
+        grid.insert(line);
+        assertTrue(grid.query(116, 100).contains(line));
+        assertTrue(grid.query(116, 90).contains(line)); // Within reach of the line
+        assertFalse(grid.query(300, 300).contains(line));
+    }
+
+    @Test
+    public void testQueryOutsideGrid() {
+        grid.insert(new Line(new float[] {0, 0}, new float[] {320, 0}, 0, false));
+        assertTrue(grid.query(-1, 0).isEmpty());
+        assertTrue(grid.query(0, 400).isEmpty());
+    }
+
+    @Test
+    public void testRemoveByReference() {
+        Line line = new Line(new float[] {100, 100}, new float[] {132, 100}, 1, false);
+        Line equalLine = new Line(new float[] {100, 100}, new float[] {132, 100}, 1, false);
+        grid.insert(line);
+        grid.insert(equalLine);
+
+        grid.remove(equalLine);
+        ArrayList<Line> cell = grid.query(116, 100);
+        assertEquals(1, cell.size());
+        assertSame(line, cell.get(0));
+
+        grid.remove(line);
+        assertTrue(grid.query(116, 100).isEmpty());
+    }
+
+    @Test
+    public void testInsertionOrder() {
+        Line first = new Line(new float[] {100, 100}, new float[] {132, 100}, 1, false);
+        Line second = new Line(new float[] {100, 100}, new float[] {100, 132}, 1, false);
+        grid.insert(first);
+        grid.insert(second);
+        ArrayList<Line> cell = grid.query(100, 100);
+        assertSame(first, cell.get(0));
+        assertSame(second, cell.get(1));
+    }
+
+    @Test
+    public void testMatchesBruteForce() {
+        // Every line a ball could collide with must be in the cell of its look-ahead point
+        GameWorld world = new GameWorld();
+        world.createBoard(18, 18);
+        for (int i = 0; i < 18; i++) {
+            for (int j = 0; j < 18; j++) {
+                world.board[i][j] = (i + j) % 5 == 0 ? new Wall(j, i, i % 5) : new Blank(j, i);
+            }
+        }
+        world.addBorders();
+
+        Ball ball = new Ball(0, 0, 0);
+        for (int x = -80; x < App.WIDTH + 80; x += 3) {
+            for (int y = App.TOPBAR - 80; y < App.HEIGHT + 80; y += 3) {
+                ball.setVector(new float[] {x - ball.getBallCenter()[0], y - ball.getBallCenter()[1]});
+                ArrayList<Line> candidates = world.getSegmentGrid().query(x, y);
+                for (Line line : world.getLineSegments()) {
+                    if (ball.willCollide(line) != null) {
+                        assertTrue(candidates.contains(line), "Missed line near " + x + ", " + y);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testQueryPath() {
+        Line line = new Line(new float[] {160, 0}, new float[] {160, 32}, 1, false);
+        grid.insert(line);
+        assertFalse(grid.query(40, 16).contains(line));
+        assertFalse(grid.query(280, 16).contains(line));
+
+        ArrayList<Line> out = new ArrayList<>();
+        grid.queryPath(40, 16, 280, 16, out); // Jumps over the line
+        assertTrue(out.contains(line));
+
+        out.clear();
+        grid.queryPath(40, 100, 280, 100, out);
+        assertFalse(out.contains(line));
+
+        out.clear();
+        grid.queryPath(-50, -50, 400, 400, out); // Leaves the grid at both ends
+        assertFalse(out.contains(line));
+        grid.queryPath(200, -50, 100, 80, out);
+        assertTrue(out.contains(line));
+    }
+}
@@ -0,0 +1,60 @@
+package inkball;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SimulationClockTest {
+    private SimulationClock clock;
+
+    @BeforeEach
+    public void setUp() {
+        clock = new SimulationClock(120);
+    }
+
+    @Test
+    public void testInvalidTickRate() {
+        assertThrows(IllegalArgumentException.class, () -> new SimulationClock(0));
+        assertThrows(IllegalArgumentException.class, () -> new SimulationClock(-30));
+    }
+
+    @Test
+    public void testAdvance() {
+        long tick = 1_000_000_000L / 120;
+        assertEquals(0, clock.advance(0)); // First call only starts the clock
+        assertEquals(1, clock.advance(tick));
+        assertEquals(0, clock.advance(tick + tick / 2)); // Half a tick is kept for the next frame
+        assertEquals(0.5f, clock.getAlpha(), 0.01f);
+        assertEquals(1, clock.advance(2 * tick));
+        assertEquals(4, clock.advance(6 * tick)); // A dropped frame is caught up with extra ticks
+    }
+
+    @Test
+    public void testSteadyThroughput() {
+        // 30 FPS frames should run exactly 120 ticks per second of real time
+        long now = 0;
+        int ticks = clock.advance(now);
+        for (int i = 0; i < 30; i++) {
+            now += 1_000_000_000L / 30;
+            ticks += clock.advance(now);
+        }
+        assertEquals(120, ticks, 1);
+    }
+
+    @Test
+    public void testStallIsCapped() {
+        clock.advance(0);
+        int ticks = clock.advance(10_000_000_000L); // 10 second stall
+        assertEquals(SimulationClock.MAX_FRAME_NANOS / (1_000_000_000L / 120), ticks);
+    }
+
+    @Test
+    public void testReset() {
+        clock.advance(0);
+        clock.reset();
+        assertEquals(0, clock.advance(5_000_000_000L)); // Time while stopped is not simulated
+        assertEquals(0, clock.getAlpha(), 0.0001f);
+        assertEquals(120, clock.getTickRate());
+    }
+}
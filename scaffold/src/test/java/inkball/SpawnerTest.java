@@ -22,7 +22,7 @@ public class SpawnerTest {
 
     @Test
     public void testDraw() {
-        when(app.getSprite("entrypoint")).thenReturn(mock(PImage.class));
+        when(app.getSprite(Sprite.ENTRYPOINT)).thenReturn(mock(PImage.class));
         doNothing().when(app).image(any(PImage.class), anyFloat(), anyFloat(), anyFloat(), anyFloat());
         spawner.draw(app);
         verify(app).image(any(PImage.class), anyFloat(), anyFloat(), anyFloat(), anyFloat());
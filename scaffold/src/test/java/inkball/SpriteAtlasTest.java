@@ -0,0 +1,71 @@
+package inkball;
+
+import org.junit.jupiter.api.Test;
+import processing.core.PConstants;
+import processing.core.PImage;
+
+import javax.imageio.ImageIO;
+import java.io.File;
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SpriteAtlasTest {
+    private static final String RESOURCES = "src/main/resources/inkball/";
+
+    private static PImage read(String name) throws IOException {
+        PImage image = new PImage(ImageIO.read(new File(RESOURCES + name + ".png")));
+        image.loadPixels();
+        return image;
+    }
+
+    @Test
+    public void testLookup() {
+        assertEquals(Sprite.BALL3, Sprite.ball(3));
+        assertEquals(Sprite.HOLE0, Sprite.hole(0));
+        assertEquals(Sprite.WALL2, Sprite.wall(2, false));
+        assertEquals(Sprite.WALL2_DAMAGED, Sprite.wall(2, true));
+        assertEquals(64, Sprite.hole(4).getSize());
+        assertThrows(ArrayIndexOutOfBoundsException.class, () -> Sprite.ball(5));
+    }
+
+    @Test
+    public void testCut() {
+        PImage sheet = new PImage(200, 340, PConstants.ARGB);
+        for (int i = 0; i < sheet.pixels.length; i++) {
+            sheet.pixels[i] = 0xff000000 | i;
+        }
+        sheet.pixels[Sprite.BALL1.getY() * sheet.width + Sprite.BALL1.getX()] = SpriteAtlas.TRANSPARENT_KEY;
+
+        SpriteAtlas atlas = new SpriteAtlas();
+        assertFalse(atlas.isLoaded());
+        assertNull(atlas.get(Sprite.TILE));
+        atlas.load(sheet);
+        assertTrue(atlas.isLoaded());
+
+        PImage wall = atlas.get(Sprite.WALL3);
+        assertEquals(32, wall.width);
+        assertEquals(0xff000000 | (Sprite.WALL3.getY() + 5) * sheet.width + Sprite.WALL3.getX() + 7, wall.pixels[5 * 32 + 7]);
+        assertEquals(0, atlas.get(Sprite.BALL1).pixels[0]); // Keyed out
+
+        assertThrows(IllegalArgumentException.class, () -> new SpriteAtlas().load(new PImage(100, 100, PConstants.ARGB)));
+    }
+
+    @Test
+    public void testSpriteSheet() throws IOException {
+        SpriteAtlas atlas = new SpriteAtlas();
+        atlas.load(read("inkball_spritesheet"));
+        // Tiles, entrypoints, holes and walls are the same as the separate images
+        assertArrayEquals(read("tile").pixels, atlas.get(Sprite.TILE).pixels);
+        assertArrayEquals(read("entrypoint").pixels, atlas.get(Sprite.ENTRYPOINT).pixels);
+        assertArrayEquals(read("hole2").pixels, atlas.get(Sprite.HOLE2).pixels);
+        assertArrayEquals(read("wall4").pixels, atlas.get(Sprite.WALL4).pixels);
+
+        // Balls are transparent where the separate images are
+        PImage ball = read("ball1");
+        PImage cut = atlas.get(Sprite.BALL1);
+        for (int i = 0; i < ball.pixels.length; i++) {
+            assertEquals(ball.pixels[i] >>> 24 == 0, cut.pixels[i] >>> 24 == 0);
+        }
+    }
+}
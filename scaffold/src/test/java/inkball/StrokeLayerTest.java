@@ -0,0 +1,78 @@
+package inkball;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import processing.core.PConstants;
+import processing.core.PShape;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class StrokeLayerTest {
+    private App app;
+    private PShape group;
+
+    @BeforeEach
+    public void setUp() {
+        app = mock(App.class);
+        when(app.createShape()).thenAnswer(invocation -> mock(PShape.class));
+        group = mock(PShape.class);
+        when(app.createShape(PConstants.GROUP)).thenReturn(group);
+    }
+
+    private static ArrayList<Line> stroke(float[]... points) {
+        ArrayList<Line> stroke = new ArrayList<>();
+        for (int i = 1; i < points.length; i++) {
+            stroke.add(new Line(points[i - 1], points[i], 0, true));
+        }
+        return stroke;
+    }
+
+    @Test
+    public void testPolyline() {
+        ArrayList<Line> stroke = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            stroke.add(new Line(new float[] {i, i % 2}, new float[] {i + 1, (i + 1) % 2}, 0, true));
+        }
+        PShape shape = StrokeLayer.build(app, stroke);
+        verify(app, times(1)).createShape();
+        verify(shape, times(301)).vertex(anyFloat(), anyFloat());
+        verify(shape).endShape();
+        verify(shape).noFill();
+    }
+
+    @Test
+    public void testGaps() {
+        ArrayList<Line> stroke = stroke(new float[] {0, 0}, new float[] {10, 0});
+        stroke.addAll(stroke(new float[] {50, 50}, new float[] {60, 50}, new float[] {70, 60}));
+        assertSame(group, StrokeLayer.build(app, stroke));
+        verify(app, times(2)).createShape();
+        verify(group, times(2)).addChild(any(PShape.class));
+    }
+
+    @Test
+    public void testDraw() {
+        StrokeLayer layer = new StrokeLayer();
+        ArrayList<Line> first = stroke(new float[] {0, 0}, new float[] {10, 0}, new float[] {20, 5});
+        ArrayList<Line> second = stroke(new float[] {100, 100}, new float[] {110, 100});
+        PShape shape = layer.add(app, first);
+        ArrayList<ArrayList<Line>> strokes = new ArrayList<>(Arrays.asList(first, second));
+
+        // The second stroke did not come from the mouse, so its shape is built when it is first drawn
+        layer.draw(app, strokes);
+        layer.draw(app, strokes);
+        verify(app, times(2)).createShape();
+        verify(app, times(2)).shape(shape);
+        assertEquals(2, layer.size());
+
+        // A stroke removed by a ball is dropped on the next draw, one removed by the player at once
+        strokes.remove(second);
+        layer.draw(app, strokes);
+        assertEquals(1, layer.size());
+        layer.remove(first);
+        assertEquals(0, layer.size());
+    }
+}
@@ -0,0 +1,138 @@
+package inkball;
+
+import org.junit.jupiter.api.Test;
+import processing.data.JSONObject;
+
+import java.util.ArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StrokeSimplifierTest {
+
+    private static ArrayList<Line> stroke(float[][] points) {
+        ArrayList<Line> stroke = new ArrayList<>();
+        for (int i = 1; i < points.length; i++) {
+            stroke.add(new Line(points[i - 1], points[i], 0, true));
+        }
+        return stroke;
+    }
+
+    @Test
+    public void testStraight() {
+        // A slow, slightly shaky straight stroke of 200 segments
+        float[][] points = new float[201][];
+        for (int i = 0; i <= 200; i++) {
+            points[i] = new float[] {100 + i, 300 + (i % 3) * 0.4f};
+        }
+        ArrayList<Line> simplified = StrokeSimplifier.simplify(stroke(points), 1.5f);
+        assertEquals(1, simplified.size());
+        assertSame(points[0], simplified.get(0).getP1());
+        assertSame(points[200], simplified.get(0).getP2());
+        assertTrue(simplified.get(0).isDrawn);
+    }
+
+    @Test
+    public void testBounceDistance() {
+        // A ball heading straight at a simplified stroke bounces as far from it as from the stroke as drawn
+        float[][] points = new float[101][];
+        for (int i = 0; i <= 100; i++) {
+            points[i] = new float[] {100 + i * 3, 300 + (i % 2) * 0.5f};
+        }
+        ArrayList<Line> raw = stroke(points);
+        ArrayList<Line> simplified = StrokeSimplifier.simplify(raw, 1.5f);
+        assertEquals(1, simplified.size());
+        for (float x = 110; x < 400; x += 7.5f) {
+            assertEquals(bounceDistance(raw, x), bounceDistance(simplified, x), 1.5f + 0.25f);
+        }
+    }
+
+    @Test
+    public void testRawBounceDistance() {
+        // Without simplifying, a ball bounces off the middle of a drawn segment at the edge of its ellipse, as always
+        for (int length : new int[] {2, 10, 20}) {
+            float[][] points = new float[21][];
+            for (int i = 0; i <= 20; i++) {
+                points[i] = new float[] {100 + i * length, 300};
+            }
+            ArrayList<Line> raw = stroke(points);
+            assertSame(raw, StrokeSimplifier.simplify(raw, 0));
+            float x = 100 + 10.5f * length;
+            assertEquals(Ball.getContactDistance(length), bounceDistance(raw, x), 0.25f, "Segments of " + length);
+        }
+        assertEquals(5.916f, Ball.getContactDistance(2), 0.001f);
+        assertEquals(8.660f, Ball.getContactDistance(10), 0.001f);
+        assertEquals(11.180f, Ball.getContactDistance(20), 0.001f);
+
+        // A simplified segment keeps the contact distance of the drawn segments it replaces
+        float[][] points = {{0, 300}, {10, 300}, {20, 300}, {30, 300}};
+        ArrayList<Line> simplified = StrokeSimplifier.simplify(stroke(points), 1.5f);
+        assertEquals(1, simplified.size());
+        assertEquals(Ball.getContactDistance(10), simplified.get(0).getContactDistance(), 0.0001f);
+        assertEquals(bounceDistance(stroke(points), 15), bounceDistance(simplified, 15), 0.25f);
+    }
+
+    /**
+     * @return How far above y = 300 the centre of a ball moving straight down at x is when it first collides.
+     */
+    private static float bounceDistance(ArrayList<Line> stroke, float x) {
+        for (float y = 250; y < 300; y += 0.25f) {
+            for (Line line : stroke) {
+                if (Ball.willCollide(x, y, line, null)) {
+                    return 300 - y;
+                }
+            }
+        }
+        return 0;
+    }
+
+    @Test
+    public void testCorner() {
+        // An L shape keeps its corner, however many points each side has
+        float[][] points = new float[101][];
+        for (int i = 0; i <= 50; i++) {
+            points[i] = new float[] {100 + i * 2, 100};
+        }
+        for (int i = 1; i <= 50; i++) {
+            points[50 + i] = new float[] {200, 100 + i * 2};
+        }
+        ArrayList<Line> simplified = StrokeSimplifier.simplify(stroke(points), 1.5f);
+        assertEquals(2, simplified.size());
+        assertArrayEquals(new float[] {200, 100}, simplified.get(0).getP2());
+        assertSame(simplified.get(0).getP2(), simplified.get(1).getP1());
+
+        // A loop back to its start is not flattened into a point
+        float[][] loop = {{0, 0}, {10, 0}, {20, 0}, {20, 10}, {10, 10}, {0, 0}};
+        assertTrue(StrokeSimplifier.simplify(stroke(loop), 1.5f).size() >= 3);
+    }
+
+    @Test
+    public void testKeepsPoints() {
+        float[][] points = {{0, 0}, {1, 0}, {2, 0}};
+        ArrayList<Line> stroke = stroke(points);
+        assertSame(stroke, StrokeSimplifier.simplify(stroke, 0));
+        float[][] zigzag = {{0, 0}, {10, 10}, {20, 0}, {30, 10}};
+        ArrayList<Line> sharp = stroke(zigzag);
+        assertSame(sharp, StrokeSimplifier.simplify(sharp, 1.5f));
+
+        // Segments that do not join up are simplified separately
+        ArrayList<Line> gap = stroke(points);
+        gap.addAll(stroke(new float[][] {{50, 50}, {51, 50}, {52, 50}}));
+        ArrayList<Line> simplified = StrokeSimplifier.simplify(gap, 1.5f);
+        assertEquals(2, simplified.size());
+        assertArrayEquals(new float[] {50, 50}, simplified.get(1).getP1());
+    }
+
+    @Test
+    public void testDistanceToSegment() {
+        assertEquals(5, StrokeSimplifier.distanceToSegment(new float[] {5, 5}, new float[] {0, 0}, new float[] {10, 0}));
+        assertEquals(5, StrokeSimplifier.distanceToSegment(new float[] {-3, 4}, new float[] {0, 0}, new float[] {10, 0}));
+        assertEquals(5, StrokeSimplifier.distanceToSegment(new float[] {3, 4}, new float[] {0, 0}, new float[] {0, 0}));
+    }
+
+    @Test
+    public void testTolerance() {
+        assertEquals(4, App.readStrokeTolerance(JSONObject.parse("{\"stroke_tolerance\": 4}")));
+        assertEquals(App.DEFAULT_STROKE_TOLERANCE, App.readStrokeTolerance(JSONObject.parse("{}")));
+        assertEquals(App.DEFAULT_STROKE_TOLERANCE, App.readStrokeTolerance(null));
+    }
+}
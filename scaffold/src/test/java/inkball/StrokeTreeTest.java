@@ -0,0 +1,128 @@
+package inkball;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StrokeTreeTest {
+    private StrokeTree tree;
+
+    @BeforeEach
+    public void setUp() {
+        tree = new StrokeTree();
+    }
+
+    private static ArrayList<Line> makeStroke(float x, float y, int segments) {
+        ArrayList<Line> stroke = new ArrayList<>();
+        for (int i = 0; i < segments; i++) {
+            stroke.add(new Line(new float[] {x + 4 * i, y}, new float[] {x + 4 * (i + 1), y + 2}, 0, true));
+        }
+        return stroke;
+    }
+
+    @Test
+    public void testEmptyQuery() {
+        ArrayList<StrokeTree.Entry> out = new ArrayList<>();
+        tree.query(10, 10, 5, out);
+        assertTrue(out.isEmpty());
+        assertEquals(0, tree.getHeight());
+    }
+
+    @Test
+    public void testInsertAndRemove() {
+        ArrayList<Line> stroke = makeStroke(100, 100, 3);
+        tree.insertStroke(stroke);
+        tree.insertStroke(stroke); // Inserting twice is ignored
+        assertEquals(1, tree.getStrokeCount());
+
+        ArrayList<StrokeTree.Entry> out = new ArrayList<>();
+        tree.query(102, 100, 0, out);
+        assertFalse(out.isEmpty());
+        assertSame(stroke, out.get(0).getStroke());
+
+        assertTrue(tree.removeStroke(stroke));
+        assertFalse(tree.removeStroke(stroke));
+        out.clear();
+        tree.query(102, 100, 0, out);
+        assertTrue(out.isEmpty());
+    }
+
+    @Test
+    public void testRemoveByReference() {
+        ArrayList<Line> stroke = makeStroke(100, 100, 3);
+        ArrayList<Line> equalStroke = makeStroke(100, 100, 3);
+        tree.insertStroke(stroke);
+        assertFalse(tree.removeStroke(equalStroke));
+        assertEquals(1, tree.getStrokeCount());
+    }
+
+    @Test
+    public void testOrder() {
+        ArrayList<Line> first = makeStroke(100, 100, 2);
+        ArrayList<Line> second = makeStroke(100, 100, 2);
+        tree.insertStroke(first);
+        tree.insertStroke(second);
+
+        ArrayList<StrokeTree.Entry> out = new ArrayList<>();
+        tree.query(104, 101, 0, out);
+        StrokeTree.Entry latest = out.get(0);
+        for (StrokeTree.Entry entry : out) {
+            if (entry.getOrder() > latest.getOrder()) {
+                latest = entry;
+            }
+        }
+        assertSame(second, latest.getStroke());
+        assertSame(second.get(1), latest.getLine());
+    }
+
+    @Test
+    public void testCircleQuery() {
+        ArrayList<Line> stroke = makeStroke(100, 100, 1);
+        tree.insertStroke(stroke);
+        ArrayList<StrokeTree.Entry> out = new ArrayList<>();
+        tree.query(150, 100, 10, out);
+        assertTrue(out.isEmpty());
+        tree.query(150, 100, 50, out);
+        assertEquals(1, out.size());
+    }
+
+    @Test
+    public void testMatchesBruteForce() {
+        Random random = new Random(7);
+        ArrayList<ArrayList<Line>> strokes = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            ArrayList<Line> stroke = makeStroke(random.nextInt(App.WIDTH), App.TOPBAR + random.nextInt(App.HEIGHT - App.TOPBAR), 1 + random.nextInt(10));
+            strokes.add(stroke);
+            tree.insertStroke(stroke);
+        }
+        for (int i = 0; i < 100; i++) {
+            tree.removeStroke(strokes.remove(random.nextInt(strokes.size())));
+        }
+        assertTrue(tree.getHeight() < 30); // About 550 segments, so the tree must stay balanced
+
+        Ball ball = new Ball(0, 0, 0);
+        ArrayList<StrokeTree.Entry> out = new ArrayList<>();
+        for (int x = 0; x < App.WIDTH; x += 5) {
+            for (int y = App.TOPBAR; y < App.HEIGHT; y += 5) {
+                ball.setVector(new float[] {x - ball.getBallCenter()[0], y - ball.getBallCenter()[1]});
+                out.clear();
+                tree.query(x, y, 0, out);
+                for (ArrayList<Line> stroke : strokes) {
+                    for (Line line : stroke) {
+                        if (ball.willCollide(line) != null) {
+                            boolean found = false;
+                            for (StrokeTree.Entry entry : out) {
+                                found |= entry.getLine() == line;
+                            }
+                            assertTrue(found, "Missed line near " + x + ", " + y);
+                        }
+                    }
+                }
+            }
+        }
+    }
+}
@@ -59,7 +59,7 @@ public class WallTest {
         wall.damage(ball);
 
         App app = mock(App.class);
-        when(app.getSprite("wall1-damaged")).thenReturn(mock(PImage.class));
+        when(app.getSprite(Sprite.WALL1_DAMAGED)).thenReturn(mock(PImage.class));
         doNothing().when(app).image(any(PImage.class), anyInt(), anyInt(), anyInt(), anyInt());
         wall.draw(app);
     }
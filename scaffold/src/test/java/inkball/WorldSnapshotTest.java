@@ -0,0 +1,134 @@
+package inkball;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import processing.data.JSONObject;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class WorldSnapshotTest {
+    private JSONObject json;
+    private GameWorld world;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        json = JSONObject.parse(new String(Files.readAllBytes(Paths.get("config.json"))));
+        json.getJSONArray("levels").getJSONObject(0).setInt("spawn_interval", 1);
+        world = newWorld();
+        world.setSeed(7);
+    }
+
+    /**
+     * @return A world set up for level1.txt, like App::setup does.
+     */
+    private GameWorld newWorld() throws IOException {
+        GameWorld world = new GameWorld();
+        world.configure(json, 1);
+        world.createBoard((App.HEIGHT - App.TOPBAR) / App.CELLHEIGHT, App.WIDTH / App.CELLSIZE);
+        world.setLayout(LayoutParser.parse(new File("level1.txt")));
+        world.loadBallQueue(json, 1);
+        return world;
+    }
+
+    private static void play(GameWorld world, int ticks) {
+        for (int i = 0; i < ticks; i++) {
+            if (world.getTicks() % world.getTickRate() == 0) {
+                world.spawnBall();
+            }
+            world.step();
+        }
+    }
+
+    @Test
+    public void testRestore() throws IOException {
+        play(world, 300);
+        world.getWalls().get(5).setHP(2);
+        world.removeWall(world.getWalls().get(0));
+        world.getBalls().get(0).absorb();
+        world.addStroke(new ArrayList<>(Arrays.asList(
+                new Line(new float[] {100, 300}, new float[] {200, 320}, 0, true),
+                new Line(new float[] {200, 320}, new float[] {260, 300}, 3, true))));
+        world.getDrawnLines().get(0).get(0).setContactDistance(6.5f); // As if simplified
+        byte[] snapshot = WorldSnapshot.capture(world);
+
+        GameWorld restored = newWorld();
+        WorldSnapshot.restore(restored, new BinaryReader(snapshot));
+        assertArrayEquals(snapshot, WorldSnapshot.capture(restored));
+        assertEquals(world.getWalls().size(), restored.getWalls().size());
+        assertEquals(world.getLineSegments().size(), restored.getLineSegments().size());
+        assertEquals(1, restored.getDrawnLines().size());
+        assertEquals(6.5f, restored.getDrawnLines().get(0).get(0).getContactDistance());
+        assertEquals(0, restored.getDrawnLines().get(0).get(1).getContactDistance());
+        assertEquals(world.getBalls().size(), restored.getBalls().size());
+        assertEquals(world.getScore(), restored.getScore());
+        assertEquals(world.getTicks(), restored.getTicks());
+
+        // Both worlds continue the same way, including the spawners picked
+        play(world, 600);
+        play(restored, 600);
+        assertArrayEquals(WorldSnapshot.capture(world), WorldSnapshot.capture(restored));
+    }
+
+    @Test
+    public void testBrokenWalls() throws IOException {
+        // Breaking walls reorders getWalls(), but not the snapshot
+        world.removeWall(world.getWalls().get(1));
+        world.removeWall(world.getWalls().get(0));
+        world.removeWall(world.getWalls().get(world.getWalls().size() / 2));
+        byte[] snapshot = WorldSnapshot.capture(world);
+
+        GameWorld restored = newWorld();
+        WorldSnapshot.restore(restored, new BinaryReader(snapshot));
+        assertArrayEquals(snapshot, WorldSnapshot.capture(restored));
+        assertEquals(world.getWalls().size(), restored.getWalls().size());
+    }
+
+    @Test
+    public void testBallStore() throws IOException {
+        json.getJSONArray("levels").getJSONObject(0).setBoolean("ball_store", true);
+        GameWorld stored = new GameWorld();
+        stored.configure(json, 1);
+        stored.createBoard(18, 18);
+        stored.setLayout(new ArrayList<>());
+        stored.addBall(new Ball(100, 200, 2));
+        stored.step();
+        byte[] snapshot = WorldSnapshot.capture(stored);
+        assertEquals(1, stored.getBallStore().size());
+
+        GameWorld restored = new GameWorld();
+        restored.configure(json, 1);
+        restored.createBoard(18, 18);
+        restored.setLayout(new ArrayList<>());
+        WorldSnapshot.restore(restored, new BinaryReader(snapshot));
+        assertEquals(1, restored.getBallStore().size());
+        assertArrayEquals(snapshot, WorldSnapshot.capture(restored));
+    }
+
+    @Test
+    public void testRestoreErrors() throws IOException {
+        byte[] snapshot = WorldSnapshot.capture(world);
+
+        byte[] wrongVersion = snapshot.clone();
+        wrongVersion[0] = (byte) (WorldSnapshot.VERSION + 1);
+        assertThrows(IllegalArgumentException.class,
+                () -> WorldSnapshot.restore(newWorld(), new BinaryReader(wrongVersion)));
+
+        GameWorld drawn = newWorld();
+        drawn.addStroke(new ArrayList<>(Arrays.asList(new Line(new float[] {0, 0}, new float[] {5, 5}, 0, true))));
+        assertThrows(IllegalArgumentException.class, () -> WorldSnapshot.restore(drawn, new BinaryReader(snapshot)));
+
+        GameWorld otherLevel = new GameWorld(); // Borders only, missing the walls of level1.txt
+        otherLevel.configure(json, 1);
+        otherLevel.createBoard((App.HEIGHT - App.TOPBAR) / App.CELLHEIGHT, App.WIDTH / App.CELLSIZE);
+        otherLevel.setLayout(new ArrayList<>());
+        assertThrows(IllegalArgumentException.class,
+                () -> WorldSnapshot.restore(otherLevel, new BinaryReader(snapshot)));
+    }
+}